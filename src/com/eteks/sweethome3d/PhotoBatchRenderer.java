@@ -0,0 +1,444 @@
+/*
+ * PhotoBatchRenderer.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import com.eteks.sweethome3d.io.HomeFileRecorder;
+import com.eteks.sweethome3d.j3d.AbstractPhotoRenderer;
+import com.eteks.sweethome3d.j3d.PhotoRenderer;
+import com.eteks.sweethome3d.model.Camera;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.RecorderException;
+
+/**
+ * A renderer able to create without user interface the photos of the cameras stored in homes.
+ * Homes are rendered in parallel by a bounded pool of threads, each home being rendered
+ * only once the memory it's estimated to require is available under a given memory cap.
+ * This class may be launched from command line with the following arguments:
+ * <pre>java -Djava.awt.headless=true -cp SweetHome3D.jar com.eteks.sweethome3d.PhotoBatchRenderer
+ *      [-output folder] [-quality low|high] [-width pixels] [-height pixels] [-format png|jpg]
+ *      [-threads count] [-memory megabytes] [-summary file.csv] home.sh3d ...</pre>
+ * The photos of each home are written in the output folder, and the rendering time of each photo
+ * is written in a CSV summary file, <code>photos.csv</code> by default.<br>
+ * In headless mode, <code>j3d.rend</code> system property is set to <code>noop</code> if it's not set,
+ * which requires Java 3D 1.6 libraries in classpath.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class PhotoBatchRenderer {
+  private static final int HOME_MEMORY_FACTOR = 10;
+
+  private final File                          outputFolder;
+  private final AbstractPhotoRenderer.Quality quality;
+  private final int                           width;
+  private final int                           height;
+  private final String                        format;
+  private final int                           threadCount;
+  private final long                          memoryCap;
+
+  /**
+   * Creates a renderer of photos.
+   * @param outputFolder the folder where photos are written, created if it doesn't exist
+   * @param quality      the quality of the photos
+   * @param width        the width of the photos in pixels
+   * @param height       the height of the photos in pixels, ignored for fisheye or spherical cameras
+   * @param format       the format of the photos, <code>png</code> or <code>jpg</code>
+   * @param threadCount  the maximum count of homes rendered at the same time
+   * @param memoryCap    the maximum memory in bytes that homes rendered at the same time may require
+   */
+  public PhotoBatchRenderer(File outputFolder,
+                            AbstractPhotoRenderer.Quality quality,
+                            int width, int height,
+                            String format,
+                            int threadCount,
+                            long memoryCap) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid photo size " + width + "x" + height);
+    }
+    if (!"png".equalsIgnoreCase(format)
+        && !"jpg".equalsIgnoreCase(format)
+        && !"jpeg".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("Unsupported format " + format);
+    }
+    if (threadCount <= 0 || memoryCap <= 0) {
+      throw new IllegalArgumentException("Invalid thread count or memory cap");
+    }
+    this.outputFolder = outputFolder;
+    this.quality = quality;
+    this.width = width;
+    this.height = height;
+    this.format = format.toLowerCase(Locale.ENGLISH);
+    this.threadCount = threadCount;
+    this.memoryCap = memoryCap;
+  }
+
+  /**
+   * Renders the stored cameras of the given homes, or their current camera if they don't
+   * have any stored camera, and returns the rendered photos in the order of <code>homeNames</code>.
+   * The photos that couldn't be rendered are returned with their exception.
+   */
+  public List<Photo> renderHomes(List<String> homeNames) throws InterruptedException {
+    if (!this.outputFolder.exists()) {
+      this.outputFolder.mkdirs();
+    }
+    // Count memory in kilobytes to keep semaphore permits in int range
+    final int memoryPermits = (int)Math.min(Integer.MAX_VALUE, this.memoryCap >> 10);
+    final Semaphore memorySemaphore = new Semaphore(memoryPermits, true);
+    final List<List<Photo>> homePhotos = new ArrayList<List<Photo>>();
+    ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+    try {
+      for (final String homeName : homeNames) {
+        final List<Photo> photos = new ArrayList<Photo>();
+        homePhotos.add(photos);
+        executor.execute(new Runnable() {
+            public void run() {
+              try {
+                int permits = Math.max(1, (int)Math.min(memoryPermits, getEstimatedMemory(homeName) >> 10));
+                memorySemaphore.acquire(permits);
+                try {
+                  renderHome(homeName, photos);
+                } finally {
+                  memorySemaphore.release(permits);
+                }
+              } catch (InterruptedException ex) {
+                // Record home as not rendered
+                photos.add(new Photo(homeName, null, null, 0, 0, quality, 0, ex));
+              } catch (RuntimeException ex) {
+                photos.add(new Photo(homeName, null, null, 0, 0, quality, 0, ex));
+              }
+            }
+          });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    List<Photo> photos = new ArrayList<Photo>();
+    for (List<Photo> list : homePhotos) {
+      photos.addAll(list);
+    }
+    return photos;
+  }
+
+  /**
+   * Returns an estimation of the memory in bytes required to render the home
+   * stored in the file of the given name.
+   */
+  protected long getEstimatedMemory(String homeName) {
+    // Home content is uncompressed in memory and its 3D geometry copied by the renderer
+    return HOME_MEMORY_FACTOR * new File(homeName).length()
+        + 8L * this.width * Math.max(this.width, this.height);
+  }
+
+  /**
+   * Renders the photos of the home stored in the file of the given name and adds them to <code>photos</code>.
+   * If the home can't be read or rendered, a photo with the exception is added.
+   */
+  private void renderHome(String homeName, List<Photo> photos) {
+    AbstractPhotoRenderer renderer = null;
+    try {
+      Home home = new HomeFileRecorder(0, false, null, false, true).readHome(homeName);
+      // Use the same renderer for all the cameras to export home scene once
+      renderer = new PhotoRenderer(home, this.quality);
+      renderCameras(homeName, home, renderer, photos);
+    } catch (RecorderException ex) {
+      photos.add(new Photo(homeName, null, null, 0, 0, this.quality, 0, ex));
+    } catch (IOException ex) {
+      photos.add(new Photo(homeName, null, null, 0, 0, this.quality, 0, ex));
+    } catch (RuntimeException ex) {
+      photos.add(new Photo(homeName, null, null, 0, 0, this.quality, 0, ex));
+    } catch (Error ex) {
+      // Keep rendering other homes after an out of memory or Java 3D error
+      photos.add(new Photo(homeName, null, null, 0, 0, this.quality, 0, ex));
+    } finally {
+      if (renderer != null) {
+        renderer.dispose();
+      }
+    }
+  }
+
+  /**
+   * Renders with <code>renderer</code> the photos of the cameras of the given home
+   * and adds them to <code>photos</code>.
+   */
+  private void renderCameras(String homeName, Home home, AbstractPhotoRenderer renderer, List<Photo> photos) {
+    List<Camera> cameras = home.getStoredCameras();
+    if (cameras.isEmpty()) {
+      cameras = Collections.singletonList(home.getCamera());
+    }
+    String homeFileName = new File(homeName).getName();
+    int dotIndex = homeFileName.lastIndexOf('.');
+    if (dotIndex > 0) {
+      homeFileName = homeFileName.substring(0, dotIndex);
+    }
+    for (int i = 0; i < cameras.size(); i++) {
+      Camera camera = cameras.get(i);
+      String cameraName = camera.getName() != null
+          ? camera.getName()
+          : String.valueOf(i + 1);
+      File photoFile = new File(this.outputFolder, homeFileName + "-" + (i + 1)
+          + (camera.getName() != null ? "-" + camera.getName().replaceAll("[^\\w\\-]+", "_") : "")
+          + "." + this.format);
+      int photoHeight;
+      // Keep correct ratio if lens is fisheye or spherical
+      if (camera.getLens() == Camera.Lens.FISHEYE) {
+        photoHeight = this.width;
+      } else if (camera.getLens() == Camera.Lens.SPHERICAL) {
+        photoHeight = this.width / 2;
+      } else {
+        photoHeight = this.height;
+      }
+      long startTime = System.currentTimeMillis();
+      try {
+        BufferedImage image = new BufferedImage(this.width, photoHeight, BufferedImage.TYPE_INT_RGB);
+        renderer.render(image, camera, null);
+        long renderingTime = System.currentTimeMillis() - startTime;
+        if (!ImageIO.write(image, this.format, photoFile)) {
+          throw new IOException("No writer for format " + this.format);
+        }
+        photos.add(new Photo(homeName, cameraName, photoFile, this.width, photoHeight, this.quality, renderingTime, null));
+      } catch (IOException ex) {
+        photos.add(new Photo(homeName, cameraName, photoFile, this.width, photoHeight, this.quality,
+            System.currentTimeMillis() - startTime, ex));
+      } catch (RuntimeException ex) {
+        photos.add(new Photo(homeName, cameraName, photoFile, this.width, photoHeight, this.quality,
+            System.currentTimeMillis() - startTime, ex));
+      }
+    }
+  }
+
+  /**
+   * Writes in the given <code>file</code> a CSV summary of the rendered <code>photos</code>.
+   */
+  public static void writeSummary(List<Photo> photos, File file) throws IOException {
+    PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writer.println("home,camera,file,width,height,quality,time (ms),status");
+      for (Photo photo : photos) {
+        writer.println(toCsvField(photo.getHomeName())
+            + "," + toCsvField(photo.getCameraName())
+            + "," + toCsvField(photo.getFile() != null ? photo.getFile().getPath() : null)
+            + "," + photo.getWidth()
+            + "," + photo.getHeight()
+            + "," + photo.getQuality()
+            + "," + photo.getRenderingTime()
+            + "," + toCsvField(photo.getException() == null
+                ? "OK"
+                : photo.getException().toString()));
+      }
+    } finally {
+      writer.close();
+    }
+    if (writer.checkError()) {
+      throw new IOException("Can't write " + file);
+    }
+  }
+
+  /**
+   * Returns the given value quoted if needed for a CSV file.
+   */
+  private static String toCsvField(String value) {
+    if (value == null) {
+      return "";
+    } else if (value.indexOf(',') >= 0
+               || value.indexOf('"') >= 0
+               || value.indexOf('\n') >= 0) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    } else {
+      return value;
+    }
+  }
+
+  /**
+   * Renders the photos of the homes given in parameter.
+   */
+  public static void main(String [] args) throws InterruptedException, IOException {
+    if (GraphicsEnvironment.isHeadless()
+        && System.getProperty("j3d.rend") == null) {
+      // Let Java 3D create scene graphs without display
+      System.setProperty("j3d.rend", "noop");
+    }
+    File outputFolder = new File(".");
+    File summaryFile = null;
+    AbstractPhotoRenderer.Quality quality = AbstractPhotoRenderer.Quality.HIGH;
+    int width = 800;
+    int height = 600;
+    String format = "png";
+    int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    long memoryCap = Runtime.getRuntime().maxMemory() / 4 * 3;
+    List<String> homeNames = new ArrayList<String>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if ("-output".equals(args [i])) {
+          outputFolder = new File(args [++i]);
+        } else if ("-summary".equals(args [i])) {
+          summaryFile = new File(args [++i]);
+        } else if ("-quality".equals(args [i])) {
+          quality = AbstractPhotoRenderer.Quality.valueOf(args [++i].toUpperCase(Locale.ENGLISH));
+        } else if ("-width".equals(args [i])) {
+          width = Integer.parseInt(args [++i]);
+        } else if ("-height".equals(args [i])) {
+          height = Integer.parseInt(args [++i]);
+        } else if ("-format".equals(args [i])) {
+          format = args [++i];
+        } else if ("-threads".equals(args [i])) {
+          threadCount = Integer.parseInt(args [++i]);
+        } else if ("-memory".equals(args [i])) {
+          memoryCap = Long.parseLong(args [++i]) << 20;
+        } else {
+          homeNames.add(args [i]);
+        }
+      }
+      if (homeNames.isEmpty()) {
+        throw new IllegalArgumentException("No home");
+      }
+    } catch (RuntimeException ex) {
+      System.err.println("Usage: PhotoBatchRenderer [-output folder] [-quality low|high] [-width pixels] [-height pixels]"
+          + " [-format png|jpg] [-threads count] [-memory megabytes] [-summary file.csv] home.sh3d ...");
+      System.exit(1);
+    }
+    if (summaryFile == null) {
+      summaryFile = new File(outputFolder, "photos.csv");
+    }
+
+    long startTime = System.currentTimeMillis();
+    List<Photo> photos = new PhotoBatchRenderer(outputFolder, quality, width, height, format,
+        threadCount, memoryCap).renderHomes(homeNames);
+    long time = System.currentTimeMillis() - startTime;
+    int failedPhotos = 0;
+    for (Photo photo : photos) {
+      if (photo.getException() == null) {
+        System.out.println(photo.getFile() + " rendered in " + photo.getRenderingTime() + " ms");
+      } else {
+        System.err.println(photo.getHomeName()
+            + (photo.getCameraName() != null ? " " + photo.getCameraName() : "")
+            + " failed: " + photo.getException());
+        failedPhotos++;
+      }
+    }
+    writeSummary(photos, summaryFile);
+    System.out.println((photos.size() - failedPhotos) + " photos of " + homeNames.size()
+        + " homes rendered in " + time + " ms");
+    System.exit(failedPhotos == 0 ? 0 : 2);
+  }
+
+  /**
+   * A photo rendered by this batch renderer.
+   * @since 7.5
+   */
+  public static class Photo {
+    private final String                        homeName;
+    private final String                        cameraName;
+    private final File                          file;
+    private final int                           width;
+    private final int                           height;
+    private final AbstractPhotoRenderer.Quality quality;
+    private final long                          renderingTime;
+    private final Throwable                     exception;
+
+    public Photo(String homeName, String cameraName, File file,
+                 int width, int height, AbstractPhotoRenderer.Quality quality,
+                 long renderingTime, Throwable exception) {
+      this.homeName = homeName;
+      this.cameraName = cameraName;
+      this.file = file;
+      this.width = width;
+      this.height = height;
+      this.quality = quality;
+      this.renderingTime = renderingTime;
+      this.exception = exception;
+    }
+
+    /**
+     * Returns the name of the home of this photo.
+     */
+    public String getHomeName() {
+      return this.homeName;
+    }
+
+    /**
+     * Returns the name of the camera of this photo or <code>null</code> if the home couldn't be read.
+     */
+    public String getCameraName() {
+      return this.cameraName;
+    }
+
+    /**
+     * Returns the file of this photo.
+     */
+    public File getFile() {
+      return this.file;
+    }
+
+    /**
+     * Returns the width of this photo.
+     */
+    public int getWidth() {
+      return this.width;
+    }
+
+    /**
+     * Returns the height of this photo.
+     */
+    public int getHeight() {
+      return this.height;
+    }
+
+    /**
+     * Returns the quality of this photo.
+     */
+    public AbstractPhotoRenderer.Quality getQuality() {
+      return this.quality;
+    }
+
+    /**
+     * Returns the time in milliseconds spent to render this photo.
+     */
+    public long getRenderingTime() {
+      return this.renderingTime;
+    }
+
+    /**
+     * Returns the exception that prevented to render this photo or <code>null</code>.
+     */
+    public Throwable getException() {
+      return this.exception;
+    }
+  }
+}
@@ -77,11 +77,17 @@ import javax.swing.border.Border;
 import javax.swing.plaf.basic.BasicSplitPaneDivider;
 
 import com.eteks.sweethome3d.io.AutoRecoveryManager;
+import com.eteks.sweethome3d.io.ContentDigestManager;
 import com.eteks.sweethome3d.io.FileUserPreferences;
 import com.eteks.sweethome3d.io.HomeFileRecorder;
 import com.eteks.sweethome3d.j3d.Component3DManager;
+import com.eteks.sweethome3d.j3d.ModelCache;
+import com.eteks.sweethome3d.j3d.ModelManager;
+import com.eteks.sweethome3d.j3d.TextureCache;
+import com.eteks.sweethome3d.j3d.TextureManager;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
+import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.model.Home;
 import com.eteks.sweethome3d.model.HomeApplication;
 import com.eteks.sweethome3d.model.ObjectProperty;
@@ -157,7 +163,21 @@ import com.eteks.sweethome3d.viewcontroller.ViewFactory;
  * {@linkplain com.sun.j3d.loaders.Loader loader} classes that Sweet Home 3D will use to read 3D models content
  * at formats not supported by default in Sweet Home 3D.<br>
  * The classes cited in this property must be available in the classpath and if more than one class is
- * cited, they should be separated by a colon or a space.</li></ul>
+ * cited, they should be separated by a colon or a space.</li>
+ *
+ * <li><code>com.eteks.sweethome3d.j3d.modelCacheSize</code> defines the maximum size in MB of the cache
+ * where parsed 3D models are stored in a subfolder named <code>models</code> of the first application folder,
+ * to avoid parsing them again at next launches. Setting this System property to <code>0</code> disables this cache.
+ * Its default value is 256.</li>
+ *
+ * <li><code>com.eteks.sweethome3d.j3d.textureCacheSize</code> defines the maximum size in MB of the cache
+ * where the mipmap levels of textures are stored in a subfolder named <code>textureMipmaps</code> of the
+ * first application folder, to avoid decoding and scaling texture images again at next launches.
+ * Setting this System property to <code>0</code> disables this cache. Its default value is 512.</li>
+ *
+ * <li><code>com.eteks.sweethome3d.j3d.textureMaximumSize</code> defines the maximum width and height
+ * in pixels of the textures displayed in 3D view. Larger images are scaled down.
+ * Setting this System property to <code>0</code> disables this limit. Its default value is 2048.</li></ul>
  *
  * <p>The value of a System property can be set with the -D
  * <a href="http://download.oracle.com/javase/6/docs/technotes/tools/windows/java.html">java</a> option.
@@ -167,6 +187,11 @@ public class SweetHome3D extends HomeApplication {
   private static final String     PREFERENCES_FOLDER             = "com.eteks.sweethome3d.preferencesFolder";
   private static final String     APPLICATION_FOLDERS            = "com.eteks.sweethome3d.applicationFolders";
   private static final String     APPLICATION_PLUGINS_SUB_FOLDER = "plugins";
+  private static final String     MODEL_CACHE_SIZE               = "com.eteks.sweethome3d.j3d.modelCacheSize";
+  private static final String     MODELS_CACHE_SUB_FOLDER        = "models";
+  private static final String     TEXTURE_CACHE_SIZE             = "com.eteks.sweethome3d.j3d.textureCacheSize";
+  private static final String     TEXTURES_CACHE_SUB_FOLDER      = "textureMipmaps";
+  private static final String     CONTENT_DIGESTS_INDEX_FILE     = "contentDigests.properties";
 
   private HomeRecorder            homeRecorder;
   private HomeRecorder            compressedHomeRecorder;
@@ -196,7 +221,7 @@ public class SweetHome3D extends HomeApplication {
   public HomeRecorder getHomeRecorder() {
     // Initialize homeRecorder lazily
     if (this.homeRecorder == null) {
-      this.homeRecorder = new HomeFileRecorder(0, false, getUserPreferences(), false, true, true);
+      this.homeRecorder = new HomeFileRecorder(0, false, getUserPreferences(), false, true, true, true);
     }
     return this.homeRecorder;
   }
@@ -206,7 +231,7 @@ public class SweetHome3D extends HomeApplication {
     if (type == HomeRecorder.Type.COMPRESSED) {
       // Initialize compressedHomeRecorder lazily
       if (this.compressedHomeRecorder == null) {
-        this.compressedHomeRecorder = new HomeFileRecorder(9, false, getUserPreferences(), false, true, true);
+        this.compressedHomeRecorder = new HomeFileRecorder(9, false, getUserPreferences(), false, true, true, true);
       }
       return this.compressedHomeRecorder;
     } else {
@@ -487,6 +512,9 @@ public class SweetHome3D extends HomeApplication {
     addComponent3DRenderingErrorObserver();
 
     getUserPreferences();
+    setModelCache();
+    setTextureCache();
+    setContentDigestIndex();
     try {
       // Set User Agent to follow statistics on used operating systems
       System.setProperty("http.agent", getId() + "/" + getVersion()
@@ -690,6 +718,83 @@ public class SweetHome3D extends HomeApplication {
     }
   }
 
+  /**
+   * Sets the cache where parsed 3D models are stored in application folder.
+   */
+  private void setModelCache() {
+    if (!Boolean.getBoolean("com.eteks.sweethome3d.no3D")) {
+      try {
+        long modelCacheSize = Long.parseLong(System.getProperty(MODEL_CACHE_SIZE, "256")) << 20;
+        if (modelCacheSize > 0) {
+          UserPreferences userPreferences = getUserPreferences();
+          File applicationFolder = userPreferences instanceof FileUserPreferences
+              ? ((FileUserPreferences)userPreferences).getApplicationFolder()
+              : OperatingSystem.getDefaultApplicationFolder();
+          ModelManager.getInstance().setModelCache(
+              new ModelCache(new File(applicationFolder, MODELS_CACHE_SUB_FOLDER), modelCacheSize) {
+                @Override
+                protected byte [] getContentDigest(Content content) {
+                  return ContentDigestManager.getInstance().getContentDigest(content);
+                }
+              });
+        }
+      } catch (NumberFormatException ex) {
+        System.err.println("Invalid value for " + MODEL_CACHE_SIZE + " property");
+      } catch (IOException ex) {
+        // Parse models without cache
+      } catch (AccessControlException ex) {
+        // Parse models without cache
+      }
+    }
+  }
+
+  /**
+   * Sets the cache where the mipmap levels of textures are stored in application folder.
+   */
+  private void setTextureCache() {
+    if (!Boolean.getBoolean("com.eteks.sweethome3d.no3D")) {
+      try {
+        long textureCacheSize = Long.parseLong(System.getProperty(TEXTURE_CACHE_SIZE, "512")) << 20;
+        if (textureCacheSize > 0) {
+          UserPreferences userPreferences = getUserPreferences();
+          File applicationFolder = userPreferences instanceof FileUserPreferences
+              ? ((FileUserPreferences)userPreferences).getApplicationFolder()
+              : OperatingSystem.getDefaultApplicationFolder();
+          TextureManager.getInstance().setTextureCache(
+              new TextureCache(new File(applicationFolder, TEXTURES_CACHE_SUB_FOLDER), textureCacheSize) {
+                @Override
+                protected byte [] getContentDigest(Content content) {
+                  return ContentDigestManager.getInstance().getContentDigest(content);
+                }
+              });
+        }
+      } catch (NumberFormatException ex) {
+        System.err.println("Invalid value for " + TEXTURE_CACHE_SIZE + " property");
+      } catch (IOException ex) {
+        // Build textures without cache
+      } catch (AccessControlException ex) {
+        // Build textures without cache
+      }
+    }
+  }
+
+  /**
+   * Sets the file where the digests of content files are indexed in application folder.
+   */
+  private void setContentDigestIndex() {
+    try {
+      UserPreferences userPreferences = getUserPreferences();
+      File applicationFolder = userPreferences instanceof FileUserPreferences
+          ? ((FileUserPreferences)userPreferences).getApplicationFolder()
+          : OperatingSystem.getDefaultApplicationFolder();
+      ContentDigestManager.getInstance().setDigestIndexFile(new File(applicationFolder, CONTENT_DIGESTS_INDEX_FILE));
+    } catch (IOException ex) {
+      // Compute digests without index
+    } catch (AccessControlException ex) {
+      // Compute digests without index
+    }
+  }
+
   /**
    * Displays a message to user about a 3D error, saves modified homes and
    * forces exit.
@@ -108,6 +108,7 @@ public class AppletApplication extends HomeApplication {
   private static final String HOME_MAXIMUM_LENGTH                    = "homeMaximumLength";
   private static final String READ_HOME_URL_PARAMETER                = "readHomeURL";
   private static final String DELETE_HOME_URL_PARAMETER              = "deleteHomeURL";
+  private static final String MISSING_CONTENT_URL_PARAMETER          = "missingContentURL";
   private static final String LIST_HOMES_URL_PARAMETER               = "listHomesURL";
   private static final String READ_PREFERENCES_URL_PARAMETER         = "readPreferencesURL";
   private static final String WRITE_PREFERENCES_URL_PARAMETER        = "writePreferencesURL";
@@ -615,11 +616,13 @@ public class AppletApplication extends HomeApplication {
       final String readHomeURL = getAppletParameter(this.applet, READ_HOME_URL_PARAMETER, "readHome.php?home=%s");
       final String listHomesURL = getAppletParameter(this.applet, LIST_HOMES_URL_PARAMETER, "listHomes.php");
       final String deleteHomeURL = getAppletParameter(this.applet, DELETE_HOME_URL_PARAMETER, "");
+      final String missingContentURL = getAppletParameter(this.applet, MISSING_CONTENT_URL_PARAMETER, "");
       final boolean homeXmlEntryPreferred = getAppletBooleanParameter(this.applet, HOME_XML_ENTRY_PREFERRED);
       this.homeRecorder =  new HomeAppletRecorder(getURLStringWithCodeBase(codeBase, writeHomeURL),
           getURLStringWithCodeBase(codeBase, readHomeURL),
           getURLStringWithCodeBase(codeBase, listHomesURL),
           getURLStringWithCodeBase(codeBase, deleteHomeURL),
+          getURLStringWithCodeBase(codeBase, missingContentURL),
           ContentRecording.INCLUDE_TEMPORARY_CONTENT,
           homeXmlEntryPreferred ? new HomeXMLHandler() : null,
           homeXmlEntryPreferred ? new HomeXMLExporter() : null);
@@ -19,17 +19,23 @@
  */
 package com.eteks.sweethome3d.applet;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import com.eteks.sweethome3d.io.ContentRecording;
 import com.eteks.sweethome3d.io.DefaultHomeInputStream;
@@ -43,13 +49,23 @@ import com.eteks.sweethome3d.model.RecorderException;
 
 /**
  * Recorder that stores homes on a HTTP server.
+ * Homes are posted in a multipart request streamed in chunks, without being buffered in memory.
+ * If a service able to list missing content is available, its URL receives in a POST request
+ * the Base64 encoded SHA-1 digests of the content of a home, one per line, and should return
+ * the digests of the content that server doesn't store yet, one per line. The content already
+ * stored on server isn't included in the posted home, and its digests are listed
+ * in a <code>storedContentDigests</code> part of the request. The write service is then
+ * responsible for rebuilding the missing entries from the <code>ContentDigests</code> entry of home.
  * @author Emmanuel Puybaret
  */
 public class HomeAppletRecorder implements HomeRecorder {
+  private static final int       CHUNK_LENGTH = 65536;
+
   private final String           writeHomeURL;
   private final String           readHomeURL;
   private final String           listHomesURL;
   private final String           deleteHomeURL;
+  private final String           missingContentURL;
   private final ContentRecording contentRecording;
   private long                   availableHomesCacheTime;
   private String []              availableHomesCache;
@@ -117,10 +133,29 @@ public class HomeAppletRecorder implements HomeRecorder {
                             ContentRecording contentRecording,
                             HomeXMLHandler  xmlHandler,
                             HomeXMLExporter xmlExporter) {
+    this(writeHomeURL, readHomeURL, listHomesURL, deleteHomeURL, null, contentRecording, xmlHandler, xmlExporter);
+  }
+
+  /**
+   * Creates a recorder that will use the URLs in parameter to write, read, list and delete homes.
+   * If <code>missingContentURL</code> is not <code>null</code>, this recorder will upload
+   * only the content of a home that the server doesn't store yet.
+   * @see SweetHome3DApplet
+   * @since 7.5
+   */
+  public HomeAppletRecorder(String writeHomeURL,
+                            String readHomeURL,
+                            String listHomesURL,
+                            String deleteHomeURL,
+                            String missingContentURL,
+                            ContentRecording contentRecording,
+                            HomeXMLHandler  xmlHandler,
+                            HomeXMLExporter xmlExporter) {
     this.writeHomeURL = writeHomeURL;
     this.readHomeURL = readHomeURL;
     this.listHomesURL = listHomesURL;
     this.deleteHomeURL = deleteHomeURL;
+    this.missingContentURL = missingContentURL;
     this.contentRecording = contentRecording;
     this.xmlHandler = xmlHandler;
     this.xmlExporter = xmlExporter;
@@ -133,6 +168,7 @@ public class HomeAppletRecorder implements HomeRecorder {
   public void writeHome(Home home, String name) throws RecorderException {
     HttpURLConnection connection = null;
     try {
+      Set<String> storedContentDigests = getStoredContentDigests(home);
       // Open a stream to server
       connection = (HttpURLConnection)new URL(this.writeHomeURL).openConnection();
       connection.setRequestMethod("POST");
@@ -141,15 +177,27 @@ public class HomeAppletRecorder implements HomeRecorder {
       connection.setDoOutput(true);
       connection.setDoInput(true);
       connection.setUseCaches(false);
+      // Send data as it's written to avoid buffering the whole home in memory
+      connection.setChunkedStreamingMode(CHUNK_LENGTH);
 
-      // Post home part
       OutputStream out = connection.getOutputStream();
+      if (!storedContentDigests.isEmpty()) {
+        // Post the digests of the content missing in home part
+        out.write(("--" + multiPartBoundary + "\r\n").getBytes("UTF-8"));
+        out.write(("Content-Disposition: form-data; name=\"storedContentDigests\"\r\n\r\n").getBytes("UTF-8"));
+        for (String contentDigest : storedContentDigests) {
+          out.write((contentDigest + "\n").getBytes("UTF-8"));
+        }
+        out.write("\r\n".getBytes("UTF-8"));
+      }
+      // Post home part
       out.write(("--" + multiPartBoundary + "\r\n").getBytes("UTF-8"));
       out.write(("Content-Disposition: form-data; name=\"home\"; filename=\""
           + name.replace('\"', '\'') + "\"\r\n").getBytes("UTF-8"));
       out.write(("Content-Type: application/octet-stream\r\n\r\n").getBytes("UTF-8"));
       out.flush();
       DefaultHomeOutputStream homeOut = createHomeOutputStream(out);
+      homeOut.setExcludedContentDigests(storedContentDigests);
       // Write home with HomeOuputStream
       homeOut.writeHome(home);
       homeOut.flush();
@@ -178,6 +226,56 @@ public class HomeAppletRecorder implements HomeRecorder {
     }
   }
 
+  /**
+   * Returns the digests of the content of <code>home</code> already stored on server,
+   * or an empty set if the server can't tell which content it stores.
+   */
+  private Set<String> getStoredContentDigests(Home home) throws IOException {
+    Set<String> storedContentDigests = new HashSet<String>();
+    if (this.missingContentURL != null) {
+      // Get the digests of the content that will be saved, ignoring home data
+      List<String> contentDigests = createHomeOutputStream(new LengthOutputStream()).getContentDigests(home);
+      if (!contentDigests.isEmpty()) {
+        HttpURLConnection connection = null;
+        try {
+          connection = (HttpURLConnection)new URL(this.missingContentURL).openConnection();
+          connection.setRequestMethod("POST");
+          connection.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+          connection.setDoOutput(true);
+          connection.setDoInput(true);
+          connection.setUseCaches(false);
+          connection.setChunkedStreamingMode(CHUNK_LENGTH);
+          Writer writer = new OutputStreamWriter(connection.getOutputStream(), "UTF-8");
+          for (String contentDigest : contentDigests) {
+            writer.write(contentDigest + "\n");
+          }
+          writer.close();
+
+          // Read the digests of missing content
+          if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+            Set<String> missingContentDigests = new HashSet<String>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+            for (String line; (line = reader.readLine()) != null; ) {
+              missingContentDigests.add(line.trim());
+            }
+            reader.close();
+            storedContentDigests.addAll(contentDigests);
+            storedContentDigests.removeAll(missingContentDigests);
+          }
+        } catch (InterruptedIOException ex) {
+          throw ex;
+        } catch (IOException ex) {
+          // Upload all the content if server can't list missing content
+        } finally {
+          if (connection != null) {
+            connection.disconnect();
+          }
+        }
+      }
+    }
+    return storedContentDigests;
+  }
+
   /**
    * Returns the filter output stream used to write a home in the output stream in parameter.
    */
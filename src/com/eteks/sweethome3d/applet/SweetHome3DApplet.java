@@ -127,6 +127,17 @@ import com.eteks.sweethome3d.tools.ExtensionsClassLoader;
  *     If it's not an absolute URL it will be considered as relative to applet codebase.
  *     This service is available to the user if <code>listHomesURL</code> is defined.</li>
  *
+ *     <li><code>missingContentURL</code> specifies the URL of the HTTP service able
+ *     to return which content of a saved home the server doesn't store yet. The Base64 encoded
+ *     SHA-1 digests of the content of the saved home are posted to this service, one per line,
+ *     and it must return the digests of the content it doesn't store, one per line.
+ *     The content already stored isn't uploaded with home, and its digests are listed
+ *     in the parameter named <code>storedContentDigests</code> of the request sent
+ *     to the write home service, that must rebuild the matching entries from the digests
+ *     listed in <code>ContentDigests</code> entry of home.
+ *     <br>By default, this service doesn't exist and all the content of a home is uploaded.
+ *     If it's not an absolute URL it will be considered as relative to applet codebase.</li>
+ *
  *     <li><code>defaultHome</code> specifies the home that will be opened at applet launch
  *     with <code>readHomeURL</code> service.
  *     <br>Omit this parameter or let its value empty, if no home should be opened.
@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
@@ -56,7 +57,10 @@ import com.eteks.sweethome3d.tools.OperatingSystem;
  * Manager able to automatically save open homes in recovery folder with a timer.
  * The delay between two automatic save operations is specified by 
  * {@link UserPreferences#getAutoSaveDelayForRecovery() auto save delay for recovery}
- * property.
+ * property.<br>
+ * Between two complete saves of a home, its changes are appended to a
+ * {@link HomeRecoveryJournal journal} stored beside its recovered file, unless
+ * <code>com.eteks.sweethome3d.recoveryJournalEnabled</code> system property is <code>false</code>.
  * @author Emmanuel Puybaret
  */
 public class AutoRecoveryManager {
@@ -71,6 +75,9 @@ public class AutoRecoveryManager {
   // only in autoSaveForRecoveryExecutor single thread executor
   private final Map<Home, File>             autoSavedFiles      = new HashMap<Home, File>();
   private final Map<File, FileOutputStream> lockedOutputStreams = new HashMap<File, FileOutputStream>();
+  // The journals of homes are handled only in Event Dispatch Thread
+  private final Map<Home, HomeRecoveryJournal> journals         = new IdentityHashMap<Home, HomeRecoveryJournal>();
+  private final boolean                     journalEnabled;
   private final ExecutorService             autoSaveForRecoveryExecutor;
   private Timer                             timer;
   private long                              lastAutoSaveTime;
@@ -82,6 +89,7 @@ public class AutoRecoveryManager {
    */
   public AutoRecoveryManager(HomeApplication application) throws RecorderException {
     this.application = application;
+    this.journalEnabled = Boolean.parseBoolean(System.getProperty("com.eteks.sweethome3d.recoveryJournalEnabled", "true"));
     this.autoSaveForRecoveryExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
         public Thread newThread(Runnable runnable) {
           Thread thread = new Thread(runnable);
@@ -105,9 +113,16 @@ public class AutoRecoveryManager {
         public void collectionChanged(CollectionEvent<Home> ev) {
           if (ev.getType() == CollectionEvent.Type.DELETE) {
             final Home home = ev.getItem();
+            final HomeRecoveryJournal journal = journals.remove(home);
+            if (journal != null) {
+              journal.dispose();
+            }
             autoSaveForRecoveryExecutor.submit(new Runnable() {
                 public void run() {
                   try {
+                    if (journal != null) {
+                      journal.deleteJournal();
+                    }
                     final File homeFile = autoSavedFiles.get(home);
                     if (homeFile != null) {
                       freeLockedFile(homeFile);
@@ -155,7 +170,16 @@ public class AutoRecoveryManager {
       for (final File file : recoveredFiles) {
         if (!isFileLocked(file)) {
           try {
-            final Home home = this.application.getHomeRecorder().readHome(file.getPath());
+            final File journalFile = HomeRecoveryJournal.getJournalFile(file);
+            Home snapshotHome = this.application.getHomeRecorder().readHome(file.getPath());
+            Home replayedHome = snapshotHome;
+            try {
+              // Apply changes recorded since home was saved
+              replayedHome = HomeRecoveryJournal.replayJournal(snapshotHome, file);
+            } catch (IOException ex) {
+              ex.printStackTrace();
+            }
+            final Home home = replayedHome;
             // Recovered homes are the ones with a name different from the file path 
             if (home.getName() == null 
                 || !file.equals(new File(home.getName()))) {
@@ -165,6 +189,7 @@ public class AutoRecoveryManager {
                   public void propertyChange(PropertyChangeEvent evt) {
                     if (!home.isRecovered()) {
                       file.delete();
+                      journalFile.delete();
                     }
                   }
                 });
@@ -175,6 +200,7 @@ public class AutoRecoveryManager {
             // Rename file to avoid it to be read again at next launch
             file.renameTo(new File(recoveryFolder, 
                 file.getName().replace(RECOVERED_FILE_EXTENSION, UNRECOVERABLE_FILE_EXTENSION)));
+            HomeRecoveryJournal.getJournalFile(file).delete();
           }
         }
       }
@@ -252,7 +278,8 @@ public class AutoRecoveryManager {
   }
 
   /**
-   * Clones application homes and saves them in automatic save executor.
+   * Clones application homes and saves them in automatic save executor,
+   * or records their changes in their journal when possible.
    */
   private void cloneAndSaveHomes() {
     try {
@@ -260,13 +287,40 @@ public class AutoRecoveryManager {
           public void run() {
             // Handle and clone application homes in Event Dispatch Thread
             for (final Home home : application.getHomes()) {
+              HomeRecoveryJournal journal = null;
+              if (journalEnabled) {
+                journal = journals.get(home);
+                if (journal == null) {
+                  journal = new HomeRecoveryJournal(home);
+                  journals.put(home, journal);
+                } else if (home.isModified()
+                           && !journal.isSnapshotRequired()) {
+                  final HomeRecoveryJournal homeJournal = journal;
+                  final HomeRecoveryJournal.Record record = journal.recordChanges();
+                  if (!journal.isSnapshotRequired()) {
+                    if (record != null) {
+                      autoSaveForRecoveryExecutor.submit(new Runnable() {
+                          public void run() {
+                            // Append home changes to its journal in an other thread
+                            homeJournal.writeRecord(record);
+                          }
+                        });
+                    }
+                    continue;
+                  }
+                }
+              }
               final Home autoSavedHome = home.clone();
+              if (journal != null) {
+                journal.resetChanges();
+              }
+              final HomeRecoveryJournal autoSavedHomeJournal = journal;
               final HomeRecorder homeRecorder = application.getHomeRecorder();
               autoSaveForRecoveryExecutor.submit(new Runnable() {
                 public void run() {
                   try {
                     // Save home clone in an other thread
-                    saveHome(home, autoSavedHome, homeRecorder);
+                    saveHome(home, autoSavedHome, homeRecorder, autoSavedHomeJournal);
                   } catch (RecorderException ex) {
                     ex.printStackTrace();
                   }
@@ -283,10 +337,11 @@ public class AutoRecoveryManager {
   }
 
   /**
-   * Saves the given <code>home</code> in recovery folder.
+   * Saves the given <code>home</code> in recovery folder and starts its <code>journal</code> if not <code>null</code>.
    * Must be run only from auto save thread.
    */
-  private void saveHome(Home home, Home autoSavedHome, HomeRecorder homeRecorder) throws RecorderException {
+  private void saveHome(Home home, Home autoSavedHome, HomeRecorder homeRecorder,
+                        HomeRecoveryJournal journal) throws RecorderException {
     File autoSavedHomeFile = this.autoSavedFiles.get(home);
     if (autoSavedHomeFile == null) {
       File recoveredFilesFolder = getRecoveryFolder();
@@ -309,6 +364,9 @@ public class AutoRecoveryManager {
       }
     }
     freeLockedFile(autoSavedHomeFile);        
+    if (journal != null) {
+      journal.deleteJournal();
+    }
     if (autoSavedHome.isModified()) {
       this.autoSavedFiles.put(home, autoSavedHomeFile);
       try {
@@ -332,6 +390,9 @@ public class AutoRecoveryManager {
           }
           throw new RecorderException("Can't lock saved home", ex);            
         }
+        if (journal != null) {
+          journal.startJournal(autoSavedHomeFile);
+        }
       } catch (InterruptedRecorderException ex) {
         // Forget exception that probably happen because of shutdown hook management
       } 
@@ -19,9 +19,14 @@
  */
 package com.eteks.sweethome3d.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -31,9 +36,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
@@ -41,10 +51,16 @@ import java.util.zip.ZipInputStream;
 import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.tools.ResourceURLContent;
 import com.eteks.sweethome3d.tools.SimpleURLContent;
+import com.eteks.sweethome3d.tools.TemporaryURLContent;
 import com.eteks.sweethome3d.tools.URLContent;
 
 /**
  * Manager able to store and compute content digest to compare content data faster.
+ * Digests of different contents may be computed in parallel by different threads,
+ * whereas threads requesting the digest of a content being computed wait for its result.
+ * The digests of contents stored in local files may be kept in an
+ * {@linkplain #setDigestIndexFile(File) index file} to avoid computing them again
+ * at next launches.
  * @author Emmanuel Puybaret
  */
 public class ContentDigestManager {
@@ -53,15 +69,25 @@ public class ContentDigestManager {
 
   private static ContentDigestManager instance;
 
+  // Caches and tasks are accessed only in blocks synchronized on this manager
   private Map<Content, byte []>  contentDigestsCache;
+  private Map<Content, FutureTask<byte []>> contentDigestTasks;
 
   private Map<URLContent, URL>   zipUrlsCache;
   private Map<URL, List<ZipEntryData>> zipUrlEntriesCache;
+  private Map<URL, FutureTask<List<ZipEntryData>>> zipUrlEntriesTasks;
+
+  private final Properties       digestIndex;
+  private volatile File          digestIndexFile;
+  private volatile boolean       digestIndexModified;
 
   private ContentDigestManager() {
     this.contentDigestsCache = new WeakHashMap<Content, byte[]>();
+    this.contentDigestTasks = new HashMap<Content, FutureTask<byte[]>>();
     this.zipUrlsCache = new WeakHashMap<URLContent, URL>();
     this.zipUrlEntriesCache = new WeakHashMap<URL, List<ZipEntryData>>();
+    this.zipUrlEntriesTasks = new HashMap<URL, FutureTask<List<ZipEntryData>>>();
+    this.digestIndex = new Properties();
   }
 
   /**
@@ -117,35 +143,275 @@ public class ContentDigestManager {
    * Returns the SHA-1 digest of the given <code>content</code>, computing it
    * if it wasn't set.
    */
-  public synchronized byte [] getContentDigest(Content content) {
-    byte [] digest = this.contentDigestsCache.get(content);
-    if (digest == null) {
+  public byte [] getContentDigest(final Content content) {
+    FutureTask<byte []> digestTask;
+    boolean digestComputedInThisThread = false;
+    synchronized (this) {
+      byte [] digest = this.contentDigestsCache.get(content);
+      if (digest != null) {
+        return digest;
+      }
+      // Share the digest computed by an other thread if it exists
+      digestTask = this.contentDigestTasks.get(content);
+      if (digestTask == null) {
+        digestTask = new FutureTask<byte[]>(new Callable<byte []>() {
+            public byte [] call() {
+              return computeContentDigestOrIndexedDigest(content);
+            }
+          });
+        this.contentDigestTasks.put(content, digestTask);
+        digestComputedInThisThread = true;
+      }
+    }
+
+    if (digestComputedInThisThread) {
       try {
-        if (content instanceof ResourceURLContent) {
-          digest = getResourceContentDigest((ResourceURLContent)content);
-        } else if (content instanceof URLContent
-                   && !(content instanceof SimpleURLContent)
-                   && ((URLContent)content).isJAREntry()) {
-          URLContent urlContent = (URLContent)content;
-          // If content comes from a home stream
-          if (urlContent instanceof HomeURLContent) {
-            digest = getHomeContentDigest((HomeURLContent)urlContent);
-          } else {
-            digest = getZipContentDigest(urlContent);
-          }
-        } else {
-          digest = computeContentDigest(content);
+        // Compute digest out of synchronized block to let other threads compute other digests
+        digestTask.run();
+        byte [] digest = getTaskResult(digestTask);
+        synchronized (this) {
+          this.contentDigestsCache.put(content, digest);
         }
-      } catch (NoSuchAlgorithmException ex) {
-        throw new InternalError("No SHA-1 message digest is available");
+        return digest;
       } catch (IOException ex) {
-        digest = INVALID_CONTENT_DIGEST;
+        // Not thrown by digest task
+        return INVALID_CONTENT_DIGEST;
+      } finally {
+        synchronized (this) {
+          this.contentDigestTasks.remove(content);
+        }
+      }
+    } else {
+      try {
+        return getTaskResult(digestTask);
+      } catch (IOException ex) {
+        return INVALID_CONTENT_DIGEST;
       }
-      this.contentDigestsCache.put(content, digest);
+    }
+  }
+
+  /**
+   * Returns the result of the given <code>task</code> once it's done.
+   * The waiting thread isn't interrupted to ensure the result of a task
+   * shared among threads is always available.
+   */
+  private static <T> T getTaskResult(FutureTask<T> task) throws IOException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      } else {
+        IOException ex2 = new IOException();
+        ex2.initCause(cause);
+        throw ex2;
+      }
+    } finally {
+      if (interrupted) {
+        // Restore interrupted status
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns the digest of the given <code>content</code> stored in digest index
+   * if it's up to date, or computes it.
+   */
+  private byte [] computeContentDigestOrIndexedDigest(Content content) {
+    File contentFile = getIndexedContentFile(content);
+    String indexKey = null;
+    String indexValue = null;
+    if (contentFile != null) {
+      indexKey = getDigestIndexKey(content, contentFile);
+      indexValue = contentFile.length() + " " + contentFile.lastModified() + " ";
+      String indexedValue = this.digestIndex.getProperty(indexKey);
+      if (indexedValue != null
+          && indexedValue.startsWith(indexValue)) {
+        try {
+          return Base64.decode(indexedValue.substring(indexValue.length()));
+        } catch (IOException ex) {
+          // Compute digest again
+        }
+      }
+    }
+
+    byte [] digest;
+    try {
+      if (content instanceof ResourceURLContent) {
+        digest = getResourceContentDigest((ResourceURLContent)content);
+      } else if (content instanceof URLContent
+                 && !(content instanceof SimpleURLContent)
+                 && ((URLContent)content).isJAREntry()) {
+        URLContent urlContent = (URLContent)content;
+        // If content comes from a home stream
+        if (urlContent instanceof HomeURLContent) {
+          digest = getHomeContentDigest((HomeURLContent)urlContent);
+        } else {
+          digest = getZipContentDigest(urlContent);
+        }
+      } else {
+        digest = computeContentDigest(content);
+      }
+    } catch (NoSuchAlgorithmException ex) {
+      throw new InternalError("No SHA-1 message digest is available");
+    } catch (IOException ex) {
+      return INVALID_CONTENT_DIGEST;
+    }
+
+    if (contentFile != null
+        && this.digestIndexFile != null
+        // Ignore digest if file changed during computation
+        && indexValue.equals(contentFile.length() + " " + contentFile.lastModified() + " ")) {
+      this.digestIndex.setProperty(indexKey, indexValue + Base64.encodeBytes(digest));
+      this.digestIndexModified = true;
     }
     return digest;
   }
 
+  /**
+   * Returns the local file where the data of the given <code>content</code> is stored,
+   * or <code>null</code> if its digest can't be indexed.
+   */
+  private File getIndexedContentFile(Content content) {
+    if (this.digestIndexFile != null
+        && content instanceof URLContent
+        && !(content instanceof TemporaryURLContent)
+        && !(content instanceof HomeURLContent)) {
+      URLContent urlContent = (URLContent)content;
+      if (urlContent.isJAREntry()
+          || !(urlContent instanceof ResourceURLContent)
+          || !((ResourceURLContent)urlContent).isMultiPartResource()) {
+        URL url = urlContent.isJAREntry()
+            ? urlContent.getJAREntryURL()
+            : urlContent.getURL();
+        if ("file".equals(url.getProtocol())) {
+          try {
+            File file = new File(url.toURI());
+            if (file.isFile()) {
+              return file;
+            }
+          } catch (URISyntaxException ex) {
+            // Don't index this content
+          } catch (IllegalArgumentException ex) {
+            // Don't index this content
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the key of the given <code>content</code> in digest index.
+   */
+  private String getDigestIndexKey(Content content, File contentFile) {
+    URLContent urlContent = (URLContent)content;
+    // As digest computation depends on content class, add it to the key
+    String contentClass = content.getClass().getName();
+    if (urlContent instanceof ResourceURLContent
+        && ((ResourceURLContent)urlContent).isMultiPartResource()) {
+      contentClass += "#multiPart";
+    }
+    return contentFile.getPath() + "\t"
+        + (urlContent.isJAREntry() ? urlContent.getJAREntryName() : "") + "\t"
+        + contentClass;
+  }
+
+  /**
+   * Sets the file where the digests of the contents stored in local files are indexed
+   * with the path, the size and the modification date of these files, and reads
+   * the digests it contains. Computed digests will be added to the index,
+   * which is saved when the program stops.
+   * @since 7.5
+   */
+  public void setDigestIndexFile(File digestIndexFile) {
+    synchronized (this.digestIndex) {
+      boolean shutdownHookAdded = this.digestIndexFile != null;
+      this.digestIndex.clear();
+      if (digestIndexFile.exists()) {
+        InputStream in = null;
+        try {
+          in = new BufferedInputStream(new FileInputStream(digestIndexFile));
+          this.digestIndex.load(in);
+        } catch (IOException ex) {
+          // Ignore invalid index
+          this.digestIndex.clear();
+        } finally {
+          if (in != null) {
+            try {
+              in.close();
+            } catch (IOException ex) {
+            }
+          }
+        }
+      }
+      this.digestIndexFile = digestIndexFile;
+      this.digestIndexModified = false;
+      if (!shutdownHookAdded) {
+        // Save index when program stops
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+              try {
+                writeDigestIndex();
+              } catch (IOException ex) {
+                // Digests will be computed again
+              }
+            }
+          });
+      }
+    }
+  }
+
+  /**
+   * Writes the digest index in its file if it was modified, ignoring the entries
+   * of files which don't exist anymore.
+   * @since 7.5
+   */
+  public void writeDigestIndex() throws IOException {
+    synchronized (this.digestIndex) {
+      File digestIndexFile = this.digestIndexFile;
+      if (digestIndexFile != null
+          && this.digestIndexModified) {
+        this.digestIndexModified = false;
+        Properties digestIndex = new Properties();
+        for (Map.Entry<Object, Object> entry : new HashMap<Object, Object>(this.digestIndex).entrySet()) {
+          String key = (String)entry.getKey();
+          if (new File(key.substring(0, key.indexOf('\t'))).exists()) {
+            digestIndex.put(key, entry.getValue());
+          }
+        }
+        File parentFile = digestIndexFile.getParentFile();
+        if (parentFile != null
+            && !parentFile.exists()) {
+          parentFile.mkdirs();
+        }
+        OutputStream out = null;
+        try {
+          out = new BufferedOutputStream(new FileOutputStream(digestIndexFile));
+          digestIndex.store(out, "SHA-1 digests of content files");
+        } finally {
+          if (out != null) {
+            out.close();
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Returns the digest of a content coming from a resource file.
    */
@@ -258,11 +524,15 @@ public class ContentDigestManager {
   /**
    * Returns the list of entries contained in <code>zipUrl</code>.
    */
-  synchronized List<ZipEntryData> getZipURLEntries(URLContent urlContent) throws IOException {
-    URL zipUrl = this.zipUrlsCache.get(urlContent);
-    if (zipUrl != null) {
-      return this.zipUrlEntriesCache.get(zipUrl);
-    } else {
+  List<ZipEntryData> getZipURLEntries(URLContent urlContent) throws IOException {
+    final URL zipUrl;
+    FutureTask<List<ZipEntryData>> entriesTask;
+    boolean entriesReadInThisThread = false;
+    synchronized (this) {
+      URL cachedZipUrl = this.zipUrlsCache.get(urlContent);
+      if (cachedZipUrl != null) {
+        return this.zipUrlEntriesCache.get(cachedZipUrl);
+      }
       zipUrl = urlContent.getJAREntryURL();
       for (Map.Entry<URL, List<ZipEntryData>> entry : this.zipUrlEntriesCache.entrySet()) {
         if (zipUrl.equals(entry.getKey())) {
@@ -270,64 +540,97 @@ public class ContentDigestManager {
           return entry.getValue();
         }
       }
-      List<ZipEntryData> zipUrlEntries = new ArrayList<ZipEntryData>();
-      if (zipUrl.getProtocol().equals("file")) {
-        // Prefer to retrieve entries in zip files with ZipFile class because it runs much faster
-        ZipFile zipFile = null;
-        try {
-          try {
-            zipFile = new ZipFile(new File(zipUrl.toURI()));
-          } catch (IllegalArgumentException ex) {
-            // Try a second way to be able to access to files on Windows servers
-            zipFile = new ZipFile(new File(zipUrl.getPath()));
-          }
-          for (Enumeration<? extends ZipEntry> enumEntries = zipFile.entries(); enumEntries.hasMoreElements(); ) {
-            ZipEntry entry = enumEntries.nextElement();
-            zipUrlEntries.add(new ZipEntryData(entry.getName(), entry.getSize()));
-          }
-        } catch (URISyntaxException ex) {
-          IOException ex2 = new IOException("Can't retrieve zip file");
-          ex2.initCause(ex);
-          throw ex2;
-        } finally {
-          if (zipFile != null) {
-            zipFile.close();
-          }
+      // Share the entries read by an other thread if it exists
+      entriesTask = this.zipUrlEntriesTasks.get(zipUrl);
+      if (entriesTask == null) {
+        entriesTask = new FutureTask<List<ZipEntryData>>(new Callable<List<ZipEntryData>>() {
+            public List<ZipEntryData> call() throws IOException {
+              return readZipURLEntries(zipUrl);
+            }
+          });
+        this.zipUrlEntriesTasks.put(zipUrl, entriesTask);
+        entriesReadInThisThread = true;
+      }
+    }
+
+    if (entriesReadInThisThread) {
+      try {
+        entriesTask.run();
+        List<ZipEntryData> zipUrlEntries = getTaskResult(entriesTask);
+        synchronized (this) {
+          // Store retrieved entries in the map with a URL key
+          this.zipUrlEntriesCache.put(zipUrl, zipUrlEntries);
+          // Store URL in a map with keys that will be referenced as long as they are needed in the program
+          // This second map allows to use a weak hash map for zipUrlEntriesCache that will be cleaned
+          // only once all the URLContent objects sharing a same URL are not used anymore
+          this.zipUrlsCache.put(urlContent, zipUrl);
         }
-      } else {
-        ZipInputStream zipIn = null;
+        return zipUrlEntries;
+      } finally {
+        synchronized (this) {
+          this.zipUrlEntriesTasks.remove(zipUrl);
+        }
+      }
+    } else {
+      return getTaskResult(entriesTask);
+    }
+  }
+
+  /**
+   * Reads the list of entries contained in <code>zipUrl</code>.
+   */
+  private List<ZipEntryData> readZipURLEntries(URL zipUrl) throws IOException {
+    List<ZipEntryData> zipUrlEntries = new ArrayList<ZipEntryData>();
+    if (zipUrl.getProtocol().equals("file")) {
+      // Prefer to retrieve entries in zip files with ZipFile class because it runs much faster
+      ZipFile zipFile = null;
+      try {
         try {
-          // Search all entries of zip url
-          zipIn = new ZipInputStream(zipUrl.openStream());
-          for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null; ) {
-            long size = entry.getSize();
-            if (size == -1) {
-              size = 0;
-              byte [] bytes = new byte [8192];
-              for (int length; (length = zipIn.read(bytes)) != -1; ) {
-                size += length;
-              }
+          zipFile = new ZipFile(new File(zipUrl.toURI()));
+        } catch (IllegalArgumentException ex) {
+          // Try a second way to be able to access to files on Windows servers
+          zipFile = new ZipFile(new File(zipUrl.getPath()));
+        }
+        for (Enumeration<? extends ZipEntry> enumEntries = zipFile.entries(); enumEntries.hasMoreElements(); ) {
+          ZipEntry entry = enumEntries.nextElement();
+          zipUrlEntries.add(new ZipEntryData(entry.getName(), entry.getSize()));
+        }
+      } catch (URISyntaxException ex) {
+        IOException ex2 = new IOException("Can't retrieve zip file");
+        ex2.initCause(ex);
+        throw ex2;
+      } finally {
+        if (zipFile != null) {
+          zipFile.close();
+        }
+      }
+    } else {
+      ZipInputStream zipIn = null;
+      try {
+        // Search all entries of zip url
+        zipIn = new ZipInputStream(zipUrl.openStream());
+        for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null; ) {
+          long size = entry.getSize();
+          if (size == -1) {
+            size = 0;
+            byte [] bytes = new byte [8192];
+            for (int length; (length = zipIn.read(bytes)) != -1; ) {
+              size += length;
             }
-            zipUrlEntries.add(new ZipEntryData(entry.getName(), size));
-          }
-        } finally {
-          if (zipIn != null) {
-            zipIn.close();
           }
+          zipUrlEntries.add(new ZipEntryData(entry.getName(), size));
+        }
+      } finally {
+        if (zipIn != null) {
+          zipIn.close();
         }
       }
-
-      // Sort entries to ensure the files of multi part content are always listed
-      // in the same order whatever its source
-      Collections.sort(zipUrlEntries);
-      // Store retrieved entries in the map with a URL key
-      this.zipUrlEntriesCache.put(zipUrl, zipUrlEntries);
-      // Store URL in a map with keys that will be referenced as long as they are needed in the program
-      // This second map allows to use a weak hash map for zipUrlEntriesCache that will be cleaned
-      // only once all the URLContent objects sharing a same URL are not used anymore
-      this.zipUrlsCache.put(urlContent, zipUrl);
-      return zipUrlEntries;
     }
+
+    // Sort entries to ensure the files of multi part content are always listed
+    // in the same order whatever its source
+    Collections.sort(zipUrlEntries);
+    return zipUrlEntries;
   }
 
   /**
@@ -361,7 +664,7 @@ public class ContentDigestManager {
   /**
    * Returns the size of the given <code>content</code>.
    */
-  public synchronized Long getContentSize(Content content) {
+  public Long getContentSize(Content content) {
     try {
       if (content instanceof ResourceURLContent) {
         return getResourceContentSize((ResourceURLContent)content);
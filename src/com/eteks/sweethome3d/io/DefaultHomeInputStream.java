@@ -37,7 +37,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -66,6 +73,7 @@ public class DefaultHomeInputStream extends FilterInputStream {
   private final HomeXMLHandler     xmlHandler;
   private final UserPreferences    preferences;
   private final boolean            preferPreferencesContent;
+  private final boolean            fastOpen;
 
   private File zipFile;
 
@@ -130,6 +138,7 @@ public class DefaultHomeInputStream extends FilterInputStream {
     this.xmlHandler = xmlHandler;
     this.preferences = preferences;
     this.preferPreferencesContent = preferPreferencesContent;
+    this.fastOpen = false;
   }
 
   /**
@@ -155,12 +164,48 @@ public class DefaultHomeInputStream extends FilterInputStream {
                                 HomeXMLHandler xmlHandler,
                                 UserPreferences preferences,
                                 boolean preferPreferencesContent) throws FileNotFoundException {
-    super(new FileInputStream(zipFile));
+    this(zipFile, contentRecording, xmlHandler, preferences, preferPreferencesContent, false);
+  }
+
+  /**
+   * Creates a home input stream able to read a home and its content from the given file.
+   * The file will be read directly without using a temporary copy except if it contains some invalid entries.
+   * If <code>fastOpen</code> is <code>true</code>, the <code>Home.xml</code> or <code>Home</code> entry
+   * will be found with the central directory of the zipped file and read directly,
+   * while the other entries are checked in parallel instead of being fully read beforehand.
+   * If some entries are damaged, the home will be read again checking each entry
+   * one after the other as with other constructors.
+   * @param zipFile  the zipped file from which the home will be read
+   * @param contentRecording  specifies whether content referenced by the read home is included
+   *            or not in the stream.
+   * @param xmlHandler  SAX handler used to parse <code>Home.xml</code> entry when present, or
+   *            <code>null</code> if only <code>Home</code> entry should taken into account.
+   * @param preferences  if not <code>null</code> and <code>preferPreferencesContent</code>
+   *            is <code>true</code>, the furniture and textures contents it references will
+   *            replace the one of the read home when they are equal.
+   *            If <code>preferPreferencesContent</code> is <code>false</code>, preferences
+   *            content will be used only to replace damaged equal content that might be found
+   *            in read home files.
+   * @param preferPreferencesContent if <code>true</code>, the returned home will reference
+   *            contents in preferences when equal.
+   * @param fastOpen  if <code>true</code>, the home will be read with the central directory
+   *            of the zipped file.
+   * @throws FileNotFoundException if the given file can't be opened
+   * @since 7.5
+   */
+  public DefaultHomeInputStream(File zipFile,
+                                ContentRecording contentRecording,
+                                HomeXMLHandler xmlHandler,
+                                UserPreferences preferences,
+                                boolean preferPreferencesContent,
+                                boolean fastOpen) throws FileNotFoundException {
+    super(new PushbackInputStream(new FileInputStream(zipFile), 5));
     this.zipFile = zipFile;
     this.contentRecording = contentRecording;
     this.xmlHandler = xmlHandler;
     this.preferences = preferences;
     this.preferPreferencesContent = preferPreferencesContent;
+    this.fastOpen = fastOpen;
   }
 
   /**
@@ -215,6 +260,18 @@ public class DefaultHomeInputStream extends FilterInputStream {
    * or if the stream isn't zipped, reads the input stream as a XML input stream.
    */
   public Home readHome() throws IOException, ClassNotFoundException {
+    if (this.fastOpen
+        && this.zipFile != null
+        && this.contentRecording != ContentRecording.INCLUDE_NO_CONTENT
+        && isZipPrefix()) {
+      Home home = readHomeUsingZipDirectory();
+      if (home != null) {
+        checkModelSizes(home.getFurniture());
+        return home;
+      }
+      // Read home again checking all entries beforehand
+    }
+
     boolean zipContent = true;
     boolean validZipFile = true;
     URL homeUrl = null;
@@ -231,8 +288,11 @@ public class DefaultHomeInputStream extends FilterInputStream {
           zipContent = false;
           validZipFile = false;
         }
-      } else {
+      } else if (isZipPrefix()) {
         homeIn = this.in;
+      } else {
+        zipContent = false;
+        validZipFile = false;
       }
 
       if (validZipFile) {
@@ -341,6 +401,109 @@ public class DefaultHomeInputStream extends FilterInputStream {
     }
   }
 
+  /**
+   * Returns the home read from the <code>Home.xml</code> or <code>Home</code> entry found
+   * in the central directory of the zipped file, checking the CRC of all its entries in parallel.
+   * @return the read home or <code>null</code> if the zipped file or some of its entries are invalid
+   */
+  private Home readHomeUsingZipDirectory() throws IOException, ClassNotFoundException {
+    ZipFile zipFile = null;
+    ExecutorService entriesChecker = null;
+    try {
+      List<Future<Boolean>> checkedEntries = new ArrayList<Future<Boolean>>();
+      ZipEntry homeEntry;
+      try {
+        zipFile = new ZipFile(this.zipFile);
+        homeEntry = this.xmlHandler != null
+            ? zipFile.getEntry("Home.xml")
+            : null;
+        if (homeEntry == null) {
+          homeEntry = zipFile.getEntry("Home");
+          if (homeEntry == null) {
+            return null;
+          }
+        }
+
+        // Check all entries in other threads while home is read
+        entriesChecker = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        for (Enumeration<? extends ZipEntry> enumEntries = zipFile.entries(); enumEntries.hasMoreElements(); ) {
+          checkedEntries.add(entriesChecker.submit(new ZipEntryChecker(zipFile, enumEntries.nextElement())));
+        }
+        entriesChecker.shutdown();
+      } catch (ZipException ex) {
+        return null;
+      } catch (IllegalArgumentException ex) {
+        // Thrown for malformed entry names
+        return null;
+      }
+
+      HomeContentContext contentContext = new HomeContentContext(this.zipFile.toURI().toURL(),
+          this.preferences, this.preferPreferencesContent, true);
+      Home home;
+      InputStream homeIn = zipFile.getInputStream(homeEntry);
+      try {
+        checkCurrentThreadIsntInterrupted();
+        if ("Home".equals(homeEntry.getName())) {
+          home = readHomeObject(homeIn, contentContext);
+        } else {
+          home = readHomeXML(homeIn, contentContext);
+        }
+      } catch (IOException ex) {
+        if (ex instanceof InterruptedIOException
+            || areEntriesValid(checkedEntries)) {
+          throw ex;
+        } else {
+          return null;
+        }
+      } catch (ClassNotFoundException ex) {
+        if (areEntriesValid(checkedEntries)) {
+          throw ex;
+        } else {
+          return null;
+        }
+      } finally {
+        homeIn.close();
+      }
+
+      if (home == null
+          || !areEntriesValid(checkedEntries)) {
+        return null;
+      } else if (contentContext.containsInvalidContents()) {
+        if (contentContext.containsCheckedContents()) {
+          home.setRepaired(true);
+        } else {
+          throw new DamagedHomeIOException(home, contentContext.getInvalidContents());
+        }
+      }
+      return home;
+    } finally {
+      if (entriesChecker != null) {
+        entriesChecker.shutdownNow();
+      }
+      if (zipFile != null) {
+        zipFile.close();
+      }
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the given checked entries are all valid, once their check is done.
+   */
+  private boolean areEntriesValid(List<Future<Boolean>> checkedEntries) throws InterruptedIOException {
+    try {
+      for (Future<Boolean> checkedEntry : checkedEntries) {
+        if (!checkedEntry.get()) {
+          return false;
+        }
+      }
+      return true;
+    } catch (InterruptedException ex) {
+      throw new InterruptedIOException();
+    } catch (ExecutionException ex) {
+      return false;
+    }
+  }
+
   /**
    * Returns the home read from the given serialized input stream.
    */
@@ -547,6 +710,44 @@ public class DefaultHomeInputStream extends FilterInputStream {
     return false;
   }
 
+  /**
+   * A task that reads fully a zip entry and checks its CRC.
+   */
+  private static class ZipEntryChecker implements Callable<Boolean> {
+    private final ZipFile  zipFile;
+    private final ZipEntry entry;
+
+    public ZipEntryChecker(ZipFile zipFile, ZipEntry entry) {
+      this.zipFile = zipFile;
+      this.entry = entry;
+    }
+
+    public Boolean call() {
+      try {
+        InputStream in = this.zipFile.getInputStream(this.entry);
+        try {
+          CRC32 crc = new CRC32();
+          long size = 0;
+          byte [] buffer = new byte [8192];
+          int length;
+          while ((length = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, length);
+            size += length;
+            if (Thread.currentThread().isInterrupted()) {
+              return false;
+            }
+          }
+          return crc.getValue() == this.entry.getCrc()
+              && size == this.entry.getSize();
+        } finally {
+          in.close();
+        }
+      } catch (IOException ex) {
+        return false;
+      }
+    }
+  }
+
   /**
    * An input stream filter that copies to a given output stream all read data.
    */
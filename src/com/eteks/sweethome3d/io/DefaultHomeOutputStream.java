@@ -30,16 +30,31 @@ import java.io.OutputStreamWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import com.eteks.sweethome3d.model.BackgroundImage;
 import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeEnvironment;
+import com.eteks.sweethome3d.model.HomeMaterial;
+import com.eteks.sweethome3d.model.HomeObject;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.HomeTexture;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Wall;
 import com.eteks.sweethome3d.tools.ResourceURLContent;
 import com.eteks.sweethome3d.tools.SimpleURLContent;
 import com.eteks.sweethome3d.tools.TemporaryURLContent;
@@ -52,10 +67,15 @@ import com.eteks.sweethome3d.tools.URLContent;
  * @author Emmanuel Puybaret
  */
 public class DefaultHomeOutputStream extends FilterOutputStream {
+  private static ExecutorService compressionExecutor;
+
   private int              compressionLevel;
   private ContentRecording contentRecording;
   private boolean          serializedHome;
   private HomeXMLExporter  homeXmlExporter;
+  private boolean          parallelCompression;
+  private Map<URL, ZipDirectory> homeZipDirectories;
+  private Set<String>      excludedContentDigests = Collections.emptySet();
 
   /**
    * Creates a stream that will save a home and all the contents it references
@@ -113,6 +133,36 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
                                  ContentRecording contentRecording,
                                  boolean          serializedHome,
                                  HomeXMLExporter  homeXmlExporter) throws IOException {
+    this(out, compressionLevel, contentRecording, serializedHome, homeXmlExporter, false);
+  }
+
+  /**
+   * Creates a stream that will serialize a home in a zip stream. Home data will be serialized
+   * in an entry named <code>Home</code> if <code>serializedHome</code> is <code>true</code>,
+   * and saved in <code>Home.xml</code> entry at XML format if <code>homeXmlExporter</code> is not <code>null</code>.
+   * @param compressionLevel 0-9
+   * @param contentRecording specifies how content should be recorded with home
+   * @param serializedHome if <code>true</code>, zip stream will include a <code>Home</code>
+   *            entry containing the serialized home
+   * @param homeXmlExporter  if not <code>null</code>, sets how a home will be saved
+   *            in an additional <code>Home.xml</code> entry
+   * @param parallelCompression if <code>true</code>, zip entries will be compressed in parallel
+   *            in memory buffers or temporary files for large entries, with a pool of threads
+   *            shared by all the streams and as large as available processors,
+   *            then written in the same order as in a sequential save. Entries are compressed
+   *            in the writing thread when <code>compressionLevel</code> is 0 or when only one
+   *            processor is available. In this mode,
+   *            the entries of the content coming from a home file will be copied
+   *            without being decompressed when their compression matches <code>compressionLevel</code>,
+   *            and entries are stored without compression when <code>compressionLevel</code> is 0.
+   * @since 7.5
+   */
+  public DefaultHomeOutputStream(OutputStream out,
+                                 int          compressionLevel,
+                                 ContentRecording contentRecording,
+                                 boolean          serializedHome,
+                                 HomeXMLExporter  homeXmlExporter,
+                                 boolean          parallelCompression) throws IOException {
     super(out);
     if (!serializedHome && homeXmlExporter == null) {
       throw new IllegalArgumentException("No entry specified for home data");
@@ -121,6 +171,7 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
     this.contentRecording = contentRecording;
     this.serializedHome = serializedHome;
     this.homeXmlExporter = homeXmlExporter;
+    this.parallelCompression = parallelCompression;
   }
 
   /**
@@ -134,30 +185,103 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
     }
   }
 
+  /**
+   * Returns the Base64 encoded SHA-1 digests of the content that will be saved with
+   * the given <code>home</code>, in the order they'll be listed in <code>ContentDigests</code> entry.
+   * @since 7.5
+   */
+  public List<String> getContentDigests(Home home) throws IOException {
+    List<String> contentDigests = new ArrayList<String>();
+    if (this.contentRecording != ContentRecording.INCLUDE_NO_CONTENT) {
+      HomeContentCollector contentCollector = new HomeContentCollector();
+      contentCollector.collectContent(home);
+      Set<String> contentEntryNames = new HashSet<String>();
+      ContentDigestManager digestManager = ContentDigestManager.getInstance();
+      for (Map.Entry<Content, String> savedContent : contentCollector.getSavedContentNames().entrySet()) {
+        if (contentEntryNames.add(savedContent.getValue())) {
+          contentDigests.add(Base64.encodeBytes(digestManager.getContentDigest(savedContent.getKey())));
+        }
+      }
+    }
+    return contentDigests;
+  }
+
+  /**
+   * Sets the Base64 encoded SHA-1 digests of the content that won't be written
+   * in the entries of the zipped stream, because its receiver already stores it.
+   * This content is still listed in <code>ContentDigests</code> entry, to let the receiver
+   * rebuild the missing entries.
+   * @since 7.5
+   */
+  public void setExcludedContentDigests(Set<String> excludedContentDigests) {
+    this.excludedContentDigests = excludedContentDigests != null
+        ? excludedContentDigests
+        : Collections.<String>emptySet();
+  }
+
   /**
    * Writes home in a zipped stream followed by <code>Content</code> objects
    * it points to.
    */
   public void writeHome(Home home) throws IOException {
-    // Create a zip output on out stream
-    ZipOutputStream zipOut = new ZipOutputStream(this.out);
+    if (this.parallelCompression) {
+      int threadCount = this.compressionLevel != 0
+          ? Runtime.getRuntime().availableProcessors()
+          : 1;
+      // Create a zip output on out stream that compresses entries in parallel,
+      // or in this thread if it's useless but copying entries is still possible
+      ParallelZipOutputStream zipOut = new ParallelZipOutputStream(this.out,
+          threadCount > 1 ? getCompressionExecutor() : null, threadCount);
+      try {
+        writeHome(home, zipOut);
+      } finally {
+        // Cancel the compression of the entries left if writing failed
+        zipOut.cancelPendingEntries();
+      }
+    } else {
+      // Create a zip output on out stream
+      writeHome(home, new ZipOutputStream(this.out));
+    }
+  }
+
+  /**
+   * Returns the executor shared by streams to compress entries in parallel.
+   */
+  private static synchronized ExecutorService getCompressionExecutor() {
+    if (compressionExecutor == null) {
+      compressionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+          new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "Home entries compressor");
+              // Don't prevent the application from exiting
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    }
+    return compressionExecutor;
+  }
+
+  /**
+   * Writes home in the given zipped stream followed by <code>Content</code> objects
+   * it points to.
+   */
+  private void writeHome(Home home, ZipOutputStream zipOut) throws IOException {
+    this.homeZipDirectories = new HashMap<URL, ZipDirectory>();
     zipOut.setLevel(this.compressionLevel);
     checkCurrentThreadIsntInterrupted();
-    // Track content that must be saved in the zip stream with a dummy output stream
-    HomeContentObjectsTracker contentTracker = new HomeContentObjectsTracker(new OutputStream() {
-        @Override
-        public void write(int b) throws IOException {
-          // Don't write anything
-        }
-      });
-    contentTracker.writeObject(home);
-    Map<Content, String> savedContentNames = contentTracker.getSavedContentNames();
+    // Collect content that must be saved in the zip stream from home objects
+    HomeContentCollector contentCollector = new HomeContentCollector();
+    if (this.contentRecording != ContentRecording.INCLUDE_NO_CONTENT) {
+      contentCollector.collectContent(home);
+    }
+    Map<Content, String> savedContentNames = contentCollector.getSavedContentNames();
 
     if (this.serializedHome) {
       // Write home in the first entry named "Home"
       zipOut.putNextEntry(new ZipEntry("Home"));
       // Save home replacing Content objects if needed
-      HomeObjectOutputStream objectOut = new HomeObjectOutputStream(zipOut, savedContentNames);
+      HomeObjectOutputStream objectOut = new HomeObjectOutputStream(zipOut, contentCollector);
       objectOut.writeObject(home);
       objectOut.flush();
       zipOut.closeEntry();
@@ -176,6 +300,7 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
 
     if (savedContentNames.size() > 0) {
       Set<String> contentEntryNames = new HashSet<String>();
+      Set<String> excludedContentEntryNames = new HashSet<String>();
       // In the next entry named "ContentDigests", write content digests to help repair damaged files
       zipOut.putNextEntry(new ZipEntry("ContentDigests"));
       OutputStreamWriter writer = new OutputStreamWriter(zipOut, "UTF-8");
@@ -185,8 +310,12 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
         String contentEntryName = savedContent.getValue();
         if (!contentEntryNames.contains(contentEntryName)) {
           contentEntryNames.add(contentEntryName);
+          String contentDigest = Base64.encodeBytes(digestManager.getContentDigest(savedContent.getKey()));
           writer.write("Name: " + contentEntryName + "\n");
-          writer.write("SHA-1-Digest: " + Base64.encodeBytes(digestManager.getContentDigest(savedContent.getKey())) + "\n\n");
+          writer.write("SHA-1-Digest: " + contentDigest + "\n\n");
+          if (this.excludedContentDigests.contains(contentDigest)) {
+            excludedContentEntryNames.add(contentEntryName);
+          }
         }
       }
       writer.flush();
@@ -196,7 +325,8 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
       contentEntryNames.clear();
       for (Map.Entry<Content, String> savedContent : savedContentNames.entrySet()) {
         String contentEntryName = savedContent.getValue();
-        if (!contentEntryNames.contains(contentEntryName)) {
+        if (!contentEntryNames.contains(contentEntryName)
+            && !excludedContentEntryNames.contains(contentEntryName)) {
           contentEntryNames.add(contentEntryName);
           Content content = savedContent.getKey();
           int slashIndex = contentEntryName.indexOf('/');
@@ -223,6 +353,7 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
     }
     // Finish zip writing
     zipOut.finish();
+    this.homeZipDirectories = null;
   }
 
   /**
@@ -296,12 +427,50 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
         if (zipEntryName.startsWith(entryDirectory)) {
           Content siblingContent = new URLContent(new URL("jar:" + zipUrl + "!/"
               + URLEncoder.encode(zipEntryName, "UTF-8").replace("+", "%20")));
-          writeZipEntry(zipOut, entryNameOrDirectory + zipEntryName.substring(slashIndex), siblingContent);
+          writeHomeZipEntry(zipOut, entryNameOrDirectory + zipEntryName.substring(slashIndex),
+              zipUrl, zipEntryName, siblingContent);
         }
       }
     } else {
-      writeZipEntry(zipOut, entryNameOrDirectory, urlContent);
+      writeHomeZipEntry(zipOut, entryNameOrDirectory, urlContent.getJAREntryURL(), entryName, urlContent);
+    }
+  }
+
+  /**
+   * Writes in <code>zipOut</code> stream a new entry named <code>entryName</code> that
+   * contains a given <code>content</code> stored in the entry <code>zipEntryName</code>
+   * of a home file. If possible, the compressed data of the entry is copied
+   * as is from the home file.
+   */
+  private void writeHomeZipEntry(ZipOutputStream zipOut, String entryName,
+                                 URL zipUrl, String zipEntryName, Content content) throws IOException {
+    if (zipOut instanceof ParallelZipOutputStream
+        && "file".equals(zipUrl.getProtocol())) {
+      checkCurrentThreadIsntInterrupted();
+      ZipDirectory zipDirectory = this.homeZipDirectories.get(zipUrl);
+      if (zipDirectory == null
+          && !this.homeZipDirectories.containsKey(zipUrl)) {
+        try {
+          zipDirectory = new ZipDirectory(new File(zipUrl.toURI()));
+        } catch (IOException ex) {
+          // Home file can't be copied directly
+        } catch (URISyntaxException ex) {
+        } catch (IllegalArgumentException ex) {
+        }
+        this.homeZipDirectories.put(zipUrl, zipDirectory);
+      }
+      if (zipDirectory != null) {
+        ZipDirectory.Entry zipEntry = zipDirectory.getEntry(zipEntryName);
+        if (zipEntry != null
+            && !zipEntry.isEncrypted()
+            // Copy only deflated entries if compression is requested, and stored entries otherwise
+            && zipEntry.getMethod() == (this.compressionLevel != 0 ? ZipEntry.DEFLATED : ZipEntry.STORED)) {
+          ((ParallelZipOutputStream)zipOut).copyEntry(entryName, zipDirectory, zipEntry);
+          return;
+        }
+      }
     }
+    writeZipEntry(zipOut, entryName, content);
   }
 
   /**
@@ -344,35 +513,100 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
   }
 
   /**
-   * A dummy <code>ObjectOutputStream</code> that keeps track of the <code>Content</code>
-   * objects of a home that should be saved.
+   * A collector of the <code>Content</code> objects of a home that should be saved,
+   * which browses home objects instead of serializing the home.
    */
-  private class HomeContentObjectsTracker extends ObjectOutputStream {
+  private class HomeContentCollector {
     private Map<Content, String> savedContentNames = new LinkedHashMap<Content, String>();
     private int savedContentIndex = 0;
 
-    public HomeContentObjectsTracker(OutputStream out) throws IOException {
-      super(out);
-      if (contentRecording != ContentRecording.INCLUDE_NO_CONTENT) {
-        enableReplaceObject(true);
+    /**
+     * Collects the content referenced by the objects of the given <code>home</code>.
+     */
+    public void collectContent(Home home) throws IOException {
+      BackgroundImage backgroundImage = home.getBackgroundImage();
+      if (backgroundImage != null) {
+        addContent(backgroundImage.getImage());
+      }
+      for (HomeObject homeObject : home.getHomeObjects()) {
+        checkCurrentThreadIsntInterrupted();
+        if (homeObject instanceof HomePieceOfFurniture) {
+          HomePieceOfFurniture piece = (HomePieceOfFurniture)homeObject;
+          addContent(piece.getIcon());
+          addContent(piece.getPlanIcon());
+          addContent(piece.getModel());
+          addTextureContent(piece.getTexture());
+          HomeMaterial [] modelMaterials = piece.getModelMaterials();
+          if (modelMaterials != null) {
+            for (HomeMaterial material : modelMaterials) {
+              if (material != null) {
+                addTextureContent(material.getTexture());
+              }
+            }
+          }
+        } else if (homeObject instanceof Wall) {
+          Wall wall = (Wall)homeObject;
+          addTextureContent(wall.getLeftSideTexture());
+          addTextureContent(wall.getRightSideTexture());
+          if (wall.getLeftSideBaseboard() != null) {
+            addTextureContent(wall.getLeftSideBaseboard().getTexture());
+          }
+          if (wall.getRightSideBaseboard() != null) {
+            addTextureContent(wall.getRightSideBaseboard().getTexture());
+          }
+        } else if (homeObject instanceof Room) {
+          Room room = (Room)homeObject;
+          addTextureContent(room.getFloorTexture());
+          addTextureContent(room.getCeilingTexture());
+        } else if (homeObject instanceof Level) {
+          backgroundImage = ((Level)homeObject).getBackgroundImage();
+          if (backgroundImage != null) {
+            addContent(backgroundImage.getImage());
+          }
+        } else if (homeObject instanceof HomeEnvironment) {
+          HomeEnvironment environment = (HomeEnvironment)homeObject;
+          addTextureContent(environment.getGroundTexture());
+          addTextureContent(environment.getSkyTexture());
+        }
+        for (String propertyName : homeObject.getPropertyNames()) {
+          if (homeObject.isContentProperty(propertyName)) {
+            addContent(homeObject.getContentProperty(propertyName));
+          }
+        }
       }
     }
 
-    @Override
-    protected Object replaceObject(Object obj) throws IOException {
-      if (obj instanceof TemporaryURLContent
-          || obj instanceof HomeURLContent
-          || obj instanceof SimpleURLContent
-          || (contentRecording == ContentRecording.INCLUDE_ALL_CONTENT && obj instanceof Content)) {
+    private void addTextureContent(HomeTexture texture) throws IOException {
+      if (texture != null) {
+        addContent(texture.getImage());
+      }
+    }
+
+    /**
+     * Adds the given <code>content</code> to the saved content if needed,
+     * and returns its name in the saved zip stream or <code>null</code>.
+     */
+    public String addContent(Content content) throws IOException {
+      if (content == null) {
+        return null;
+      }
+      String savedContentName = this.savedContentNames.get(content);
+      if (savedContentName != null) {
+        return savedContentName;
+      }
+      if (content instanceof TemporaryURLContent
+          || content instanceof HomeURLContent
+          || content instanceof SimpleURLContent
+          || contentRecording == ContentRecording.INCLUDE_ALL_CONTENT) {
         String subEntryName = "";
-        if (obj instanceof URLContent) {
-          URLContent urlContent = (URLContent)obj;
+        if (content instanceof URLContent) {
+          URLContent urlContent = (URLContent)content;
           // Check if duplicated content can be avoided
           ContentDigestManager contentDigestManager = ContentDigestManager.getInstance();
           for (Map.Entry<Content, String> contentEntry : this.savedContentNames.entrySet()) {
             if (contentDigestManager.equals(urlContent, contentEntry.getKey())) {
-              this.savedContentNames.put((Content)obj, contentEntry.getValue());
-              return obj;
+              this.savedContentNames.put(content, contentEntry.getValue());
+              return contentEntry.getValue();
             }
           }
           checkCurrentThreadIsntInterrupted();
@@ -418,9 +652,10 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
 
         // Build a relative URL that points to content object
         String homeContentPath = this.savedContentIndex++ + subEntryName;
-        this.savedContentNames.put((Content)obj, homeContentPath);
+        this.savedContentNames.put(content, homeContentPath);
+        return homeContentPath;
       }
-      return obj;
+      return null;
     }
 
     /**
@@ -436,13 +671,13 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
    * by temporary <code>URLContent</code> objects and stores them in a list.
    */
   private class HomeObjectOutputStream extends ObjectOutputStream {
-    private Map<Content, String>    savedContentNames;
+    private HomeContentCollector    contentCollector;
     private Map<String, URLContent> replacedContents = new HashMap<String, URLContent>();
 
     public HomeObjectOutputStream(OutputStream out,
-                                  Map<Content, String> savedContentNames) throws IOException {
+                                  HomeContentCollector contentCollector) throws IOException {
       super(out);
-      this.savedContentNames = savedContentNames;
+      this.contentCollector = contentCollector;
       if (contentRecording != ContentRecording.INCLUDE_NO_CONTENT) {
         enableReplaceObject(true);
       }
@@ -451,7 +686,8 @@ public class DefaultHomeOutputStream extends FilterOutputStream {
     @Override
     protected Object replaceObject(Object obj) throws IOException {
       if (obj instanceof Content) {
-        String savedContentName = this.savedContentNames.get((Content)obj);
+        // Add content not collected from home objects
+        String savedContentName = this.contentCollector.addContent((Content)obj);
         if (savedContentName != null) {
           checkCurrentThreadIsntInterrupted();
           // Ensure that the duplicated content share the same replaced URLContent instance
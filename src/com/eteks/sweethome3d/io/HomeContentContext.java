@@ -20,12 +20,15 @@
 package com.eteks.sweethome3d.io;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
@@ -56,12 +60,26 @@ class HomeContentContext {
   private Map<URLContent, byte []> contentDigests;
   private Set<URLContent>          preferencesContentsCache;
   private boolean                  preferPreferencesContent;
+  private boolean                  contentDigestsTrusted;
   
   public HomeContentContext(URL homeSource,
                             UserPreferences preferences,
                             boolean preferPreferencesContent) {
+    this(homeSource, preferences, preferPreferencesContent, false);
+  }
+
+  /**
+   * Creates a context for the content of the given home file. If <code>contentDigestsTrusted</code>
+   * is <code>true</code>, the data of its entries is checked elsewhere, and the digests stored
+   * in its <code>ContentDigests</code> entry will be used to compare content without reading it.
+   */
+  public HomeContentContext(URL homeSource,
+                            UserPreferences preferences,
+                            boolean preferPreferencesContent,
+                            boolean contentDigestsTrusted) {
     this.homeUrl = homeSource;
     this.preferPreferencesContent = preferPreferencesContent;
+    this.contentDigestsTrusted = contentDigestsTrusted;
     this.contentDigests = readContentDigests(homeSource);
     this.invalidContents = new ArrayList<Content>();
     this.validContentsNotInPreferences = new ArrayList<URLContent>();
@@ -76,6 +94,30 @@ class HomeContentContext {
    * <code>null</code> if this information doesn't exist in the home file.
    */
   private Map<URLContent, byte []> readContentDigests(URL homeUrl) {
+    if (this.contentDigestsTrusted
+        && "file".equals(homeUrl.getProtocol())) {
+      // Find ContentDigests entry with the central directory of the home file
+      ZipFile zipFile = null;
+      try {
+        zipFile = new ZipFile(new File(homeUrl.toURI()));
+        ZipEntry entry = zipFile.getEntry("ContentDigests");
+        if (entry != null) {
+          return readContentDigests(zipFile.getInputStream(entry), homeUrl);
+        }
+      } catch (IOException ex) {
+        // Ignore issues in ContentDigests (this entry exists only from version 4.4)
+      } catch (URISyntaxException ex) {
+      } finally {
+        if (zipFile != null) {
+          try {
+            zipFile.close();
+          } catch (IOException ex) {
+          }
+        }
+      }
+      return null;
+    }
+
     ZipInputStream zipIn = null;
     try {
       zipIn = new ZipInputStream(homeUrl.openStream());
@@ -83,29 +125,7 @@ class HomeContentContext {
       ZipEntry entry = null;
       while ((entry = zipIn.getNextEntry()) != null) {
         if ("ContentDigests".equals(entry.getName())) {
-          BufferedReader reader = new BufferedReader(new InputStreamReader(zipIn, "UTF-8"));
-          String line = reader.readLine();
-          if (line != null
-              && line.trim().startsWith("ContentDigests-Version: 1")) {
-            Map<URLContent, byte []> contentDigests = new HashMap<URLContent, byte[]>();
-            // Read Name / SHA-1-Digest lines  
-            String entryName = null;
-            while ((line = reader.readLine()) != null) {
-              if (line.startsWith("Name:")) {
-                entryName = line.substring("Name:".length()).trim();
-              } else if (line.startsWith("SHA-1-Digest:")) {
-                byte [] digest = Base64.decode(line.substring("SHA-1-Digest:".length()).trim());
-                if (entryName == null) {
-                  throw new IOException("Missing entry name");
-                } else {
-                  URL url = new URL("jar:" + homeUrl + "!/" + entryName);
-                  contentDigests.put(new HomeURLContent(url), digest);
-                  entryName = null;
-                }
-              }
-            }
-            return contentDigests;
-          }
+          return readContentDigests(zipIn, homeUrl);
         }
       }
     } catch (IOException ex) {
@@ -121,6 +141,38 @@ class HomeContentContext {
     return null;
   }
 
+  /**
+   * Returns the digests read from the given <code>ContentDigests</code> entry input stream,
+   * or <code>null</code> if its version isn't supported.
+   */
+  private Map<URLContent, byte []> readContentDigests(InputStream in, URL homeUrl) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    String line = reader.readLine();
+    if (line != null
+        && line.trim().startsWith("ContentDigests-Version: 1")) {
+      Map<URLContent, byte []> contentDigests = new HashMap<URLContent, byte[]>();
+      // Read Name / SHA-1-Digest lines  
+      String entryName = null;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("Name:")) {
+          entryName = line.substring("Name:".length()).trim();
+        } else if (line.startsWith("SHA-1-Digest:")) {
+          byte [] digest = Base64.decode(line.substring("SHA-1-Digest:".length()).trim());
+          if (entryName == null) {
+            throw new IOException("Missing entry name");
+          } else {
+            URL url = new URL("jar:" + homeUrl + "!/" + entryName);
+            contentDigests.put(new HomeURLContent(url), digest);
+            entryName = null;
+          }
+        }
+      }
+      return contentDigests;
+    } else {
+      return null;
+    }
+  }
+
   /**
    * Returns the {@link Content} instance matching the given entry name in home stream.
    */
@@ -142,7 +194,7 @@ class HomeContentContext {
       // Check if duplicated content can be avoided 
       // (coming from files older than version 4.4)
       for (URLContent content : this.validContentsNotInPreferences) {
-        if (contentDigestManager.equals(urlContent, content)) {
+        if (isContentEqual(urlContent, content)) {
           return content;
         }
       }
@@ -151,7 +203,8 @@ class HomeContentContext {
       }
       // If content digests information is available, check the digest against read content 
       byte [] contentDigest;
-      if (this.contentDigests != null
+      if (!this.contentDigestsTrusted
+          && this.contentDigests != null
           && (contentDigest = this.contentDigests.get(urlContent)) != null
           && !contentDigestManager.isContentDigestEqual(urlContent, contentDigest)) {
         this.containsInvalidContents = true;
@@ -167,7 +220,7 @@ class HomeContentContext {
             && this.preferPreferencesContent) {
           // Check if user preferences contains the same content to share it
           for (URLContent preferencesContent : this.preferencesContentsCache) {
-            if (contentDigestManager.equals(urlContent, preferencesContent)) {
+            if (isContentEqual(urlContent, preferencesContent)) {
               return preferencesContent;
             }
           }
@@ -178,6 +231,27 @@ class HomeContentContext {
     return urlContent;
   }
 
+  /**
+   * Returns <code>true</code> if the given home content and <code>content</code> contain the same data,
+   * using the digests read in home when they're trusted.
+   */
+  private boolean isContentEqual(URLContent homeContent, URLContent content) {
+    ContentDigestManager contentDigestManager = ContentDigestManager.getInstance();
+    byte [] homeContentDigest;
+    if (this.contentDigestsTrusted
+        && this.contentDigests != null
+        && (homeContentDigest = this.contentDigests.get(homeContent)) != null) {
+      byte [] contentDigest = this.contentDigests.get(content);
+      if (contentDigest != null) {
+        return Arrays.equals(homeContentDigest, contentDigest);
+      } else {
+        return contentDigestManager.isContentDigestEqual(content, homeContentDigest);
+      }
+    } else {
+      return contentDigestManager.equals(homeContent, content);
+    }
+  }
+
   /**
    * Returns <code>true</code> if the given <code>content</code> exists.
    */
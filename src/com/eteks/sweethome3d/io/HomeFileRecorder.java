@@ -29,6 +29,7 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
 
 import com.eteks.sweethome3d.model.DamagedHomeRecorderException;
 import com.eteks.sweethome3d.model.Home;
@@ -51,6 +52,7 @@ public class HomeFileRecorder implements HomeRecorder {
   private final boolean         preferPreferencesContent;
   private final boolean         preferXmlEntry;
   private final boolean         acceptUrl;
+  private final boolean         parallelCompression;
 
   /**
    * Creates a home recorder able to write and read homes in uncompressed files.
@@ -161,12 +163,48 @@ public class HomeFileRecorder implements HomeRecorder {
                           boolean         preferPreferencesContent,
                           boolean         preferXmlEntry,
                           boolean         acceptUrl) {
+    this(compressionLevel, includeOnlyTemporaryContent, preferences, preferPreferencesContent, preferXmlEntry, acceptUrl, false);
+  }
+
+  /**
+   * Creates a home recorder able to write and read homes in files compressed
+   * at a level from 0 to 9.
+   * @param compressionLevel 0-9
+   * @param includeOnlyTemporaryContent if <code>true</code>, content instances of
+   *            <code>TemporaryURLContent</code> class referenced by the saved home
+   *            as well as the content previously saved with it will be written.
+   *            If <code>false</code>, all the content instances
+   *            referenced by the saved home will be written in the zip stream.
+   * @param preferences If not <code>null</code>, the furniture and textures contents
+   *            it references might be used to replace the one of read homes
+   *            when they are equal.
+   * @param preferPreferencesContent If <code>true</code>, the furniture and textures contents
+   *            referenced by <code>preferences</code> will replace the one of read homes
+   *            as often as possible when they are equal. Otherwise, these contents will be
+   *            used only to replace damaged content that might be found in read home files.
+   * @param preferXmlEntry If <code>true</code>, an additional <code>Home.xml</code> entry
+   *            will be saved in files and read in priority from saved files.
+   * @param acceptUrl If <code>true</code>, this recorder will try to read a home from a URL
+   *            if the path passed as parameter to {@link #readHome(String) readHome} isn't a file.
+   * @param parallelCompression If <code>true</code>, the entries of saved files will be compressed
+   *            in parallel and the content entries of the home file previously read will be
+   *            copied without being decompressed.
+   * @since 7.5
+   */
+  public HomeFileRecorder(int             compressionLevel,
+                          boolean         includeOnlyTemporaryContent,
+                          UserPreferences preferences,
+                          boolean         preferPreferencesContent,
+                          boolean         preferXmlEntry,
+                          boolean         acceptUrl,
+                          boolean         parallelCompression) {
     this.compressionLevel = compressionLevel;
     this.includeOnlyTemporaryContent = includeOnlyTemporaryContent;
     this.preferences = preferences;
     this.preferPreferencesContent = preferPreferencesContent;
     this.preferXmlEntry = preferXmlEntry;
     this.acceptUrl = acceptUrl;
+    this.parallelCompression = parallelCompression;
   }
 
   /**
@@ -193,7 +231,8 @@ public class HomeFileRecorder implements HomeRecorder {
           true,
           this.preferXmlEntry
               ? getHomeXMLExporter()
-              : null);
+              : null,
+          this.parallelCompression);
       // Write home with HomeOuputStream
       homeOut.writeHome(home);
     } catch (InterruptedIOException ex) {
@@ -312,24 +351,35 @@ public class HomeFileRecorder implements HomeRecorder {
   public Home readHome(String name) throws RecorderException {
     DefaultHomeInputStream homeInputStream = null;
     try {
-      InputStream in;
-      try {
-        // Open a stream on file
-        in = new FileInputStream(name);
-      } catch (FileNotFoundException ex) {
-        if (this.acceptUrl) {
-          // Then try to open file as a URL
-          URLConnection connection = new URL(name).openConnection();
-          connection.setUseCaches(false);
-          in = connection.getInputStream();
-        } else {
-          throw ex;
+      File homeFile = new File(name);
+      if (homeFile.isFile()) {
+        // Read home from a copy of the file to be able to overwrite it while home is open,
+        // letting the home input stream find its entries with the central directory of the copy
+        File homeFileCopy = OperatingSystem.createTemporaryFile("open", ".sweethome3d");
+        copyFile(homeFile, homeFileCopy);
+        homeInputStream = new DefaultHomeInputStream(homeFileCopy, ContentRecording.INCLUDE_ALL_CONTENT,
+            this.preferXmlEntry ? getHomeXMLHandler() : null,
+            this.preferences, this.preferPreferencesContent, true);
+      } else {
+        InputStream in;
+        try {
+          // Open a stream on file
+          in = new FileInputStream(name);
+        } catch (FileNotFoundException ex) {
+          if (this.acceptUrl) {
+            // Then try to open file as a URL
+            URLConnection connection = new URL(name).openConnection();
+            connection.setUseCaches(false);
+            in = connection.getInputStream();
+          } else {
+            throw ex;
+          }
         }
+        // Read home with HomeInputStream
+        homeInputStream = new DefaultHomeInputStream(in, ContentRecording.INCLUDE_ALL_CONTENT,
+            this.preferXmlEntry ? getHomeXMLHandler() : null,
+            this.preferences, this.preferPreferencesContent);
       }
-      // Read home with HomeInputStream
-      homeInputStream = new DefaultHomeInputStream(in, ContentRecording.INCLUDE_ALL_CONTENT,
-          this.preferXmlEntry ? getHomeXMLHandler() : null,
-          this.preferences, this.preferPreferencesContent);
       Home home = homeInputStream.readHome();
       return home;
     } catch (InterruptedIOException ex) {
@@ -351,6 +401,32 @@ public class HomeFileRecorder implements HomeRecorder {
     }
   }
 
+  /**
+   * Copies the given <code>file</code> to <code>copy</code>.
+   */
+  private static void copyFile(File file, File copy) throws IOException {
+    FileChannel in = null;
+    FileChannel out = null;
+    try {
+      in = new FileInputStream(file).getChannel();
+      out = new FileOutputStream(copy).getChannel();
+      long size = in.size();
+      for (long position = 0; position < size; ) {
+        position += in.transferTo(position, size - position, out);
+        if (Thread.interrupted()) {
+          throw new InterruptedIOException();
+        }
+      }
+    } finally {
+      if (in != null) {
+        in.close();
+      }
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
   /**
    * Returns a SAX XML handler able to interpret the information contained in the
    * <code>Home.xml</code> entry.
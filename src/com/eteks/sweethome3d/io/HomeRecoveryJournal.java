@@ -0,0 +1,794 @@
+/*
+ * HomeRecoveryJournal.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.io;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.eteks.sweethome3d.model.BatchCollectionListener;
+import com.eteks.sweethome3d.model.CollectionEvent;
+import com.eteks.sweethome3d.model.CollectionListener;
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.model.DimensionLine;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeFurnitureGroup;
+import com.eteks.sweethome3d.model.HomeObject;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Label;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.Polyline;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.tools.SimpleURLContent;
+import com.eteks.sweethome3d.tools.TemporaryURLContent;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * A journal recording the changes of a home saved in a recovery file, to be able to
+ * rebuild this home from that file without saving it entirely each time it's modified.
+ * Changes are detected with the listeners of the home and its objects, and each record
+ * of the journal stores the home objects modified since the previous record, referencing
+ * the other objects by their ID. A record stores home itself only when its own properties
+ * or its collections changed.<br>
+ * The methods {@link #resetChanges() resetChanges} and {@link #recordChanges() recordChanges}
+ * must be called in the thread where home is modified, whereas the methods
+ * {@link #startJournal(File) startJournal}, {@link #writeRecord(Record) writeRecord}
+ * and {@link #deleteJournal() deleteJournal} can be called from an other thread,
+ * as long as their calls aren't concurrent.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class HomeRecoveryJournal {
+  private static final String JOURNAL_FILE_EXTENSION = ".journal";
+  private static final String JOURNAL_HEADER         = "HomeRecoveryJournal-Version: 1";
+  private static final int    MAXIMUM_RECORD_COUNT   = 100;
+  private static final long   MINIMUM_JOURNAL_SIZE   = 1 << 20;
+
+  private final Home                    home;
+  private final PropertyChangeListener  homeListener;
+  private final PropertyChangeListener  homePropertiesListener;
+  private final PropertyChangeListener  objectsListener;
+  private final CollectionListener<HomePieceOfFurniture> furnitureListener;
+  private final CollectionListener<Wall>          wallsListener;
+  private final CollectionListener<Room>          roomsListener;
+  private final CollectionListener<Polyline>      polylinesListener;
+  private final CollectionListener<DimensionLine> dimensionLinesListener;
+  private final CollectionListener<Label>         labelsListener;
+  private final CollectionListener<Level>         levelsListener;
+  // The following fields are handled only in the thread where home is modified
+  private final Map<String, HomeObject> journaledObjects;
+  private final Map<HomeObject, Boolean> listenedObjects;
+  private final Map<HomeObject, Boolean> modifiedObjects;
+  private boolean                       homeModified;
+  // The following fields are handled only in the thread that writes the journal
+  private File                          journalFile;
+  private DataOutputStream              journalOut;
+  private Set<String>                   snapshotContentDigests;
+  private long                          snapshotLength;
+  private int                           recordCount;
+
+  private volatile boolean              snapshotRequired;
+
+  /**
+   * Creates a journal able to record the changes of the given <code>home</code>.
+   * As this constructor adds some listeners to <code>home</code> and its objects,
+   * it should be invoked only from the same thread where home is modified.
+   * A snapshot of home will be required before recording its first changes.
+   */
+  public HomeRecoveryJournal(Home home) {
+    this.home = home;
+    this.journaledObjects = new HashMap<String, HomeObject>();
+    this.listenedObjects = new IdentityHashMap<HomeObject, Boolean>();
+    this.modifiedObjects = new IdentityHashMap<HomeObject, Boolean>();
+    this.snapshotRequired = true;
+
+    this.objectsListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          modifiedObjects.put((HomeObject)ev.getSource(), Boolean.TRUE);
+        }
+      };
+    this.homeListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          if (Home.Property.FURNITURE_ADDITIONAL_PROPERTIES.name().equals(ev.getPropertyName())) {
+            // Additional properties aren't serialized with home
+            snapshotRequired = true;
+          } else {
+            homeModified = true;
+          }
+        }
+      };
+    for (Home.Property property : Home.Property.values()) {
+      switch (property) {
+        case MODIFIED :
+        case RECOVERED :
+        case REPAIRED :
+        case ALL_LEVELS_SELECTION :
+          // Ignore changes of transient properties
+          break;
+        default :
+          home.addPropertyChangeListener(property, this.homeListener);
+      }
+    }
+    // Listen also to the properties set with Home#setProperty
+    final Set<String> enumPropertyNames = new HashSet<String>();
+    for (Home.Property property : Home.Property.values()) {
+      enumPropertyNames.add(property.name());
+    }
+    this.homePropertiesListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          if (!enumPropertyNames.contains(ev.getPropertyName())) {
+            homeModified = true;
+          }
+        }
+      };
+    home.addPropertyChangeListener(this.homePropertiesListener);
+    this.furnitureListener = new ItemsListener<HomePieceOfFurniture>();
+    home.addFurnitureListener(this.furnitureListener);
+    this.wallsListener = new ItemsListener<Wall>();
+    home.addWallsListener(this.wallsListener);
+    this.roomsListener = new ItemsListener<Room>();
+    home.addRoomsListener(this.roomsListener);
+    this.polylinesListener = new ItemsListener<Polyline>();
+    home.addPolylinesListener(this.polylinesListener);
+    this.dimensionLinesListener = new ItemsListener<DimensionLine>();
+    home.addDimensionLinesListener(this.dimensionLinesListener);
+    this.labelsListener = new ItemsListener<Label>();
+    home.addLabelsListener(this.labelsListener);
+    this.levelsListener = new ItemsListener<Level>();
+    home.addLevelsListener(this.levelsListener);
+  }
+
+  /**
+   * Collection listener that tracks the items added to home.
+   */
+  private class ItemsListener<T extends HomeObject> implements BatchCollectionListener<T> {
+    public void collectionChanged(CollectionEvent<T> ev) {
+      homeModified = true;
+      if (ev.getType() == CollectionEvent.Type.ADD) {
+        for (T item : ev.getItems()) {
+          addObjectListener(item);
+          if (item instanceof HomeFurnitureGroup) {
+            for (HomePieceOfFurniture piece : ((HomeFurnitureGroup)item).getAllFurniture()) {
+              addObjectListener(piece);
+            }
+          }
+        }
+      }
+      if (ev.getItem() instanceof HomePieceOfFurniture
+          && ev.getIndex() == -1) {
+        // Piece added to or removed from a group
+        for (HomeObject homeObject : home.getHomeObjects()) {
+          if (homeObject instanceof HomeFurnitureGroup) {
+            modifiedObjects.put(homeObject, Boolean.TRUE);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the property change listener of this journal to the given object if it's not listened yet.
+   */
+  private void addObjectListener(HomeObject homeObject) {
+    if (!this.listenedObjects.containsKey(homeObject)) {
+      homeObject.addPropertyChangeListener(this.objectsListener);
+      this.listenedObjects.put(homeObject, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Returns the journal file associated to the given home file.
+   */
+  public static File getJournalFile(File homeFile) {
+    return new File(homeFile.getPath() + JOURNAL_FILE_EXTENSION);
+  }
+
+  /**
+   * Returns <code>true</code> if home should be saved entirely before other changes can be recorded,
+   * because no snapshot of home was saved yet, because the journal became too long,
+   * or because some changes couldn't be recorded.
+   */
+  public boolean isSnapshotRequired() {
+    return this.snapshotRequired;
+  }
+
+  /**
+   * Forgets the changes of home. This method should be called when home is cloned
+   * to save a snapshot of it.
+   */
+  public void resetChanges() {
+    this.journaledObjects.clear();
+    for (HomeObject homeObject : this.home.getHomeObjects()) {
+      this.journaledObjects.put(homeObject.getId(), homeObject);
+      addObjectListener(homeObject);
+    }
+    // Stop listening to objects removed from home
+    for (HomeObject homeObject : new ArrayList<HomeObject>(this.listenedObjects.keySet())) {
+      if (this.journaledObjects.get(homeObject.getId()) != homeObject) {
+        homeObject.removePropertyChangeListener(this.objectsListener);
+        this.listenedObjects.remove(homeObject);
+      }
+    }
+    this.modifiedObjects.clear();
+    this.homeModified = false;
+    this.snapshotRequired = false;
+  }
+
+  /**
+   * Returns a record of the changes of home since the last call to this method
+   * or to {@link #resetChanges() resetChanges}, or <code>null</code> if home didn't change
+   * or if its changes can't be recorded. In that last case, a {@link #isSnapshotRequired() snapshot}
+   * of home will be required.
+   */
+  public Record recordChanges() {
+    List<HomeObject> modifiedJournaledObjects = new ArrayList<HomeObject>();
+    for (HomeObject homeObject : this.modifiedObjects.keySet()) {
+      if (this.journaledObjects.get(homeObject.getId()) == homeObject) {
+        modifiedJournaledObjects.add(homeObject);
+      }
+    }
+    if (!this.homeModified
+        && modifiedJournaledObjects.isEmpty()) {
+      this.modifiedObjects.clear();
+      return null;
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ChangesOutputStream out = new ChangesOutputStream(bytes);
+      // Keep version which is updated during home serialization
+      long homeVersion = this.home.getVersion();
+      try {
+        out.writeObject(new Changes(this.homeModified ? this.home : null, modifiedJournaledObjects));
+        out.close();
+      } finally {
+        this.home.setVersion(homeVersion);
+      }
+
+      List<HomeObject> addedObjects = out.getAddedObjects();
+      if (!addedObjects.isEmpty()) {
+        // Journal new objects that belong to home
+        Map<HomeObject, Boolean> homeObjects = new IdentityHashMap<HomeObject, Boolean>();
+        for (HomeObject homeObject : this.home.getHomeObjects()) {
+          homeObjects.put(homeObject, Boolean.TRUE);
+        }
+        for (HomeObject homeObject : addedObjects) {
+          if (homeObjects.containsKey(homeObject)) {
+            this.journaledObjects.put(homeObject.getId(), homeObject);
+            addObjectListener(homeObject);
+          }
+        }
+      }
+      this.modifiedObjects.clear();
+      this.homeModified = false;
+      return new Record(bytes.toByteArray(), out.getContents());
+    } catch (IOException ex) {
+      // Probably a non serializable object or an object using the ID of an other one
+      this.snapshotRequired = true;
+      return null;
+    }
+  }
+
+  /**
+   * Starts a new journal for the snapshot of home saved in the given file.
+   * If the journal can't be created, a {@link #isSnapshotRequired() snapshot} of home will be required.
+   */
+  public void startJournal(File snapshotFile) {
+    closeJournal();
+    this.journalFile = getJournalFile(snapshotFile);
+    this.snapshotContentDigests = readContentDigests(snapshotFile);
+    this.snapshotLength = snapshotFile.length();
+    this.recordCount = 0;
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.journalFile)));
+      // Write information used to check the journal matches the snapshot
+      out.writeUTF(JOURNAL_HEADER);
+      out.writeLong(snapshotFile.length());
+      out.writeLong(snapshotFile.lastModified());
+      out.flush();
+      this.journalOut = out;
+    } catch (IOException ex) {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException ex1) {
+        }
+      }
+      this.journalFile.delete();
+      this.snapshotRequired = true;
+    }
+  }
+
+  /**
+   * Returns the Base64 encoded digests listed in the <code>ContentDigests</code> entry
+   * of the given home file.
+   */
+  private Set<String> readContentDigests(File homeFile) {
+    Set<String> contentDigests = new HashSet<String>();
+    ZipFile zipFile = null;
+    try {
+      zipFile = new ZipFile(homeFile);
+      ZipEntry entry = zipFile.getEntry("ContentDigests");
+      if (entry != null) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(entry), "UTF-8"));
+        for (String line; (line = reader.readLine()) != null; ) {
+          if (line.startsWith("SHA-1-Digest:")) {
+            contentDigests.add(line.substring("SHA-1-Digest:".length()).trim());
+          }
+        }
+      }
+    } catch (IOException ex) {
+      // Consider no content can be referenced
+    } finally {
+      if (zipFile != null) {
+        try {
+          zipFile.close();
+        } catch (IOException ex) {
+        }
+      }
+    }
+    return contentDigests;
+  }
+
+  /**
+   * Appends the given <code>record</code> to the journal. If it can't be written,
+   * the journal is stopped and a {@link #isSnapshotRequired() snapshot} of home will be required.
+   */
+  public void writeRecord(Record record) {
+    if (this.journalOut != null) {
+      try {
+        // Reference content by their digest, once checked they're saved in snapshot
+        List<byte []> contentDigests = new ArrayList<byte[]>(record.contents.size());
+        ContentDigestManager contentDigestManager = ContentDigestManager.getInstance();
+        for (Content content : record.contents) {
+          byte [] digest = contentDigestManager.getContentDigest(content);
+          if (digest == null
+              || !this.snapshotContentDigests.contains(Base64.encodeBytes(digest))) {
+            throw new IOException("Content not saved in snapshot");
+          }
+          contentDigests.add(digest);
+        }
+        this.journalOut.writeInt(contentDigests.size());
+        for (byte [] digest : contentDigests) {
+          this.journalOut.writeInt(digest.length);
+          this.journalOut.write(digest);
+        }
+        this.journalOut.writeInt(record.data.length);
+        this.journalOut.write(record.data);
+        this.journalOut.flush();
+        if (++this.recordCount >= MAXIMUM_RECORD_COUNT
+            || this.journalOut.size() > Math.max(MINIMUM_JOURNAL_SIZE, this.snapshotLength)) {
+          this.snapshotRequired = true;
+        }
+      } catch (IOException ex) {
+        // Next records can't be written without this one
+        closeJournal();
+        this.snapshotRequired = true;
+      }
+    } else {
+      // Journal wasn't started or was stopped
+      this.snapshotRequired = true;
+    }
+  }
+
+  /**
+   * Closes the journal file.
+   */
+  private void closeJournal() {
+    if (this.journalOut != null) {
+      try {
+        this.journalOut.close();
+      } catch (IOException ex) {
+        // Forget it
+      }
+      this.journalOut = null;
+    }
+  }
+
+  /**
+   * Closes and deletes the journal file.
+   */
+  public void deleteJournal() {
+    closeJournal();
+    if (this.journalFile != null) {
+      this.journalFile.delete();
+      this.journalFile = null;
+    }
+  }
+
+  /**
+   * Removes the listeners added by this journal to home and its objects.
+   */
+  public void dispose() {
+    for (Home.Property property : Home.Property.values()) {
+      this.home.removePropertyChangeListener(property, this.homeListener);
+    }
+    this.home.removePropertyChangeListener(this.homePropertiesListener);
+    this.home.removeFurnitureListener(this.furnitureListener);
+    this.home.removeWallsListener(this.wallsListener);
+    this.home.removeRoomsListener(this.roomsListener);
+    this.home.removePolylinesListener(this.polylinesListener);
+    this.home.removeDimensionLinesListener(this.dimensionLinesListener);
+    this.home.removeLabelsListener(this.labelsListener);
+    this.home.removeLevelsListener(this.levelsListener);
+    for (HomeObject homeObject : this.listenedObjects.keySet()) {
+      homeObject.removePropertyChangeListener(this.objectsListener);
+    }
+    this.listenedObjects.clear();
+    this.journaledObjects.clear();
+    this.modifiedObjects.clear();
+  }
+
+  /**
+   * Returns a home built from the given <code>snapshotHome</code> read from <code>snapshotFile</code>,
+   * updated with the changes recorded in the journal of this file. If the journal doesn't exist,
+   * doesn't match the snapshot or doesn't contain any valid record, <code>snapshotHome</code> is returned.
+   * The records following the first invalid record of the journal are ignored.
+   */
+  public static Home replayJournal(Home snapshotHome, File snapshotFile) throws IOException {
+    File journalFile = getJournalFile(snapshotFile);
+    if (!journalFile.exists()) {
+      return snapshotHome;
+    }
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+    try {
+      try {
+        if (!JOURNAL_HEADER.equals(in.readUTF())
+            || in.readLong() != snapshotFile.length()
+            || in.readLong() != snapshotFile.lastModified()) {
+          return snapshotHome;
+        }
+      } catch (EOFException ex) {
+        return snapshotHome;
+      }
+
+      JournalReplay replay = new JournalReplay(snapshotHome);
+      while (true) {
+        byte [][] contentDigests;
+        byte [] data;
+        try {
+          contentDigests = new byte [in.readInt()][];
+          for (int i = 0; i < contentDigests.length; i++) {
+            contentDigests [i] = new byte [in.readInt()];
+            in.readFully(contentDigests [i]);
+          }
+          data = new byte [in.readInt()];
+          in.readFully(data);
+        } catch (EOFException ex) {
+          // Ignore last record if it wasn't fully written
+          break;
+        }
+        if (!replay.applyRecord(data, contentDigests)) {
+          break;
+        }
+      }
+      return replay.getHome();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * The changes of a home recorded in memory, waiting to be written in journal.
+   */
+  public static final class Record {
+    private final byte []       data;
+    private final List<Content> contents;
+
+    private Record(byte [] data, List<Content> contents) {
+      this.data = data;
+      this.contents = contents;
+    }
+  }
+
+  /**
+   * The root object of a serialized record.
+   */
+  private static class Changes implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Home             home;
+    private final List<HomeObject> objects;
+
+    public Changes(Home home, List<HomeObject> objects) {
+      this.home = home;
+      this.objects = objects;
+    }
+  }
+
+  /**
+   * A reference to a home object written in the snapshot or in a previous record.
+   */
+  private static class ObjectReference implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+
+    public ObjectReference(String id) {
+      this.id = id;
+    }
+  }
+
+  /**
+   * A reference to a content saved in snapshot, stored by its index in the digests of a record.
+   */
+  private static class ContentReference implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+
+    public ContentReference(int index) {
+      this.index = index;
+    }
+  }
+
+  /**
+   * Object output stream that replaces the unmodified journaled objects by their reference
+   * and the content saved with home by a content reference.
+   */
+  private class ChangesOutputStream extends ObjectOutputStream {
+    private List<HomeObject> addedObjects = new ArrayList<HomeObject>();
+    private List<Content>    contents     = new ArrayList<Content>();
+
+    public ChangesOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) throws IOException {
+      if (obj instanceof HomeObject) {
+        HomeObject homeObject = (HomeObject)obj;
+        HomeObject journaledObject = journaledObjects.get(homeObject.getId());
+        if (journaledObject == homeObject) {
+          if (!modifiedObjects.containsKey(homeObject)) {
+            return new ObjectReference(homeObject.getId());
+          }
+        } else if (journaledObject != null) {
+          throw new InvalidObjectException("Object " + homeObject.getId() + " already journaled");
+        } else {
+          this.addedObjects.add(homeObject);
+        }
+      } else if (obj instanceof Content
+                 && (!(obj instanceof URLContent)
+                     || obj instanceof TemporaryURLContent
+                     || obj instanceof HomeURLContent
+                     || obj instanceof SimpleURLContent)) {
+        // Reference content that may not exist anymore once home is recovered
+        this.contents.add((Content)obj);
+        return new ContentReference(this.contents.size() - 1);
+      }
+      return obj;
+    }
+
+    public List<HomeObject> getAddedObjects() {
+      return this.addedObjects;
+    }
+
+    public List<Content> getContents() {
+      return this.contents;
+    }
+  }
+
+  /**
+   * The state of a home rebuilt from a snapshot and a journal.
+   */
+  private static class JournalReplay {
+    private final Home                    snapshotHome;
+    private Home                          home;
+    private final Map<String, HomeObject> objects;
+    private Map<String, Content>          snapshotContents;
+    private boolean                       modified;
+
+    public JournalReplay(Home snapshotHome) {
+      this.snapshotHome = snapshotHome;
+      this.home = snapshotHome;
+      this.objects = new HashMap<String, HomeObject>();
+      for (HomeObject homeObject : snapshotHome.getHomeObjects()) {
+        this.objects.put(homeObject.getId(), homeObject);
+      }
+    }
+
+    /**
+     * Reads the changes of the given record and returns <code>true</code> if they're valid.
+     */
+    public boolean applyRecord(byte [] data, final byte [][] contentDigests) {
+      final Map<String, HomeObject> recordObjects = new HashMap<String, HomeObject>();
+      try {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+            {
+              enableResolveObject(true);
+            }
+
+            @Override
+            protected Object resolveObject(Object obj) throws IOException {
+              if (obj instanceof ObjectReference) {
+                HomeObject homeObject = objects.get(((ObjectReference)obj).id);
+                if (homeObject == null) {
+                  throw new InvalidObjectException("Unknown object " + ((ObjectReference)obj).id);
+                }
+                return homeObject;
+              } else if (obj instanceof ContentReference) {
+                return getSnapshotContent(contentDigests [((ContentReference)obj).index]);
+              } else if (obj instanceof HomeObject) {
+                recordObjects.put(((HomeObject)obj).getId(), (HomeObject)obj);
+              }
+              return obj;
+            }
+          };
+        Changes changes = (Changes)in.readObject();
+        this.objects.putAll(recordObjects);
+        if (changes.home != null) {
+          this.home = changes.home;
+        }
+        this.modified = true;
+        return true;
+      } catch (IOException ex) {
+        return false;
+      } catch (ClassNotFoundException ex) {
+        return false;
+      } catch (RuntimeException ex) {
+        // Probably a class cast exception
+        return false;
+      }
+    }
+
+    /**
+     * Returns the content of snapshot home matching the given digest.
+     */
+    private Content getSnapshotContent(byte [] digest) throws IOException {
+      if (this.snapshotContents == null) {
+        this.snapshotContents = new HashMap<String, Content>();
+        ContentDigestManager contentDigestManager = ContentDigestManager.getInstance();
+        for (Content content : collectContents(this.snapshotHome)) {
+          byte [] contentDigest = contentDigestManager.getContentDigest(content);
+          if (contentDigest != null) {
+            this.snapshotContents.put(Base64.encodeBytes(contentDigest), content);
+          }
+        }
+      }
+      Content content = this.snapshotContents.get(Base64.encodeBytes(digest));
+      if (content == null) {
+        throw new InvalidObjectException("Unknown content");
+      }
+      return content;
+    }
+
+    /**
+     * Returns the home rebuilt from the snapshot and the applied records,
+     * in which all the references to a home object point to its last recorded state.
+     */
+    public Home getHome() throws IOException {
+      if (!this.modified) {
+        return this.snapshotHome;
+      }
+      final List<Content> contents = new ArrayList<Content>();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes) {
+          {
+            enableReplaceObject(true);
+          }
+
+          @Override
+          protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof HomeObject) {
+              HomeObject homeObject = objects.get(((HomeObject)obj).getId());
+              if (homeObject != null) {
+                return homeObject;
+              }
+            } else if (obj instanceof Content) {
+              // Keep the same content instances
+              contents.add((Content)obj);
+              return new ContentReference(contents.size() - 1);
+            }
+            return obj;
+          }
+        };
+      out.writeObject(this.home);
+      out.close();
+
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+          {
+            enableResolveObject(true);
+          }
+
+          @Override
+          protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof ContentReference) {
+              return contents.get(((ContentReference)obj).index);
+            }
+            return obj;
+          }
+        };
+      try {
+        Home home = (Home)in.readObject();
+        // Restore additional properties which aren't serialized
+        home.setFurnitureAdditionalProperties(this.snapshotHome.getFurnitureAdditionalProperties());
+        return home;
+      } catch (ClassNotFoundException ex) {
+        IOException exception = new IOException("Can't rebuild home");
+        exception.initCause(ex);
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * Returns the content objects referenced by the given <code>home</code>.
+   */
+  private static List<Content> collectContents(Home home) throws IOException {
+    final List<Content> contents = new ArrayList<Content>();
+    ObjectOutputStream out = new ObjectOutputStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte [] b, int off, int len) {
+        }
+      }) {
+        {
+          enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+          if (obj instanceof Content) {
+            contents.add((Content)obj);
+          }
+          return obj;
+        }
+      };
+    out.writeObject(home);
+    out.close();
+    return Collections.unmodifiableList(contents);
+  }
+}
@@ -0,0 +1,821 @@
+/*
+ * ParallelZipOutputStream.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import com.eteks.sweethome3d.tools.OperatingSystem;
+
+/**
+ * A zip output stream that deflates its entries in parallel with an executor.
+ * The data of each entry is kept in memory until its entry is closed, then compressed
+ * in a separate buffer by a task of the executor. Data larger than 16 MB is kept
+ * in temporary files rather than in memory. Compressed entries are written
+ * in the order they were added, with their sizes and CRC in their local header,
+ * followed by a central directory, so that the written zip may be read
+ * either with <code>ZipInputStream</code> or <code>ZipFile</code> classes.
+ * Entries may also be {@linkplain #copyEntry(String, ZipDirectory, ZipDirectory.Entry) copied}
+ * from an other zip file without being decompressed.
+ * Added entries are deflated, or stored as is if compression level is 0,
+ * and their comment and extra fields are ignored.
+ * @author Emmanuel Puybaret
+ */
+class ParallelZipOutputStream extends ZipOutputStream {
+  private static final int  LOCAL_HEADER_SIGNATURE           = 0x04034b50;
+  private static final int  CENTRAL_HEADER_SIGNATURE         = 0x02014b50;
+  private static final int  END_SIGNATURE                    = 0x06054b50;
+  private static final int  ZIP64_END_SIGNATURE              = 0x06064b50;
+  private static final int  ZIP64_LOCATOR_SIGNATURE          = 0x07064b50;
+  private static final long ZIP64_MAGIC_VALUE                = 0xFFFFFFFFL;
+  private static final int  ZIP64_MAGIC_COUNT                = 0xFFFF;
+  private static final int  UTF8_FLAG                        = 0x0800;
+  private static final int  VERSION                          = 20;
+  private static final int  ZIP64_VERSION                    = 45;
+  private static final long MAXIMUM_PENDING_SIZE             = 128L << 20;
+  private static final int  MAXIMUM_PENDING_ENTRIES_PER_TASK = 2;
+  private static final int  MAXIMUM_MEMORY_BUFFER_SIZE       = 16 << 20;
+
+  private final ExecutorService                     executor;
+  private final int                                 maximumPendingEntries;
+  private final LinkedList<Future<CompressedEntry>> pendingEntries;
+  private final List<CompressedEntry>               writtenEntries;
+  private final Set<String>                         entryNames;
+  private int            level;
+  private String         currentEntryName;
+  private long           currentEntryTime;
+  private EntryBuffer    currentEntryBuffer;
+  private long           pendingSize;
+  private long           writtenSize;
+  private boolean        finished;
+
+  /**
+   * Creates a zip stream that writes its entries in <code>out</code> once they're
+   * compressed by the tasks of the given <code>executor</code>.
+   * @param out         the stream where zip data is written
+   * @param executor    the service used to compress entries, or <code>null</code>
+   *                    to compress them in the thread calling <code>closeEntry</code>
+   * @param taskCount   the count of threads of the executor
+   */
+  public ParallelZipOutputStream(OutputStream out,
+                                 ExecutorService executor,
+                                 int taskCount) {
+    super(out);
+    this.executor = executor;
+    this.maximumPendingEntries = Math.max(1, taskCount) * MAXIMUM_PENDING_ENTRIES_PER_TASK;
+    this.pendingEntries = new LinkedList<Future<CompressedEntry>>();
+    this.writtenEntries = new ArrayList<CompressedEntry>();
+    this.entryNames = new HashSet<String>();
+    this.level = Deflater.DEFAULT_COMPRESSION;
+  }
+
+  @Override
+  public void setLevel(int level) {
+    if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("invalid compression level");
+    }
+    this.level = level;
+  }
+
+  @Override
+  public void setMethod(int method) {
+    if (method != DEFLATED) {
+      throw new IllegalArgumentException("Only deflated entries supported");
+    }
+  }
+
+  /**
+   * Begins a new entry. Its data will be stored in memory or in a temporary file
+   * if it's large, until the entry is closed.
+   */
+  @Override
+  public void putNextEntry(ZipEntry entry) throws IOException {
+    checkNotFinished();
+    if (this.currentEntryName != null) {
+      closeEntry();
+    }
+    if (!this.entryNames.add(entry.getName())) {
+      throw new ZipException("duplicate entry: " + entry.getName());
+    }
+    this.currentEntryName = entry.getName();
+    this.currentEntryTime = entry.getTime() != -1
+        ? entry.getTime()
+        : System.currentTimeMillis();
+    this.currentEntryBuffer = new EntryBuffer(8192);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    checkCurrentEntry();
+    this.currentEntryBuffer.write(b);
+  }
+
+  @Override
+  public void write(byte [] b, int off, int len) throws IOException {
+    checkCurrentEntry();
+    this.currentEntryBuffer.write(b, off, len);
+  }
+
+  /**
+   * Throws an exception if no entry was started.
+   */
+  private void checkCurrentEntry() throws IOException {
+    checkNotFinished();
+    if (this.currentEntryName == null) {
+      throw new ZipException("no current ZIP entry");
+    }
+  }
+
+  /**
+   * Closes the current entry and schedules its compression. The compressed entries
+   * which are ready are written meanwhile in the underlying stream.
+   */
+  @Override
+  public void closeEntry() throws IOException {
+    checkNotFinished();
+    if (this.currentEntryName != null) {
+      final String entryName = this.currentEntryName;
+      final long entryTime = this.currentEntryTime;
+      final EntryBuffer entryBuffer = this.currentEntryBuffer;
+      final int level = this.level;
+      this.currentEntryName = null;
+      this.currentEntryBuffer = null;
+      entryBuffer.close();
+      CompressionTask compressionTask = new CompressionTask(entryName, entryTime, entryBuffer, level);
+      this.pendingEntries.add(compressionTask);
+      if (this.executor != null) {
+        this.executor.execute(compressionTask);
+      } else {
+        compressionTask.run();
+      }
+      this.pendingSize += entryBuffer.size();
+      writeReadyEntries();
+    }
+  }
+
+  /**
+   * Adds an entry named <code>name</code> which compressed data will be copied as is
+   * from the given <code>sourceEntry</code> of an other zip file, with its CRC and sizes.
+   * @throws ZipException if the source entry is encrypted or compressed with an
+   *            unsupported method
+   */
+  public void copyEntry(String name,
+                        ZipDirectory sourceDirectory,
+                        ZipDirectory.Entry sourceEntry) throws IOException {
+    checkNotFinished();
+    if (sourceEntry.isEncrypted()
+        || (sourceEntry.getMethod() != DEFLATED && sourceEntry.getMethod() != STORED)) {
+      throw new ZipException("Can't copy entry " + sourceEntry.getName());
+    }
+    if (this.currentEntryName != null) {
+      closeEntry();
+    }
+    if (!this.entryNames.add(name)) {
+      throw new ZipException("duplicate entry: " + name);
+    }
+    final CompressedEntry entry = new CompressedEntry(name.getBytes("UTF-8"), sourceEntry.getTime(),
+        sourceEntry.getCrc(), sourceEntry.getSize(), sourceEntry.getCompressedSize(), sourceEntry.getMethod(),
+        sourceDirectory, sourceEntry);
+    // Add a task already done to keep entries order
+    FutureTask<CompressedEntry> copyTask = new FutureTask<CompressedEntry>(new Callable<CompressedEntry>() {
+        public CompressedEntry call() throws Exception {
+          return entry;
+        }
+      });
+    copyTask.run();
+    this.pendingEntries.add(copyTask);
+    writeReadyEntries();
+  }
+
+  /**
+   * Writes compressed entries available at the head of the queue,
+   * and waits for the first ones if too many entries are pending.
+   */
+  private void writeReadyEntries() throws IOException {
+    while (!this.pendingEntries.isEmpty()
+           && (this.pendingEntries.getFirst().isDone()
+               || this.pendingEntries.size() > 1
+                  && (this.pendingEntries.size() > this.maximumPendingEntries
+                      || this.pendingSize > MAXIMUM_PENDING_SIZE))) {
+      writeEntry(getCompressedEntry(this.pendingEntries.removeFirst()));
+    }
+  }
+
+  /**
+   * Returns the entry computed by the given <code>task</code>.
+   */
+  private CompressedEntry getCompressedEntry(Future<CompressedEntry> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException ex) {
+      throw new InterruptedIOException();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      } else {
+        IOException ex2 = new IOException("Can't compress entry");
+        ex2.initCause(cause);
+        throw ex2;
+      }
+    }
+  }
+
+  /**
+   * Cancels the compression of the pending entries and deletes their data.
+   * This method should be called if this stream can't be finished because of an error.
+   */
+  public void cancelPendingEntries() {
+    for (Future<CompressedEntry> task : this.pendingEntries) {
+      if (!task.cancel(true)) {
+        try {
+          EntryBuffer data = task.get().getData();
+          if (data != null) {
+            data.delete();
+          }
+        } catch (Exception ex) {
+          // No data to delete
+        }
+      }
+    }
+    this.pendingEntries.clear();
+    if (this.currentEntryBuffer != null) {
+      this.currentEntryBuffer.delete();
+      this.currentEntryBuffer = null;
+      this.currentEntryName = null;
+    }
+  }
+
+  /**
+   * Returns a compressed copy of the given <code>data</code>, then deletes <code>data</code>.
+   */
+  private static CompressedEntry compressEntry(String name, long time,
+                                               EntryBuffer data, int level) throws IOException {
+    if (level == 0) {
+      return storeEntry(name, time, data);
+    }
+    Deflater deflater = new Deflater(level, true);
+    EntryBuffer compressedData = new EntryBuffer(data.getBuffer() != null
+        ? (int)Math.max(64, data.size() / 2)
+        : 65536);
+    boolean compressed = false;
+    try {
+      CRC32 crc = new CRC32();
+      byte [] buffer = new byte [8192];
+      if (data.getBuffer() != null) {
+        crc.update(data.getBuffer(), 0, (int)data.size());
+        deflater.setInput(data.getBuffer(), 0, (int)data.size());
+        deflate(deflater, buffer, compressedData);
+      } else {
+        // Compress data stored in a file
+        InputStream in = data.getInputStream();
+        try {
+          byte [] inputBuffer = new byte [65536];
+          for (int size; (size = in.read(inputBuffer)) != -1; ) {
+            if (Thread.currentThread().isInterrupted()) {
+              throw new InterruptedIOException();
+            }
+            crc.update(inputBuffer, 0, size);
+            deflater.setInput(inputBuffer, 0, size);
+            deflate(deflater, buffer, compressedData);
+          }
+        } finally {
+          in.close();
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        compressedData.write(buffer, 0, deflater.deflate(buffer));
+      }
+      compressedData.close();
+      compressed = true;
+      return new CompressedEntry(name.getBytes("UTF-8"), getDosTime(time),
+          crc.getValue(), data.size(), compressedData, DEFLATED);
+    } finally {
+      deflater.end();
+      data.delete();
+      if (!compressed) {
+        compressedData.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns an entry storing the given <code>data</code> without compressing it.
+   */
+  private static CompressedEntry storeEntry(String name, long time, EntryBuffer data) throws IOException {
+    boolean stored = false;
+    try {
+      CRC32 crc = new CRC32();
+      if (data.getBuffer() != null) {
+        crc.update(data.getBuffer(), 0, (int)data.size());
+      } else {
+        InputStream in = data.getInputStream();
+        try {
+          byte [] inputBuffer = new byte [65536];
+          for (int size; (size = in.read(inputBuffer)) != -1; ) {
+            if (Thread.currentThread().isInterrupted()) {
+              throw new InterruptedIOException();
+            }
+            crc.update(inputBuffer, 0, size);
+          }
+        } finally {
+          in.close();
+        }
+      }
+      stored = true;
+      return new CompressedEntry(name.getBytes("UTF-8"), getDosTime(time),
+          crc.getValue(), data.size(), data, STORED);
+    } finally {
+      if (!stored) {
+        data.delete();
+      }
+    }
+  }
+
+  /**
+   * Writes in <code>compressedData</code> the data deflated from the current input of <code>deflater</code>.
+   */
+  private static void deflate(Deflater deflater, byte [] buffer, EntryBuffer compressedData) throws IOException {
+    while (!deflater.needsInput()) {
+      compressedData.write(buffer, 0, deflater.deflate(buffer));
+    }
+  }
+
+  /**
+   * Returns the given <code>time</code> at MS-DOS format.
+   */
+  private static int getDosTime(long time) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(time);
+    int year = calendar.get(Calendar.YEAR);
+    if (year < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (year - 1980) << 25
+        | (calendar.get(Calendar.MONTH) + 1) << 21
+        | calendar.get(Calendar.DAY_OF_MONTH) << 16
+        | calendar.get(Calendar.HOUR_OF_DAY) << 11
+        | calendar.get(Calendar.MINUTE) << 5
+        | calendar.get(Calendar.SECOND) >> 1;
+  }
+
+  /**
+   * Writes the local header and the data of the given <code>entry</code>.
+   */
+  private void writeEntry(CompressedEntry entry) throws IOException {
+    if (entry.getData() != null) {
+      this.pendingSize -= entry.getSize();
+    }
+    boolean zip64 = entry.getSize() >= ZIP64_MAGIC_VALUE
+        || entry.getCompressedSize() >= ZIP64_MAGIC_VALUE;
+    ByteBuffer header = ByteBuffer.allocate(30 + entry.getName().length + (zip64 ? 20 : 0));
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(LOCAL_HEADER_SIGNATURE);
+    header.putShort((short)(zip64 ? ZIP64_VERSION : VERSION));
+    header.putShort((short)UTF8_FLAG);
+    header.putShort((short)entry.getMethod());
+    header.putInt(entry.getTime());
+    header.putInt((int)entry.getCrc());
+    if (zip64) {
+      header.putInt((int)ZIP64_MAGIC_VALUE);
+      header.putInt((int)ZIP64_MAGIC_VALUE);
+    } else {
+      header.putInt((int)entry.getCompressedSize());
+      header.putInt((int)entry.getSize());
+    }
+    header.putShort((short)entry.getName().length);
+    header.putShort((short)(zip64 ? 20 : 0));
+    header.put(entry.getName());
+    if (zip64) {
+      header.putShort((short)1);
+      header.putShort((short)16);
+      header.putLong(entry.getSize());
+      header.putLong(entry.getCompressedSize());
+    }
+    entry.setOffset(this.writtenSize);
+    writeBuffer(header);
+    EntryBuffer data = entry.getData();
+    if (data != null) {
+      try {
+        data.writeTo(this.out);
+      } finally {
+        // Free compressed data once written
+        data.delete();
+        entry.setData(null);
+      }
+    } else {
+      copySourceData(entry);
+    }
+    this.writtenSize += entry.getCompressedSize();
+    this.writtenEntries.add(entry);
+  }
+
+  /**
+   * Copies the compressed data of the source entry of the given <code>entry</code>.
+   */
+  private void copySourceData(CompressedEntry entry) throws IOException {
+    ZipDirectory sourceDirectory = entry.getSourceDirectory();
+    RandomAccessFile sourceFile = new RandomAccessFile(sourceDirectory.getZipFile(), "r");
+    try {
+      sourceFile.seek(sourceDirectory.getDataOffset(entry.getSourceEntry(), sourceFile));
+      byte [] buffer = new byte [8192];
+      for (long remaining = entry.getCompressedSize(); remaining > 0; ) {
+        int size = sourceFile.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+        if (size == -1) {
+          throw new ZipException("Unexpected end of entry " + entry.getSourceEntry().getName());
+        }
+        this.out.write(buffer, 0, size);
+        remaining -= size;
+      }
+    } finally {
+      sourceFile.close();
+    }
+  }
+
+  /**
+   * Writes the content of the given <code>buffer</code> in the underlying stream.
+   */
+  private void writeBuffer(ByteBuffer buffer) throws IOException {
+    this.out.write(buffer.array(), 0, buffer.position());
+    this.writtenSize += buffer.position();
+  }
+
+  /**
+   * Writes the pending entries and the central directory of the zip.
+   */
+  @Override
+  public void finish() throws IOException {
+    if (!this.finished) {
+      closeEntry();
+      while (!this.pendingEntries.isEmpty()) {
+        writeEntry(getCompressedEntry(this.pendingEntries.removeFirst()));
+      }
+      this.finished = true;
+
+      long centralDirectoryOffset = this.writtenSize;
+      for (CompressedEntry entry : this.writtenEntries) {
+        writeCentralHeader(entry);
+      }
+      long centralDirectorySize = this.writtenSize - centralDirectoryOffset;
+      int entryCount = this.writtenEntries.size();
+      if (entryCount >= ZIP64_MAGIC_COUNT
+          || centralDirectoryOffset >= ZIP64_MAGIC_VALUE
+          || centralDirectorySize >= ZIP64_MAGIC_VALUE) {
+        long zip64EndOffset = this.writtenSize;
+        ByteBuffer zip64End = ByteBuffer.allocate(76);
+        zip64End.order(ByteOrder.LITTLE_ENDIAN);
+        zip64End.putInt(ZIP64_END_SIGNATURE);
+        zip64End.putLong(44);
+        zip64End.putShort((short)ZIP64_VERSION);
+        zip64End.putShort((short)ZIP64_VERSION);
+        zip64End.putInt(0);
+        zip64End.putInt(0);
+        zip64End.putLong(entryCount);
+        zip64End.putLong(entryCount);
+        zip64End.putLong(centralDirectorySize);
+        zip64End.putLong(centralDirectoryOffset);
+        zip64End.putInt(ZIP64_LOCATOR_SIGNATURE);
+        zip64End.putInt(0);
+        zip64End.putLong(zip64EndOffset);
+        zip64End.putInt(1);
+        writeBuffer(zip64End);
+      }
+      ByteBuffer end = ByteBuffer.allocate(22);
+      end.order(ByteOrder.LITTLE_ENDIAN);
+      end.putInt(END_SIGNATURE);
+      end.putShort((short)0);
+      end.putShort((short)0);
+      end.putShort((short)Math.min(entryCount, ZIP64_MAGIC_COUNT));
+      end.putShort((short)Math.min(entryCount, ZIP64_MAGIC_COUNT));
+      end.putInt((int)Math.min(centralDirectorySize, ZIP64_MAGIC_VALUE));
+      end.putInt((int)Math.min(centralDirectoryOffset, ZIP64_MAGIC_VALUE));
+      end.putShort((short)0);
+      writeBuffer(end);
+      this.out.flush();
+    }
+  }
+
+  /**
+   * Writes the central directory header of the given <code>entry</code>.
+   */
+  private void writeCentralHeader(CompressedEntry entry) throws IOException {
+    boolean zip64Size = entry.getSize() >= ZIP64_MAGIC_VALUE;
+    boolean zip64CompressedSize = entry.getCompressedSize() >= ZIP64_MAGIC_VALUE;
+    boolean zip64Offset = entry.getOffset() >= ZIP64_MAGIC_VALUE;
+    int extraSize = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+    if (extraSize > 0) {
+      extraSize += 4;
+    }
+    ByteBuffer header = ByteBuffer.allocate(46 + entry.getName().length + extraSize);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(CENTRAL_HEADER_SIGNATURE);
+    short version = (short)(extraSize > 0 ? ZIP64_VERSION : VERSION);
+    header.putShort(version);
+    header.putShort(version);
+    header.putShort((short)UTF8_FLAG);
+    header.putShort((short)entry.getMethod());
+    header.putInt(entry.getTime());
+    header.putInt((int)entry.getCrc());
+    header.putInt((int)(zip64CompressedSize ? ZIP64_MAGIC_VALUE : entry.getCompressedSize()));
+    header.putInt((int)(zip64Size ? ZIP64_MAGIC_VALUE : entry.getSize()));
+    header.putShort((short)entry.getName().length);
+    header.putShort((short)extraSize);
+    header.putShort((short)0); // Comment length
+    header.putShort((short)0); // Disk number
+    header.putShort((short)0); // Internal attributes
+    header.putInt(0);          // External attributes
+    header.putInt((int)(zip64Offset ? ZIP64_MAGIC_VALUE : entry.getOffset()));
+    header.put(entry.getName());
+    if (extraSize > 0) {
+      header.putShort((short)1);
+      header.putShort((short)(extraSize - 4));
+      if (zip64Size) {
+        header.putLong(entry.getSize());
+      }
+      if (zip64CompressedSize) {
+        header.putLong(entry.getCompressedSize());
+      }
+      if (zip64Offset) {
+        header.putLong(entry.getOffset());
+      }
+    }
+    writeBuffer(header);
+  }
+
+  /**
+   * Throws an exception if this stream is finished.
+   */
+  private void checkNotFinished() throws IOException {
+    if (this.finished) {
+      throw new IOException("Stream finished");
+    }
+  }
+
+  /**
+   * A task compressing the data of an entry, that deletes this data if it's cancelled before being run.
+   */
+  private static class CompressionTask extends FutureTask<CompressedEntry> {
+    private final EntryBuffer data;
+
+    public CompressionTask(final String name, final long time, final EntryBuffer data, final int level) {
+      super(new Callable<CompressedEntry>() {
+          public CompressedEntry call() throws Exception {
+            return compressEntry(name, time, data, level);
+          }
+        });
+      this.data = data;
+    }
+
+    @Override
+    protected void done() {
+      if (isCancelled()) {
+        this.data.delete();
+      }
+    }
+  }
+
+  /**
+   * An output stream keeping its data in a memory buffer, then in a temporary file
+   * once its size exceeds 16 MB.
+   */
+  private static class EntryBuffer extends OutputStream {
+    private byte []      buffer;
+    private File         file;
+    private OutputStream fileOut;
+    private long         size;
+
+    public EntryBuffer(int size) {
+      this.buffer = new byte [size];
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+      if (this.file == null && this.size < this.buffer.length) {
+        this.buffer [(int)this.size++] = (byte)b;
+      } else {
+        write(new byte [] {(byte)b}, 0, 1);
+      }
+    }
+
+    @Override
+    public synchronized void write(byte [] b, int off, int len) throws IOException {
+      if (this.file == null) {
+        if (this.size + len <= MAXIMUM_MEMORY_BUFFER_SIZE) {
+          if (this.size + len > this.buffer.length) {
+            byte [] buffer = new byte [(int)Math.min(MAXIMUM_MEMORY_BUFFER_SIZE,
+                Math.max(this.size + len, 2L * this.buffer.length))];
+            System.arraycopy(this.buffer, 0, buffer, 0, (int)this.size);
+            this.buffer = buffer;
+          }
+          System.arraycopy(b, off, this.buffer, (int)this.size, len);
+          this.size += len;
+          return;
+        } else {
+          // Move data to a temporary file
+          this.file = OperatingSystem.createTemporaryFile("entry", ".tmp");
+          this.fileOut = new BufferedOutputStream(new FileOutputStream(this.file), 65536);
+          this.fileOut.write(this.buffer, 0, (int)this.size);
+          this.buffer = null;
+        }
+      }
+      this.fileOut.write(b, off, len);
+      this.size += len;
+    }
+
+    /**
+     * Closes the file where data is stored if it exists.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+      if (this.fileOut != null) {
+        this.fileOut.close();
+        this.fileOut = null;
+      }
+    }
+
+    public long size() {
+      return this.size;
+    }
+
+    /**
+     * Returns the buffer storing data or <code>null</code> if it's stored in a file.
+     */
+    public byte [] getBuffer() {
+      return this.buffer;
+    }
+
+    /**
+     * Returns a stream to read the data of this closed buffer.
+     */
+    public InputStream getInputStream() throws IOException {
+      if (this.file == null) {
+        return new ByteArrayInputStream(this.buffer, 0, (int)this.size);
+      } else {
+        return new FileInputStream(this.file);
+      }
+    }
+
+    /**
+     * Writes the data of this closed buffer to the given stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+      if (this.file == null) {
+        out.write(this.buffer, 0, (int)this.size);
+      } else {
+        InputStream in = getInputStream();
+        try {
+          byte [] buffer = new byte [65536];
+          for (int size; (size = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, size);
+          }
+        } finally {
+          in.close();
+        }
+      }
+    }
+
+    /**
+     * Deletes the data of this buffer.
+     */
+    public synchronized void delete() {
+      this.buffer = null;
+      if (this.file != null) {
+        try {
+          close();
+        } catch (IOException ex) {
+          // Ignore close failure
+        }
+        this.file.delete();
+      }
+    }
+  }
+
+  /**
+   * The compressed data of an entry and its attributes.
+   */
+  private static class CompressedEntry {
+    private final byte []            name;
+    private final int                time;
+    private final long               crc;
+    private final long               size;
+    private final long               compressedSize;
+    private final int                method;
+    private final ZipDirectory       sourceDirectory;
+    private final ZipDirectory.Entry sourceEntry;
+    private EntryBuffer              data;
+    private long                     offset;
+
+    public CompressedEntry(byte [] name, int time, long crc, long size, EntryBuffer data, int method) {
+      this(name, time, crc, size, data.size(), method, null, null);
+      this.data = data;
+    }
+
+    public CompressedEntry(byte [] name, int time, long crc, long size, long compressedSize, int method,
+                           ZipDirectory sourceDirectory, ZipDirectory.Entry sourceEntry) {
+      this.name = name;
+      this.time = time;
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = compressedSize;
+      this.method = method;
+      this.sourceDirectory = sourceDirectory;
+      this.sourceEntry = sourceEntry;
+    }
+
+    public byte [] getName() {
+      return this.name;
+    }
+
+    public int getTime() {
+      return this.time;
+    }
+
+    public long getCrc() {
+      return this.crc;
+    }
+
+    public long getSize() {
+      return this.size;
+    }
+
+    public long getCompressedSize() {
+      return this.compressedSize;
+    }
+
+    public int getMethod() {
+      return this.method;
+    }
+
+    public ZipDirectory getSourceDirectory() {
+      return this.sourceDirectory;
+    }
+
+    public ZipDirectory.Entry getSourceEntry() {
+      return this.sourceEntry;
+    }
+
+    public EntryBuffer getData() {
+      return this.data;
+    }
+
+    public void setData(EntryBuffer data) {
+      this.data = data;
+    }
+
+    public long getOffset() {
+      return this.offset;
+    }
+
+    public void setOffset(long offset) {
+      this.offset = offset;
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * ZipDirectory.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * The central directory of a zip file, giving access to the raw attributes of its entries
+ * and to the location of their data in the file.
+ * @author Emmanuel Puybaret
+ */
+class ZipDirectory {
+  private static final int  LOCAL_HEADER_SIGNATURE   = 0x04034b50;
+  private static final int  CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int  END_SIGNATURE            = 0x06054b50;
+  private static final int  ZIP64_END_SIGNATURE      = 0x06064b50;
+  private static final int  ZIP64_LOCATOR_SIGNATURE  = 0x07064b50;
+  private static final long ZIP64_MAGIC_VALUE        = 0xFFFFFFFFL;
+  private static final int  ZIP64_MAGIC_COUNT        = 0xFFFF;
+  private static final int  END_SIZE                 = 22;
+  private static final int  MAXIMUM_COMMENT_SIZE     = 0xFFFF;
+
+  private final File               zipFile;
+  private final Map<String, Entry> entries;
+
+  /**
+   * Reads the central directory of the given <code>zipFile</code>.
+   * @throws ZipException if the file isn't a valid zip file
+   */
+  public ZipDirectory(File zipFile) throws IOException {
+    this.zipFile = zipFile;
+    this.entries = new LinkedHashMap<String, Entry>();
+    RandomAccessFile file = new RandomAccessFile(zipFile, "r");
+    try {
+      readEntries(file);
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Reads the entries listed in the central directory of the given file.
+   */
+  private void readEntries(RandomAccessFile file) throws IOException {
+    long fileLength = file.length();
+    if (fileLength < END_SIZE) {
+      throw new ZipException("Not a zip file");
+    }
+    // Search end of central directory record from the end of the file
+    int endSearchLength = (int)Math.min(fileLength, END_SIZE + MAXIMUM_COMMENT_SIZE);
+    ByteBuffer tail = readBuffer(file, fileLength - endSearchLength, endSearchLength);
+    int endIndex = -1;
+    for (int i = endSearchLength - END_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == END_SIGNATURE) {
+        endIndex = i;
+        break;
+      }
+    }
+    if (endIndex == -1) {
+      throw new ZipException("No central directory");
+    }
+    long entryCount = tail.getShort(endIndex + 10) & 0xFFFF;
+    long directorySize = tail.getInt(endIndex + 12) & ZIP64_MAGIC_VALUE;
+    long directoryOffset = tail.getInt(endIndex + 16) & ZIP64_MAGIC_VALUE;
+    if (entryCount == ZIP64_MAGIC_COUNT
+        || directorySize == ZIP64_MAGIC_VALUE
+        || directoryOffset == ZIP64_MAGIC_VALUE) {
+      // Read values in Zip64 end of central directory record
+      long endOffset = fileLength - endSearchLength + endIndex;
+      ByteBuffer locator = readBuffer(file, endOffset - 20, 20);
+      if (locator.getInt(0) != ZIP64_LOCATOR_SIGNATURE) {
+        throw new ZipException("No Zip64 locator");
+      }
+      ByteBuffer zip64End = readBuffer(file, locator.getLong(8), 56);
+      if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+        throw new ZipException("No Zip64 end of central directory");
+      }
+      entryCount = zip64End.getLong(32);
+      directorySize = zip64End.getLong(40);
+      directoryOffset = zip64End.getLong(48);
+    }
+    if (directorySize > Integer.MAX_VALUE
+        || directoryOffset + directorySize > fileLength) {
+      throw new ZipException("Invalid central directory");
+    }
+
+    ByteBuffer directory = readBuffer(file, directoryOffset, (int)directorySize);
+    for (long i = 0; i < entryCount; i++) {
+      int index = directory.position();
+      if (directory.remaining() < 46
+          || directory.getInt(index) != CENTRAL_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid central directory entry");
+      }
+      int flag = directory.getShort(index + 8) & 0xFFFF;
+      int method = directory.getShort(index + 10) & 0xFFFF;
+      int time = directory.getInt(index + 12);
+      long crc = directory.getInt(index + 16) & ZIP64_MAGIC_VALUE;
+      long compressedSize = directory.getInt(index + 20) & ZIP64_MAGIC_VALUE;
+      long size = directory.getInt(index + 24) & ZIP64_MAGIC_VALUE;
+      int nameLength = directory.getShort(index + 28) & 0xFFFF;
+      int extraLength = directory.getShort(index + 30) & 0xFFFF;
+      int commentLength = directory.getShort(index + 32) & 0xFFFF;
+      long localHeaderOffset = directory.getInt(index + 42) & ZIP64_MAGIC_VALUE;
+      byte [] name = new byte [nameLength];
+      directory.position(index + 46);
+      directory.get(name);
+      // Search Zip64 values in extra fields
+      int extraEnd = directory.position() + extraLength;
+      while (directory.position() + 4 <= extraEnd) {
+        int extraId = directory.getShort() & 0xFFFF;
+        int extraSize = directory.getShort() & 0xFFFF;
+        int extraDataEnd = directory.position() + extraSize;
+        if (extraId == 1) {
+          if (size == ZIP64_MAGIC_VALUE) {
+            size = directory.getLong();
+          }
+          if (compressedSize == ZIP64_MAGIC_VALUE) {
+            compressedSize = directory.getLong();
+          }
+          if (localHeaderOffset == ZIP64_MAGIC_VALUE) {
+            localHeaderOffset = directory.getLong();
+          }
+        }
+        directory.position(extraDataEnd);
+      }
+      directory.position(extraEnd + commentLength);
+      String entryName = new String(name, "UTF-8");
+      this.entries.put(entryName, new Entry(entryName, flag, method, time, crc,
+          compressedSize, size, localHeaderOffset));
+    }
+  }
+
+  /**
+   * Returns a little endian buffer filled with <code>length</code> bytes read
+   * at the given <code>offset</code> of <code>file</code>.
+   */
+  private static ByteBuffer readBuffer(RandomAccessFile file, long offset, int length) throws IOException {
+    if (offset < 0) {
+      throw new ZipException("Invalid offset");
+    }
+    byte [] bytes = new byte [length];
+    file.seek(offset);
+    file.readFully(bytes);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  /**
+   * Returns the zip file of this directory.
+   */
+  public File getZipFile() {
+    return this.zipFile;
+  }
+
+  /**
+   * Returns the entry of the given <code>name</code> or <code>null</code> if it doesn't exist.
+   */
+  public Entry getEntry(String name) {
+    return this.entries.get(name);
+  }
+
+  /**
+   * Returns the entries of this directory in the order they're listed in the zip file.
+   */
+  public Collection<Entry> getEntries() {
+    return Collections.unmodifiableCollection(this.entries.values());
+  }
+
+  /**
+   * Returns the offset of the data of the given <code>entry</code> in the zip file.
+   * @throws ZipException if the local header of the entry is invalid
+   */
+  public long getDataOffset(Entry entry, RandomAccessFile file) throws IOException {
+    ByteBuffer header = readBuffer(file, entry.getLocalHeaderOffset(), 30);
+    if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header for " + entry.getName());
+    }
+    return entry.getLocalHeaderOffset() + 30
+        + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+  }
+
+  /**
+   * The raw attributes of a zip entry.
+   */
+  public static class Entry {
+    private final String name;
+    private final int    flag;
+    private final int    method;
+    private final int    time;
+    private final long   crc;
+    private final long   compressedSize;
+    private final long   size;
+    private final long   localHeaderOffset;
+
+    public Entry(String name, int flag, int method, int time, long crc,
+                 long compressedSize, long size, long localHeaderOffset) {
+      this.name = name;
+      this.flag = flag;
+      this.method = method;
+      this.time = time;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Returns <code>true</code> if this entry is encrypted.
+     */
+    public boolean isEncrypted() {
+      return (this.flag & 1) != 0;
+    }
+
+    public int getMethod() {
+      return this.method;
+    }
+
+    /**
+     * Returns the modification time of this entry at MS-DOS format.
+     */
+    public int getTime() {
+      return this.time;
+    }
+
+    public long getCrc() {
+      return this.crc;
+    }
+
+    public long getCompressedSize() {
+      return this.compressedSize;
+    }
+
+    public long getSize() {
+      return this.size;
+    }
+
+    public long getLocalHeaderOffset() {
+      return this.localHeaderOffset;
+    }
+  }
+}
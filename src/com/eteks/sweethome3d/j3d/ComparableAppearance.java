@@ -0,0 +1,201 @@
+/*
+ * ComparableAppearance.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import javax.media.j3d.Appearance;
+import javax.media.j3d.ColoringAttributes;
+import javax.media.j3d.Material;
+import javax.media.j3d.Texture;
+import javax.media.j3d.TransparencyAttributes;
+import javax.vecmath.Color3f;
+
+/**
+ * An <code>Appearance</code> wrapper able to compare
+ * if two appearances are equal once exported to MTL or glTF format.
+ * @author Emmanuel Puybaret
+ */
+class ComparableAppearance {
+  private Appearance appearance;
+
+  public ComparableAppearance(Appearance appearance) {
+    this.appearance = appearance;
+  }
+
+  public Appearance getAppearance() {
+    return this.appearance;
+  }
+
+  /**
+   * Returns <code>true</code> if this appearance and the one of <code>obj</code>
+   * describe the same colors, transparency and texture.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ComparableAppearance) {
+      Appearance appearance2 = ((ComparableAppearance)obj).appearance;
+      // Compare coloring attributes
+      ColoringAttributes coloringAttributes1 = this.appearance.getColoringAttributes();
+      ColoringAttributes coloringAttributes2 = appearance2.getColoringAttributes();
+      if ((coloringAttributes1 == null) ^ (coloringAttributes2 == null)) {
+        return false;
+      } else if (coloringAttributes1 != coloringAttributes2) {
+        Color3f color1 = new Color3f();
+        Color3f color2 = new Color3f();
+        coloringAttributes1.getColor(color1);
+        coloringAttributes2.getColor(color2);
+        if (!color1.equals(color2)) {
+          return false;
+        }
+      }
+      // Compare material colors
+      Material material1 = this.appearance.getMaterial();
+      Material material2 = appearance2.getMaterial();
+      if ((material1 == null) ^ (material2 == null)) {
+        return false;
+      } else if (material1 != material2) {
+        Color3f color1 = new Color3f();
+        Color3f color2 = new Color3f();
+        material1.getAmbientColor(color1);
+        material2.getAmbientColor(color2);
+        if (!color1.equals(color2)) {
+          return false;
+        } else {
+          material1.getDiffuseColor(color1);
+          material2.getDiffuseColor(color2);
+          if (!color1.equals(color2)) {
+            return false;
+          } else {
+            material1.getEmissiveColor(color1);
+            material2.getEmissiveColor(color2);
+            if (!color1.equals(color2)) {
+              return false;
+            } else {
+              material1.getSpecularColor(color1);
+              material2.getSpecularColor(color2);
+              if (!color1.equals(color2)) {
+                return false;
+              } else if (material1.getShininess() != material2.getShininess()) {
+                return false;
+              } else if (material1.getClass() != material2.getClass()) {
+                return false;
+              } else if (material1.getClass() == OBJMaterial.class) {
+                OBJMaterial objMaterial1 = (OBJMaterial)material1;
+                OBJMaterial objMaterial2 = (OBJMaterial)material2;
+                if (objMaterial1.isOpticalDensitySet() ^ objMaterial2.isOpticalDensitySet()) {
+                  return false;
+                } else if (objMaterial1.isOpticalDensitySet() && objMaterial2.isOpticalDensitySet()
+                          && objMaterial1.getOpticalDensity() != objMaterial2.getOpticalDensity()) {
+                  return false;
+                } else if (objMaterial1.isIlluminationModelSet() ^ objMaterial2.isIlluminationModelSet()) {
+                  return false;
+                } else if (objMaterial1.isIlluminationModelSet() && objMaterial2.isIlluminationModelSet()
+                          && objMaterial1.getIlluminationModel() != objMaterial2.getIlluminationModel()) {
+                  return false;
+                } else if (objMaterial1.isSharpnessSet() ^ objMaterial2.isSharpnessSet()) {
+                  return false;
+                } else if (objMaterial1.isSharpnessSet() && objMaterial2.isSharpnessSet()
+                          && objMaterial1.getSharpness() != objMaterial2.getSharpness()) {
+                  return false;
+                }
+              }
+            }
+          }
+        }
+      }
+      // Compare transparency
+      TransparencyAttributes transparency1 = this.appearance.getTransparencyAttributes();
+      TransparencyAttributes transparency2 = appearance2.getTransparencyAttributes();
+      if ((transparency1 == null) ^ (transparency2 == null)) {
+        return false;
+      } else if (transparency1 != transparency2) {
+        if (transparency1.getTransparency() != transparency2.getTransparency()) {
+          return false;
+        }
+      }
+      // Compare texture
+      Texture texture1 = this.appearance.getTexture();
+      Texture texture2 = appearance2.getTexture();
+      if ((texture1 == null) ^ (texture2 == null)) {
+        return false;
+      } else if (texture1 != texture2) {
+        if (texture1.getImage(0) != texture2.getImage(0)) {
+          return false;
+        }
+      }
+      // Compare name
+      try {
+        String name1 = this.appearance.getName();
+        String name2 = appearance2.getName();
+        if ((name1 == null) ^ (name2 == null)) {
+          return false;
+        } else if (name1 != name2
+                   && !name1.equals(name2)) {
+          return false;
+        }
+      } catch (NoSuchMethodError ex) {
+        // Don't compare name with Java 3D < 1.4 where getName was added
+      }
+
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int code = 0;
+    ColoringAttributes coloringAttributes = appearance.getColoringAttributes();
+    if (coloringAttributes != null) {
+      Color3f color = new Color3f();
+      coloringAttributes.getColor(color);
+      code += color.hashCode();
+    }
+    Material material = this.appearance.getMaterial();
+    if (material != null) {
+      Color3f color = new Color3f();
+      material.getAmbientColor(color);
+      code += color.hashCode();
+      material.getDiffuseColor(color);
+      code += color.hashCode();
+      material.getEmissiveColor(color);
+      code += color.hashCode();
+      material.getSpecularColor(color);
+      code += color.hashCode();
+      code += Float.floatToIntBits(material.getShininess());
+    }
+    TransparencyAttributes transparency = this.appearance.getTransparencyAttributes();
+    if (transparency != null) {
+      code += Float.floatToIntBits(transparency.getTransparency());
+    }
+    Texture texture = this.appearance.getTexture();
+    if (texture != null) {
+      code += texture.getImage(0).hashCode();
+    }
+    try {
+      String name = this.appearance.getName();
+      if (name != null) {
+        code += name.hashCode();
+      }
+    } catch (NoSuchMethodError ex) {
+      // Don't take name into account with Java 3D < 1.4 where getName was added
+    }
+    return code;
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * FileCache.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * A cache storing in files of a folder the data computed from contents, to be able to read them
+ * at next launches without computing them again. Each file is named after the digest of a content
+ * and of the parameters used to compute its data. Files are read in memory with a stream,
+ * to be able to delete them even while they're read under Windows, and the least recently used
+ * files are deleted once the cache exceeds its maximum size.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public abstract class FileCache {
+  private final File   cacheFolder;
+  private final long   maximumSize;
+  private final String fileExtension;
+  private long         size = -1;
+
+  /**
+   * Creates a cache of files stored in the given folder.
+   * @param cacheFolder   the folder where cached files are stored, created if it doesn't exist
+   * @param maximumSize   the size in bytes over which the least recently used files are deleted
+   * @param fileExtension the extension of the files managed by this cache
+   */
+  protected FileCache(File cacheFolder, long maximumSize, String fileExtension) {
+    this.cacheFolder = cacheFolder;
+    this.maximumSize = maximumSize;
+    this.fileExtension = fileExtension;
+  }
+
+  /**
+   * Returns the folder of this cache.
+   */
+  public File getCacheFolder() {
+    return this.cacheFolder;
+  }
+
+  /**
+   * Returns the digest of the given <code>content</code> or <code>null</code>
+   * if it's not available.
+   */
+  protected abstract byte [] getContentDigest(Content content);
+
+  /**
+   * Returns <code>true</code> if the given <code>content</code> may be stored in this cache.
+   * By default, only URL contents are cached.
+   */
+  protected boolean isCacheable(Content content) {
+    return content instanceof URLContent;
+  }
+
+  /**
+   * Returns the file where the data computed from the given <code>content</code>
+   * with the given <code>parameters</code> is cached or <code>null</code> if it can't be cached.
+   */
+  protected File getCacheFile(Content content, byte [] parameters) {
+    if (isCacheable(content)) {
+      byte [] digest = getContentDigest(content);
+      if (digest != null && digest.length > 0) {
+        try {
+          MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+          messageDigest.update(digest);
+          messageDigest.update(parameters);
+          StringBuilder fileName = new StringBuilder();
+          for (byte b : messageDigest.digest()) {
+            fileName.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+          }
+          return new File(this.cacheFolder, fileName.append(this.fileExtension).toString());
+        } catch (NoSuchAlgorithmException ex) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a buffer containing the data of the given cached <code>file</code>,
+   * and marks the file as recently used.
+   */
+  protected ByteBuffer readCacheFile(File file) throws IOException {
+    long length = file.length();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("File too large");
+    }
+    byte [] data = new byte [(int)length];
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readFully(data);
+    } finally {
+      in.close();
+    }
+    file.setLastModified(System.currentTimeMillis());
+    return ByteBuffer.wrap(data);
+  }
+
+  /**
+   * Stores the remaining data of the given <code>buffer</code> in the cached <code>file</code>.
+   * @return <code>true</code> if the file was stored
+   */
+  protected boolean writeCacheFile(File file, ByteBuffer buffer) {
+    File temporaryFile = null;
+    try {
+      if (!this.cacheFolder.exists()
+          && !this.cacheFolder.mkdirs()) {
+        return false;
+      }
+      // Write data in a temporary file renamed once completed to avoid reading incomplete files
+      temporaryFile = File.createTempFile("cache", ".tmp", this.cacheFolder);
+      FileOutputStream out = new FileOutputStream(temporaryFile);
+      try {
+        FileChannel channel = out.getChannel();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      } finally {
+        out.close();
+      }
+      if (file.exists()
+          || !temporaryFile.renameTo(file)) {
+        // File was stored by an other thread in the mean time
+        temporaryFile.delete();
+        return false;
+      }
+      updateSize(file.length());
+      return true;
+    } catch (IOException ex) {
+      if (temporaryFile != null) {
+        temporaryFile.delete();
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Adds <code>addedSize</code> to the size of this cache, and deletes the least recently used
+   * files if the cache becomes too large.
+   */
+  private synchronized void updateSize(long addedSize) {
+    File [] cacheFiles = null;
+    if (this.size < 0) {
+      cacheFiles = getCacheFiles();
+      this.size = 0;
+      for (File file : cacheFiles) {
+        this.size += file.length();
+      }
+    } else {
+      this.size += addedSize;
+    }
+    if (this.size > this.maximumSize) {
+      if (cacheFiles == null) {
+        cacheFiles = getCacheFiles();
+      }
+      final Map<File, Long> lastModifiedDates = new IdentityHashMap<File, Long>();
+      for (File file : cacheFiles) {
+        lastModifiedDates.put(file, file.lastModified());
+      }
+      Arrays.sort(cacheFiles, new Comparator<File>() {
+          public int compare(File file1, File file2) {
+            return lastModifiedDates.get(file1).compareTo(lastModifiedDates.get(file2));
+          }
+        });
+      // Delete files until cache is 3/4 of its maximum size
+      for (int i = 0; i < cacheFiles.length - 1 && this.size > this.maximumSize * 3 / 4; i++) {
+        long fileLength = cacheFiles [i].length();
+        if (cacheFiles [i].delete()) {
+          this.size -= fileLength;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the files of this cache.
+   */
+  private File [] getCacheFiles() {
+    File [] files = this.cacheFolder.listFiles();
+    if (files == null) {
+      return new File [0];
+    }
+    List<File> cacheFiles = new ArrayList<File>(files.length);
+    for (File file : files) {
+      if (file.getName().endsWith(this.fileExtension)) {
+        cacheFiles.add(file);
+      }
+    }
+    return cacheFiles.toArray(new File [cacheFiles.size()]);
+  }
+
+  /**
+   * Deletes all the files stored in this cache.
+   */
+  public synchronized void clear() {
+    for (File file : getCacheFiles()) {
+      file.delete();
+    }
+    this.size = 0;
+  }
+}
@@ -0,0 +1,994 @@
+/*
+ * GLBWriter.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.media.j3d.Appearance;
+import javax.media.j3d.ColoringAttributes;
+import javax.media.j3d.Geometry;
+import javax.media.j3d.GeometryArray;
+import javax.media.j3d.GeometryStripArray;
+import javax.media.j3d.Group;
+import javax.media.j3d.ImageComponent2D;
+import javax.media.j3d.IndexedGeometryArray;
+import javax.media.j3d.IndexedGeometryStripArray;
+import javax.media.j3d.IndexedQuadArray;
+import javax.media.j3d.IndexedTriangleArray;
+import javax.media.j3d.IndexedTriangleFanArray;
+import javax.media.j3d.IndexedTriangleStripArray;
+import javax.media.j3d.Link;
+import javax.media.j3d.Material;
+import javax.media.j3d.Node;
+import javax.media.j3d.PolygonAttributes;
+import javax.media.j3d.QuadArray;
+import javax.media.j3d.RenderingAttributes;
+import javax.media.j3d.Shape3D;
+import javax.media.j3d.TexCoordGeneration;
+import javax.media.j3d.Texture;
+import javax.media.j3d.TextureAttributes;
+import javax.media.j3d.Transform3D;
+import javax.media.j3d.TransformGroup;
+import javax.media.j3d.TransparencyAttributes;
+import javax.media.j3d.TriangleArray;
+import javax.media.j3d.TriangleFanArray;
+import javax.media.j3d.TriangleStripArray;
+import javax.vecmath.Color3f;
+import javax.vecmath.Point3f;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+
+/**
+ * A writer of Java 3D nodes at binary glTF 2.0 format (GLB).
+ * <p>Like {@link OBJWriter}, this writer applies the transformations found on the path
+ * to each shape and writes its triangles in centimeters, a root node scaling them in meters.
+ * Geometry buffers are written to a temporary file as nodes are written, then copied
+ * after the JSON description of the scene when this writer is closed.
+ * Materials and texture images are written once for equal appearances, and lines are ignored.<br>
+ * Note: this class is compatible with Java 3D 1.3.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class GLBWriter implements NodeWriter {
+  private static final int GLTF_MAGIC           = 0x46546C67;
+  private static final int JSON_CHUNK_TYPE      = 0x4E4F534A;
+  private static final int BIN_CHUNK_TYPE       = 0x004E4942;
+  private static final int ARRAY_BUFFER         = 34962;
+  private static final int ELEMENT_ARRAY_BUFFER = 34963;
+  private static final int FLOAT                = 5126;
+  private static final int UNSIGNED_SHORT       = 5123;
+  private static final int UNSIGNED_INT         = 5125;
+
+  private final File           glbFile;
+  private final String         header;
+  private final File           binFile;
+  private final FileChannel    binChannel;
+  private final ByteBuffer     binBuffer;
+  private long                 binLength;
+  private boolean              interrupted;
+
+  private int shapeIndex = 1;
+  private final StringBuilder  nodes       = new StringBuilder();
+  private final StringBuilder  meshes      = new StringBuilder();
+  private final StringBuilder  accessors   = new StringBuilder();
+  private final StringBuilder  bufferViews = new StringBuilder();
+  private final StringBuilder  materials   = new StringBuilder();
+  private final StringBuilder  textures    = new StringBuilder();
+  private final StringBuilder  images      = new StringBuilder();
+  private int nodeCount;
+  private int accessorCount;
+  private int bufferViewCount;
+  private final Map<ComparableAppearance, Integer> appearanceMaterials = new HashMap<ComparableAppearance, Integer>();
+  private final Map<Object, Integer>               imageTextures = new HashMap<Object, Integer>();
+
+  /**
+   * Creates a GLB writer for the given file, with no header.
+   */
+  public GLBWriter(File glbFile) throws IOException {
+    this(glbFile, null);
+  }
+
+  /**
+   * Creates a GLB writer for the given file.
+   * @param glbFile the file to write
+   * @param header  a text stored as the generator of the file or <code>null</code>
+   */
+  public GLBWriter(File glbFile, String header) throws IOException {
+    this.glbFile = glbFile;
+    this.header = header;
+    this.binFile = File.createTempFile("glb", ".bin");
+    this.binFile.deleteOnExit();
+    this.binChannel = new RandomAccessFile(this.binFile, "rw").getChannel();
+    this.binBuffer = ByteBuffer.allocateDirect(65536).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Creates a GLB writer for the given file name, with no header.
+   */
+  public GLBWriter(String glbFileName) throws IOException {
+    this(new File(glbFileName));
+  }
+
+  /**
+   * Throws an <code>InterruptedIOException</code> exception
+   * if current thread is interrupted.
+   */
+  private void checkCurrentThreadIsntInterrupted() throws InterruptedIOException {
+    if (Thread.interrupted()) {
+      this.interrupted = true;
+      throw new InterruptedIOException("Current thread interrupted");
+    }
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at GLB format.
+   * If there are transformation groups on the path from <code>node</code> to its shapes,
+   * they'll be applied to the coordinates written on output.
+   * The <code>node</code> shouldn't be alive or if it's alive it should have the
+   * capabilities to read its children, the geometries and the appearance of its shapes.
+   * Only geometries which are instances of <code>GeometryArray</code> will be written.
+   * @param node a Java 3D node
+   * @throws IOException if the operation failed
+   * @throws InterruptedIOException if the current thread was interrupted during this operation.
+   *         The interrupted status of the current thread is cleared when this exception is thrown.
+   */
+  public void writeNode(Node node) throws IOException, InterruptedIOException {
+    writeNode(node, null);
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at GLB format.
+   * @param node     a Java 3D node
+   * @param nodeName the name of the node, used as a prefix of the names of its shapes
+   *                 or <code>null</code>
+   * @throws IOException if the operation failed
+   * @throws InterruptedIOException if the current thread was interrupted during this operation.
+   *         The interrupted status of the current thread is cleared when this exception is thrown.
+   * @see #writeNode(Node)
+   */
+  public void writeNode(Node node, String nodeName) throws IOException, InterruptedIOException {
+    writeNode(node, nodeName, new Transform3D());
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at GLB format.
+   */
+  private void writeNode(Node node, String nodeName, Transform3D parentTransformations) throws IOException {
+    if (node instanceof Group) {
+      if (node instanceof TransformGroup) {
+        parentTransformations = new Transform3D(parentTransformations);
+        Transform3D transform = new Transform3D();
+        ((TransformGroup)node).getTransform(transform);
+        parentTransformations.mul(transform);
+      }
+      // Write all children
+      Enumeration<?> enumeration = ((Group)node).getAllChildren();
+      while (enumeration.hasMoreElements()) {
+        writeNode((Node)enumeration.nextElement(), nodeName, parentTransformations);
+      }
+    } else if (node instanceof Link) {
+      writeNode(((Link)node).getSharedGroup(), nodeName, parentTransformations);
+    } else if (node instanceof Shape3D) {
+      Shape3D shape = (Shape3D)node;
+      Appearance appearance = shape.getAppearance();
+      RenderingAttributes renderingAttributes = appearance != null
+          ? appearance.getRenderingAttributes() : null;
+      if (shape.numGeometries() >= 1
+          && (renderingAttributes == null
+              || renderingAttributes.getVisible())) {
+        String objectName = "";
+        if (nodeName != null) {
+          objectName = nodeName + "_";
+        }
+        if (shape.getUserData() instanceof String) {
+          objectName += (String)shape.getUserData() + "_";
+        }
+        objectName += String.valueOf(this.shapeIndex++);
+
+        Integer material = null;
+        TexCoordGeneration texCoordGeneration = null;
+        Transform3D textureTransform = new Transform3D();
+        int cullFace = PolygonAttributes.CULL_BACK;
+        boolean backFaceNormalFlip = false;
+        if (appearance != null) {
+          material = getMaterialIndex(appearance);
+          texCoordGeneration = appearance.getTexCoordGeneration();
+          TextureAttributes textureAttributes = appearance.getTextureAttributes();
+          if (textureAttributes != null) {
+            textureAttributes.getTextureTransform(textureTransform);
+          }
+          PolygonAttributes polygonAttributes = appearance.getPolygonAttributes();
+          if (polygonAttributes != null) {
+            cullFace = polygonAttributes.getCullFace();
+            backFaceNormalFlip = polygonAttributes.getBackFaceNormalFlip();
+          }
+        }
+
+        // Write a mesh with a primitive for each shape geometry
+        StringBuilder primitives = new StringBuilder();
+        for (int i = 0, n = shape.numGeometries(); i < n; i++) {
+          String primitive = writeGeometry(shape.getGeometry(i), parentTransformations, texCoordGeneration,
+              textureTransform, cullFace, backFaceNormalFlip, material);
+          if (primitive != null) {
+            appendItem(primitives, primitive);
+          }
+        }
+        if (primitives.length() > 0) {
+          StringBuilder mesh = new StringBuilder("{\"primitives\":[").append(primitives).append("]}");
+          StringBuilder meshNode = new StringBuilder("{\"name\":");
+          appendString(meshNode, objectName);
+          meshNode.append(",\"mesh\":").append(this.nodeCount).append("}");
+          appendItem(this.meshes, mesh);
+          appendItem(this.nodes, meshNode);
+          this.nodeCount++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the triangles of the given geometry and returns the description of its primitive,
+   * or <code>null</code> if it doesn't contain any triangle.
+   */
+  private String writeGeometry(Geometry geometry,
+                               Transform3D parentTransformations,
+                               TexCoordGeneration texCoordGeneration,
+                               Transform3D textureTransform,
+                               int cullFace,
+                               boolean backFaceNormalFlip,
+                               Integer material) throws IOException {
+    if (!(geometry instanceof GeometryArray)) {
+      return null;
+    }
+    GeometryArray geometryArray = (GeometryArray)geometry;
+    int [] triangles = getTriangles(geometryArray);
+    float [] coordinates = getVertexAttributes(geometryArray, GeometryArray.COORDINATES);
+    if (triangles.length == 0
+        || coordinates == null) {
+      return null;
+    }
+
+    checkCurrentThreadIsntInterrupted();
+
+    int [] coordinateIndices;
+    int [] normalIndices;
+    int [] textureCoordinatesIndices;
+    if (geometryArray instanceof IndexedGeometryArray) {
+      IndexedGeometryArray indexedGeometryArray = (IndexedGeometryArray)geometryArray;
+      coordinateIndices = new int [indexedGeometryArray.getIndexCount()];
+      indexedGeometryArray.getCoordinateIndices(0, coordinateIndices);
+      if ((geometryArray.getVertexFormat() & GeometryArray.USE_COORD_INDEX_ONLY) != 0) {
+        normalIndices = coordinateIndices;
+        textureCoordinatesIndices = coordinateIndices;
+      } else {
+        normalIndices = new int [coordinateIndices.length];
+        textureCoordinatesIndices = new int [coordinateIndices.length];
+        if ((geometryArray.getVertexFormat() & GeometryArray.NORMALS) != 0) {
+          indexedGeometryArray.getNormalIndices(0, normalIndices);
+        }
+        if ((geometryArray.getVertexFormat() & GeometryArray.TEXTURE_COORDINATE_2) != 0) {
+          indexedGeometryArray.getTextureCoordinateIndices(0, 0, textureCoordinatesIndices);
+        }
+      }
+    } else {
+      coordinateIndices = new int [geometryArray.getVertexCount()];
+      for (int i = 0; i < coordinateIndices.length; i++) {
+        coordinateIndices [i] = i;
+      }
+      normalIndices = coordinateIndices;
+      textureCoordinatesIndices = coordinateIndices;
+    }
+
+    // Transform normals and check they're all valid
+    float [] normals = getVertexAttributes(geometryArray, GeometryArray.NORMALS);
+    if (normals != null) {
+      Vector3f normal = new Vector3f();
+      for (int i = 0; i < normals.length && normals != null; i += 3) {
+        normal.set(normals [i], normals [i + 1], normals [i + 2]);
+        if (Float.isNaN(normal.x) || Float.isNaN(normal.y) || Float.isNaN(normal.z)) {
+          normals = null;
+        } else {
+          if (backFaceNormalFlip) {
+            normal.negate();
+          }
+          if (normal.x != 0 || normal.y != 0 || normal.z != 0) {
+            parentTransformations.transform(normal);
+            normal.normalize();
+          }
+          normals [i] = normal.x;
+          normals [i + 1] = normal.y;
+          normals [i + 2] = normal.z;
+        }
+      }
+    }
+
+    // Compute texture coordinates with their origin at top left corner
+    float [] textureCoordinates = null;
+    if (texCoordGeneration != null) {
+      if (texCoordGeneration.getGenMode() == TexCoordGeneration.OBJECT_LINEAR
+          && texCoordGeneration.getEnable()) {
+        Vector4f planeS = new Vector4f();
+        Vector4f planeT = new Vector4f();
+        texCoordGeneration.getPlaneS(planeS);
+        texCoordGeneration.getPlaneT(planeT);
+        textureCoordinates = new float [coordinates.length / 3 * 2];
+        for (int i = 0, j = 0; i < coordinates.length; i += 3, j += 2) {
+          textureCoordinates [j] = coordinates [i] * planeS.x + coordinates [i + 1] * planeS.y + coordinates [i + 2] * planeS.z + planeS.w;
+          textureCoordinates [j + 1] = coordinates [i] * planeT.x + coordinates [i + 1] * planeT.y + coordinates [i + 2] * planeT.z + planeT.w;
+        }
+        textureCoordinatesIndices = coordinateIndices;
+      }
+    } else {
+      textureCoordinates = getVertexAttributes(geometryArray, GeometryArray.TEXTURE_COORDINATE_2);
+    }
+    if (textureCoordinates != null) {
+      boolean textureTransformed = textureTransform.getBestType() != Transform3D.IDENTITY;
+      Point3f point = new Point3f();
+      for (int i = 0; i < textureCoordinates.length; i += 2) {
+        if (textureTransformed) {
+          point.set(textureCoordinates [i], textureCoordinates [i + 1], 0);
+          textureTransform.transform(point);
+          textureCoordinates [i] = point.x;
+          textureCoordinates [i + 1] = point.y;
+        }
+        textureCoordinates [i + 1] = 1 - textureCoordinates [i + 1];
+      }
+    }
+
+    // Transform vertices
+    Point3f point = new Point3f();
+    for (int i = 0; i < coordinates.length; i += 3) {
+      point.set(coordinates [i], coordinates [i + 1], coordinates [i + 2]);
+      parentTransformations.transform(point);
+      coordinates [i] = point.x;
+      coordinates [i + 1] = point.y;
+      coordinates [i + 2] = point.z;
+    }
+
+    // Build unique vertices and the indices of triangles
+    int vertexSize = 3 + (normals != null ? 3 : 0) + (textureCoordinates != null ? 2 : 0);
+    VertexSet vertices = new VertexSet(vertexSize, coordinates.length / 3);
+    int sideCount = cullFace == PolygonAttributes.CULL_NONE ? 2 : 1;
+    int [] indices = new int [triangles.length * sideCount];
+    float [] vertex = new float [vertexSize];
+    for (int side = 0, index = 0; side < sideCount; side++) {
+      boolean reversed = (cullFace == PolygonAttributes.CULL_FRONT) ^ (side == 1);
+      for (int i = 0; i < triangles.length; i++) {
+        // Reverse vertex order of front culled faces and of back faces
+        int triangleIndex = reversed
+            ? triangles [i - i % 3 + 2 - i % 3]
+            : triangles [i];
+        int coordinateIndex = coordinateIndices [triangleIndex] * 3;
+        vertex [0] = coordinates [coordinateIndex];
+        vertex [1] = coordinates [coordinateIndex + 1];
+        vertex [2] = coordinates [coordinateIndex + 2];
+        int k = 3;
+        if (normals != null) {
+          int normalIndex = normalIndices [triangleIndex] * 3;
+          float sign = side == 1 ? -1 : 1;
+          vertex [k++] = sign * normals [normalIndex];
+          vertex [k++] = sign * normals [normalIndex + 1];
+          vertex [k++] = sign * normals [normalIndex + 2];
+        }
+        if (textureCoordinates != null) {
+          int textureCoordinatesIndex = textureCoordinatesIndices [triangleIndex] * 2;
+          vertex [k++] = textureCoordinates [textureCoordinatesIndex];
+          vertex [k++] = textureCoordinates [textureCoordinatesIndex + 1];
+        }
+        indices [index++] = vertices.add(vertex);
+      }
+    }
+
+    checkCurrentThreadIsntInterrupted();
+
+    // Write interleaved vertex attributes
+    int vertexCount = vertices.size();
+    int vertexBufferView = writeBufferView(vertices.getVertices(), vertexCount * vertexSize, vertexSize * 4);
+    float [] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+    float [] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+    float [] vertexData = vertices.getVertices();
+    for (int i = 0; i < vertexCount * vertexSize; i += vertexSize) {
+      for (int j = 0; j < 3; j++) {
+        min [j] = Math.min(min [j], vertexData [i + j]);
+        max [j] = Math.max(max [j], vertexData [i + j]);
+      }
+    }
+    StringBuilder primitive = new StringBuilder("{\"attributes\":{\"POSITION\":");
+    primitive.append(addAccessor(vertexBufferView, 0, FLOAT, vertexCount, "VEC3", min, max));
+    int byteOffset = 12;
+    if (normals != null) {
+      primitive.append(",\"NORMAL\":").append(addAccessor(vertexBufferView, byteOffset, FLOAT, vertexCount, "VEC3", null, null));
+      byteOffset += 12;
+    }
+    if (textureCoordinates != null) {
+      primitive.append(",\"TEXCOORD_0\":").append(addAccessor(vertexBufferView, byteOffset, FLOAT, vertexCount, "VEC2", null, null));
+    }
+    // Write indices
+    int indicesBufferView = writeBufferView(indices, vertexCount <= 0xFFFF);
+    primitive.append("},\"indices\":").append(addAccessor(indicesBufferView, 0,
+        vertexCount <= 0xFFFF ? UNSIGNED_SHORT : UNSIGNED_INT, indices.length, "SCALAR", null, null));
+    if (material != null) {
+      primitive.append(",\"material\":").append(material);
+    }
+    return primitive.append("}").toString();
+  }
+
+  /**
+   * Returns the vertex indices of the triangles of the given geometry,
+   * or an empty array if it's not a geometry made of triangles or quadrilaterals.
+   */
+  private int [] getTriangles(GeometryArray geometryArray) {
+    int [] stripCounts = null;
+    int count;
+    if (geometryArray instanceof IndexedGeometryArray) {
+      count = ((IndexedGeometryArray)geometryArray).getIndexCount();
+      if (geometryArray instanceof IndexedGeometryStripArray) {
+        IndexedGeometryStripArray geometryStripArray = (IndexedGeometryStripArray)geometryArray;
+        stripCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripIndexCounts(stripCounts);
+      }
+    } else {
+      count = geometryArray.getVertexCount();
+      if (geometryArray instanceof GeometryStripArray) {
+        GeometryStripArray geometryStripArray = (GeometryStripArray)geometryArray;
+        stripCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripVertexCounts(stripCounts);
+      }
+    }
+
+    IntArray triangles = new IntArray(count * 3);
+    if (geometryArray instanceof IndexedTriangleArray
+        || geometryArray instanceof TriangleArray) {
+      for (int i = 0; i < count - 2; i += 3) {
+        triangles.add(i, i + 1, i + 2);
+      }
+    } else if (geometryArray instanceof IndexedQuadArray
+              || geometryArray instanceof QuadArray) {
+      for (int i = 0; i < count - 3; i += 4) {
+        triangles.add(i, i + 1, i + 2);
+        triangles.add(i, i + 2, i + 3);
+      }
+    } else if (geometryArray instanceof IndexedTriangleStripArray
+              || geometryArray instanceof TriangleStripArray) {
+      for (int strip = 0, initialIndex = 0; strip < stripCounts.length; initialIndex += stripCounts [strip++]) {
+        for (int i = initialIndex, n = initialIndex + stripCounts [strip] - 2, j = 0; i < n; i++, j++) {
+          if (j % 2 == 0) {
+            triangles.add(i, i + 1, i + 2);
+          } else { // Vertices of odd triangles are in reverse order
+            triangles.add(i, i + 2, i + 1);
+          }
+        }
+      }
+    } else if (geometryArray instanceof IndexedTriangleFanArray
+              || geometryArray instanceof TriangleFanArray) {
+      for (int strip = 0, initialIndex = 0; strip < stripCounts.length; initialIndex += stripCounts [strip++]) {
+        for (int i = initialIndex, n = initialIndex + stripCounts [strip] - 2; i < n; i++) {
+          triangles.add(initialIndex, i + 1, i + 2);
+        }
+      }
+    }
+    return triangles.toArray();
+  }
+
+  /**
+   * Returns a copy of the coordinates, the normals or the texture coordinates of the vertices
+   * of the given geometry, or <code>null</code> if the geometry doesn't store them.
+   */
+  private float [] getVertexAttributes(GeometryArray geometryArray, int attribute) {
+    int vertexFormat = geometryArray.getVertexFormat();
+    if ((vertexFormat & attribute) == 0) {
+      return null;
+    }
+    int vertexCount = geometryArray.getVertexCount();
+    int size = attribute == GeometryArray.TEXTURE_COORDINATE_2 ? 2 : 3;
+    float [] attributes = new float [vertexCount * size];
+    if ((vertexFormat & GeometryArray.BY_REFERENCE) != 0) {
+      if ((vertexFormat & GeometryArray.INTERLEAVED) != 0) {
+        float [] vertexData = geometryArray.getInterleavedVertices();
+        int vertexSize = vertexData.length / vertexCount;
+        int offset = attribute == GeometryArray.COORDINATES
+            ? vertexSize - 3
+            : (attribute == GeometryArray.NORMALS ? vertexSize - 6 : 0);
+        for (int index = 0, i = offset; index < attributes.length; index += size, i += vertexSize) {
+          System.arraycopy(vertexData, i, attributes, index, size);
+        }
+      } else {
+        float [] attributesRef = attribute == GeometryArray.COORDINATES
+            ? geometryArray.getCoordRefFloat()
+            : (attribute == GeometryArray.NORMALS
+                  ? geometryArray.getNormalRefFloat()
+                  : geometryArray.getTexCoordRefFloat(0));
+        if (attributesRef == null) {
+          return null;
+        }
+        System.arraycopy(attributesRef, 0, attributes, 0, attributes.length);
+      }
+    } else if (attribute == GeometryArray.COORDINATES) {
+      geometryArray.getCoordinates(0, attributes);
+    } else if (attribute == GeometryArray.NORMALS) {
+      geometryArray.getNormals(0, attributes);
+    } else {
+      geometryArray.getTextureCoordinates(0, 0, attributes);
+    }
+    return attributes;
+  }
+
+  /**
+   * Returns the index of the material matching the given <code>appearance</code>,
+   * after writing it and its texture if it wasn't written yet.
+   */
+  private Integer getMaterialIndex(Appearance appearance) throws IOException {
+    ComparableAppearance comparableAppearance = new ComparableAppearance(appearance);
+    Integer materialIndex = this.appearanceMaterials.get(comparableAppearance);
+    if (materialIndex == null) {
+      checkCurrentThreadIsntInterrupted();
+      Color3f color = new Color3f(1, 1, 1);
+      Color3f emissiveColor = new Color3f();
+      float roughness = 1;
+      Material material = appearance.getMaterial();
+      if (material != null) {
+        material.getDiffuseColor(color);
+        material.getEmissiveColor(emissiveColor);
+        roughness = 1 - Math.max(0, Math.min(1, (material.getShininess() - 1) / 127));
+      } else {
+        ColoringAttributes coloringAttributes = appearance.getColoringAttributes();
+        if (coloringAttributes != null) {
+          coloringAttributes.getColor(color);
+        }
+      }
+      float alpha = 1;
+      TransparencyAttributes transparencyAttributes = appearance.getTransparencyAttributes();
+      if (transparencyAttributes != null
+          && transparencyAttributes.getTransparencyMode() != TransparencyAttributes.NONE) {
+        alpha = 1 - transparencyAttributes.getTransparency();
+      }
+
+      StringBuilder materialDescription = new StringBuilder("{");
+      String name = null;
+      try {
+        name = appearance.getName();
+      } catch (NoSuchMethodError ex) {
+        // Don't reuse appearance name with Java 3D < 1.4 where getName was added
+      }
+      if (name != null) {
+        materialDescription.append("\"name\":");
+        appendString(materialDescription, name);
+        materialDescription.append(",");
+      }
+      materialDescription.append("\"pbrMetallicRoughness\":{\"baseColorFactor\":[")
+          .append(color.x).append(",").append(color.y).append(",").append(color.z).append(",").append(alpha)
+          .append("],\"metallicFactor\":0,\"roughnessFactor\":").append(roughness);
+      Texture texture = appearance.getTexture();
+      if (texture != null
+          && texture.getImage(0) instanceof ImageComponent2D) {
+        materialDescription.append(",\"baseColorTexture\":{\"index\":").append(getTextureIndex(texture)).append("}");
+      }
+      materialDescription.append("}");
+      if (emissiveColor.x != 0 || emissiveColor.y != 0 || emissiveColor.z != 0) {
+        materialDescription.append(",\"emissiveFactor\":[")
+            .append(emissiveColor.x).append(",").append(emissiveColor.y).append(",").append(emissiveColor.z).append("]");
+      }
+      if (alpha < 1) {
+        materialDescription.append(",\"alphaMode\":\"BLEND\"");
+      }
+      materialDescription.append("}");
+
+      materialIndex = this.appearanceMaterials.size();
+      appendItem(this.materials, materialDescription);
+      this.appearanceMaterials.put(comparableAppearance, materialIndex);
+    }
+    return materialIndex;
+  }
+
+  /**
+   * Returns the index of the texture matching the image of the given <code>texture</code>,
+   * after writing this image if it wasn't written yet.
+   */
+  private int getTextureIndex(Texture texture) throws IOException {
+    Object image = texture.getImage(0);
+    Integer textureIndex = this.imageTextures.get(image);
+    if (textureIndex == null) {
+      byte [] imageData = null;
+      String mimeType = null;
+      if (texture.getUserData() instanceof URL) {
+        // Copy texture image content directly if it's a PNG or JPEG image
+        InputStream in = null;
+        try {
+          in = OBJWriter.openStream((URL)texture.getUserData());
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte [] buffer = new byte [8192];
+          for (int size; (size = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, size);
+          }
+          imageData = out.toByteArray();
+          if (imageData.length > 4
+              && (imageData [0] & 0xFF) == 0x89 && imageData [1] == 'P' && imageData [2] == 'N' && imageData [3] == 'G') {
+            mimeType = "image/png";
+          } else if (imageData.length > 2
+              && (imageData [0] & 0xFF) == 0xFF && (imageData [1] & 0xFF) == 0xD8) {
+            mimeType = "image/jpeg";
+          }
+        } catch (IOException ex) {
+          // Use image of the texture
+        } finally {
+          if (in != null) {
+            in.close();
+          }
+        }
+      }
+      if (mimeType == null) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(((ImageComponent2D)image).getRenderedImage(), "png", out);
+        imageData = out.toByteArray();
+        mimeType = "image/png";
+      }
+
+      textureIndex = this.imageTextures.size();
+      int bufferView = writeBufferView(imageData);
+      appendItem(this.images, "{\"bufferView\":" + bufferView + ",\"mimeType\":\"" + mimeType + "\"}");
+      appendItem(this.textures, "{\"source\":" + textureIndex + "}");
+      this.imageTextures.put(image, textureIndex);
+    }
+    return textureIndex;
+  }
+
+  /**
+   * Writes the given floats in a new buffer view and returns its index.
+   */
+  private int writeBufferView(float [] data, int length, int byteStride) throws IOException {
+    long byteOffset = this.binLength;
+    for (int i = 0; i < length; i++) {
+      if (this.binBuffer.remaining() < 4) {
+        flushBinBuffer();
+      }
+      this.binBuffer.putFloat(data [i]);
+    }
+    this.binLength += length * 4;
+    return addBufferView(byteOffset, length * 4, byteStride, ARRAY_BUFFER);
+  }
+
+  /**
+   * Writes the given indices as unsigned shorts or ints in a new buffer view and returns its index.
+   */
+  private int writeBufferView(int [] indices, boolean shortIndices) throws IOException {
+    long byteOffset = this.binLength;
+    for (int i = 0; i < indices.length; i++) {
+      if (this.binBuffer.remaining() < 4) {
+        flushBinBuffer();
+      }
+      if (shortIndices) {
+        this.binBuffer.putShort((short)indices [i]);
+      } else {
+        this.binBuffer.putInt(indices [i]);
+      }
+    }
+    int byteLength = indices.length * (shortIndices ? 2 : 4);
+    this.binLength += byteLength;
+    padBinBuffer();
+    return addBufferView(byteOffset, byteLength, 0, ELEMENT_ARRAY_BUFFER);
+  }
+
+  /**
+   * Writes the given bytes in a new buffer view and returns its index.
+   */
+  private int writeBufferView(byte [] data) throws IOException {
+    long byteOffset = this.binLength;
+    flushBinBuffer();
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    while (buffer.hasRemaining()) {
+      this.binChannel.write(buffer);
+    }
+    this.binLength += data.length;
+    padBinBuffer();
+    return addBufferView(byteOffset, data.length, 0, 0);
+  }
+
+  /**
+   * Adds zeros to binary buffer to keep its length a multiple of 4.
+   */
+  private void padBinBuffer() throws IOException {
+    while (this.binLength % 4 != 0) {
+      if (!this.binBuffer.hasRemaining()) {
+        flushBinBuffer();
+      }
+      this.binBuffer.put((byte)0);
+      this.binLength++;
+    }
+  }
+
+  /**
+   * Writes the content of binary buffer to the temporary file.
+   */
+  private void flushBinBuffer() throws IOException {
+    this.binBuffer.flip();
+    while (this.binBuffer.hasRemaining()) {
+      this.binChannel.write(this.binBuffer);
+    }
+    this.binBuffer.clear();
+  }
+
+  private int addBufferView(long byteOffset, int byteLength, int byteStride, int target) {
+    StringBuilder bufferView = new StringBuilder("{\"buffer\":0,\"byteOffset\":").append(byteOffset)
+        .append(",\"byteLength\":").append(byteLength);
+    if (byteStride > 0) {
+      bufferView.append(",\"byteStride\":").append(byteStride);
+    }
+    if (target != 0) {
+      bufferView.append(",\"target\":").append(target);
+    }
+    appendItem(this.bufferViews, bufferView.append("}"));
+    return this.bufferViewCount++;
+  }
+
+  private int addAccessor(int bufferView, int byteOffset, int componentType, int count, String type,
+                          float [] min, float [] max) {
+    StringBuilder accessor = new StringBuilder("{\"bufferView\":").append(bufferView)
+        .append(",\"byteOffset\":").append(byteOffset)
+        .append(",\"componentType\":").append(componentType)
+        .append(",\"count\":").append(count)
+        .append(",\"type\":\"").append(type).append("\"");
+    if (min != null) {
+      accessor.append(",\"min\":[").append(min [0]).append(",").append(min [1]).append(",").append(min [2])
+          .append("],\"max\":[").append(max [0]).append(",").append(max [1]).append(",").append(max [2]).append("]");
+    }
+    appendItem(this.accessors, accessor.append("}"));
+    return this.accessorCount++;
+  }
+
+  /**
+   * Appends the given <code>item</code> to a JSON array content.
+   */
+  private static void appendItem(StringBuilder array, CharSequence item) {
+    if (array.length() > 0) {
+      array.append(",");
+    }
+    array.append(item);
+  }
+
+  /**
+   * Appends the given <code>text</code> as a JSON string.
+   */
+  private static void appendString(StringBuilder json, String text) {
+    json.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int)c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  /**
+   * Closes this writer and writes GLB file, if the current thread wasn't interrupted
+   * during the writing of the nodes.
+   * @throws IOException if this writer couldn't be closed or GLB file couldn't be written
+   * @throws InterruptedIOException if the current thread was interrupted during this operation
+   *         The interrupted status of the current thread is cleared when this exception is thrown.
+   */
+  public void close() throws IOException, InterruptedIOException {
+    FileOutputStream out = null;
+    try {
+      if (this.interrupted) {
+        return;
+      }
+      flushBinBuffer();
+      checkCurrentThreadIsntInterrupted();
+
+      StringBuilder json = new StringBuilder("{\"asset\":{\"version\":\"2.0\"");
+      if (this.header != null) {
+        json.append(",\"generator\":");
+        appendString(json, this.header.trim());
+      }
+      json.append("},\"scene\":0,\"scenes\":[{\"nodes\":[0]}]");
+      // Add a root node to convert centimeters to meters
+      json.append(",\"nodes\":[{\"name\":\"root\",\"scale\":[0.01,0.01,0.01]");
+      if (this.nodeCount > 0) {
+        json.append(",\"children\":[");
+        for (int i = 1; i <= this.nodeCount; i++) {
+          json.append(i == 1 ? "" : ",").append(i);
+        }
+        json.append("]}");
+        json.append(",").append(this.nodes).append("],\"meshes\":[").append(this.meshes)
+            .append("],\"accessors\":[").append(this.accessors).append("]");
+      } else {
+        json.append("}]");
+      }
+      if (this.materials.length() > 0) {
+        json.append(",\"materials\":[").append(this.materials).append("]");
+      }
+      if (this.textures.length() > 0) {
+        json.append(",\"textures\":[").append(this.textures)
+            .append("],\"images\":[").append(this.images).append("]");
+      }
+      if (this.binLength > 0) {
+        json.append(",\"bufferViews\":[").append(this.bufferViews)
+            .append("],\"buffers\":[{\"byteLength\":").append(this.binLength).append("}]");
+      }
+      json.append("}");
+      while (json.length() % 4 != 0) {
+        json.append(' ');
+      }
+      byte [] jsonData = json.toString().getBytes("UTF-8");
+      // Pad again in case multibyte characters changed length
+      int jsonLength = (jsonData.length + 3) / 4 * 4;
+      long glbLength = 12 + 8 + jsonLength + (this.binLength > 0 ? 8 + this.binLength : 0);
+
+      out = new FileOutputStream(this.glbFile);
+      FileChannel glbChannel = out.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(20 + jsonLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(GLTF_MAGIC).putInt(2).putInt((int)glbLength);
+      buffer.putInt(jsonLength).putInt(JSON_CHUNK_TYPE).put(jsonData);
+      while (buffer.position() < 20 + jsonLength) {
+        buffer.put((byte)' ');
+      }
+      if (this.binLength > 0) {
+        buffer.putInt((int)this.binLength).putInt(BIN_CHUNK_TYPE);
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        glbChannel.write(buffer);
+      }
+      // Copy binary chunk from temporary file
+      for (long position = 0; position < this.binLength; ) {
+        checkCurrentThreadIsntInterrupted();
+        position += this.binChannel.transferTo(position, this.binLength - position, glbChannel);
+      }
+    } finally {
+      if (out != null) {
+        out.close();
+      }
+      this.binChannel.close();
+      this.binFile.delete();
+    }
+  }
+
+  /**
+   * A growable array of ints.
+   */
+  private static class IntArray {
+    private int [] data;
+    private int    size;
+
+    public IntArray(int capacity) {
+      this.data = new int [Math.max(capacity, 3)];
+    }
+
+    public void add(int i1, int i2, int i3) {
+      if (this.size + 3 > this.data.length) {
+        int [] data = new int [this.data.length * 2 + 3];
+        System.arraycopy(this.data, 0, data, 0, this.size);
+        this.data = data;
+      }
+      this.data [this.size++] = i1;
+      this.data [this.size++] = i2;
+      this.data [this.size++] = i3;
+    }
+
+    public int [] toArray() {
+      int [] array = new int [this.size];
+      System.arraycopy(this.data, 0, array, 0, this.size);
+      return array;
+    }
+  }
+
+  /**
+   * A set of vertices of a given size stored in a float array,
+   * with an open addressing hash table of their indices.
+   */
+  private static class VertexSet {
+    private final int vertexSize;
+    private float []  vertices;
+    private int []    table;
+    private int       size;
+
+    public VertexSet(int vertexSize, int capacity) {
+      this.vertexSize = vertexSize;
+      this.vertices = new float [Math.max(capacity, 4) * vertexSize];
+      int tableSize = 16;
+      while (tableSize < capacity * 2) {
+        tableSize <<= 1;
+      }
+      this.table = new int [tableSize];
+    }
+
+    /**
+     * Adds the given <code>vertex</code> to this set if it doesn't contain it yet,
+     * and returns its index.
+     */
+    public int add(float [] vertex) {
+      int hash = 0;
+      for (int i = 0; i < this.vertexSize; i++) {
+        hash = 31 * hash + Float.floatToIntBits(vertex [i]);
+      }
+      int mask = this.table.length - 1;
+      for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+        int index = this.table [slot] - 1;
+        if (index < 0) {
+          // Add vertex at the free slot
+          if (this.size * this.vertexSize == this.vertices.length) {
+            float [] vertices = new float [this.vertices.length * 2];
+            System.arraycopy(this.vertices, 0, vertices, 0, this.vertices.length);
+            this.vertices = vertices;
+          }
+          System.arraycopy(vertex, 0, this.vertices, this.size * this.vertexSize, this.vertexSize);
+          this.table [slot] = ++this.size;
+          if (this.size * 2 > this.table.length) {
+            rehash();
+          }
+          return this.size - 1;
+        } else if (equals(index, vertex)) {
+          return index;
+        }
+      }
+    }
+
+    private boolean equals(int index, float [] vertex) {
+      for (int i = 0, j = index * this.vertexSize; i < this.vertexSize; i++, j++) {
+        if (Float.floatToIntBits(this.vertices [j]) != Float.floatToIntBits(vertex [i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void rehash() {
+      this.table = new int [this.table.length * 2];
+      int mask = this.table.length - 1;
+      for (int index = 0; index < this.size; index++) {
+        int hash = 0;
+        for (int i = 0, j = index * this.vertexSize; i < this.vertexSize; i++, j++) {
+          hash = 31 * hash + Float.floatToIntBits(this.vertices [j]);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (this.table [slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        this.table [slot] = index + 1;
+      }
+    }
+
+    public int size() {
+      return this.size;
+    }
+
+    public float [] getVertices() {
+      return this.vertices;
+    }
+  }
+}
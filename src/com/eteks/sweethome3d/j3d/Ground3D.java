@@ -37,6 +37,7 @@ import java.util.Map;
 import javax.imageio.ImageIO;
 import javax.media.j3d.Appearance;
 import javax.media.j3d.BranchGroup;
+import javax.media.j3d.Geometry;
 import javax.media.j3d.RenderingAttributes;
 import javax.media.j3d.Shape3D;
 import javax.media.j3d.TexCoordGeneration;
@@ -169,31 +170,12 @@ public class Ground3D extends Object3DBranch {
    * Updates the geometry and attributes of ground and sublevels.
    */
   private void update(final boolean waitTextureLoadingEnd) {
-    final Home home = (Home)getUserData();
     // Update background image viewed on ground
     final TransformGroup backgroundImageGroup = (TransformGroup)getChild(1);
     Shape3D backgroundImageShape = (Shape3D)backgroundImageGroup.getChild(0);
     final Appearance backgroundImageAppearance = backgroundImageShape.getAppearance();
     RenderingAttributes backgroundImageRenderingAttributes = backgroundImageAppearance.getRenderingAttributes();
-    BackgroundImage backgroundImage = null;
-    if (home.getEnvironment().isBackgroundImageVisibleOnGround3D()) {
-      List<Level> levels = home.getLevels();
-      if (levels.size() > 0) {
-        for (int i = levels.size() - 1; i >= 0; i--) {
-          Level level = levels.get(i);
-          if (level.getElevation() == 0
-              && level.isViewableAndVisible()
-              && level.getBackgroundImage() != null
-              && level.getBackgroundImage().isVisible()) {
-            backgroundImage = level.getBackgroundImage();
-            break;
-          }
-        }
-      } else if (home.getBackgroundImage() != null
-                && home.getBackgroundImage().isVisible()) {
-        backgroundImage = home.getBackgroundImage();
-      }
-    }
+    BackgroundImage backgroundImage = getGroundBackgroundImage();
     if (backgroundImage != null) {
       final BackgroundImage displayedBackgroundImage = backgroundImage;
       TextureManager.getInstance().loadTexture(displayedBackgroundImage.getImage(), waitTextureLoadingEnd,
@@ -231,12 +213,113 @@ public class Ground3D extends Object3DBranch {
     }
   }
 
+  /**
+   * Updates the attributes of ground and returns the task that will compute
+   * its geometry from a snapshot of the rooms and of the underground walls and furniture,
+   * if no background image is displayed on ground.
+   * @since 7.5
+   */
+  @Override
+  protected GeometryUpdate update(final HomeSnapshot homeSnapshot) {
+    if (getGroundBackgroundImage() != null) {
+      // Ground geometry depends on the size of the background image, known once its texture is loaded
+      update();
+      return null;
+    }
+    Shape3D backgroundImageShape = (Shape3D)((TransformGroup)getChild(1)).getChild(0);
+    backgroundImageShape.getAppearance().getRenderingAttributes().setVisible(false);
+    final HomeTexture groundTexture = updateGroundAppearance(false);
+    Home home = (Home)getUserData();
+    for (Room room : home.getRooms()) {
+      if (room.getLevel() == null || room.getLevel().isViewable()) {
+        homeSnapshot.addItem(room);
+      }
+    }
+    for (Wall wall : home.getWalls()) {
+      if (isViewableUndergroundLevel(wall.getLevel())) {
+        homeSnapshot.addItem(wall);
+      }
+    }
+    for (HomePieceOfFurniture piece : home.getFurniture()) {
+      if (isViewableUndergroundLevel(piece.getLevel())) {
+        homeSnapshot.addItem(piece);
+      }
+    }
+    return new GeometryUpdate() {
+        private List<Geometry> groundGeometries;
+
+        public void computeGeometries() {
+          this.groundGeometries = createGroundGeometries(homeSnapshot.getHome(), groundTexture, null);
+        }
+
+        public void updateGeometries() {
+          updateGroundGeometry(this.groundGeometries);
+        }
+      };
+  }
+
+  /**
+   * Returns <code>true</code> if the given level is viewable and under the ground.
+   */
+  private boolean isViewableUndergroundLevel(Level level) {
+    return level != null
+        && level.isViewable()
+        && level.getElevation() < 0;
+  }
+
+  /**
+   * Returns the background image displayed on ground or <code>null</code>.
+   */
+  private BackgroundImage getGroundBackgroundImage() {
+    Home home = (Home)getUserData();
+    BackgroundImage backgroundImage = null;
+    if (home.getEnvironment().isBackgroundImageVisibleOnGround3D()) {
+      List<Level> levels = home.getLevels();
+      if (levels.size() > 0) {
+        for (int i = levels.size() - 1; i >= 0; i--) {
+          Level level = levels.get(i);
+          if (level.getElevation() == 0
+              && level.isViewableAndVisible()
+              && level.getBackgroundImage() != null
+              && level.getBackgroundImage().isVisible()) {
+            backgroundImage = level.getBackgroundImage();
+            break;
+          }
+        }
+      } else if (home.getBackgroundImage() != null
+                && home.getBackgroundImage().isVisible()) {
+        backgroundImage = home.getBackgroundImage();
+      }
+    }
+    return backgroundImage;
+  }
+
   private void updateGround(boolean waitTextureLoadingEnd, Rectangle2D backgroundImageRectangle) {
-    final Home home = (Home)getUserData();
+    HomeTexture groundTexture = updateGroundAppearance(waitTextureLoadingEnd);
+    updateGroundGeometry(createGroundGeometries((Home)getUserData(), groundTexture, backgroundImageRectangle));
+  }
 
+  /**
+   * Replaces the geometries of the ground by the given ones.
+   */
+  private void updateGroundGeometry(List<Geometry> groundGeometries) {
     Shape3D groundShape = (Shape3D)getChild(0);
     int currentGeometriesCount = groundShape.numGeometries();
+    for (Geometry groundGeometry : groundGeometries) {
+      groundShape.addGeometry(groundGeometry);
+    }
+    // Remove old geometries
+    for (int i = currentGeometriesCount - 1; i >= 0; i--) {
+      groundShape.removeGeometry(i);
+    }
+  }
 
+  /**
+   * Updates ground color and texture and returns the texture of the ground.
+   */
+  private HomeTexture updateGroundAppearance(boolean waitTextureLoadingEnd) {
+    final Home home = (Home)getUserData();
+    Shape3D groundShape = (Shape3D)getChild(0);
     final Appearance groundAppearance = groundShape.getAppearance();
     HomeTexture groundTexture = home.getEnvironment().getGroundTexture();
     if (groundTexture == null) {
@@ -260,7 +343,15 @@ public class Ground3D extends Object3DBranch {
               }
             });
     }
+    return groundTexture;
+  }
 
+  /**
+   * Returns the geometries of the ground and underground levels of the given <code>home</code>.
+   */
+  private List<Geometry> createGroundGeometries(Home home, HomeTexture groundTexture,
+                                                Rectangle2D backgroundImageRectangle) {
+    List<Geometry> groundGeometries = new ArrayList<Geometry>();
     Area areaRemovedFromGround = new Area();
     if (backgroundImageRectangle != null) {
       areaRemovedFromGround.add(new Area(backgroundImageRectangle));
@@ -389,7 +480,7 @@ public class Ground3D extends Object3DBranch {
       groundArea = new Area(removedAreaBounds);
       outsideGroundArea.subtract(groundArea);
       // Divide the ground at level 0 in two geometries to limit visual artifacts on large zone
-      addAreaGeometry(groundShape, groundTexture, outsideGroundArea, 0);
+      addAreaGeometry(groundGeometries, groundTexture, outsideGroundArea, 0);
     }
     groundArea.subtract(areaRemovedFromGround);
 
@@ -398,20 +489,16 @@ public class Ground3D extends Object3DBranch {
     float previousLevelElevation = 0;
     for (LevelAreas levelAreas : undergroundAreas) {
       float elevation = levelAreas.getLevel().getElevation();
-      addAreaGeometry(groundShape, groundTexture, levelAreas.getUndergroundArea(), elevation);
+      addAreaGeometry(groundGeometries, groundTexture, levelAreas.getUndergroundArea(), elevation);
       if (previousLevelElevation - elevation > 0) {
         for (float [][] points : getPoints(levelAreas.getUndergroundSideArea())) {
-          addAreaSidesGeometry(groundShape, groundTexture, points, elevation, previousLevelElevation - elevation);
+          addAreaSidesGeometry(groundGeometries, groundTexture, points, elevation, previousLevelElevation - elevation);
         }
-        addAreaGeometry(groundShape, groundTexture, levelAreas.getUpperLevelArea(), previousLevelElevation);
+        addAreaGeometry(groundGeometries, groundTexture, levelAreas.getUpperLevelArea(), previousLevelElevation);
       }
       previousLevelElevation = elevation;
     }
-
-    // Remove old geometries
-    for (int i = currentGeometriesCount - 1; i >= 0; i--) {
-      groundShape.removeGeometry(i);
-    }
+    return groundGeometries;
   }
 
   /**
@@ -482,9 +569,9 @@ public class Ground3D extends Object3DBranch {
   }
 
   /**
-   * Adds to ground shape the geometry matching the given area.
+   * Adds to ground geometries the geometry matching the given area.
    */
-  private void addAreaGeometry(Shape3D groundShape,
+  private void addAreaGeometry(List<Geometry> groundGeometries,
                                HomeTexture groundTexture,
                                Area area, float elevation) {
     List<float [][]> areaPoints = getAreaPoints(area, 1, false);
@@ -520,14 +607,14 @@ public class Ground3D extends Object3DBranch {
       }
       geometryInfo.setStripCounts(stripCounts);
       new NormalGenerator(0).generateNormals(geometryInfo);
-      groundShape.addGeometry(geometryInfo.getIndexedGeometryArray());
+      groundGeometries.add(geometryInfo.getIndexedGeometryArray());
     }
   }
 
   /**
-   * Adds to ground shape the geometry matching the given area sides.
+   * Adds to ground geometries the geometry matching the given area sides.
    */
-  private void addAreaSidesGeometry(Shape3D groundShape,
+  private void addAreaSidesGeometry(List<Geometry> groundGeometries,
                                     HomeTexture groundTexture,
                                     float [][] areaPoints,
                                     float elevation,
@@ -559,7 +646,7 @@ public class Ground3D extends Object3DBranch {
       geometryInfo.setTextureCoordinates(0, geometryTextureCoords);
     }
     new NormalGenerator(0).generateNormals(geometryInfo);
-    groundShape.addGeometry(geometryInfo.getIndexedGeometryArray());
+    groundGeometries.add(geometryInfo.getIndexedGeometryArray());
   }
 
   /**
@@ -0,0 +1,224 @@
+/*
+ * LeastRecentlyUsedCache.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread safe cache which evicts its least recently used entries once the total size
+ * of its values exceeds a maximum size. The size of each value is computed by subclasses
+ * in the unit of their choice (vertex count, bytes...) when it's put in the cache.
+ * The cache counts hits, misses and evictions to help tuning its maximum size.
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public abstract class LeastRecentlyUsedCache<K, V> {
+  private final Map<K, SizedValue<V>> entries;
+  private long maximumSize;
+  private long size;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Creates a cache which total size can't exceed <code>maximumSize</code>.
+   */
+  public LeastRecentlyUsedCache(long maximumSize) {
+    // Keep entries in access order
+    this.entries = new LinkedHashMap<K, SizedValue<V>>(16, 0.75f, true);
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns the size of the given <code>value</code> associated to <code>key</code>.
+   */
+  protected abstract long getSize(K key, V value);
+
+  /**
+   * Returns the value associated to the given <code>key</code> or <code>null</code>
+   * if it's not in cache, and marks it as the most recently used one.
+   */
+  public synchronized V get(K key) {
+    SizedValue<V> entry = this.entries.get(key);
+    if (entry != null) {
+      this.hitCount++;
+      return entry.getValue();
+    } else {
+      this.missCount++;
+      return null;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if this cache contains the given <code>key</code>,
+   * without changing its order nor statistics.
+   */
+  public synchronized boolean containsKey(K key) {
+    return this.entries.containsKey(key);
+  }
+
+  /**
+   * Associates <code>value</code> to <code>key</code>, then evicts the least recently used
+   * entries until the size of this cache is smaller than its maximum size.
+   * The new entry is always kept, even if it's larger than the maximum size.
+   * This method should be called again if the size of a value changed.
+   * @return the value previously associated to <code>key</code>
+   */
+  public synchronized V put(K key, V value) {
+    SizedValue<V> entry = new SizedValue<V>(value, getSize(key, value));
+    SizedValue<V> previousEntry = this.entries.put(key, entry);
+    this.size += entry.getSize();
+    if (previousEntry != null) {
+      this.size -= previousEntry.getSize();
+    }
+    evict(this.maximumSize, key);
+    return previousEntry != null
+        ? previousEntry.getValue()
+        : null;
+  }
+
+  /**
+   * Evicts the least recently used entries except the one of <code>keptKey</code>,
+   * until the size of this cache is smaller than <code>maximumSize</code>.
+   */
+  private void evict(long maximumSize, K keptKey) {
+    for (Iterator<Map.Entry<K, SizedValue<V>>> it = this.entries.entrySet().iterator();
+         this.size > maximumSize && it.hasNext(); ) {
+      Map.Entry<K, SizedValue<V>> entry = it.next();
+      if (entry.getKey() != keptKey) {
+        it.remove();
+        this.size -= entry.getValue().getSize();
+        this.evictionCount++;
+      }
+    }
+  }
+
+  /**
+   * Removes the value associated to <code>key</code>.
+   * @return the removed value or <code>null</code> if it wasn't in cache
+   */
+  public synchronized V remove(K key) {
+    SizedValue<V> entry = this.entries.remove(key);
+    if (entry != null) {
+      this.size -= entry.getSize();
+      return entry.getValue();
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Removes all the entries of this cache.
+   */
+  public synchronized void clear() {
+    this.entries.clear();
+    this.size = 0;
+  }
+
+  /**
+   * Sets the maximum size of this cache and evicts the entries which don't fit in it anymore.
+   */
+  public synchronized void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+    evict(maximumSize, null);
+  }
+
+  /**
+   * Returns the maximum size of this cache.
+   */
+  public synchronized long getMaximumSize() {
+    return this.maximumSize;
+  }
+
+  /**
+   * Returns the total size of the values of this cache.
+   */
+  public synchronized long getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns the count of entries in this cache.
+   */
+  public synchronized int getEntryCount() {
+    return this.entries.size();
+  }
+
+  /**
+   * Returns the count of calls to {@link #get(Object) get} which found a value.
+   */
+  public synchronized long getHitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * Returns the count of calls to {@link #get(Object) get} which didn't find a value.
+   */
+  public synchronized long getMissCount() {
+    return this.missCount;
+  }
+
+  /**
+   * Returns the count of entries evicted because the cache was full.
+   */
+  public synchronized long getEvictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * Resets the hit, miss and eviction counters of this cache.
+   */
+  public synchronized void resetStatistics() {
+    this.hitCount = 0;
+    this.missCount = 0;
+    this.evictionCount = 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return this.entries.size() + " entries, size " + this.size + "/" + this.maximumSize
+        + ", " + this.hitCount + " hits, " + this.missCount + " misses, " + this.evictionCount + " evictions";
+  }
+
+  /**
+   * A value stored with its size.
+   */
+  private static class SizedValue<V> {
+    private final V    value;
+    private final long size;
+
+    public SizedValue(V value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+
+    public V getValue() {
+      return this.value;
+    }
+
+    public long getSize() {
+      return this.size;
+    }
+  }
+}
@@ -0,0 +1,1234 @@
+/*
+ * ModelCache.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.media.j3d.Appearance;
+import javax.media.j3d.BranchGroup;
+import javax.media.j3d.ColoringAttributes;
+import javax.media.j3d.Geometry;
+import javax.media.j3d.GeometryArray;
+import javax.media.j3d.GeometryStripArray;
+import javax.media.j3d.Group;
+import javax.media.j3d.ImageComponent;
+import javax.media.j3d.ImageComponent2D;
+import javax.media.j3d.IndexedGeometryArray;
+import javax.media.j3d.IndexedGeometryStripArray;
+import javax.media.j3d.IndexedLineArray;
+import javax.media.j3d.IndexedLineStripArray;
+import javax.media.j3d.IndexedPointArray;
+import javax.media.j3d.IndexedQuadArray;
+import javax.media.j3d.IndexedTriangleArray;
+import javax.media.j3d.IndexedTriangleFanArray;
+import javax.media.j3d.IndexedTriangleStripArray;
+import javax.media.j3d.Light;
+import javax.media.j3d.LineArray;
+import javax.media.j3d.LineAttributes;
+import javax.media.j3d.LineStripArray;
+import javax.media.j3d.Link;
+import javax.media.j3d.Material;
+import javax.media.j3d.Node;
+import javax.media.j3d.PointArray;
+import javax.media.j3d.PointAttributes;
+import javax.media.j3d.PolygonAttributes;
+import javax.media.j3d.QuadArray;
+import javax.media.j3d.RenderingAttributes;
+import javax.media.j3d.SceneGraphObject;
+import javax.media.j3d.Shape3D;
+import javax.media.j3d.SharedGroup;
+import javax.media.j3d.TexCoordGeneration;
+import javax.media.j3d.Texture;
+import javax.media.j3d.Texture2D;
+import javax.media.j3d.TextureAttributes;
+import javax.media.j3d.Transform3D;
+import javax.media.j3d.TransformGroup;
+import javax.media.j3d.TransparencyAttributes;
+import javax.media.j3d.TriangleArray;
+import javax.media.j3d.TriangleFanArray;
+import javax.media.j3d.TriangleStripArray;
+import javax.vecmath.Color3f;
+import javax.vecmath.Color4f;
+import javax.vecmath.Vector4f;
+
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.tools.ResourceURLContent;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * A cache storing in files the 3D models parsed by {@link ModelManager}, to be able to read them
+ * at next launches without parsing their content again. Each model is stored in a binary file named
+ * after the digest of its content, which contains the hierarchy of its nodes, the arrays of its geometries,
+ * the attributes of its appearances and the pixels of its textures.<br>
+ * Subclasses return the digest of contents, which should take into account all the files
+ * a model depends on. Models containing nodes or geometries not supported by this cache aren't stored.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public abstract class ModelCache extends FileCache {
+  private static final int    MAGIC_NUMBER   = 0x5348334D; // SH3M
+  private static final int    VERSION        = 1;
+  private static final String FILE_EXTENSION = ".model";
+
+  private static final int    NULL_REFERENCE = -1;
+  private static final int    NEW_REFERENCE  = -2;
+
+  private static final byte   GROUP           = 0;
+  private static final byte   BRANCH_GROUP    = 1;
+  private static final byte   TRANSFORM_GROUP = 2;
+  private static final byte   SHARED_GROUP    = 3;
+  private static final byte   LINK            = 4;
+  private static final byte   SHAPE           = 5;
+  private static final byte   APPEARANCE      = 6;
+  private static final byte   MATERIAL        = 7;
+  private static final byte   COLORING_ATTRIBUTES     = 8;
+  private static final byte   TRANSPARENCY_ATTRIBUTES = 9;
+  private static final byte   RENDERING_ATTRIBUTES    = 10;
+  private static final byte   POLYGON_ATTRIBUTES      = 11;
+  private static final byte   LINE_ATTRIBUTES         = 12;
+  private static final byte   POINT_ATTRIBUTES        = 13;
+  private static final byte   TEXTURE_ATTRIBUTES      = 14;
+  private static final byte   TEX_COORD_GENERATION    = 15;
+  private static final byte   TEXTURE                 = 16;
+  private static final byte   IMAGE                   = 17;
+  private static final byte   GEOMETRY                = 18;
+
+  private static final List<Class<? extends GeometryArray>> GEOMETRY_CLASSES = new ArrayList<Class<? extends GeometryArray>>();
+
+  static {
+    GEOMETRY_CLASSES.add(TriangleArray.class);
+    GEOMETRY_CLASSES.add(QuadArray.class);
+    GEOMETRY_CLASSES.add(LineArray.class);
+    GEOMETRY_CLASSES.add(PointArray.class);
+    GEOMETRY_CLASSES.add(TriangleStripArray.class);
+    GEOMETRY_CLASSES.add(TriangleFanArray.class);
+    GEOMETRY_CLASSES.add(LineStripArray.class);
+    GEOMETRY_CLASSES.add(IndexedTriangleArray.class);
+    GEOMETRY_CLASSES.add(IndexedQuadArray.class);
+    GEOMETRY_CLASSES.add(IndexedLineArray.class);
+    GEOMETRY_CLASSES.add(IndexedPointArray.class);
+    GEOMETRY_CLASSES.add(IndexedTriangleStripArray.class);
+    GEOMETRY_CLASSES.add(IndexedTriangleFanArray.class);
+    GEOMETRY_CLASSES.add(IndexedLineStripArray.class);
+  }
+
+  /**
+   * Creates a cache of models stored in the given folder.
+   * @param cacheFolder the folder where cached models are stored, created if it doesn't exist
+   * @param maximumSize the size in bytes over which the least recently used models are deleted
+   */
+  public ModelCache(File cacheFolder, long maximumSize) {
+    super(cacheFolder, maximumSize, FILE_EXTENSION);
+  }
+
+  /**
+   * Returns the digest of the given <code>content</code> or <code>null</code>
+   * if it's not available. The digest of a content stored in a multi part resource or in a zip file
+   * should depend on the other files of the resource or of the zip file.
+   */
+  @Override
+  protected abstract byte [] getContentDigest(Content content);
+
+  /**
+   * Returns <code>true</code> if the given <code>content</code> may be stored in this cache.
+   * By default, only contents stored in a zip file, except resources which aren't multi part,
+   * are cached because their digest takes into account the other files a model depends on.
+   */
+  @Override
+  protected boolean isCacheable(Content content) {
+    return content instanceof URLContent
+        && ((URLContent)content).isJAREntry()
+        && (!(content instanceof ResourceURLContent)
+            || ((ResourceURLContent)content).isMultiPartResource());
+  }
+
+  /**
+   * Returns the file where the model of the given <code>content</code> is cached
+   * or <code>null</code> if it can't be cached.
+   */
+  private File getModelFile(Content content) {
+    if (isCacheable(content)) {
+      try {
+        // Combine content digest and entry name because digest may be the same for all the entries of a zip file
+        return getCacheFile(content, ((URLContent)content).getJAREntryName().getBytes("UTF-8"));
+      } catch (UnsupportedEncodingException ex) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the root of the model cached for the given <code>content</code>
+   * or <code>null</code> if it isn't in cache.
+   * @param content  the content of a model
+   * @param modelUrl the URL from which the content is read, used to locate texture images
+   */
+  public BranchGroup readModel(Content content, URL modelUrl) {
+    File modelFile = getModelFile(content);
+    if (modelFile == null
+        || !modelFile.exists()) {
+      return null;
+    }
+    try {
+      ByteBuffer buffer = readCacheFile(modelFile);
+      if (buffer.getInt() != MAGIC_NUMBER
+          || buffer.getInt() != VERSION) {
+        modelFile.delete();
+        return null;
+      }
+      return (BranchGroup)new ModelReader(buffer, modelUrl).readNode();
+    } catch (IOException ex) {
+      // Ignore cache when it can't be read
+      return null;
+    } catch (RuntimeException ex) {
+      // Delete damaged file
+      modelFile.delete();
+      return null;
+    }
+  }
+
+  /**
+   * Stores in this cache the given model root read from <code>content</code>.
+   * This method should be called before the model is displayed.
+   * @param content   the content of a model
+   * @param modelUrl  the URL from which the content was read, used to locate texture images
+   * @param modelRoot the root of the parsed model
+   * @return <code>true</code> if the model was stored
+   */
+  public boolean writeModel(Content content, URL modelUrl, BranchGroup modelRoot) {
+    File modelFile = getModelFile(content);
+    if (modelFile == null) {
+      return false;
+    }
+    ByteBuffer buffer;
+    try {
+      ModelWriter writer = new ModelWriter(modelUrl);
+      writer.writeInt(MAGIC_NUMBER);
+      writer.writeInt(VERSION);
+      writer.writeNode(modelRoot);
+      buffer = writer.getBuffer();
+    } catch (RuntimeException ex) {
+      // Model not supported or its data can't be read
+      return false;
+    }
+    return writeCacheFile(modelFile, buffer);
+  }
+
+  /**
+   * Returns the URL of the folder containing the given model URL.
+   */
+  private static String getBaseUrl(URL modelUrl) {
+    String url = modelUrl.toString();
+    return url.substring(0, url.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Returns the capability bits set on the given object.
+   */
+  private static long getCapabilities(SceneGraphObject object) {
+    long capabilities = 0;
+    for (int bit = 0; bit < 64; bit++) {
+      if (object.getCapability(bit)) {
+        capabilities |= 1L << bit;
+      }
+    }
+    return capabilities;
+  }
+
+  /**
+   * Sets the given capability bits on the given object.
+   */
+  private static void setCapabilities(SceneGraphObject object, long capabilities) {
+    for (int bit = 0; bit < 64; bit++) {
+      if ((capabilities & (1L << bit)) != 0) {
+        object.setCapability(bit);
+      }
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the given vertex format contains colors.
+   */
+  private static boolean containsColors(int vertexFormat) {
+    return (vertexFormat & GeometryArray.COLOR_3) != 0;
+  }
+
+  /**
+   * Returns <code>true</code> if the given vertex format contains texture coordinates.
+   */
+  private static boolean containsTextureCoordinates(int vertexFormat) {
+    return (vertexFormat & (GeometryArray.TEXTURE_COORDINATE_2
+        | GeometryArray.TEXTURE_COORDINATE_3 | GeometryArray.TEXTURE_COORDINATE_4)) != 0;
+  }
+
+  /**
+   * Returns the count of floats used to store the texture coordinates of a vertex.
+   */
+  private static int getTextureCoordinateDimension(int vertexFormat) {
+    if ((vertexFormat & GeometryArray.TEXTURE_COORDINATE_4) == GeometryArray.TEXTURE_COORDINATE_4) {
+      return 4;
+    } else if ((vertexFormat & GeometryArray.TEXTURE_COORDINATE_3) == GeometryArray.TEXTURE_COORDINATE_3) {
+      return 3;
+    } else {
+      return 2;
+    }
+  }
+
+  /**
+   * A writer of model nodes in a growing buffer. Node components shared among nodes
+   * are written once and then referenced by their index.
+   * @throws IllegalArgumentException if a node, a geometry or an attribute isn't supported
+   */
+  private static class ModelWriter {
+    private ByteBuffer                  buffer;
+    private final String                modelBaseUrl;
+    private final Map<Object, Integer>  writtenObjects;
+
+    public ModelWriter(URL modelUrl) {
+      this.buffer = ByteBuffer.allocate(65536);
+      this.modelBaseUrl = getBaseUrl(modelUrl);
+      this.writtenObjects = new IdentityHashMap<Object, Integer>();
+    }
+
+    public ByteBuffer getBuffer() {
+      this.buffer.flip();
+      return this.buffer;
+    }
+
+    private void ensureCapacity(int size) {
+      if (this.buffer.remaining() < size) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + size));
+        this.buffer.flip();
+        buffer.put(this.buffer);
+        this.buffer = buffer;
+      }
+    }
+
+    public void writeByte(byte b) {
+      ensureCapacity(1);
+      this.buffer.put(b);
+    }
+
+    public void writeBoolean(boolean b) {
+      writeByte(b ? (byte)1 : (byte)0);
+    }
+
+    public void writeInt(int i) {
+      ensureCapacity(4);
+      this.buffer.putInt(i);
+    }
+
+    public void writeLong(long l) {
+      ensureCapacity(8);
+      this.buffer.putLong(l);
+    }
+
+    public void writeFloat(float f) {
+      ensureCapacity(4);
+      this.buffer.putFloat(f);
+    }
+
+    public void writeString(String s) {
+      if (s == null) {
+        writeInt(-1);
+      } else {
+        writeInt(s.length());
+        ensureCapacity(s.length() * 2);
+        this.buffer.asCharBuffer().put(s);
+        this.buffer.position(this.buffer.position() + s.length() * 2);
+      }
+    }
+
+    public void writeInts(int [] array) {
+      writeInt(array.length);
+      ensureCapacity(array.length * 4);
+      this.buffer.asIntBuffer().put(array);
+      this.buffer.position(this.buffer.position() + array.length * 4);
+    }
+
+    public void writeFloats(float [] array) {
+      if (array == null) {
+        throw new IllegalArgumentException("Unsupported geometry data");
+      }
+      writeInt(array.length);
+      ensureCapacity(array.length * 4);
+      this.buffer.asFloatBuffer().put(array);
+      this.buffer.position(this.buffer.position() + array.length * 4);
+    }
+
+    public void writeFloats(Color3f color) {
+      writeFloat(color.x);
+      writeFloat(color.y);
+      writeFloat(color.z);
+    }
+
+    public void writeFloats(Color4f color) {
+      writeFloat(color.x);
+      writeFloat(color.y);
+      writeFloat(color.z);
+      writeFloat(color.w);
+    }
+
+    public void writeFloats(Vector4f vector) {
+      writeFloat(vector.x);
+      writeFloat(vector.y);
+      writeFloat(vector.z);
+      writeFloat(vector.w);
+    }
+
+    public void writeTransform(Transform3D transform) {
+      double [] matrix = new double [16];
+      transform.get(matrix);
+      ensureCapacity(matrix.length * 8);
+      this.buffer.asDoubleBuffer().put(matrix);
+      this.buffer.position(this.buffer.position() + matrix.length * 8);
+    }
+
+    /**
+     * Writes the given node and its children, ignoring lights.
+     */
+    public void writeNode(Node node) {
+      if (node.getClass() == Shape3D.class) {
+        Shape3D shape = (Shape3D)node;
+        writeByte(SHAPE);
+        writeNodeAttributes(node);
+        writeObject(shape.getAppearance());
+        writeInt(shape.numGeometries());
+        for (int i = 0; i < shape.numGeometries(); i++) {
+          writeObject(shape.getGeometry(i));
+        }
+      } else if (node.getClass() == Link.class) {
+        writeByte(LINK);
+        writeNodeAttributes(node);
+        writeObject(((Link)node).getSharedGroup());
+      } else if (node.getClass() == TransformGroup.class) {
+        writeByte(TRANSFORM_GROUP);
+        writeNodeAttributes(node);
+        Transform3D transform = new Transform3D();
+        ((TransformGroup)node).getTransform(transform);
+        writeTransform(transform);
+        writeChildren((Group)node);
+      } else if (node.getClass() == BranchGroup.class) {
+        writeByte(BRANCH_GROUP);
+        writeNodeAttributes(node);
+        writeChildren((Group)node);
+      } else if (node.getClass() == Group.class) {
+        writeByte(GROUP);
+        writeNodeAttributes(node);
+        writeChildren((Group)node);
+      } else {
+        throw new IllegalArgumentException("Unsupported node " + node.getClass());
+      }
+    }
+
+    private void writeNodeAttributes(SceneGraphObject object) {
+      writeLong(getCapabilities(object));
+      Object userData = object.getUserData();
+      writeString(userData instanceof String
+          ? (String)userData
+          : null);
+    }
+
+    private void writeChildren(Group group) {
+      List<Node> children = new ArrayList<Node>(group.numChildren());
+      for (Enumeration<?> it = group.getAllChildren(); it.hasMoreElements(); ) {
+        Node child = (Node)it.nextElement();
+        // Ignore lights which are turned off in models
+        if (!(child instanceof Light)) {
+          children.add(child);
+        }
+      }
+      writeInt(children.size());
+      for (Node child : children) {
+        writeNode(child);
+      }
+    }
+
+    /**
+     * Writes the given shared object or its index if it was already written.
+     */
+    public void writeObject(Object object) {
+      if (object == null) {
+        writeInt(NULL_REFERENCE);
+        return;
+      }
+      Integer index = this.writtenObjects.get(object);
+      if (index != null) {
+        writeInt(index);
+        return;
+      }
+      writeInt(NEW_REFERENCE);
+      this.writtenObjects.put(object, this.writtenObjects.size());
+      if (object.getClass() == SharedGroup.class) {
+        writeByte(SHARED_GROUP);
+        writeNodeAttributes((SharedGroup)object);
+        writeChildren((SharedGroup)object);
+      } else if (object.getClass() == Appearance.class) {
+        writeAppearance((Appearance)object);
+      } else if (object instanceof Material) {
+        writeMaterial((Material)object);
+      } else if (object instanceof ColoringAttributes) {
+        ColoringAttributes coloringAttributes = (ColoringAttributes)object;
+        writeByte(COLORING_ATTRIBUTES);
+        writeLong(getCapabilities(coloringAttributes));
+        Color3f color = new Color3f();
+        coloringAttributes.getColor(color);
+        writeFloats(color);
+        writeInt(coloringAttributes.getShadeModel());
+      } else if (object instanceof TransparencyAttributes) {
+        TransparencyAttributes transparencyAttributes = (TransparencyAttributes)object;
+        writeByte(TRANSPARENCY_ATTRIBUTES);
+        writeLong(getCapabilities(transparencyAttributes));
+        writeInt(transparencyAttributes.getTransparencyMode());
+        writeFloat(transparencyAttributes.getTransparency());
+        writeInt(transparencyAttributes.getSrcBlendFunction());
+        writeInt(transparencyAttributes.getDstBlendFunction());
+      } else if (object instanceof RenderingAttributes) {
+        RenderingAttributes renderingAttributes = (RenderingAttributes)object;
+        writeByte(RENDERING_ATTRIBUTES);
+        writeLong(getCapabilities(renderingAttributes));
+        writeBoolean(renderingAttributes.getDepthBufferEnable());
+        writeBoolean(renderingAttributes.getDepthBufferWriteEnable());
+        writeFloat(renderingAttributes.getAlphaTestValue());
+        writeInt(renderingAttributes.getAlphaTestFunction());
+        writeBoolean(renderingAttributes.getVisible());
+        writeBoolean(renderingAttributes.getIgnoreVertexColors());
+        writeBoolean(renderingAttributes.getRasterOpEnable());
+        writeInt(renderingAttributes.getRasterOp());
+      } else if (object instanceof PolygonAttributes) {
+        PolygonAttributes polygonAttributes = (PolygonAttributes)object;
+        writeByte(POLYGON_ATTRIBUTES);
+        writeLong(getCapabilities(polygonAttributes));
+        writeInt(polygonAttributes.getPolygonMode());
+        writeInt(polygonAttributes.getCullFace());
+        writeBoolean(polygonAttributes.getBackFaceNormalFlip());
+        writeFloat(polygonAttributes.getPolygonOffset());
+        writeFloat(polygonAttributes.getPolygonOffsetFactor());
+      } else if (object instanceof LineAttributes) {
+        LineAttributes lineAttributes = (LineAttributes)object;
+        writeByte(LINE_ATTRIBUTES);
+        writeLong(getCapabilities(lineAttributes));
+        writeFloat(lineAttributes.getLineWidth());
+        writeInt(lineAttributes.getLinePattern());
+        writeBoolean(lineAttributes.getLineAntialiasingEnable());
+        writeInt(lineAttributes.getPatternMask());
+        writeInt(lineAttributes.getPatternScaleFactor());
+      } else if (object instanceof PointAttributes) {
+        PointAttributes pointAttributes = (PointAttributes)object;
+        writeByte(POINT_ATTRIBUTES);
+        writeLong(getCapabilities(pointAttributes));
+        writeFloat(pointAttributes.getPointSize());
+        writeBoolean(pointAttributes.getPointAntialiasingEnable());
+      } else if (object instanceof TextureAttributes) {
+        TextureAttributes textureAttributes = (TextureAttributes)object;
+        if (textureAttributes.getTextureMode() == TextureAttributes.COMBINE) {
+          throw new IllegalArgumentException("Unsupported texture mode");
+        }
+        writeByte(TEXTURE_ATTRIBUTES);
+        writeLong(getCapabilities(textureAttributes));
+        writeInt(textureAttributes.getTextureMode());
+        writeInt(textureAttributes.getPerspectiveCorrectionMode());
+        Color4f blendColor = new Color4f();
+        textureAttributes.getTextureBlendColor(blendColor);
+        writeFloats(blendColor);
+        Transform3D transform = new Transform3D();
+        textureAttributes.getTextureTransform(transform);
+        writeTransform(transform);
+      } else if (object instanceof TexCoordGeneration) {
+        TexCoordGeneration texCoordGeneration = (TexCoordGeneration)object;
+        writeByte(TEX_COORD_GENERATION);
+        writeLong(getCapabilities(texCoordGeneration));
+        writeInt(texCoordGeneration.getGenMode());
+        writeInt(texCoordGeneration.getFormat());
+        writeBoolean(texCoordGeneration.getEnable());
+        Vector4f plane = new Vector4f();
+        texCoordGeneration.getPlaneS(plane);
+        writeFloats(plane);
+        texCoordGeneration.getPlaneT(plane);
+        writeFloats(plane);
+        texCoordGeneration.getPlaneR(plane);
+        writeFloats(plane);
+        texCoordGeneration.getPlaneQ(plane);
+        writeFloats(plane);
+      } else if (object.getClass() == Texture2D.class) {
+        writeTexture((Texture2D)object);
+      } else if (object.getClass() == ImageComponent2D.class) {
+        writeImage((ImageComponent2D)object);
+      } else if (object instanceof GeometryArray
+                 && GEOMETRY_CLASSES.contains(object.getClass())) {
+        writeGeometry((GeometryArray)object);
+      } else {
+        throw new IllegalArgumentException("Unsupported object " + object.getClass());
+      }
+    }
+
+    private void writeAppearance(Appearance appearance) {
+      if (appearance.getTextureUnitCount() > 0) {
+        throw new IllegalArgumentException("Unsupported texture units");
+      }
+      writeByte(APPEARANCE);
+      writeLong(getCapabilities(appearance));
+      writeString(appearance.getName());
+      writeObject(appearance.getMaterial());
+      writeObject(appearance.getColoringAttributes());
+      writeObject(appearance.getTransparencyAttributes());
+      writeObject(appearance.getRenderingAttributes());
+      writeObject(appearance.getPolygonAttributes());
+      writeObject(appearance.getLineAttributes());
+      writeObject(appearance.getPointAttributes());
+      writeObject(appearance.getTextureAttributes());
+      writeObject(appearance.getTexCoordGeneration());
+      writeObject(appearance.getTexture());
+    }
+
+    private void writeMaterial(Material material) {
+      writeByte(MATERIAL);
+      writeLong(getCapabilities(material));
+      writeString(material.getName());
+      Color3f color = new Color3f();
+      material.getAmbientColor(color);
+      writeFloats(color);
+      material.getEmissiveColor(color);
+      writeFloats(color);
+      material.getDiffuseColor(color);
+      writeFloats(color);
+      material.getSpecularColor(color);
+      writeFloats(color);
+      writeFloat(material.getShininess());
+      writeBoolean(material.getLightingEnable());
+      writeInt(material.getColorTarget());
+    }
+
+    private void writeTexture(Texture2D texture) {
+      writeByte(TEXTURE);
+      writeLong(getCapabilities(texture));
+      writeInt(texture.getMipMapMode());
+      writeInt(texture.getFormat());
+      writeInt(texture.getWidth());
+      writeInt(texture.getHeight());
+      writeInt(texture.getBoundaryModeS());
+      writeInt(texture.getBoundaryModeT());
+      writeInt(texture.getMinFilter());
+      writeInt(texture.getMagFilter());
+      writeBoolean(texture.getEnable());
+      Color4f boundaryColor = new Color4f();
+      texture.getBoundaryColor(boundaryColor);
+      writeFloats(boundaryColor);
+      // Store texture image URL relatively to model URL to be able to find it
+      // when the model is read from an other location
+      Object userData = texture.getUserData();
+      String imageUrl = userData instanceof URL
+          ? userData.toString()
+          : null;
+      if (imageUrl != null
+          && imageUrl.startsWith(this.modelBaseUrl)) {
+        writeBoolean(true);
+        writeString(imageUrl.substring(this.modelBaseUrl.length()));
+      } else {
+        writeBoolean(false);
+        writeString(imageUrl);
+      }
+      ImageComponent [] images = texture.getImages();
+      writeInt(images.length);
+      for (ImageComponent image : images) {
+        writeObject(image);
+      }
+    }
+
+    private void writeImage(ImageComponent2D imageComponent) {
+      BufferedImage image = imageComponent.getImage();
+      if (image == null) {
+        throw new IllegalArgumentException("Unsupported image");
+      }
+      writeByte(IMAGE);
+      writeLong(getCapabilities(imageComponent));
+      writeInt(imageComponent.getFormat());
+      writeBoolean(imageComponent.isByReference());
+      writeBoolean(imageComponent.isYUp());
+      boolean alpha = image.getColorModel().hasAlpha();
+      if (image.getType() != BufferedImage.TYPE_INT_RGB
+          && image.getType() != BufferedImage.TYPE_INT_ARGB) {
+        // Transform as TYPE_INT_ARGB or TYPE_INT_RGB to store pixels in an int array
+        BufferedImage tmp = new BufferedImage(image.getWidth(), image.getHeight(),
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = (Graphics2D)tmp.getGraphics();
+        g.drawImage(image, null, 0, 0);
+        g.dispose();
+        image = tmp;
+      }
+      writeBoolean(alpha);
+      writeInt(image.getWidth());
+      writeInt(image.getHeight());
+      writeInts((int [])image.getRaster().getDataElements(0, 0, image.getWidth(), image.getHeight(), null));
+    }
+
+    private void writeGeometry(GeometryArray geometry) {
+      int vertexFormat = geometry.getVertexFormat();
+      if ((vertexFormat & (GeometryArray.USE_NIO_BUFFER | GeometryArray.VERTEX_ATTRIBUTES)) != 0) {
+        throw new IllegalArgumentException("Unsupported geometry format");
+      }
+      writeByte(GEOMETRY);
+      writeLong(getCapabilities(geometry));
+      writeByte((byte)GEOMETRY_CLASSES.indexOf(geometry.getClass()));
+      int vertexCount = geometry.getVertexCount();
+      writeInt(vertexCount);
+      writeInt(vertexFormat);
+      int texCoordSetCount = geometry.getTexCoordSetCount();
+      writeInt(texCoordSetCount);
+      int [] texCoordSetMap = new int [geometry.getTexCoordSetMapLength()];
+      geometry.getTexCoordSetMap(texCoordSetMap);
+      writeInts(texCoordSetMap);
+      if (geometry instanceof IndexedGeometryArray) {
+        IndexedGeometryArray indexedGeometry = (IndexedGeometryArray)geometry;
+        writeInt(indexedGeometry.getIndexCount());
+        if (geometry instanceof IndexedGeometryStripArray) {
+          int [] stripIndexCounts = new int [((IndexedGeometryStripArray)geometry).getNumStrips()];
+          ((IndexedGeometryStripArray)geometry).getStripIndexCounts(stripIndexCounts);
+          writeInts(stripIndexCounts);
+        }
+      } else if (geometry instanceof GeometryStripArray) {
+        int [] stripVertexCounts = new int [((GeometryStripArray)geometry).getNumStrips()];
+        ((GeometryStripArray)geometry).getStripVertexCounts(stripVertexCounts);
+        writeInts(stripVertexCounts);
+      }
+
+      // Write vertex data
+      if ((vertexFormat & GeometryArray.INTERLEAVED) != 0) {
+        writeFloats(geometry.getInterleavedVertices());
+      } else if ((vertexFormat & GeometryArray.BY_REFERENCE) != 0) {
+        writeFloats(geometry.getCoordRefFloat());
+        if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+          writeFloats(geometry.getNormalRefFloat());
+        }
+        if (containsColors(vertexFormat)) {
+          writeFloats(geometry.getColorRefFloat());
+        }
+        if (containsTextureCoordinates(vertexFormat)) {
+          for (int i = 0; i < texCoordSetCount; i++) {
+            writeFloats(geometry.getTexCoordRefFloat(i));
+          }
+        }
+      } else {
+        float [] coordinates = new float [vertexCount * 3];
+        geometry.getCoordinates(0, coordinates);
+        writeFloats(coordinates);
+        if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+          float [] normals = new float [vertexCount * 3];
+          geometry.getNormals(0, normals);
+          writeFloats(normals);
+        }
+        if (containsColors(vertexFormat)) {
+          float [] colors = new float [vertexCount * ((vertexFormat & GeometryArray.COLOR_4) == GeometryArray.COLOR_4 ? 4 : 3)];
+          geometry.getColors(0, colors);
+          writeFloats(colors);
+        }
+        if (containsTextureCoordinates(vertexFormat)) {
+          for (int i = 0; i < texCoordSetCount; i++) {
+            float [] textureCoordinates = new float [vertexCount * getTextureCoordinateDimension(vertexFormat)];
+            geometry.getTextureCoordinates(i, 0, textureCoordinates);
+            writeFloats(textureCoordinates);
+          }
+        }
+      }
+
+      // Write indices
+      if (geometry instanceof IndexedGeometryArray) {
+        IndexedGeometryArray indexedGeometry = (IndexedGeometryArray)geometry;
+        int indexCount = indexedGeometry.getIndexCount();
+        writeInt(indexedGeometry.getValidIndexCount());
+        int [] indices = new int [indexCount];
+        indexedGeometry.getCoordinateIndices(0, indices);
+        writeInts(indices);
+        if ((vertexFormat & GeometryArray.USE_COORD_INDEX_ONLY) == 0) {
+          if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+            indexedGeometry.getNormalIndices(0, indices);
+            writeInts(indices);
+          }
+          if (containsColors(vertexFormat)) {
+            indexedGeometry.getColorIndices(0, indices);
+            writeInts(indices);
+          }
+          if (containsTextureCoordinates(vertexFormat)) {
+            for (int i = 0; i < texCoordSetCount; i++) {
+              indexedGeometry.getTextureCoordinateIndices(i, 0, indices);
+              writeInts(indices);
+            }
+          }
+        }
+      } else {
+        writeInt(geometry.getValidVertexCount());
+      }
+    }
+  }
+
+  /**
+   * A reader of model nodes written by {@link ModelWriter}.
+   */
+  private static class ModelReader {
+    private final ByteBuffer    buffer;
+    private final String        modelBaseUrl;
+    private final List<Object>  readObjects;
+
+    public ModelReader(ByteBuffer buffer, URL modelUrl) {
+      this.buffer = buffer;
+      this.modelBaseUrl = getBaseUrl(modelUrl);
+      this.readObjects = new ArrayList<Object>();
+    }
+
+    public boolean readBoolean() {
+      return this.buffer.get() != 0;
+    }
+
+    public String readString() {
+      int length = this.buffer.getInt();
+      if (length < 0) {
+        return null;
+      } else {
+        char [] chars = new char [length];
+        this.buffer.asCharBuffer().get(chars);
+        this.buffer.position(this.buffer.position() + length * 2);
+        return new String(chars);
+      }
+    }
+
+    public int [] readInts() {
+      int [] array = new int [this.buffer.getInt()];
+      this.buffer.asIntBuffer().get(array);
+      this.buffer.position(this.buffer.position() + array.length * 4);
+      return array;
+    }
+
+    public float [] readFloats() {
+      float [] array = new float [this.buffer.getInt()];
+      this.buffer.asFloatBuffer().get(array);
+      this.buffer.position(this.buffer.position() + array.length * 4);
+      return array;
+    }
+
+    public Color3f readColor3f() {
+      return new Color3f(this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat());
+    }
+
+    public Color4f readColor4f() {
+      return new Color4f(this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat());
+    }
+
+    public Vector4f readVector4f() {
+      return new Vector4f(this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat());
+    }
+
+    public Transform3D readTransform() {
+      double [] matrix = new double [16];
+      this.buffer.asDoubleBuffer().get(matrix);
+      this.buffer.position(this.buffer.position() + matrix.length * 8);
+      return new Transform3D(matrix);
+    }
+
+    /**
+     * Reads a node and its children.
+     */
+    public Node readNode() {
+      byte type = this.buffer.get();
+      Node node;
+      switch (type) {
+        case SHAPE :
+          node = new Shape3D();
+          break;
+        case LINK :
+          node = new Link();
+          break;
+        case TRANSFORM_GROUP :
+          node = new TransformGroup();
+          break;
+        case BRANCH_GROUP :
+          node = new BranchGroup();
+          break;
+        case GROUP :
+          node = new Group();
+          break;
+        default :
+          throw new IllegalStateException("Unexpected node type " + type);
+      }
+      readNodeAttributes(node);
+      switch (type) {
+        case SHAPE :
+          Shape3D shape = (Shape3D)node;
+          shape.setAppearance((Appearance)readObject());
+          int geometryCount = this.buffer.getInt();
+          for (int i = 0; i < geometryCount; i++) {
+            if (i == 0) {
+              shape.setGeometry((Geometry)readObject());
+            } else {
+              shape.addGeometry((Geometry)readObject());
+            }
+          }
+          break;
+        case LINK :
+          ((Link)node).setSharedGroup((SharedGroup)readObject());
+          break;
+        case TRANSFORM_GROUP :
+          ((TransformGroup)node).setTransform(readTransform());
+          readChildren((Group)node);
+          break;
+        default :
+          readChildren((Group)node);
+          break;
+      }
+      return node;
+    }
+
+    private void readNodeAttributes(SceneGraphObject object) {
+      setCapabilities(object, this.buffer.getLong());
+      object.setUserData(readString());
+    }
+
+    private void readChildren(Group group) {
+      int childrenCount = this.buffer.getInt();
+      for (int i = 0; i < childrenCount; i++) {
+        group.addChild(readNode());
+      }
+    }
+
+    /**
+     * Reads a shared object or returns the object already read at the read index.
+     */
+    public Object readObject() {
+      int reference = this.buffer.getInt();
+      if (reference == NULL_REFERENCE) {
+        return null;
+      } else if (reference != NEW_REFERENCE) {
+        return this.readObjects.get(reference);
+      }
+      // Reserve the index of the new object
+      int index = this.readObjects.size();
+      this.readObjects.add(null);
+      byte type = this.buffer.get();
+      Object object;
+      switch (type) {
+        case SHARED_GROUP :
+          SharedGroup sharedGroup = new SharedGroup();
+          readNodeAttributes(sharedGroup);
+          readChildren(sharedGroup);
+          object = sharedGroup;
+          break;
+        case APPEARANCE :
+          object = readAppearance();
+          break;
+        case MATERIAL :
+          object = readMaterial();
+          break;
+        case COLORING_ATTRIBUTES :
+          ColoringAttributes coloringAttributes = new ColoringAttributes();
+          setCapabilities(coloringAttributes, this.buffer.getLong());
+          coloringAttributes.setColor(readColor3f());
+          coloringAttributes.setShadeModel(this.buffer.getInt());
+          object = coloringAttributes;
+          break;
+        case TRANSPARENCY_ATTRIBUTES :
+          TransparencyAttributes transparencyAttributes = new TransparencyAttributes();
+          setCapabilities(transparencyAttributes, this.buffer.getLong());
+          transparencyAttributes.setTransparencyMode(this.buffer.getInt());
+          transparencyAttributes.setTransparency(this.buffer.getFloat());
+          transparencyAttributes.setSrcBlendFunction(this.buffer.getInt());
+          transparencyAttributes.setDstBlendFunction(this.buffer.getInt());
+          object = transparencyAttributes;
+          break;
+        case RENDERING_ATTRIBUTES :
+          RenderingAttributes renderingAttributes = new RenderingAttributes();
+          setCapabilities(renderingAttributes, this.buffer.getLong());
+          renderingAttributes.setDepthBufferEnable(readBoolean());
+          renderingAttributes.setDepthBufferWriteEnable(readBoolean());
+          renderingAttributes.setAlphaTestValue(this.buffer.getFloat());
+          renderingAttributes.setAlphaTestFunction(this.buffer.getInt());
+          renderingAttributes.setVisible(readBoolean());
+          renderingAttributes.setIgnoreVertexColors(readBoolean());
+          renderingAttributes.setRasterOpEnable(readBoolean());
+          renderingAttributes.setRasterOp(this.buffer.getInt());
+          object = renderingAttributes;
+          break;
+        case POLYGON_ATTRIBUTES :
+          PolygonAttributes polygonAttributes = new PolygonAttributes();
+          setCapabilities(polygonAttributes, this.buffer.getLong());
+          polygonAttributes.setPolygonMode(this.buffer.getInt());
+          polygonAttributes.setCullFace(this.buffer.getInt());
+          polygonAttributes.setBackFaceNormalFlip(readBoolean());
+          polygonAttributes.setPolygonOffset(this.buffer.getFloat());
+          polygonAttributes.setPolygonOffsetFactor(this.buffer.getFloat());
+          object = polygonAttributes;
+          break;
+        case LINE_ATTRIBUTES :
+          LineAttributes lineAttributes = new LineAttributes();
+          setCapabilities(lineAttributes, this.buffer.getLong());
+          lineAttributes.setLineWidth(this.buffer.getFloat());
+          lineAttributes.setLinePattern(this.buffer.getInt());
+          lineAttributes.setLineAntialiasingEnable(readBoolean());
+          lineAttributes.setPatternMask(this.buffer.getInt());
+          lineAttributes.setPatternScaleFactor(this.buffer.getInt());
+          object = lineAttributes;
+          break;
+        case POINT_ATTRIBUTES :
+          PointAttributes pointAttributes = new PointAttributes();
+          setCapabilities(pointAttributes, this.buffer.getLong());
+          pointAttributes.setPointSize(this.buffer.getFloat());
+          pointAttributes.setPointAntialiasingEnable(readBoolean());
+          object = pointAttributes;
+          break;
+        case TEXTURE_ATTRIBUTES :
+          TextureAttributes textureAttributes = new TextureAttributes();
+          setCapabilities(textureAttributes, this.buffer.getLong());
+          textureAttributes.setTextureMode(this.buffer.getInt());
+          textureAttributes.setPerspectiveCorrectionMode(this.buffer.getInt());
+          textureAttributes.setTextureBlendColor(readColor4f());
+          textureAttributes.setTextureTransform(readTransform());
+          object = textureAttributes;
+          break;
+        case TEX_COORD_GENERATION :
+          TexCoordGeneration texCoordGeneration = new TexCoordGeneration();
+          setCapabilities(texCoordGeneration, this.buffer.getLong());
+          texCoordGeneration.setGenMode(this.buffer.getInt());
+          texCoordGeneration.setFormat(this.buffer.getInt());
+          texCoordGeneration.setEnable(readBoolean());
+          texCoordGeneration.setPlaneS(readVector4f());
+          texCoordGeneration.setPlaneT(readVector4f());
+          texCoordGeneration.setPlaneR(readVector4f());
+          texCoordGeneration.setPlaneQ(readVector4f());
+          object = texCoordGeneration;
+          break;
+        case TEXTURE :
+          object = readTexture();
+          break;
+        case IMAGE :
+          object = readImage();
+          break;
+        case GEOMETRY :
+          object = readGeometry();
+          break;
+        default :
+          throw new IllegalStateException("Unexpected object type " + type);
+      }
+      this.readObjects.set(index, object);
+      return object;
+    }
+
+    private Appearance readAppearance() {
+      Appearance appearance = new Appearance();
+      setCapabilities(appearance, this.buffer.getLong());
+      appearance.setName(readString());
+      appearance.setMaterial((Material)readObject());
+      appearance.setColoringAttributes((ColoringAttributes)readObject());
+      appearance.setTransparencyAttributes((TransparencyAttributes)readObject());
+      appearance.setRenderingAttributes((RenderingAttributes)readObject());
+      appearance.setPolygonAttributes((PolygonAttributes)readObject());
+      appearance.setLineAttributes((LineAttributes)readObject());
+      appearance.setPointAttributes((PointAttributes)readObject());
+      appearance.setTextureAttributes((TextureAttributes)readObject());
+      appearance.setTexCoordGeneration((TexCoordGeneration)readObject());
+      appearance.setTexture((Texture)readObject());
+      return appearance;
+    }
+
+    private Material readMaterial() {
+      Material material = new Material();
+      setCapabilities(material, this.buffer.getLong());
+      material.setName(readString());
+      material.setAmbientColor(readColor3f());
+      material.setEmissiveColor(readColor3f());
+      material.setDiffuseColor(readColor3f());
+      material.setSpecularColor(readColor3f());
+      material.setShininess(this.buffer.getFloat());
+      material.setLightingEnable(readBoolean());
+      material.setColorTarget(this.buffer.getInt());
+      return material;
+    }
+
+    private Texture2D readTexture() {
+      long capabilities = this.buffer.getLong();
+      Texture2D texture = new Texture2D(this.buffer.getInt(), this.buffer.getInt(),
+          this.buffer.getInt(), this.buffer.getInt());
+      setCapabilities(texture, capabilities);
+      texture.setBoundaryModeS(this.buffer.getInt());
+      texture.setBoundaryModeT(this.buffer.getInt());
+      texture.setMinFilter(this.buffer.getInt());
+      texture.setMagFilter(this.buffer.getInt());
+      texture.setEnable(readBoolean());
+      texture.setBoundaryColor(readColor4f());
+      boolean relativeImageUrl = readBoolean();
+      String imageUrl = readString();
+      if (imageUrl != null) {
+        try {
+          texture.setUserData(new URL(relativeImageUrl
+              ? this.modelBaseUrl + imageUrl
+              : imageUrl));
+        } catch (MalformedURLException ex) {
+          throw new IllegalStateException(ex.getMessage());
+        }
+      }
+      int imageCount = this.buffer.getInt();
+      for (int i = 0; i < imageCount; i++) {
+        ImageComponent image = (ImageComponent)readObject();
+        if (image != null) {
+          texture.setImage(i, image);
+        }
+      }
+      return texture;
+    }
+
+    private ImageComponent2D readImage() {
+      long capabilities = this.buffer.getLong();
+      int format = this.buffer.getInt();
+      boolean byReference = readBoolean();
+      boolean yUp = readBoolean();
+      boolean alpha = readBoolean();
+      int width = this.buffer.getInt();
+      int height = this.buffer.getInt();
+      BufferedImage image = new BufferedImage(width, height,
+          alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+      image.getRaster().setDataElements(0, 0, width, height, readInts());
+      ImageComponent2D imageComponent = new ImageComponent2D(format, image, byReference, yUp);
+      setCapabilities(imageComponent, capabilities);
+      return imageComponent;
+    }
+
+    private GeometryArray readGeometry() {
+      long capabilities = this.buffer.getLong();
+      Class<? extends GeometryArray> geometryClass = GEOMETRY_CLASSES.get(this.buffer.get());
+      int vertexCount = this.buffer.getInt();
+      int vertexFormat = this.buffer.getInt();
+      int texCoordSetCount = this.buffer.getInt();
+      int [] texCoordSetMap = readInts();
+      if (texCoordSetMap.length == 0) {
+        texCoordSetMap = null;
+      }
+      GeometryArray geometry;
+      if (IndexedGeometryArray.class.isAssignableFrom(geometryClass)) {
+        int indexCount = this.buffer.getInt();
+        if (geometryClass == IndexedTriangleArray.class) {
+          geometry = new IndexedTriangleArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount);
+        } else if (geometryClass == IndexedQuadArray.class) {
+          geometry = new IndexedQuadArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount);
+        } else if (geometryClass == IndexedLineArray.class) {
+          geometry = new IndexedLineArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount);
+        } else if (geometryClass == IndexedPointArray.class) {
+          geometry = new IndexedPointArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount);
+        } else {
+          int [] stripIndexCounts = readInts();
+          if (geometryClass == IndexedTriangleStripArray.class) {
+            geometry = new IndexedTriangleStripArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount, stripIndexCounts);
+          } else if (geometryClass == IndexedTriangleFanArray.class) {
+            geometry = new IndexedTriangleFanArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount, stripIndexCounts);
+          } else {
+            geometry = new IndexedLineStripArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, indexCount, stripIndexCounts);
+          }
+        }
+      } else if (geometryClass == TriangleArray.class) {
+        geometry = new TriangleArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap);
+      } else if (geometryClass == QuadArray.class) {
+        geometry = new QuadArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap);
+      } else if (geometryClass == LineArray.class) {
+        geometry = new LineArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap);
+      } else if (geometryClass == PointArray.class) {
+        geometry = new PointArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap);
+      } else {
+        int [] stripVertexCounts = readInts();
+        if (geometryClass == TriangleStripArray.class) {
+          geometry = new TriangleStripArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, stripVertexCounts);
+        } else if (geometryClass == TriangleFanArray.class) {
+          geometry = new TriangleFanArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, stripVertexCounts);
+        } else {
+          geometry = new LineStripArray(vertexCount, vertexFormat, texCoordSetCount, texCoordSetMap, stripVertexCounts);
+        }
+      }
+      setCapabilities(geometry, capabilities);
+
+      // Read vertex data
+      if ((vertexFormat & GeometryArray.INTERLEAVED) != 0) {
+        geometry.setInterleavedVertices(readFloats());
+      } else if ((vertexFormat & GeometryArray.BY_REFERENCE) != 0) {
+        geometry.setCoordRefFloat(readFloats());
+        if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+          geometry.setNormalRefFloat(readFloats());
+        }
+        if (containsColors(vertexFormat)) {
+          geometry.setColorRefFloat(readFloats());
+        }
+        if (containsTextureCoordinates(vertexFormat)) {
+          for (int i = 0; i < texCoordSetCount; i++) {
+            geometry.setTexCoordRefFloat(i, readFloats());
+          }
+        }
+      } else {
+        geometry.setCoordinates(0, readFloats());
+        if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+          geometry.setNormals(0, readFloats());
+        }
+        if (containsColors(vertexFormat)) {
+          geometry.setColors(0, readFloats());
+        }
+        if (containsTextureCoordinates(vertexFormat)) {
+          for (int i = 0; i < texCoordSetCount; i++) {
+            geometry.setTextureCoordinates(i, 0, readFloats());
+          }
+        }
+      }
+
+      // Read indices
+      if (geometry instanceof IndexedGeometryArray) {
+        IndexedGeometryArray indexedGeometry = (IndexedGeometryArray)geometry;
+        int validIndexCount = this.buffer.getInt();
+        indexedGeometry.setCoordinateIndices(0, readInts());
+        if ((vertexFormat & GeometryArray.USE_COORD_INDEX_ONLY) == 0) {
+          if ((vertexFormat & GeometryArray.NORMALS) != 0) {
+            indexedGeometry.setNormalIndices(0, readInts());
+          }
+          if (containsColors(vertexFormat)) {
+            indexedGeometry.setColorIndices(0, readInts());
+          }
+          if (containsTextureCoordinates(vertexFormat)) {
+            for (int i = 0; i < texCoordSetCount; i++) {
+              indexedGeometry.setTextureCoordinateIndices(i, 0, readInts());
+            }
+          }
+        }
+        if (!(geometry instanceof IndexedGeometryStripArray)) {
+          indexedGeometry.setValidIndexCount(validIndexCount);
+        }
+      } else {
+        int validVertexCount = this.buffer.getInt();
+        if (!(geometry instanceof GeometryStripArray)) {
+          geometry.setValidVertexCount(validVertexCount);
+        }
+      }
+      return geometry;
+    }
+  }
+}
@@ -121,6 +121,9 @@ import com.sun.j3d.loaders.lw3d.Lw3dLoader;
  * Additional classes implementing Java 3D <code>Loader</code> interface may be
  * specified in the <code>com.eteks.sweethome3d.j3d.additionalLoaderClasses</code>
  * (separated by a space or a colon :) to enable the support of other formats.<br>
+ * Loaded models are kept in a cache which total vertex count may be set in the
+ * <code>com.eteks.sweethome3d.j3d.loadedModelsMaximumVertexCount</code> system property
+ * (5,000,000 by default), and which least recently used models are evicted first.<br>
  * Note: this class is compatible with Java 3D 1.3.
  * @author Emmanuel Puybaret
  */
@@ -215,11 +218,13 @@ public class ModelManager {
   private static final float    MINIMUM_SIZE = 0.001f;
 
   private static final String   ADDITIONAL_LOADER_CLASSES = "com.eteks.sweethome3d.j3d.additionalLoaderClasses";
+  private static final String   LOADED_MODELS_MAXIMUM_VERTEX_COUNT = "com.eteks.sweethome3d.j3d.loadedModelsMaximumVertexCount";
+  private static final long     DEFAULT_LOADED_MODELS_MAXIMUM_VERTEX_COUNT = 5000000;
 
   private static ModelManager instance;
 
-  // Map storing loaded model nodes
-  private Map<Content, BranchGroup> loadedModelNodes;
+  // Cache storing loaded model nodes
+  private LeastRecentlyUsedCache<Content, BranchGroup> loadedModelNodes;
   // Map storing model nodes being loaded
   private Map<Content, List<ModelObserver>> loadingModelObservers;
   // Map storing the bounds of transformed model nodes
@@ -228,10 +233,18 @@ public class ModelManager {
   private ExecutorService           modelsLoader;
   // List of additional loader classes
   private Class<Loader> []          additionalLoaderClasses;
+  // Persistent cache of parsed models
+  private ModelCache                modelCache;
 
   private ModelManager() {
     // This class is a singleton
-    this.loadedModelNodes = new WeakHashMap<Content, BranchGroup>();
+    this.loadedModelNodes = new LeastRecentlyUsedCache<Content, BranchGroup>(
+        getMaximumSizeProperty(LOADED_MODELS_MAXIMUM_VERTEX_COUNT, DEFAULT_LOADED_MODELS_MAXIMUM_VERTEX_COUNT)) {
+        @Override
+        protected long getSize(Content content, BranchGroup modelRoot) {
+          return getVertexCount(modelRoot, new HashSet<SharedGroup>());
+        }
+      };
     this.loadingModelObservers = new HashMap<Content, List<ModelObserver>>();
     this.transformedModelNodeBounds = new WeakHashMap<Content, Map<Transform3D, BoundingBox>>();
     // Load other optional Loader classes
@@ -249,6 +262,53 @@ public class ModelManager {
     this.additionalLoaderClasses = loaderClasses.toArray(new Class [loaderClasses.size()]);
   }
 
+  /**
+   * Returns the long value of the given system property or <code>defaultValue</code>
+   * if it doesn't exist or isn't valid.
+   */
+  static long getMaximumSizeProperty(String propertyName, long defaultValue) {
+    try {
+      String value = System.getProperty(propertyName);
+      if (value != null) {
+        return Long.parseLong(value.trim());
+      }
+    } catch (NumberFormatException ex) {
+      System.err.println("Invalid value for " + propertyName + " property");
+    } catch (SecurityException ex) {
+      // Ignore property
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Returns the count of vertices in the geometries of the given <code>node</code> and its children.
+   */
+  private long getVertexCount(Node node, Set<SharedGroup> countedSharedGroups) {
+    long vertexCount = 0;
+    if (node instanceof Group) {
+      Enumeration<?> enumeration = ((Group)node).getAllChildren();
+      while (enumeration.hasMoreElements()) {
+        vertexCount += getVertexCount((Node)enumeration.nextElement(), countedSharedGroups);
+      }
+    } else if (node instanceof Link) {
+      SharedGroup sharedGroup = ((Link)node).getSharedGroup();
+      // Count shared groups only once since they're not duplicated
+      if (sharedGroup != null
+          && countedSharedGroups.add(sharedGroup)) {
+        vertexCount += getVertexCount(sharedGroup, countedSharedGroups);
+      }
+    } else if (node instanceof Shape3D) {
+      Enumeration<?> enumeration = ((Shape3D)node).getAllGeometries();
+      while (enumeration.hasMoreElements()) {
+        Geometry geometry = (Geometry)enumeration.nextElement();
+        if (geometry instanceof GeometryArray) {
+          vertexCount += ((GeometryArray)geometry).getVertexCount();
+        }
+      }
+    }
+    return vertexCount;
+  }
+
   /**
    * Returns the class of name <code>loaderClassName</code>.
    */
@@ -288,6 +348,33 @@ public class ModelManager {
     return instance;
   }
 
+  /**
+   * Sets the persistent cache where parsed models are stored to avoid parsing them again
+   * at next launches.
+   * @param modelCache a cache of models or <code>null</code> to parse models each time they're loaded
+   * @since 7.5
+   */
+  public void setModelCache(ModelCache modelCache) {
+    this.modelCache = modelCache;
+  }
+
+  /**
+   * Returns the persistent cache of parsed models or <code>null</code> if it doesn't exist.
+   * @since 7.5
+   */
+  public ModelCache getModelCache() {
+    return this.modelCache;
+  }
+
+  /**
+   * Returns the cache of loaded models, which maximum size is expressed in vertex count.
+   * This cache may be used to tune its maximum size and follow its hit, miss and eviction counts.
+   * @since 7.5
+   */
+  public LeastRecentlyUsedCache<Content, BranchGroup> getLoadedModelsCache() {
+    return this.loadedModelNodes;
+  }
+
   /**
    * Shutdowns the multithreaded service that load models and clears loaded models cache.
    */
@@ -919,6 +1006,16 @@ public class ModelManager {
     } else {
       urlContent = TemporaryURLContent.copyToTemporaryURLContent(content);
     }
+    ModelCache modelCache = this.modelCache;
+    if (modelCache != null) {
+      BranchGroup modelNode = modelCache.readModel(content, urlContent.getURL());
+      if (modelNode != null) {
+        // Skip parsing and apply the same updates as to a parsed model
+        updateLoadedModel(modelNode, content);
+        return modelNode;
+      }
+    }
+
     Loader []  defaultLoaders = new Loader [] {new OBJLoader(),
                                                new DAELoader(),
                                                new Max3DSLoader(),
@@ -993,12 +1090,11 @@ public class ModelManager {
 
         // Update transparency of scene window panes shapes
         updateShapeNamesAndWindowPanesTransparency(scene);
-        // Turn off lights because some loaders don't take into account the ~LOAD_LIGHT_NODES flag
-        turnOffLightsShareAndModulateTextures(modelNode, new IdentityHashMap<Texture, Texture>());
-        updateDeformableModelHierarchy(modelNode);
-        checkAppearancesName(modelNode);
-        replaceMultipleSharedShapes(modelNode);
-        modelNode.setUserData(content);
+        if (modelCache != null) {
+          // Store model before its textures are shared with other models
+          modelCache.writeModel(content, urlContent.getURL(), modelNode);
+        }
+        updateLoadedModel(modelNode, content);
         return modelNode;
       } catch (IllegalArgumentException ex) {
         lastException = ex;
@@ -1036,6 +1132,18 @@ public class ModelManager {
     }
   }
 
+  /**
+   * Updates the nodes of a model read from <code>content</code>, once its shapes are named.
+   */
+  private void updateLoadedModel(BranchGroup modelNode, Content content) {
+    // Turn off lights because some loaders don't take into account the ~LOAD_LIGHT_NODES flag
+    turnOffLightsShareAndModulateTextures(modelNode, new IdentityHashMap<Texture, Texture>());
+    updateDeformableModelHierarchy(modelNode);
+    checkAppearancesName(modelNode);
+    replaceMultipleSharedShapes(modelNode);
+    modelNode.setUserData(content);
+  }
+
   /**
    * Returns <code>true</code> if reading from the given content should be done using caches.
    */
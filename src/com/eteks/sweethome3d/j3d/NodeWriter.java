@@ -0,0 +1,44 @@
+/*
+ * NodeWriter.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import javax.media.j3d.Node;
+
+/**
+ * A writer of Java 3D nodes in a 3D file format.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public interface NodeWriter extends Closeable {
+  /**
+   * Writes all the 3D shapes children of <code>node</code>, applying the transformations
+   * found on the path from <code>node</code> to its shapes.
+   * @param node     a Java 3D node
+   * @param nodeName the name of the node or <code>null</code>
+   * @throws IOException if the operation failed
+   * @throws InterruptedIOException if the current thread was interrupted during this operation.
+   *         The interrupted status of the current thread is cleared when this exception is thrown.
+   */
+  public abstract void writeNode(Node node, String nodeName) throws IOException, InterruptedIOException;
+}
@@ -34,11 +34,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.imageio.ImageIO;
@@ -54,9 +53,6 @@ import javax.media.j3d.TexCoordGeneration;
 import javax.media.j3d.Texture;
 import javax.media.j3d.TransparencyAttributes;
 import javax.vecmath.Color3f;
-import javax.vecmath.Point3f;
-import javax.vecmath.TexCoord2f;
-import javax.vecmath.Vector3f;
 
 import com.sun.j3d.loaders.IncorrectFormatException;
 import com.sun.j3d.loaders.Loader;
@@ -996,9 +992,15 @@ public class OBJLoader extends LoaderBase implements Loader {
   }
 
   private Boolean                 useCaches;
-  private List<Point3f>           vertices;
-  private List<TexCoord2f>        textureCoordinates;
-  private List<Vector3f>          normals;
+  private float []                vertices;
+  private int                     vertexCount;
+  private float []                textureCoordinates;
+  private int                     textureCoordinateCount;
+  private float []                normals;
+  private int                     normalCount;
+  private int []                  geometryVertexIndices;
+  private int []                  geometryTextureCoordinateIndices;
+  private int []                  geometryNormalIndices;
   private Map<String, Group>      groups;
   private Group                   currentGroup;
   private String                  currentMaterial;
@@ -1082,9 +1084,6 @@ public class OBJLoader extends LoaderBase implements Loader {
    * Returns the scene described in the given OBJ file.
    */
   private Scene load(Reader reader, URL baseUrl) throws FileNotFoundException {
-    if (!(reader instanceof BufferedReader)) {
-      reader = new BufferedReader(reader);
-    }
     try {
       return parseObjectStream(reader, baseUrl);
     } catch (IOException ex) {
@@ -1103,27 +1102,26 @@ public class OBJLoader extends LoaderBase implements Loader {
    */
   private Scene parseObjectStream(Reader reader,
                                   URL baseUrl) throws IOException {
-    this.vertices = new ArrayList<Point3f>();
-    this.textureCoordinates = new ArrayList<TexCoord2f>();
-    this.normals = new ArrayList<Vector3f>();
+    // Store attributes in arrays of floats and indices in arrays of integers
+    // to avoid creating objects for each vertex and each face
+    this.vertices = new float [3 * 1024];
+    this.vertexCount = 0;
+    this.textureCoordinates = new float [2 * 1024];
+    this.textureCoordinateCount = 0;
+    this.normals = new float [3 * 1024];
+    this.normalCount = 0;
+    this.geometryVertexIndices = new int [16];
+    this.geometryTextureCoordinateIndices = new int [16];
+    this.geometryNormalIndices = new int [16];
     this.groups = new LinkedHashMap<String, Group>();
     this.currentGroup = new Group("default");
     this.groups.put("default", this.currentGroup);
     this.currentMaterial = "default";
     this.appearances = new HashMap<String, Appearance>(DEFAULT_APPEARANCES);
 
-    StreamTokenizer tokenizer = createTokenizer(reader);
-    while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) {
-      switch (tokenizer.ttype) {
-        case StreamTokenizer.TT_WORD :
-          parseObjectLine(tokenizer, baseUrl);
-          break;
-        case StreamTokenizer.TT_EOL:
-          break;
-        default :
-          throw new IncorrectFormatException("Unexpected token " + tokenizer.sval
-              + " at row " + tokenizer.lineno());
-      }
+    OBJScanner scanner = new OBJScanner(reader);
+    while (scanner.nextKeyword()) {
+      parseObjectLine(scanner, baseUrl);
     }
 
     try {
@@ -1132,6 +1130,9 @@ public class OBJLoader extends LoaderBase implements Loader {
       this.vertices = null;
       this.textureCoordinates = null;
       this.normals = null;
+      this.geometryVertexIndices = null;
+      this.geometryTextureCoordinateIndices = null;
+      this.geometryNormalIndices = null;
       this.groups = null;
       this.appearances = null;
     }
@@ -1141,137 +1142,157 @@ public class OBJLoader extends LoaderBase implements Loader {
    * Returns a new scene created from the parsed objects.
    */
   private SceneBase createScene() {
-    Point3f [] vertices = this.vertices.toArray(new Point3f [this.vertices.size()]);
-    TexCoord2f [] textureCoordinates =
-        this.textureCoordinates.toArray(new TexCoord2f [this.textureCoordinates.size()]);
-    Vector3f [] normals = this.normals.toArray(new Vector3f [this.normals.size()]);
-
     SceneBase scene = new SceneBase();
     BranchGroup sceneRoot = new BranchGroup();
     scene.setSceneGroup(sceneRoot);
     for (Group group : this.groups.values()) {
-      List<Geometry> geometries = group.getGeometries();
-      if (geometries != null
-          && !geometries.isEmpty()) {
-        int i = 0;
-        while (i < geometries.size()) {
-          Geometry firstGeometry = geometries.get(i);
-          boolean firstGeometryHasTextureCoordinateIndices = firstGeometry.hasTextureCoordinateIndices();
-          boolean firstFaceHasNormalIndices = (firstGeometry instanceof Face) && ((Face)firstGeometry).hasNormalIndices();
-          boolean firstFaceIsSmooth = (firstGeometry instanceof Face) && ((Face)firstGeometry).isSmooth();
-
-          String firstGeometryMaterial = firstGeometry.getMaterial();
-          Appearance appearance = getAppearance(firstGeometryMaterial);
-
-          // Search how many geometries share the same characteristics
-          int max = i;
-          while (++max < geometries.size()) {
-            Geometry geometry = geometries.get(max);
-            String material = geometry.getMaterial();
-            if (geometry.getClass() != firstGeometry.getClass()
-                || material == null && firstGeometryMaterial != null
-                || material != null && getAppearance(material) != appearance
-                || (firstFaceIsSmooth ^ ((geometry instanceof Face) && ((Face)geometry).isSmooth()))
-                || (firstGeometryHasTextureCoordinateIndices ^ geometry.hasTextureCoordinateIndices())
-                || (firstFaceHasNormalIndices ^ ((geometry instanceof Face) && ((Face)geometry).hasNormalIndices()))) {
-              break;
-            }
+      int geometryCount = group.getGeometryCount();
+      int i = 0;
+      while (i < geometryCount) {
+        int firstGeometryFlags = group.getGeometryFlags(i);
+        boolean firstGeometryIsFace = (firstGeometryFlags & Group.FACE) != 0;
+        boolean firstGeometryHasTextureCoordinateIndices = (firstGeometryFlags & Group.TEXTURE_COORDINATE_INDICES) != 0;
+        boolean firstFaceHasNormalIndices = (firstGeometryFlags & Group.NORMAL_INDICES) != 0;
+        boolean firstFaceIsSmooth = (firstGeometryFlags & Group.SMOOTH) != 0;
+
+        String firstGeometryMaterial = group.getGeometryMaterial(i);
+        Appearance appearance = getAppearance(firstGeometryMaterial);
+
+        // Search how many geometries share the same characteristics
+        int max = i;
+        while (++max < geometryCount) {
+          String material = group.getGeometryMaterial(max);
+          if (group.getGeometryFlags(max) != firstGeometryFlags
+              || material == null && firstGeometryMaterial != null
+              || material != null && getAppearance(material) != appearance) {
+            break;
           }
+        }
 
-          // Create indices arrays for the geometries with an index between i and max
-          int geometryCount = max - i;
-          int indexCount = 0;
-          for (int j = 0; j < geometryCount; j++) {
-            indexCount += geometries.get(i + j).getVertexIndices().length;
-          }
+        // As geometries are stored one after the other, the indices of the geometries
+        // with an index between i and max are contiguous
+        int indexStart = group.getGeometryIndexStart(i);
+        int indexCount = group.getGeometryIndexStart(max) - indexStart;
+        int [] stripCounts = new int [max - i];
+        for (int j = 0; j < stripCounts.length; j++) {
+          stripCounts [j] = group.getGeometryIndexStart(i + j + 1) - group.getGeometryIndexStart(i + j);
+        }
+
+        GeometryArray geometryArray;
+        if (firstGeometryIsFace) {
+          GeometryInfo geometryInfo = new GeometryInfo(GeometryInfo.POLYGON_ARRAY);
           int [] coordinatesIndices = new int [indexCount];
-          int [] stripCounts = new int [geometryCount];
-          for (int j = 0, destIndex = 0; j < geometryCount; j++) {
-            int [] geometryVertexIndices = geometries.get(i + j).getVertexIndices();
-            System.arraycopy(geometryVertexIndices, 0, coordinatesIndices, destIndex, geometryVertexIndices.length);
-            stripCounts [j] = geometryVertexIndices.length;
-            destIndex += geometryVertexIndices.length;
-          }
+          geometryInfo.setCoordinates(getUsedAttributes(this.vertices, this.vertexCount, 3,
+              group.getVertexIndices(), indexStart, coordinatesIndices));
+          geometryInfo.setCoordinateIndices(coordinatesIndices);
+          geometryInfo.setStripCounts(stripCounts);
 
-          int [] textureCoordinateIndices = null;
           if (firstGeometryHasTextureCoordinateIndices) {
-            textureCoordinateIndices = new int [indexCount];
-            for (int j = 0, destIndex = 0; j < geometryCount; j++) {
-              int [] geometryTextureCoordinateIndices = geometries.get(i + j).getTextureCoordinateIndices();
-              System.arraycopy(geometryTextureCoordinateIndices, 0, textureCoordinateIndices, destIndex, geometryTextureCoordinateIndices.length);
-              destIndex += geometryTextureCoordinateIndices.length;
-            }
+            int [] textureCoordinateIndices = new int [indexCount];
+            geometryInfo.setTextureCoordinateParams(1, 2);
+            geometryInfo.setTextureCoordinates(0, getUsedAttributes(this.textureCoordinates, this.textureCoordinateCount, 2,
+                group.getTextureCoordinateIndices(), indexStart, textureCoordinateIndices));
+            geometryInfo.setTextureCoordinateIndices(0, textureCoordinateIndices);
           }
 
-          GeometryArray geometryArray;
-          if (firstGeometry instanceof Face) {
-            GeometryInfo geometryInfo = new GeometryInfo(GeometryInfo.POLYGON_ARRAY);
-            geometryInfo.setCoordinates(vertices);
-            geometryInfo.setCoordinateIndices(coordinatesIndices);
-            geometryInfo.setStripCounts(stripCounts);
-
-            if (firstGeometryHasTextureCoordinateIndices) {
-              geometryInfo.setTextureCoordinateParams(1, 2);
-              geometryInfo.setTextureCoordinates(0, textureCoordinates);
-              geometryInfo.setTextureCoordinateIndices(0, textureCoordinateIndices);
-            }
-
-            if (firstFaceHasNormalIndices) {
-              int [] normalIndices = new int [indexCount];
-              for (int j = 0, destIndex = 0; j < geometryCount; j++) {
-                int [] faceNormalIndices = ((Face)geometries.get(i + j)).getNormalIndices();
-                System.arraycopy(faceNormalIndices, 0, normalIndices, destIndex, faceNormalIndices.length);
-                destIndex += faceNormalIndices.length;
-              }
-              geometryInfo.setNormals(normals);
-              geometryInfo.setNormalIndices(normalIndices);
-            } else {
-              NormalGenerator normalGenerator = new NormalGenerator(Math.PI / 2);
-              if (!firstFaceIsSmooth) {
-                normalGenerator.setCreaseAngle(0);
-              }
-              normalGenerator.generateNormals(geometryInfo);
-            }
-            geometryArray = geometryInfo.getGeometryArray(true, true, false);
-          } else { // Line
-            int format = IndexedGeometryArray.COORDINATES;
-            if (firstGeometryHasTextureCoordinateIndices) {
-              format |= IndexedGeometryArray.TEXTURE_COORDINATE_2;
-            }
-
-            // Use non indexed line array to avoid referencing the whole vertices
-            geometryArray = new LineStripArray(coordinatesIndices.length, format, stripCounts);
-            for (int j = 0; j < coordinatesIndices.length; j++) {
-              geometryArray.setCoordinate(j, vertices [coordinatesIndices [j]]);
-            }
-            if (firstGeometryHasTextureCoordinateIndices) {
-              for (int j = 0; j < coordinatesIndices.length; j++) {
-                geometryArray.setTextureCoordinate(0, j, textureCoordinates [textureCoordinateIndices [j]]);
-              }
+          if (firstFaceHasNormalIndices) {
+            int [] normalIndices = new int [indexCount];
+            geometryInfo.setNormals(getUsedAttributes(this.normals, this.normalCount, 3,
+                group.getNormalIndices(), indexStart, normalIndices));
+            geometryInfo.setNormalIndices(normalIndices);
+          } else {
+            NormalGenerator normalGenerator = new NormalGenerator(Math.PI / 2);
+            if (!firstFaceIsSmooth) {
+              normalGenerator.setCreaseAngle(0);
             }
+            normalGenerator.generateNormals(geometryInfo);
+          }
+          geometryArray = geometryInfo.getGeometryArray(true, true, false);
+        } else { // Line
+          int format = IndexedGeometryArray.COORDINATES;
+          if (firstGeometryHasTextureCoordinateIndices) {
+            format |= IndexedGeometryArray.TEXTURE_COORDINATE_2;
           }
 
-          // Clone appearance to avoid sharing it
-          if (appearance != null) {
-            appearance = (Appearance)appearance.cloneNodeComponent(false);
-            // Create texture coordinates if geometry doesn't define its own coordinates
-            // and appearance contains a texture
-            if (!firstGeometryHasTextureCoordinateIndices
-                && appearance.getTexture() != null) {
-              appearance.setTexCoordGeneration(new TexCoordGeneration());
-            }
+          // Use non indexed line array to avoid referencing the whole vertices
+          geometryArray = new LineStripArray(indexCount, format, stripCounts);
+          geometryArray.setCoordinates(0, getIndexedAttributes(this.vertices, this.vertexCount, 3,
+              group.getVertexIndices(), indexStart, indexCount));
+          if (firstGeometryHasTextureCoordinateIndices) {
+            geometryArray.setTextureCoordinates(0, 0, getIndexedAttributes(this.textureCoordinates, this.textureCoordinateCount, 2,
+                group.getTextureCoordinateIndices(), indexStart, indexCount));
           }
-          Shape3D shape = new Shape3D(geometryArray, appearance);
-          sceneRoot.addChild(shape);
-          scene.addNamedObject(group.getName() + (i == 0 ? "" : "_" + String.valueOf(i)), shape);
+        }
 
-          i = max;
+        // Clone appearance to avoid sharing it
+        if (appearance != null) {
+          appearance = (Appearance)appearance.cloneNodeComponent(false);
+          // Create texture coordinates if geometry doesn't define its own coordinates
+          // and appearance contains a texture
+          if (!firstGeometryHasTextureCoordinateIndices
+              && appearance.getTexture() != null) {
+            appearance.setTexCoordGeneration(new TexCoordGeneration());
+          }
         }
+        Shape3D shape = new Shape3D(geometryArray, appearance);
+        sceneRoot.addChild(shape);
+        scene.addNamedObject(group.getName() + (i == 0 ? "" : "_" + String.valueOf(i)), shape);
+
+        i = max;
       }
     }
     return scene;
   }
 
+  /**
+   * Returns the attributes of <code>size</code> floats referenced by the <code>indices</code>
+   * stored from <code>indexStart</code>, and fills <code>usedIndices</code> with their index
+   * in the returned array. The attributes are kept in the same order to get the same geometry
+   * as the one computed with all the attributes.
+   */
+  private static float [] getUsedAttributes(float [] attributes, int attributeCount, int size,
+                                            int [] indices, int indexStart, int [] usedIndices) {
+    int [] sortedIndices = new int [usedIndices.length];
+    System.arraycopy(indices, indexStart, sortedIndices, 0, sortedIndices.length);
+    Arrays.sort(sortedIndices);
+    int usedAttributeCount = 0;
+    for (int i = 0; i < sortedIndices.length; i++) {
+      if (i == 0 || sortedIndices [i] != sortedIndices [i - 1]) {
+        sortedIndices [usedAttributeCount++] = sortedIndices [i];
+      }
+    }
+    if (usedAttributeCount > 0
+        && (sortedIndices [0] < 0 || sortedIndices [usedAttributeCount - 1] >= attributeCount)) {
+      throw new IncorrectFormatException("Index out of range");
+    }
+
+    float [] usedAttributes = new float [usedAttributeCount * size];
+    for (int i = 0; i < usedAttributeCount; i++) {
+      System.arraycopy(attributes, sortedIndices [i] * size, usedAttributes, i * size, size);
+    }
+    for (int i = 0; i < usedIndices.length; i++) {
+      usedIndices [i] = Arrays.binarySearch(sortedIndices, 0, usedAttributeCount, indices [indexStart + i]);
+    }
+    return usedAttributes;
+  }
+
+  /**
+   * Returns the attributes of <code>size</code> floats referenced by the <code>indexCount</code>
+   * indices stored from <code>indexStart</code>, in the order of the indices.
+   */
+  private static float [] getIndexedAttributes(float [] attributes, int attributeCount, int size,
+                                               int [] indices, int indexStart, int indexCount) {
+    float [] indexedAttributes = new float [indexCount * size];
+    for (int i = 0; i < indexCount; i++) {
+      int index = indices [indexStart + i];
+      if (index < 0 || index >= attributeCount) {
+        throw new IncorrectFormatException("Index out of range");
+      }
+      System.arraycopy(attributes, index * size, indexedAttributes, i * size, size);
+    }
+    return indexedAttributes;
+  }
+
   /**
    * Returns the appearance matching a given <code>material</code>.
    */
@@ -1287,206 +1308,171 @@ public class OBJLoader extends LoaderBase implements Loader {
   }
 
   /**
-   * Parses the line starting with a word.
+   * Parses the line starting with the keyword read by <code>scanner</code>.
    */
-  private void parseObjectLine(StreamTokenizer tokenizer,
+  private void parseObjectLine(OBJScanner scanner,
                                URL baseUrl) throws IOException {
-    if ("v".equals(tokenizer.sval)) {
+    if (scanner.isKeyword("v")) {
       // Read vertex v x y z
-      float x = parseNumber(tokenizer);
-      skipBackSlash(tokenizer);
-      float y = parseNumber(tokenizer);
-      skipBackSlash(tokenizer);
-      float z = parseNumber(tokenizer);
-      this.vertices.add(new Point3f(x, y, z));
+      this.vertices = ensureCapacity(this.vertices, 3 * (this.vertexCount + 1));
+      int offset = 3 * this.vertexCount;
+      this.vertices [offset] = scanner.nextNumber();
+      this.vertices [offset + 1] = scanner.nextNumber();
+      this.vertices [offset + 2] = scanner.nextNumber();
+      this.vertexCount++;
       // Skip next number if it exists
-      if (tokenizer.nextToken() == StreamTokenizer.TT_EOL) {
-        tokenizer.pushBack();
+      if (!scanner.isEndOfLine(false)) {
+        scanner.skipToken();
       }
-    } else if ("vn".equals(tokenizer.sval)) {
+    } else if (scanner.isKeyword("vn")) {
       // Read normal vn x y z
-      float x = parseNumber(tokenizer);
-      skipBackSlash(tokenizer);
-      float y = parseNumber(tokenizer);
-      skipBackSlash(tokenizer);
-      float z = parseNumber(tokenizer);
-      this.normals.add(new Vector3f(x, y, z));
-    } else if ("vt".equals(tokenizer.sval)) {
+      this.normals = ensureCapacity(this.normals, 3 * (this.normalCount + 1));
+      int offset = 3 * this.normalCount;
+      this.normals [offset] = scanner.nextNumber();
+      this.normals [offset + 1] = scanner.nextNumber();
+      this.normals [offset + 2] = scanner.nextNumber();
+      this.normalCount++;
+    } else if (scanner.isKeyword("vt")) {
       // Read texture coordinate vt x y
       //                       or vt x y z
-      float x = parseNumber(tokenizer);
-      skipBackSlash(tokenizer);
-      float y = parseNumber(tokenizer);
-      this.textureCoordinates.add(new TexCoord2f(x, y));
+      this.textureCoordinates = ensureCapacity(this.textureCoordinates, 2 * (this.textureCoordinateCount + 1));
+      int offset = 2 * this.textureCoordinateCount;
+      this.textureCoordinates [offset] = scanner.nextNumber();
+      this.textureCoordinates [offset + 1] = scanner.nextNumber();
+      this.textureCoordinateCount++;
       // Skip next number if it exists
-      if (tokenizer.nextToken() == StreamTokenizer.TT_EOL) {
-        tokenizer.pushBack();
+      if (!scanner.isEndOfLine(false)) {
+        scanner.skipToken();
       }
-    } else if ("l".equals(tokenizer.sval)) {
-      tokenizer.ordinaryChar('/');
+    } else if (scanner.isKeyword("l")) {
       // Read line l v       v       v       ...
       //        or l v/vt    v/vt    v/vt    ...
-      List<Integer> vertexIndices = new ArrayList<Integer>(2);
-      List<Integer> textureCoordinateIndices = new ArrayList<Integer>(2);
-      boolean first = true;
-      while (true) {
-        if (first) {
-          first = false;
-        } else {
-          skipBackSlash(tokenizer);
-        }
-        if (tokenizer.nextToken() == StreamTokenizer.TT_EOL) {
-          break;
-        } else {
-          tokenizer.pushBack();
-        }
+      int vertexIndexCount = 0;
+      int textureCoordinateIndexCount = 0;
+      while (!scanner.isEndOfLine(true)) {
+        ensureGeometryIndicesCapacity(vertexIndexCount + 1);
         // Read vertex index
-        int vertexIndex = parseInteger(tokenizer) - 1;
+        int vertexIndex = scanner.nextInteger() - 1;
         if (vertexIndex < 0) {
-          vertexIndex += this.vertices.size() + 1;
+          vertexIndex += this.vertexCount + 1;
         }
-        vertexIndices.add(vertexIndex);
+        this.geometryVertexIndices [vertexIndexCount++] = vertexIndex;
 
-        if (tokenizer.nextToken() != '/') {
-          // l v
-          tokenizer.pushBack();
-        } else {
+        if (scanner.skipSlash()) {
           // l v/vt : read texture coordinate index
-          int textureCoordinateIndex = parseInteger(tokenizer) - 1;
+          int textureCoordinateIndex = scanner.nextInteger() - 1;
           if (textureCoordinateIndex < 0) {
-            textureCoordinateIndex += this.textureCoordinates.size() + 1;
+            textureCoordinateIndex += this.textureCoordinateCount + 1;
           }
-          textureCoordinateIndices.add(textureCoordinateIndex);
+          this.geometryTextureCoordinateIndices [textureCoordinateIndexCount++] = textureCoordinateIndex;
         }
       }
-      tokenizer.pushBack();
-      tokenizer.wordChars('/', '/');
-      if (textureCoordinateIndices.size() != 0
-          && textureCoordinateIndices.size() != vertexIndices.size()) {
+      if (vertexIndexCount > 1) {
+        int flags = 0;
         // Ignore unconsistent texture coordinate
-        textureCoordinateIndices.clear();
-      }
-      if (vertexIndices.size() > 1) {
-        this.currentGroup.addGeometry(new Line(vertexIndices, textureCoordinateIndices,
-            this.currentMaterial));
+        if (textureCoordinateIndexCount != 0
+            && textureCoordinateIndexCount == vertexIndexCount) {
+          flags |= Group.TEXTURE_COORDINATE_INDICES;
+        }
+        this.currentGroup.addGeometry(flags, this.currentMaterial, this.geometryVertexIndices,
+            this.geometryTextureCoordinateIndices, this.geometryNormalIndices, vertexIndexCount);
       }
-    } else if ("f".equals(tokenizer.sval)) {
-      tokenizer.ordinaryChar('/');
+    } else if (scanner.isKeyword("f")) {
       // Read face f v       v       v       ...
       //        or f v//vn   v//vn   v//vn   ...
       //        or f v/vt    v/vt    v/vt    ...
       //        or f v/vt/vn v/vt/vn v/vt/vn ...
-      List<Integer> vertexIndices = new ArrayList<Integer>(4);
-      List<Integer> textureCoordinateIndices = new ArrayList<Integer>(4);
-      List<Integer> normalIndices = new ArrayList<Integer>(4);
-      boolean first = true;
-      while (true) {
-        if (first) {
-          first = false;
-        } else {
-          skipBackSlash(tokenizer);
-        }
-        if (tokenizer.nextToken() == StreamTokenizer.TT_EOL) {
-          break;
-        } else {
-          tokenizer.pushBack();
-        }
+      int vertexIndexCount = 0;
+      int textureCoordinateIndexCount = 0;
+      int normalIndexCount = 0;
+      while (!scanner.isEndOfLine(true)) {
+        ensureGeometryIndicesCapacity(vertexIndexCount + 1);
         // Read vertex index
-        int vertexIndex = parseInteger(tokenizer) - 1;
+        int vertexIndex = scanner.nextInteger() - 1;
         if (vertexIndex < 0) {
-          vertexIndex += this.vertices.size() + 1;
+          vertexIndex += this.vertexCount + 1;
         }
-        vertexIndices.add(vertexIndex);
+        this.geometryVertexIndices [vertexIndexCount++] = vertexIndex;
 
-        if (tokenizer.nextToken() != '/') {
-          // f v
-          tokenizer.pushBack();
-        } else {
-          if (tokenizer.nextToken() != '/') {
+        if (scanner.skipSlash()) {
+          boolean normalIndexFollows = scanner.skipSlash();
+          if (!normalIndexFollows) {
             // f v/vt : read texture coordinate index
-            tokenizer.pushBack();
-            int textureCoordinateIndex = parseInteger(tokenizer) - 1;
+            int textureCoordinateIndex = scanner.nextInteger() - 1;
             if (textureCoordinateIndex < 0) {
-              textureCoordinateIndex += this.textureCoordinates.size() + 1;
+              textureCoordinateIndex += this.textureCoordinateCount + 1;
             }
-            textureCoordinateIndices.add(textureCoordinateIndex);
-            tokenizer.nextToken();
+            this.geometryTextureCoordinateIndices [textureCoordinateIndexCount++] = textureCoordinateIndex;
+            normalIndexFollows = scanner.skipSlash();
           }
-          if (tokenizer.ttype == '/') {
+          if (normalIndexFollows) {
             //    f v//vn
             // or f v/vt/vn : read normal index
-            int normalIndex = parseInteger(tokenizer) - 1;
+            int normalIndex = scanner.nextInteger() - 1;
             if (normalIndex < 0) {
-              normalIndex += this.normals.size() + 1;
+              normalIndex += this.normalCount + 1;
             }
-            normalIndices.add(normalIndex);
-          } else {
-            tokenizer.pushBack();
+            this.geometryNormalIndices [normalIndexCount++] = normalIndex;
           }
         }
       }
-      tokenizer.pushBack();
-      tokenizer.wordChars('/', '/');
-      if (textureCoordinateIndices.size() != 0
-          && textureCoordinateIndices.size() != vertexIndices.size()) {
-        // Ignore unconsistent texture coordinate
-        textureCoordinateIndices.clear();
-      }
-      if (normalIndices.size() != 0
-          && normalIndices.size() != vertexIndices.size()) {
-        // Ignore unconsistent normals
-        normalIndices.clear();
-      }
-      if (vertexIndices.size() > 2) {
-        this.currentGroup.addGeometry(new Face(vertexIndices, textureCoordinateIndices, normalIndices,
-            this.currentSmooth, this.currentMaterial));
+      if (vertexIndexCount > 2) {
+        int flags = Group.FACE;
+        if (this.currentSmooth) {
+          flags |= Group.SMOOTH;
+        }
+        // Ignore unconsistent texture coordinate and normals
+        if (textureCoordinateIndexCount != 0
+            && textureCoordinateIndexCount == vertexIndexCount) {
+          flags |= Group.TEXTURE_COORDINATE_INDICES;
+        }
+        if (normalIndexCount != 0
+            && normalIndexCount == vertexIndexCount) {
+          flags |= Group.NORMAL_INDICES;
+        }
+        this.currentGroup.addGeometry(flags, this.currentMaterial, this.geometryVertexIndices,
+            this.geometryTextureCoordinateIndices, this.geometryNormalIndices, vertexIndexCount);
       }
-    } else if ("g".equals(tokenizer.sval)
-               || "o".equals(tokenizer.sval)) {
+    } else if (scanner.isKeyword("g")
+               || scanner.isKeyword("o")) {
       // Read group name g name
       //  or object name o name
-      if (tokenizer.nextToken() == StreamTokenizer.TT_WORD) {
-        this.currentGroup = this.groups.get(tokenizer.sval);
+      String name = scanner.nextWord();
+      if (name != null) {
+        this.currentGroup = this.groups.get(name);
         if (this.currentGroup == null) {
-          this.currentGroup = new Group(tokenizer.sval);
+          this.currentGroup = new Group(name);
           this.groups.put(this.currentGroup.getName(), this.currentGroup);
         }
-      } else if (tokenizer.ttype == StreamTokenizer.TT_EOL) {
+      } else {
         // Use default group
         this.currentGroup = this.groups.get("default");
-        tokenizer.pushBack();
-      } else {
-        throw new IncorrectFormatException("Expected group or object name at line " + tokenizer.lineno());
       }
       // Skip other names
-      while (tokenizer.nextToken() == StreamTokenizer.TT_WORD) {
+      while (!scanner.isEndOfLine(false)) {
+        scanner.skipToken();
       }
-      tokenizer.pushBack();
-    } else if ("s".equals(tokenizer.sval)) {
+    } else if (scanner.isKeyword("s")) {
       // Read smoothing group s n
       //                   or s off
-      if (tokenizer.nextToken() == StreamTokenizer.TT_WORD) {
-        this.currentSmooth = !"off".equals(tokenizer.sval);
+      String smoothingGroup = scanner.nextWord();
+      if (smoothingGroup != null) {
+        this.currentSmooth = !"off".equals(smoothingGroup);
       } else {
-        throw new IncorrectFormatException("Expected smoothing group or off at line " + tokenizer.lineno());
+        throw new IncorrectFormatException("Expected smoothing group or off at line " + scanner.getLineNumber());
       }
-    } else if ("usemtl".equals(tokenizer.sval)) {
+    } else if (scanner.isKeyword("usemtl")) {
       // Read the material name usemtl name (tolerating space in the name)
-      tokenizer.wordChars(' ', ' ');
-      int usemtlToken = tokenizer.nextToken();
-      tokenizer.whitespaceChars(' ', ' ');
-      if (usemtlToken == StreamTokenizer.TT_WORD) {
-        this.currentMaterial = tokenizer.sval.trim();
+      String material = scanner.nextLine();
+      if (material.length() > 0) {
+        this.currentMaterial = material;
       } else {
-        throw new IncorrectFormatException("Expected material name at line " + tokenizer.lineno());
+        throw new IncorrectFormatException("Expected material name at line " + scanner.getLineNumber());
       }
-    } else if ("mtllib".equals(tokenizer.sval)) {
+    } else if (scanner.isKeyword("mtllib")) {
       // Read characters following mtllib in case they contain a file name with spaces
-      tokenizer.wordChars(' ', ' ');
-      int mtllibToken = tokenizer.nextToken();
-      tokenizer.whitespaceChars(' ', ' ');
-      if (mtllibToken == StreamTokenizer.TT_WORD) {
-        String mtllibString = tokenizer.sval.trim();
+      String mtllibString = scanner.nextLine();
+      if (mtllibString.length() > 0) {
         // First try to parse space separated library files
         int validLibCount = 0;
         String [] libs = mtllibString.split(" ");
@@ -1500,20 +1486,49 @@ public class OBJLoader extends LoaderBase implements Loader {
           parseMaterial(mtllibString, baseUrl);
         }
       } else {
-        throw new IncorrectFormatException("Expected material library at line " + tokenizer.lineno());
+        throw new IncorrectFormatException("Expected material library at line " + scanner.getLineNumber());
       }
     } else {
       // Skip other lines (including comment lines starting by #)
-      int token;
-      do {
-        token = tokenizer.nextToken();
-      } while (token != StreamTokenizer.TT_EOL && token != StreamTokenizer.TT_EOF);
-      tokenizer.pushBack();
+      scanner.skipLine();
     }
 
-    int token = tokenizer.nextToken();
-    if (token != StreamTokenizer.TT_EOL && token != StreamTokenizer.TT_EOF) {
-      throw new IncorrectFormatException("Expected end of line at line " + tokenizer.lineno());
+    scanner.skipEndOfLine();
+  }
+
+  /**
+   * Ensures the arrays used to store the indices of the parsed geometry can contain
+   * <code>indexCount</code> indices.
+   */
+  private void ensureGeometryIndicesCapacity(int indexCount) {
+    this.geometryVertexIndices = ensureCapacity(this.geometryVertexIndices, indexCount);
+    this.geometryTextureCoordinateIndices = ensureCapacity(this.geometryTextureCoordinateIndices, indexCount);
+    this.geometryNormalIndices = ensureCapacity(this.geometryNormalIndices, indexCount);
+  }
+
+  /**
+   * Returns <code>array</code> or a copy of it able to contain <code>length</code> floats.
+   */
+  private static float [] ensureCapacity(float [] array, int length) {
+    if (length > array.length) {
+      float [] newArray = new float [Math.max(length, array.length * 2)];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      return newArray;
+    } else {
+      return array;
+    }
+  }
+
+  /**
+   * Returns <code>array</code> or a copy of it able to contain <code>length</code> integers.
+   */
+  private static int [] ensureCapacity(int [] array, int length) {
+    if (length > array.length) {
+      int [] newArray = new int [Math.max(length, array.length * 2)];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      return newArray;
+    } else {
+      return array;
     }
   }
 
@@ -1569,21 +1584,6 @@ public class OBJLoader extends LoaderBase implements Loader {
     }
   }
 
-  /**
-   * Skips the back slash in the next token if it's followed by a new line.
-   */
-  private static void skipBackSlash(StreamTokenizer tokenizer) throws IOException {
-    tokenizer.ordinaryChar('\\');
-    if (tokenizer.nextToken() == '\\') {
-      if (tokenizer.nextToken() != StreamTokenizer.TT_EOL) {
-        throw new IncorrectFormatException("Expected new line after \\ character");
-      }
-    } else {
-      tokenizer.pushBack();
-    }
-    tokenizer.wordChars('\\', '\\');
-  }
-
   /**
    * Parses appearances from the given material file and returns <code>true</code> if the file exists.
    */
@@ -1868,27 +1868,88 @@ public class OBJLoader extends LoaderBase implements Loader {
   }
 
   /**
-   * The coordinates indices of a geometry.
+   * A named group of geometries. The indices of all the geometries are stored
+   * one after the other in arrays of integers.
    */
-  private static abstract class Geometry {
-    private int [] vertexIndices;
-    private int [] textureCoordinateIndices;
-    private String material;
-
-    public Geometry(List<Integer> vertexIndices,
-                    List<Integer> textureCoordinateIndices,
-                    String        material) {
-      this.vertexIndices = new int [vertexIndices.size()];
-      for (int i = 0; i < this.vertexIndices.length; i++) {
-        this.vertexIndices [i] = vertexIndices.get(i);
+  private static class Group {
+    public static final int FACE                       = 0x01;
+    public static final int SMOOTH                     = 0x02;
+    public static final int TEXTURE_COORDINATE_INDICES = 0x04;
+    public static final int NORMAL_INDICES             = 0x08;
+
+    private final String name;
+    private int          geometryCount;
+    private int []       geometryFlags;
+    private String []    geometryMaterials;
+    private int []       geometryIndexStarts;
+    private int []       vertexIndices;
+    private int []       textureCoordinateIndices;
+    private int []       normalIndices;
+
+    public Group(String name) {
+      this.name = name;
+      this.geometryFlags = new int [16];
+      this.geometryMaterials = new String [16];
+      this.geometryIndexStarts = new int [17];
+      this.vertexIndices = new int [64];
+      this.textureCoordinateIndices = new int [64];
+      this.normalIndices = new int [64];
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Adds a geometry which <code>indexCount</code> indices are stored in the given arrays.
+     * @param flags a combination of {@link #FACE}, {@link #SMOOTH}, {@link #TEXTURE_COORDINATE_INDICES}
+     *              and {@link #NORMAL_INDICES} flags
+     */
+    public void addGeometry(int flags, String material,
+                            int [] vertexIndices, int [] textureCoordinateIndices, int [] normalIndices,
+                            int indexCount) {
+      if (this.geometryCount == this.geometryFlags.length) {
+        this.geometryFlags = ensureCapacity(this.geometryFlags, this.geometryCount + 1);
+        String [] geometryMaterials = new String [this.geometryFlags.length];
+        System.arraycopy(this.geometryMaterials, 0, geometryMaterials, 0, this.geometryCount);
+        this.geometryMaterials = geometryMaterials;
+        this.geometryIndexStarts = ensureCapacity(this.geometryIndexStarts, this.geometryFlags.length + 1);
       }
-      if (textureCoordinateIndices.size() != 0) {
-        this.textureCoordinateIndices = new int [textureCoordinateIndices.size()];
-        for (int i = 0; i < this.textureCoordinateIndices.length; i++) {
-          this.textureCoordinateIndices [i] = textureCoordinateIndices.get(i);
-        }
+      int indexStart = this.geometryIndexStarts [this.geometryCount];
+      int indexEnd = indexStart + indexCount;
+      this.vertexIndices = ensureCapacity(this.vertexIndices, indexEnd);
+      System.arraycopy(vertexIndices, 0, this.vertexIndices, indexStart, indexCount);
+      this.textureCoordinateIndices = ensureCapacity(this.textureCoordinateIndices, indexEnd);
+      if ((flags & TEXTURE_COORDINATE_INDICES) != 0) {
+        System.arraycopy(textureCoordinateIndices, 0, this.textureCoordinateIndices, indexStart, indexCount);
       }
-      this.material = material;
+      this.normalIndices = ensureCapacity(this.normalIndices, indexEnd);
+      if ((flags & NORMAL_INDICES) != 0) {
+        System.arraycopy(normalIndices, 0, this.normalIndices, indexStart, indexCount);
+      }
+      this.geometryFlags [this.geometryCount] = flags;
+      this.geometryMaterials [this.geometryCount] = material;
+      this.geometryIndexStarts [++this.geometryCount] = indexEnd;
+    }
+
+    public int getGeometryCount() {
+      return this.geometryCount;
+    }
+
+    public int getGeometryFlags(int geometry) {
+      return this.geometryFlags [geometry];
+    }
+
+    public String getGeometryMaterial(int geometry) {
+      return this.geometryMaterials [geometry];
+    }
+
+    /**
+     * Returns the index of the first vertex index of the given <code>geometry</code>
+     * or the count of stored indices if <code>geometry</code> is equal to the count of geometries.
+     */
+    public int getGeometryIndexStart(int geometry) {
+      return this.geometryIndexStarts [geometry];
     }
 
     public int [] getVertexIndices() {
@@ -1899,85 +1960,349 @@ public class OBJLoader extends LoaderBase implements Loader {
       return this.textureCoordinateIndices;
     }
 
-    public boolean hasTextureCoordinateIndices() {
-      return this.textureCoordinateIndices != null
-          && this.textureCoordinateIndices.length > 0;
-    }
-
-    public String getMaterial() {
-      return this.material;
+    public int [] getNormalIndices() {
+      return this.normalIndices;
     }
   }
 
   /**
-   * The coordinates indices of a line.
+   * A scanner of OBJ streams reading their characters in a buffer and
+   * parsing numbers without creating intermediate strings.
    */
-  private static class Line extends Geometry {
-    public Line(List<Integer> vertexIndices,
-                List<Integer> textureCoordinateIndices,
-                String        material) {
-      super(vertexIndices, textureCoordinateIndices, material);
+  private static class OBJScanner {
+    private static final double [] POWERS_OF_TEN = {1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10,
+        1E11, 1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22};
+
+    private final Reader reader;
+    private final char [] buffer;
+    private int           position;
+    private int           limit;
+    private char []       token;
+    private int           tokenLength;
+    private int           lineNumber;
+
+    public OBJScanner(Reader reader) {
+      this.reader = reader;
+      this.buffer = new char [65536];
+      this.token = new char [64];
+      this.lineNumber = 1;
     }
-  }
 
-  /**
-   * The coordinates indices of a face.
-   */
-  private static class Face extends Geometry {
-    private int []  normalIndices;
-    private boolean smooth;
-
-    public Face(List<Integer> vertexIndices,
-                List<Integer> textureCoordinateIndices,
-                List<Integer> normalIndices,
-                boolean       smooth,
-                String        material) {
-      super(vertexIndices, textureCoordinateIndices, material);
-      this.smooth = smooth;
-      if (normalIndices.size() != 0) {
-        this.normalIndices = new int [normalIndices.size()];
-        for (int i = 0; i < this.normalIndices.length; i++) {
-          this.normalIndices [i] = normalIndices.get(i);
+    /**
+     * Returns the next character without consuming it, or -1 at the end of the stream.
+     */
+    private int peek() throws IOException {
+      if (this.position < this.limit) {
+        return this.buffer [this.position];
+      } else {
+        int count = this.reader.read(this.buffer, 0, this.buffer.length);
+        if (count <= 0) {
+          return -1;
+        } else {
+          this.position = 0;
+          this.limit = count;
+          return this.buffer [0];
         }
       }
     }
 
-    public boolean isSmooth() {
-      return this.smooth;
+    private static boolean isEndOfLine(int c) {
+      return c == '\n' || c == '\r' || c == -1;
     }
 
-    public int [] getNormalIndices() {
-      return this.normalIndices;
+    private static boolean isWhitespace(int c) {
+      return c == ' ' || c == '\t';
     }
 
-    public boolean hasNormalIndices() {
-      return this.normalIndices != null
-          && this.normalIndices.length > 0;
+    /**
+     * Skips the spaces and tabulations at the current position, and the back slashes
+     * followed by a new line if <code>lineContinuation</code> is <code>true</code>.
+     */
+    private void skipWhitespaces(boolean lineContinuation) throws IOException {
+      for (int c = peek(); ; c = peek()) {
+        if (isWhitespace(c)) {
+          this.position++;
+        } else if (c == '\\' && lineContinuation) {
+          this.position++;
+          for (c = peek(); isWhitespace(c); c = peek()) {
+            this.position++;
+          }
+          if (c == -1 || !isEndOfLine(c)) {
+            throw new IncorrectFormatException("Expected new line after \\ character");
+          }
+          readEndOfLine();
+        } else {
+          return;
+        }
+      }
     }
-  }
 
-  /**
-   * A named group of geometries.
-   */
-  private static class Group {
-    private final String   name;
-    private List<Geometry> geometries;
+    /**
+     * Consumes the new line at the current position.
+     */
+    private void readEndOfLine() throws IOException {
+      if (peek() == '\r') {
+        this.position++;
+        if (peek() == '\n') {
+          this.position++;
+        }
+      } else {
+        this.position++;
+      }
+      this.lineNumber++;
+    }
 
-    public Group(String name) {
-      this.name = name;
-      this.geometries = new ArrayList<Geometry>();
+    /**
+     * Reads in <code>token</code> the characters up to the next whitespace or new line,
+     * or to the next slash if <code>stopAtSlash</code> is <code>true</code>.
+     */
+    private void readToken(boolean stopAtSlash) throws IOException {
+      this.tokenLength = 0;
+      for (int c = peek(); !isEndOfLine(c) && !isWhitespace(c) && !(stopAtSlash && c == '/'); c = peek()) {
+        if (this.tokenLength == this.token.length) {
+          char [] token = new char [this.token.length * 2];
+          System.arraycopy(this.token, 0, token, 0, this.tokenLength);
+          this.token = token;
+        }
+        this.token [this.tokenLength++] = (char)c;
+        this.position++;
+      }
     }
 
-    public String getName() {
-      return this.name;
+    /**
+     * Reads the first word of the next line which isn't empty and returns <code>false</code>
+     * if the end of the stream is reached.
+     */
+    public boolean nextKeyword() throws IOException {
+      while (true) {
+        skipWhitespaces(false);
+        int c = peek();
+        if (c == -1) {
+          return false;
+        } else if (isEndOfLine(c)) {
+          readEndOfLine();
+        } else {
+          readToken(false);
+          return true;
+        }
+      }
     }
 
-    public void addGeometry(Geometry face) {
-      this.geometries.add(face);
+    /**
+     * Returns <code>true</code> if the last read keyword is equal to the given one.
+     */
+    public boolean isKeyword(String keyword) {
+      if (keyword.length() != this.tokenLength) {
+        return false;
+      }
+      for (int i = 0; i < this.tokenLength; i++) {
+        if (keyword.charAt(i) != this.token [i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns <code>true</code> if the current line doesn't contain any other token.
+     */
+    public boolean isEndOfLine(boolean lineContinuation) throws IOException {
+      skipWhitespaces(lineContinuation);
+      return isEndOfLine(peek());
+    }
+
+    /**
+     * Consumes the end of the current line.
+     * @throws IncorrectFormatException if the current line contains other tokens
+     */
+    public void skipEndOfLine() throws IOException {
+      skipWhitespaces(false);
+      int c = peek();
+      if (c != -1) {
+        if (isEndOfLine(c)) {
+          readEndOfLine();
+        } else {
+          throw new IncorrectFormatException("Expected end of line at line " + this.lineNumber);
+        }
+      }
+    }
+
+    /**
+     * Skips the next token of the current line.
+     */
+    public void skipToken() throws IOException {
+      skipWhitespaces(false);
+      readToken(false);
+    }
+
+    /**
+     * Skips the characters up to the end of the current line.
+     */
+    public void skipLine() throws IOException {
+      while (!isEndOfLine(peek())) {
+        this.position++;
+      }
+    }
+
+    /**
+     * Returns the next word of the current line or <code>null</code> if there's no other word.
+     */
+    public String nextWord() throws IOException {
+      skipWhitespaces(false);
+      if (isEndOfLine(peek())) {
+        return null;
+      } else {
+        readToken(false);
+        return new String(this.token, 0, this.tokenLength);
+      }
+    }
+
+    /**
+     * Returns the trimmed characters up to the end of the current line.
+     */
+    public String nextLine() throws IOException {
+      StringBuilder line = new StringBuilder();
+      for (int c = peek(); !isEndOfLine(c); c = peek()) {
+        line.append((char)c);
+        this.position++;
+      }
+      return line.toString().trim();
+    }
+
+    /**
+     * Returns <code>true</code> and consumes the next character if it's a slash.
+     */
+    public boolean skipSlash() throws IOException {
+      if (peek() == '/') {
+        this.position++;
+        return true;
+      } else {
+        return false;
+      }
+    }
+
+    public int getLineNumber() {
+      return this.lineNumber;
     }
 
-    public List<Geometry> getGeometries() {
-      return this.geometries;
+    /**
+     * Returns the integer contained in the next token, ended by a whitespace or a slash.
+     */
+    public int nextInteger() throws IOException {
+      skipWhitespaces(true);
+      readToken(true);
+      if (this.tokenLength == 0) {
+        throw new IncorrectFormatException("Expected an integer at line " + this.lineNumber);
+      }
+      int i = 0;
+      boolean negative = this.token [0] == '-';
+      if (negative || this.token [0] == '+') {
+        i++;
+      }
+      // Parse directly numbers with less than 10 digits which can't overflow
+      if (this.tokenLength > i
+          && this.tokenLength - i < 10) {
+        int value = 0;
+        for ( ; i < this.tokenLength; i++) {
+          char c = this.token [i];
+          if (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+          } else {
+            break;
+          }
+        }
+        if (i == this.tokenLength) {
+          return negative ? -value : value;
+        }
+      }
+      String integer = new String(this.token, 0, this.tokenLength);
+      try {
+        return Integer.parseInt(integer);
+      } catch (NumberFormatException ex) {
+        throw new IncorrectFormatException("Found " + integer +
+            " instead of an integer at line " + this.lineNumber);
+      }
+    }
+
+    /**
+     * Returns the number contained in the next token.
+     */
+    public float nextNumber() throws IOException {
+      skipWhitespaces(true);
+      readToken(false);
+      if (this.tokenLength == 0) {
+        throw new IncorrectFormatException("Expected a number at line " + this.lineNumber);
+      }
+      int i = 0;
+      boolean negative = this.token [0] == '-';
+      if (negative || this.token [0] == '+') {
+        i++;
+      }
+      // Compute decimal numbers with at most 15 significant digits and a small exponent
+      // with a single floating point operation, which gives the same result as Float.parseFloat
+      long mantissa = 0;
+      int significantDigits = 0;
+      int exponent = 0;
+      boolean digits = false;
+      boolean fastPath = true;
+      for ( ; i < this.tokenLength && this.token [i] >= '0' && this.token [i] <= '9'; i++) {
+        mantissa = mantissa * 10 + (this.token [i] - '0');
+        if (mantissa != 0) {
+          significantDigits++;
+        }
+        digits = true;
+      }
+      if (i < this.tokenLength && this.token [i] == '.') {
+        for (i++; i < this.tokenLength && this.token [i] >= '0' && this.token [i] <= '9'; i++) {
+          mantissa = mantissa * 10 + (this.token [i] - '0');
+          if (mantissa != 0) {
+            significantDigits++;
+          }
+          exponent--;
+          digits = true;
+        }
+      }
+      if (i < this.tokenLength
+          && (this.token [i] == 'e' || this.token [i] == 'E')) {
+        i++;
+        boolean negativeExponent = i < this.tokenLength && this.token [i] == '-';
+        if (negativeExponent || i < this.tokenLength && this.token [i] == '+') {
+          i++;
+        }
+        int exponentValue = 0;
+        boolean exponentDigits = false;
+        for ( ; i < this.tokenLength && this.token [i] >= '0' && this.token [i] <= '9'; i++) {
+          if (exponentValue < 1000) {
+            exponentValue = exponentValue * 10 + (this.token [i] - '0');
+          }
+          exponentDigits = true;
+        }
+        fastPath = exponentDigits;
+        exponent += negativeExponent ? -exponentValue : exponentValue;
+      }
+      if (fastPath
+          && digits
+          && i == this.tokenLength
+          && significantDigits <= 15) {
+        if (mantissa == 0) {
+          return negative ? -0f : 0f;
+        } else if (exponent >= -22 && exponent <= 22) {
+          double value = exponent < 0
+              ? mantissa / POWERS_OF_TEN [-exponent]
+              : mantissa * POWERS_OF_TEN [exponent];
+          // Ignore values exactly halfway between two floats which may be rounded differently
+          if ((Double.doubleToRawLongBits(value) & 0x1FFFFFFFL) != 0x10000000L) {
+            return (float)(negative ? -value : value);
+          }
+        }
+      }
+      String number = new String(this.token, 0, this.tokenLength);
+      try {
+        return Float.parseFloat(number);
+      } catch (NumberFormatException ex) {
+        throw new IncorrectFormatException("Found " + number +
+            " instead of a number at line " + this.lineNumber);
+      }
     }
   }
 }
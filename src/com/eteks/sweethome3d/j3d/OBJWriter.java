@@ -101,7 +101,7 @@ import javax.vecmath.Vector4f;
  * Note: this class is compatible with Java 3D 1.3.
  * @author Emmanuel Puybaret
  */
-public class OBJWriter extends FilterWriter {
+public class OBJWriter extends FilterWriter implements NodeWriter {
   private final NumberFormat defaultNumberFormat =
       new DecimalFormat("0.#######", new DecimalFormatSymbols(Locale.US));
   private final NumberFormat numberFormat;
@@ -485,7 +485,7 @@ public class OBJWriter extends FilterWriter {
   /**
    * Returns an input stream to read the given URL.
    */
-  private InputStream openStream(URL url) throws IOException {
+  static InputStream openStream(URL url) throws IOException {
     URLConnection connection = url.openConnection();
     if (System.getProperty("os.name").startsWith("Windows")
         && (connection instanceof JarURLConnection)) {
@@ -1507,178 +1507,4 @@ public class OBJWriter extends FilterWriter {
       tempFolder.delete();
     }
   }
-
-
-  /**
-   * An <code>Appearance</code> wrapper able to compare
-   * if two appearances are equal for MTL format.
-   */
-  private static class ComparableAppearance {
-    private Appearance appearance;
-
-    public ComparableAppearance(Appearance appearance) {
-      this.appearance = appearance;
-    }
-
-    public Appearance getAppearance() {
-      return this.appearance;
-    }
-
-    /**
-     * Returns <code>true</code> if this appearance and the one of <code>obj</code>
-     * describe the same colors, transparency and texture.
-     */
-    @Override
-    public boolean equals(Object obj) {
-      if (obj instanceof ComparableAppearance) {
-        Appearance appearance2 = ((ComparableAppearance)obj).appearance;
-        // Compare coloring attributes
-        ColoringAttributes coloringAttributes1 = this.appearance.getColoringAttributes();
-        ColoringAttributes coloringAttributes2 = appearance2.getColoringAttributes();
-        if ((coloringAttributes1 == null) ^ (coloringAttributes2 == null)) {
-          return false;
-        } else if (coloringAttributes1 != coloringAttributes2) {
-          Color3f color1 = new Color3f();
-          Color3f color2 = new Color3f();
-          coloringAttributes1.getColor(color1);
-          coloringAttributes2.getColor(color2);
-          if (!color1.equals(color2)) {
-            return false;
-          }
-        }
-        // Compare material colors
-        Material material1 = this.appearance.getMaterial();
-        Material material2 = appearance2.getMaterial();
-        if ((material1 == null) ^ (material2 == null)) {
-          return false;
-        } else if (material1 != material2) {
-          Color3f color1 = new Color3f();
-          Color3f color2 = new Color3f();
-          material1.getAmbientColor(color1);
-          material2.getAmbientColor(color2);
-          if (!color1.equals(color2)) {
-            return false;
-          } else {
-            material1.getDiffuseColor(color1);
-            material2.getDiffuseColor(color2);
-            if (!color1.equals(color2)) {
-              return false;
-            } else {
-              material1.getEmissiveColor(color1);
-              material2.getEmissiveColor(color2);
-              if (!color1.equals(color2)) {
-                return false;
-              } else {
-                material1.getSpecularColor(color1);
-                material2.getSpecularColor(color2);
-                if (!color1.equals(color2)) {
-                  return false;
-                } else if (material1.getShininess() != material2.getShininess()) {
-                  return false;
-                } else if (material1.getClass() != material2.getClass()) {
-                  return false;
-                } else if (material1.getClass() == OBJMaterial.class) {
-                  OBJMaterial objMaterial1 = (OBJMaterial)material1;
-                  OBJMaterial objMaterial2 = (OBJMaterial)material2;
-                  if (objMaterial1.isOpticalDensitySet() ^ objMaterial2.isOpticalDensitySet()) {
-                    return false;
-                  } else if (objMaterial1.isOpticalDensitySet() && objMaterial2.isOpticalDensitySet()
-                            && objMaterial1.getOpticalDensity() != objMaterial2.getOpticalDensity()) {
-                    return false;
-                  } else if (objMaterial1.isIlluminationModelSet() ^ objMaterial2.isIlluminationModelSet()) {
-                    return false;
-                  } else if (objMaterial1.isIlluminationModelSet() && objMaterial2.isIlluminationModelSet()
-                            && objMaterial1.getIlluminationModel() != objMaterial2.getIlluminationModel()) {
-                    return false;
-                  } else if (objMaterial1.isSharpnessSet() ^ objMaterial2.isSharpnessSet()) {
-                    return false;
-                  } else if (objMaterial1.isSharpnessSet() && objMaterial2.isSharpnessSet()
-                            && objMaterial1.getSharpness() != objMaterial2.getSharpness()) {
-                    return false;
-                  }
-                }
-              }
-            }
-          }
-        }
-        // Compare transparency
-        TransparencyAttributes transparency1 = this.appearance.getTransparencyAttributes();
-        TransparencyAttributes transparency2 = appearance2.getTransparencyAttributes();
-        if ((transparency1 == null) ^ (transparency2 == null)) {
-          return false;
-        } else if (transparency1 != transparency2) {
-          if (transparency1.getTransparency() != transparency2.getTransparency()) {
-            return false;
-          }
-        }
-        // Compare texture
-        Texture texture1 = this.appearance.getTexture();
-        Texture texture2 = appearance2.getTexture();
-        if ((texture1 == null) ^ (texture2 == null)) {
-          return false;
-        } else if (texture1 != texture2) {
-          if (texture1.getImage(0) != texture2.getImage(0)) {
-            return false;
-          }
-        }
-        // Compare name
-        try {
-          String name1 = this.appearance.getName();
-          String name2 = appearance2.getName();
-          if ((name1 == null) ^ (name2 == null)) {
-            return false;
-          } else if (name1 != name2
-                     && !name1.equals(name2)) {
-            return false;
-          }
-        } catch (NoSuchMethodError ex) {
-          // Don't compare name with Java 3D < 1.4 where getName was added
-        }
-
-        return true;
-      }
-      return false;
-    }
-
-    @Override
-    public int hashCode() {
-      int code = 0;
-      ColoringAttributes coloringAttributes = appearance.getColoringAttributes();
-      if (coloringAttributes != null) {
-        Color3f color = new Color3f();
-        coloringAttributes.getColor(color);
-        code += color.hashCode();
-      }
-      Material material = this.appearance.getMaterial();
-      if (material != null) {
-        Color3f color = new Color3f();
-        material.getAmbientColor(color);
-        code += color.hashCode();
-        material.getDiffuseColor(color);
-        code += color.hashCode();
-        material.getEmissiveColor(color);
-        code += color.hashCode();
-        material.getSpecularColor(color);
-        code += color.hashCode();
-        code += Float.floatToIntBits(material.getShininess());
-      }
-      TransparencyAttributes transparency = this.appearance.getTransparencyAttributes();
-      if (transparency != null) {
-        code += Float.floatToIntBits(transparency.getTransparency());
-      }
-      Texture texture = this.appearance.getTexture();
-      if (texture != null) {
-        code += texture.getImage(0).hashCode();
-      }
-      try {
-        String name = this.appearance.getName();
-        if (name != null) {
-          code += name.hashCode();
-        }
-      } catch (NoSuchMethodError ex) {
-        // Don't take name into account with Java 3D < 1.4 where getName was added
-      }
-      return code;
-    }
-  }
 }
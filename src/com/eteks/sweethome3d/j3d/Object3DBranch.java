@@ -26,8 +26,11 @@ import java.awt.geom.Area;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -49,9 +52,13 @@ import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 
 import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeFurnitureGroup;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.HomeTexture;
+import com.eteks.sweethome3d.model.Level;
 import com.eteks.sweethome3d.model.Room;
 import com.eteks.sweethome3d.model.UserPreferences;
+import com.eteks.sweethome3d.model.Wall;
 import com.eteks.sweethome3d.tools.OperatingSystem;
 
 /**
@@ -153,6 +160,20 @@ public abstract class Object3DBranch extends BranchGroup {
    */
   public abstract void update();
 
+  /**
+   * Updates this branch from the home object, except its geometry which may be computed later
+   * by the returned task from the given snapshot of its home.
+   * This method is called in the Event Dispatch Thread and by default, calls {@link #update()}
+   * and returns <code>null</code> to indicate the whole branch is already up to date.
+   * @param homeSnapshot the copy of the home of this branch that the returned task may read
+   *            in a worker thread
+   * @since 7.5
+   */
+  protected GeometryUpdate update(HomeSnapshot homeSnapshot) {
+    update();
+    return null;
+  }
+
   /**
    * Returns a cloned instance of texture shared per <code>home</code> or
    * the texture itself if <code>home</code> is <code>null</code>.
@@ -347,6 +368,163 @@ public abstract class Object3DBranch extends BranchGroup {
     }
   }
 
+  /**
+   * The update of the geometry of a branch computed out of the Event Dispatch Thread.
+   * @since 7.5
+   */
+  protected static interface GeometryUpdate {
+    /**
+     * Computes the new geometries of the branch. This method is called in a worker thread
+     * and should read only home snapshot data.
+     */
+    public abstract void computeGeometries();
+
+    /**
+     * Replaces the geometries of the branch by the computed ones.
+     * This method is called in the Event Dispatch Thread once <code>computeGeometries</code> returned.
+     */
+    public abstract void updateGeometries();
+  }
+
+  /**
+   * A partial copy of a home containing only the levels of the home and the items
+   * requested by the branches of an update, that can be read safely in a worker thread.
+   * @since 7.5
+   */
+  protected static class HomeSnapshot {
+    private final Home                 home;
+    private final Map<Object, Boolean> requestedItems;
+    private Home                       homeCopy;
+    private Map<Object, Object>        itemCopies;
+
+    HomeSnapshot(Home home) {
+      this.home = home;
+      this.requestedItems = new IdentityHashMap<Object, Boolean>();
+    }
+
+    /**
+     * Requests the copy of the given wall, room or piece in this snapshot.
+     * A wall is copied with the walls joined to it to be able to compute its points,
+     * and a piece should be a piece of the home and not a piece of one of its groups.
+     * Should be invoked from Event Dispatch Thread before the snapshot is built.
+     */
+    public void addItem(Object item) {
+      this.requestedItems.put(item, Boolean.TRUE);
+      if (item instanceof Wall) {
+        Wall wall = (Wall)item;
+        if (wall.getWallAtStart() != null) {
+          this.requestedItems.put(wall.getWallAtStart(), Boolean.TRUE);
+        }
+        if (wall.getWallAtEnd() != null) {
+          this.requestedItems.put(wall.getWallAtEnd(), Boolean.TRUE);
+        }
+      }
+    }
+
+    /**
+     * Requests the copy of the given walls, rooms or pieces in this snapshot.
+     * Should be invoked from Event Dispatch Thread before the snapshot is built.
+     */
+    public void addItems(Collection<?> items) {
+      for (Object item : items) {
+        addItem(item);
+      }
+    }
+
+    /**
+     * Copies the levels and the requested items which still belong to home,
+     * and returns the count of copied walls, rooms and pieces.
+     * Should be invoked from Event Dispatch Thread once all the items were requested.
+     */
+    int build() {
+      this.homeCopy = new Home(this.home.getWallHeight());
+      this.homeCopy.getEnvironment().setSubpartSizeUnderLight(this.home.getEnvironment().getSubpartSizeUnderLight());
+      this.itemCopies = new IdentityHashMap<Object, Object>();
+      this.itemCopies.put(this.home, this.homeCopy);
+      for (Level level : this.home.getLevels()) {
+        Level levelCopy = level.clone();
+        this.itemCopies.put(level, levelCopy);
+        this.homeCopy.addLevel(levelCopy);
+      }
+      // Copy requested walls in home order and at once to keep the links between joined walls
+      List<Wall> walls = new ArrayList<Wall>();
+      for (Wall wall : this.home.getWalls()) {
+        if (this.requestedItems.containsKey(wall)) {
+          walls.add(wall);
+        }
+      }
+      List<Wall> wallCopies = Wall.clone(walls);
+      for (int i = 0; i < walls.size(); i++) {
+        Wall wallCopy = wallCopies.get(i);
+        wallCopy.setLevel(getLevelCopy(walls.get(i).getLevel()));
+        this.itemCopies.put(walls.get(i), wallCopy);
+        this.homeCopy.addWall(wallCopy);
+      }
+      int copiedItemCount = walls.size();
+      for (Room room : this.home.getRooms()) {
+        if (this.requestedItems.containsKey(room)) {
+          Room roomCopy = room.clone();
+          roomCopy.setLevel(getLevelCopy(room.getLevel()));
+          this.itemCopies.put(room, roomCopy);
+          this.homeCopy.addRoom(roomCopy);
+          copiedItemCount++;
+        }
+      }
+      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+        if (this.requestedItems.containsKey(piece)) {
+          HomePieceOfFurniture pieceCopy = piece.clone();
+          pieceCopy.setLevel(getLevelCopy(piece.getLevel()));
+          this.itemCopies.put(piece, pieceCopy);
+          if (piece instanceof HomeFurnitureGroup) {
+            putItemCopies(((HomeFurnitureGroup)piece).getFurniture(), ((HomeFurnitureGroup)pieceCopy).getFurniture());
+          }
+          this.homeCopy.addPieceOfFurniture(pieceCopy);
+          copiedItemCount++;
+        }
+      }
+      return copiedItemCount;
+    }
+
+    private Level getLevelCopy(Level level) {
+      return level != null
+          ? (Level)this.itemCopies.get(level)
+          : null;
+    }
+
+    private void putItemCopies(Collection<?> items, Collection<?> copies) {
+      Iterator<?> copiesIterator = copies.iterator();
+      for (Object item : items) {
+        Object copy = copiesIterator.next();
+        this.itemCopies.put(item, copy);
+        if (item instanceof HomeFurnitureGroup) {
+          putItemCopies(((HomeFurnitureGroup)item).getFurniture(), ((HomeFurnitureGroup)copy).getFurniture());
+        }
+      }
+    }
+
+    /**
+     * Returns the copy of the home containing its levels and the requested items.
+     * Should be invoked once the snapshot is built, from the task computing geometries.
+     */
+    public Home getHome() {
+      if (this.homeCopy == null) {
+        throw new IllegalStateException("Home snapshot not built");
+      }
+      return this.homeCopy;
+    }
+
+    /**
+     * Returns the copy of the given home or home <code>item</code> in the home copy,
+     * or <code>null</code> if it wasn't requested or doesn't belong to home.
+     * Should be invoked once the snapshot is built, from the task computing geometries.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getItem(T item) {
+      getHome();
+      return (T)this.itemCopies.get(item);
+    }
+  }
+
   /**
    * Returns an appearance for selection shapes.
    */
@@ -0,0 +1,215 @@
+/*
+ * Object3DBranchUpdater.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.awt.EventQueue;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.eteks.sweethome3d.model.Home;
+
+/**
+ * An updater of 3D branches able to compute their geometry in worker threads.
+ * Branches are updated in the Event Dispatch Thread, then the geometries they can compute
+ * from a snapshot of the home items they depend on are computed by a pool of threads, and finally replaced
+ * in the branches back in the Event Dispatch Thread. The geometries computed for a branch
+ * are ignored if an other update of the same branch was requested in the mean time.
+ * The updater counts the updated branches and the computed geometries to be able to check
+ * how many branches are rebuilt after a home modification.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class Object3DBranchUpdater {
+  private static Executor geometriesComputer;
+
+  private final Home                                               home;
+  private final Map<Object3DBranch, Object3DBranch.GeometryUpdate> pendingGeometryUpdates;
+  private final AtomicLong                                         updateCount;
+  private final AtomicLong                                         updatedBranchCount;
+  private final AtomicLong                                         computedGeometryCount;
+  private final AtomicLong                                         supersededGeometryCount;
+  private final AtomicLong                                         copiedItemCount;
+
+  /**
+   * Creates an updater of the 3D branches displaying the given <code>home</code>.
+   */
+  public Object3DBranchUpdater(Home home) {
+    this.home = home;
+    this.pendingGeometryUpdates = new ConcurrentHashMap<Object3DBranch, Object3DBranch.GeometryUpdate>();
+    this.updateCount = new AtomicLong();
+    this.updatedBranchCount = new AtomicLong();
+    this.computedGeometryCount = new AtomicLong();
+    this.supersededGeometryCount = new AtomicLong();
+    this.copiedItemCount = new AtomicLong();
+  }
+
+  /**
+   * Updates the given <code>branches</code>, computing in a worker thread the geometries
+   * of the ones that support it. Should be invoked from Event Dispatch Thread.
+   */
+  public void updateBranches(Collection<? extends Object3DBranch> branches) {
+    if (branches.isEmpty()) {
+      return;
+    }
+    // Share the same home snapshot among branches, where each branch requests the items it reads
+    Object3DBranch.HomeSnapshot homeSnapshot = new Object3DBranch.HomeSnapshot(this.home);
+    this.updateCount.incrementAndGet();
+    this.updatedBranchCount.addAndGet(branches.size());
+    final Map<Object3DBranch, Object3DBranch.GeometryUpdate> geometryUpdates =
+        new LinkedHashMap<Object3DBranch, Object3DBranch.GeometryUpdate>();
+    for (Object3DBranch branch : branches) {
+      Object3DBranch.GeometryUpdate geometryUpdate = branch.update(homeSnapshot);
+      if (geometryUpdate != null) {
+        geometryUpdates.put(branch, geometryUpdate);
+        // Supersede the update that may be pending for the same branch
+        this.pendingGeometryUpdates.put(branch, geometryUpdate);
+      } else {
+        this.pendingGeometryUpdates.remove(branch);
+      }
+    }
+
+    if (!geometryUpdates.isEmpty()) {
+      this.copiedItemCount.addAndGet(homeSnapshot.build());
+      // As the home snapshot isn't thread safe, compute the geometries of all the branches in the same thread
+      getGeometriesComputer().execute(new Runnable() {
+          public void run() {
+            final Map<Object3DBranch, Boolean> computedBranches = new IdentityHashMap<Object3DBranch, Boolean>();
+            try {
+              for (Map.Entry<Object3DBranch, Object3DBranch.GeometryUpdate> entry : geometryUpdates.entrySet()) {
+                // Ignore superseded updates
+                if (pendingGeometryUpdates.get(entry.getKey()) == entry.getValue()) {
+                  try {
+                    entry.getValue().computeGeometries();
+                    computedBranches.put(entry.getKey(), Boolean.TRUE);
+                    computedGeometryCount.incrementAndGet();
+                  } catch (RuntimeException ex) {
+                    // Branch will be updated in Event Dispatch Thread
+                  }
+                } else {
+                  supersededGeometryCount.incrementAndGet();
+                }
+              }
+            } finally {
+              // Hand off updates even if an error stopped computation, to clear pending updates
+              EventQueue.invokeLater(new Runnable() {
+                  public void run() {
+                    for (Map.Entry<Object3DBranch, Object3DBranch.GeometryUpdate> entry : geometryUpdates.entrySet()) {
+                      Object3DBranch branch = entry.getKey();
+                      // Replace geometries only if no other update was requested for the branch
+                      if (pendingGeometryUpdates.remove(branch, entry.getValue())) {
+                        if (computedBranches.containsKey(branch)) {
+                          entry.getValue().updateGeometries();
+                        } else {
+                          // Update branch in Event Dispatch Thread
+                          branch.update();
+                        }
+                      }
+                    }
+                  }
+                });
+            }
+          }
+        });
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if some geometries are still being computed.
+   * Should be invoked from Event Dispatch Thread.
+   */
+  public boolean isUpdating() {
+    return !this.pendingGeometryUpdates.isEmpty();
+  }
+
+  /**
+   * Returns the count of calls to {@link #updateBranches(Collection) updateBranches}
+   * since this updater was created or its counters were reset.
+   */
+  public long getUpdateCount() {
+    return this.updateCount.get();
+  }
+
+  /**
+   * Returns the count of branches updated since this updater was created or its counters were reset.
+   */
+  public long getUpdatedBranchCount() {
+    return this.updatedBranchCount.get();
+  }
+
+  /**
+   * Returns the count of branches which geometries were computed in a worker thread
+   * since this updater was created or its counters were reset.
+   */
+  public long getComputedGeometryCount() {
+    return this.computedGeometryCount.get();
+  }
+
+  /**
+   * Returns the count of geometry computations skipped because a more recent update
+   * of their branch was requested.
+   */
+  public long getSupersededGeometryCount() {
+    return this.supersededGeometryCount.get();
+  }
+
+  /**
+   * Returns the count of walls, rooms and pieces copied in the home snapshots
+   * read by worker threads.
+   */
+  public long getCopiedItemCount() {
+    return this.copiedItemCount.get();
+  }
+
+  /**
+   * Resets the counters of this updater.
+   */
+  public void resetCounters() {
+    this.updateCount.set(0);
+    this.updatedBranchCount.set(0);
+    this.computedGeometryCount.set(0);
+    this.supersededGeometryCount.set(0);
+    this.copiedItemCount.set(0);
+  }
+
+  /**
+   * Returns the executor shared by updaters to compute geometries.
+   */
+  private static synchronized Executor getGeometriesComputer() {
+    if (geometriesComputer == null) {
+      geometriesComputer = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+          new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "Geometries computer");
+              // Don't prevent the application from exiting
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    }
+    return geometriesComputer;
+  }
+}
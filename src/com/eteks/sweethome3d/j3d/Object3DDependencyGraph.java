@@ -0,0 +1,275 @@
+/*
+ * Object3DDependencyGraph.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeFurnitureGroup;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * A graph giving the 3D objects of a home which geometry depends on a modified item,
+ * to avoid to compute again the geometry of all the rooms each time a wall, a staircase
+ * or a level is modified. Dependencies are computed from the levels and the bounds
+ * of the items, as in {@link Room3D}, {@link Wall3D} and {@link Ground3D} classes:
+ * <ul><li>walls change only the ceiling of the rooms at the last level,</li>
+ *     <li>staircases cut out the floor and the ceiling of the rooms they intersect,</li>
+ *     <li>levels change the rooms at levels which elevation range overlaps their range,</li>
+ *     <li>the ground depends only on the items at underground levels.</li></ul>
+ * The graph keeps the last known bounds of staircases to return the rooms intersecting
+ * a staircase before and after its modification.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class Object3DDependencyGraph {
+  private static final float EPSILON = 1E-4f;
+
+  private final Home                                  home;
+  private final Map<HomePieceOfFurniture, float []>   staircasesBounds;
+
+  /**
+   * Creates the dependency graph of the 3D objects of the given <code>home</code>.
+   */
+  public Object3DDependencyGraph(Home home) {
+    this.home = home;
+    this.staircasesBounds = new HashMap<HomePieceOfFurniture, float []>();
+    updateStaircasesBounds(home.getFurniture(), false);
+  }
+
+  /**
+   * Returns the rooms which geometry depends on the given <code>wall</code> once
+   * the property <code>propertyName</code> of the wall changed.
+   * @param wall          a wall of the home, added, deleted or modified
+   * @param propertyName  the name of the modified property or <code>null</code> if the wall was added or deleted
+   * @param oldValue      the old value of the property
+   */
+  public Set<Room> getRoomsDependingOnWall(Wall wall, String propertyName, Object oldValue) {
+    Set<Room> rooms = new LinkedHashSet<Room>();
+    List<Level> levels = this.home.getLevels();
+    Level lastLevel = levels.isEmpty()
+        ? null
+        : levels.get(levels.size() - 1);
+    // Only the ceiling of rooms at last level depends on walls
+    if (lastLevel == null
+        || wall.isAtLevel(lastLevel)
+        || isOldWallAtLevel(wall, propertyName, oldValue, lastLevel)) {
+      // The height of flat ceilings depends only on the highest wall
+      boolean heightChanged = propertyName == null
+          || Wall.Property.HEIGHT.name().equals(propertyName)
+          || Wall.Property.HEIGHT_AT_END.name().equals(propertyName)
+          || Wall.Property.LEVEL.name().equals(propertyName);
+      // whereas the height of sloping ceilings depends on the wall closest to each room point
+      boolean shapeChanged = heightChanged
+          || Wall.Property.X_START.name().equals(propertyName)
+          || Wall.Property.Y_START.name().equals(propertyName)
+          || Wall.Property.X_END.name().equals(propertyName)
+          || Wall.Property.Y_END.name().equals(propertyName)
+          || Wall.Property.ARC_EXTENT.name().equals(propertyName)
+          || Wall.Property.THICKNESS.name().equals(propertyName)
+          || Wall.Property.WALL_AT_START.name().equals(propertyName)
+          || Wall.Property.WALL_AT_END.name().equals(propertyName);
+      if (shapeChanged) {
+        for (Room room : this.home.getRooms()) {
+          Level roomLevel = room.getLevel();
+          if ((roomLevel == null || roomLevel == lastLevel)
+              && room.isCeilingVisible()
+              && (heightChanged || !room.isCeilingFlat())) {
+            rooms.add(room);
+          }
+        }
+      }
+    }
+    return rooms;
+  }
+
+  /**
+   * Returns <code>true</code> if the given <code>wall</code> was at <code>level</code>
+   * before the change of its level or its height.
+   */
+  private boolean isOldWallAtLevel(Wall wall, String propertyName, Object oldValue, Level level) {
+    Wall oldWall;
+    if (Wall.Property.LEVEL.name().equals(propertyName)) {
+      oldWall = wall.clone();
+      oldWall.setLevel((Level)oldValue);
+    } else if (Wall.Property.HEIGHT.name().equals(propertyName)) {
+      oldWall = wall.clone();
+      oldWall.setHeight((Float)oldValue);
+    } else if (Wall.Property.HEIGHT_AT_END.name().equals(propertyName)) {
+      oldWall = wall.clone();
+      oldWall.setHeightAtEnd((Float)oldValue);
+    } else {
+      return false;
+    }
+    return oldWall.isAtLevel(level);
+  }
+
+  /**
+   * Returns the rooms which geometry depends on the given <code>piece</code>
+   * if it's a staircase or a group containing staircases, before and after its modification.
+   * @param piece   a piece of the home, added, deleted or modified
+   * @param deleted <code>true</code> if the piece was deleted from home
+   */
+  public Set<Room> getRoomsDependingOnStaircase(HomePieceOfFurniture piece, boolean deleted) {
+    Set<Room> rooms = new LinkedHashSet<Room>();
+    // Collect old and new bounds of the staircases in the piece
+    Map<HomePieceOfFurniture, float []> oldBounds = new HashMap<HomePieceOfFurniture, float []>();
+    collectStaircasesBounds(piece, oldBounds);
+    updateStaircasesBounds(piece instanceof HomeFurnitureGroup
+          ? ((HomeFurnitureGroup)piece).getFurniture()
+          : Collections.singletonList(piece), deleted);
+    Map<HomePieceOfFurniture, float []> newBounds = new HashMap<HomePieceOfFurniture, float []>();
+    collectStaircasesBounds(piece, newBounds);
+    if (!oldBounds.isEmpty() || !newBounds.isEmpty()) {
+      for (Room room : this.home.getRooms()) {
+        Level roomLevel = room.getLevel();
+        if (roomLevel != null
+            && (room.isFloorVisible() || room.isCeilingVisible())
+            && room.getPointCount() > 2) {
+          Rectangle2D roomBounds = getBounds(room.getPoints());
+          if (intersectsStaircases(roomLevel, roomBounds, oldBounds.values())
+              || intersectsStaircases(roomLevel, roomBounds, newBounds.values())) {
+            rooms.add(room);
+          }
+        }
+      }
+    }
+    return rooms;
+  }
+
+  /**
+   * Returns <code>true</code> if the given room bounds at <code>roomLevel</code> intersect one
+   * of the given staircases bounds.
+   */
+  private boolean intersectsStaircases(Level roomLevel, Rectangle2D roomBounds,
+                                       Collection<float []> staircasesBounds) {
+    for (float [] staircaseBounds : staircasesBounds) {
+      if (staircaseBounds [4] <= roomLevel.getElevation() + roomLevel.getHeight() + EPSILON
+          && staircaseBounds [5] >= roomLevel.getElevation() - roomLevel.getFloorThickness() - EPSILON
+          && roomBounds.intersects(staircaseBounds [0], staircaseBounds [1],
+              staircaseBounds [2] - staircaseBounds [0], staircaseBounds [3] - staircaseBounds [1])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Stores the bounds of the staircases among the given <code>furniture</code>,
+   * or forgets them if they were <code>deleted</code>.
+   */
+  private void updateStaircasesBounds(List<HomePieceOfFurniture> furniture, boolean deleted) {
+    for (HomePieceOfFurniture piece : furniture) {
+      if (piece instanceof HomeFurnitureGroup) {
+        updateStaircasesBounds(((HomeFurnitureGroup)piece).getFurniture(), deleted);
+      } else if (deleted
+          || piece.getStaircaseCutOutShape() == null
+          || "false".equalsIgnoreCase(piece.getStaircaseCutOutShape())) {
+        this.staircasesBounds.remove(piece);
+      } else {
+        Rectangle2D bounds = getBounds(piece.getPoints());
+        this.staircasesBounds.put(piece, new float [] {
+            (float)bounds.getMinX(), (float)bounds.getMinY(), (float)bounds.getMaxX(), (float)bounds.getMaxY(),
+            piece.getGroundElevation(), piece.getGroundElevation() + piece.getHeight()});
+      }
+    }
+  }
+
+  /**
+   * Collects the stored bounds of the staircases contained in <code>piece</code>.
+   */
+  private void collectStaircasesBounds(HomePieceOfFurniture piece, Map<HomePieceOfFurniture, float []> bounds) {
+    if (piece instanceof HomeFurnitureGroup) {
+      for (HomePieceOfFurniture child : ((HomeFurnitureGroup)piece).getFurniture()) {
+        collectStaircasesBounds(child, bounds);
+      }
+    } else {
+      float [] staircaseBounds = this.staircasesBounds.get(piece);
+      if (staircaseBounds != null) {
+        bounds.put(piece, staircaseBounds);
+      }
+    }
+  }
+
+  /**
+   * Returns the rooms which geometry depends on the floor thickness or the height of the given <code>level</code>.
+   * @param level             a modified level
+   * @param oldFloorThickness the floor thickness of the level before its modification
+   * @param oldHeight         the height of the level before its modification
+   */
+  public Set<Room> getRoomsDependingOnLevel(Level level, float oldFloorThickness, float oldHeight) {
+    Set<Room> rooms = new LinkedHashSet<Room>();
+    float bottomElevation = level.getElevation() - Math.max(level.getFloorThickness(), oldFloorThickness);
+    float topElevation = level.getElevation() + Math.max(level.getHeight(), oldHeight);
+    for (Room room : this.home.getRooms()) {
+      Level roomLevel = room.getLevel();
+      // Rooms at levels which floor or ceiling touches the modified level may be joined to its rooms
+      if (roomLevel == null
+          || roomLevel == level
+          || roomLevel.getElevation() - roomLevel.getFloorThickness() <= topElevation + EPSILON
+              && roomLevel.getElevation() + roomLevel.getHeight() >= bottomElevation - EPSILON) {
+        rooms.add(room);
+      }
+    }
+    return rooms;
+  }
+
+  /**
+   * Returns the walls which geometry depends on the floor thickness of the given <code>level</code>.
+   */
+  public Set<Wall> getWallsDependingOnLevel(Level level) {
+    Set<Wall> walls = new LinkedHashSet<Wall>();
+    for (Wall wall : this.home.getWalls()) {
+      if (wall.getLevel() == level) {
+        walls.add(wall);
+      }
+    }
+    return walls;
+  }
+
+  /**
+   * Returns <code>true</code> if the ground geometry depends on items at the given <code>level</code>.
+   */
+  public boolean isGroundDependingOnLevel(Level level) {
+    return level != null
+        && level.getElevation() < 0;
+  }
+
+  /**
+   * Returns the bounds of the given <code>points</code>.
+   */
+  private Rectangle2D getBounds(float [][] points) {
+    Rectangle2D bounds = new Rectangle2D.Float(points [0][0], points [0][1], 0, 0);
+    for (int i = 1; i < points.length; i++) {
+      bounds.add(points [i][0], points [i][1]);
+    }
+    return bounds;
+  }
+}
@@ -107,6 +107,7 @@ import com.eteks.sweethome3d.model.Home;
 import com.eteks.sweethome3d.model.HomeEnvironment;
 import com.eteks.sweethome3d.model.HomeFurnitureGroup;
 import com.eteks.sweethome3d.model.HomeLight;
+import com.eteks.sweethome3d.model.HomeObject;
 import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.HomeTexture;
 import com.eteks.sweethome3d.model.Level;
@@ -138,8 +139,10 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
   private SunflowAPI sunflow;
   private String  sunSkyLightName;
   private String  sunLightName;
-  private final Map<Selectable, String []>         homeItemsNames     = new HashMap<Selectable, String []>();
-  private final Map<TransparentTextureKey, String> textureImagesCache = new HashMap<TransparentTextureKey, String>();
+  private final Map<Selectable, String []>             homeItemsNames          = new HashMap<Selectable, String []>();
+  private final Map<TransparentTextureKey, String>     textureImagesCache      = new HashMap<TransparentTextureKey, String>();
+  private final Map<SharedGeometryKey, SharedGeometry> sharedGeometries        = new HashMap<SharedGeometryKey, SharedGeometry>();
+  private final Map<String, SharedGeometryKey>         sharedGeometryInstances = new HashMap<String, SharedGeometryKey>();
   private Thread renderingThread;
 
   static {
@@ -488,14 +491,21 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
 
     if (updatedItems != null) {
       boolean silk = isSilkShaderUsed(getQuality());
+      Set<HomeObject> homeObjects = new HashSet<HomeObject>(getHome().getHomeObjects());
       for (Selectable item : updatedItems) {
         // Remove from SunFlow updated objects
         String [] itemNames = this.homeItemsNames.get(item);
         if (itemNames != null) {
           for (String name : itemNames) {
             this.sunflow.remove(name);
+            removeSharedGeometryInstance(name);
           }
         }
+        if (!homeObjects.contains(item)) {
+          // Don't export again items deleted from home
+          this.homeItemsNames.remove(item);
+          continue;
+        }
 
         Node node = (Node)this.object3dFactory.createObject3D(getHome(), item, true);
         if (node != null) {
@@ -671,6 +681,23 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
     this.textureImagesCache.clear();
   }
 
+  /**
+   * Removes the shared geometry referenced by the given instance name
+   * if it's not referenced by other instances.
+   */
+  private void removeSharedGeometryInstance(String instanceName) {
+    SharedGeometryKey geometryKey = this.sharedGeometryInstances.remove(instanceName);
+    if (geometryKey != null) {
+      SharedGeometry sharedGeometry = this.sharedGeometries.get(geometryKey);
+      if (--sharedGeometry.instanceCount == 0) {
+        for (String objectName : sharedGeometry.objectsName) {
+          this.sunflow.remove(objectName);
+        }
+        this.sharedGeometries.remove(geometryKey);
+      }
+    }
+  }
+
   /**
    * Returns <code>true</code> if silk shader should be used.
    */
@@ -698,7 +725,9 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
   private String [] exportNode(Node node, boolean ignoreTransparency, boolean silk,
                                 float lightPower, String [] lightSourceMaterialNames) throws IOException {
     List<String> nodeNames = new ArrayList<String>();
-    exportNode(node, ignoreTransparency, silk, lightPower, lightSourceMaterialNames, nodeNames, new Transform3D());
+    // Share the geometry of furniture built from the same models
+    exportNode(node, ignoreTransparency, silk, lightPower, lightSourceMaterialNames,
+        node instanceof HomePieceOfFurniture3D, nodeNames, new Transform3D());
     return nodeNames.toArray(new String [nodeNames.size()]);
   }
 
@@ -710,6 +739,7 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
                           boolean silk,
                           float lightPower,
                           String [] lightSourceMaterialNames,
+                          boolean shareGeometries,
                           List<String> nodeNames,
                           Transform3D parentTransformations) throws IOException {
     if (node instanceof Group) {
@@ -723,11 +753,11 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
       Enumeration<?> enumeration = ((Group)node).getAllChildren();
       while (enumeration.hasMoreElements()) {
         exportNode((Node)enumeration.nextElement(), ignoreTransparency, silk, lightPower, lightSourceMaterialNames,
-            nodeNames, parentTransformations);
+            shareGeometries, nodeNames, parentTransformations);
       }
     } else if (node instanceof Link) {
       exportNode(((Link)node).getSharedGroup(), ignoreTransparency, silk, lightPower, lightSourceMaterialNames,
-          nodeNames, parentTransformations);
+          shareGeometries, nodeNames, parentTransformations);
     } else if (node instanceof Shape3D) {
       Shape3D shape = (Shape3D)node;
       Appearance appearance = shape.getAppearance();
@@ -802,21 +832,64 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
           }
         }
 
+        Matrix4 instanceTransform = null;
+        if (shareGeometries) {
+          float [] transformMatrix = new float [16];
+          parentTransformations.get(transformMatrix);
+          instanceTransform = new Matrix4(transformMatrix, true);
+        }
         // Export object geometries
         for (int i = 0, n = shape.numGeometries(); i < n; i++) {
           String objectNameBase = "object" + uuid + "-" + i;
-          // Always ignore normals on walls
-          String [] objectsName = exportNodeGeometry(shape.getGeometry(i), parentTransformations, texCoordGeneration,
-              textureTransform, cullFace, backFaceNormalFlip, objectNameBase, appearanceName, transparent, lightSourceRadiance);
-          if (objectsName != null) {
-            for (String objectName : objectsName) {
+          Geometry geometry = shape.getGeometry(i);
+          if (instanceTransform != null
+              && geometry != null
+              && !transparent
+              && lightSourceRadiance == null
+              && instanceTransform.inverse() != null
+              // Export lines with their own geometry to keep their width independent of the transformation
+              && !(geometry instanceof IndexedLineArray
+                  || geometry instanceof IndexedLineStripArray
+                  || geometry instanceof LineArray
+                  || geometry instanceof LineStripArray)) {
+            // Export geometry shared by furniture of the same model only once in its local coordinates
+            // and reference it by instances placed with the transformation of the shape
+            SharedGeometryKey geometryKey = new SharedGeometryKey(geometry, texCoordGeneration,
+                textureTransform, cullFace, backFaceNormalFlip);
+            SharedGeometry sharedGeometry = this.sharedGeometries.get(geometryKey);
+            if (sharedGeometry == null) {
+              String [] objectsName = exportNodeGeometry(geometry, new Transform3D(), texCoordGeneration,
+                  textureTransform, cullFace, backFaceNormalFlip, objectNameBase, appearanceName, transparent, null);
+              sharedGeometry = new SharedGeometry(objectsName != null ? objectsName : new String [0]);
+              this.sharedGeometries.put(geometryKey, sharedGeometry);
+            }
+            for (String objectName : sharedGeometry.objectsName) {
               if (appearanceName != null) {
                 this.sunflow.parameter("shaders", new String [] {appearanceName});
               }
-              String instanceName = objectName + ".instance";
+              this.sunflow.parameter("transform", instanceTransform);
+              String instanceName = objectName + "-" + uuid + ".instance";
               this.sunflow.instance(instanceName, objectName);
+              // Keep shared geometry in SunFlow when this node is removed,
+              // until its last instance is removed
               nodeNames.add(instanceName);
-              nodeNames.add(objectName);
+              this.sharedGeometryInstances.put(instanceName, geometryKey);
+              sharedGeometry.instanceCount++;
+            }
+          } else {
+            // Always ignore normals on walls
+            String [] objectsName = exportNodeGeometry(geometry, parentTransformations, texCoordGeneration,
+                textureTransform, cullFace, backFaceNormalFlip, objectNameBase, appearanceName, transparent, lightSourceRadiance);
+            if (objectsName != null) {
+              for (String objectName : objectsName) {
+                if (appearanceName != null) {
+                  this.sunflow.parameter("shaders", new String [] {appearanceName});
+                }
+                String instanceName = objectName + ".instance";
+                this.sunflow.instance(instanceName, objectName);
+                nodeNames.add(instanceName);
+                nodeNames.add(objectName);
+              }
             }
           }
         }
@@ -1447,6 +1520,76 @@ public class PhotoRenderer extends AbstractPhotoRenderer {
     return new Point3f(lightSource.getX() - 0.5f, lightSource.getZ() - 0.5f, 0.5f - lightSource.getY());
   }
 
+  /**
+   * A key used to export only once the geometries shared by 3D shapes
+   * and exported with the same texture coordinates and orientation.
+   */
+  private static final class SharedGeometryKey {
+    private final Geometry    geometry;
+    private final boolean     texCoordGenerated;
+    private final Vector4f    planeS;
+    private final Vector4f    planeT;
+    private final Transform3D textureTransform;
+    private final int         cullFace;
+    private final boolean     backFaceNormalFlip;
+
+    public SharedGeometryKey(Geometry geometry, TexCoordGeneration texCoordGeneration,
+                             Transform3D textureTransform, int cullFace, boolean backFaceNormalFlip) {
+      this.geometry = geometry;
+      this.texCoordGenerated = texCoordGeneration != null;
+      if (texCoordGeneration != null
+          && texCoordGeneration.getGenMode() == TexCoordGeneration.OBJECT_LINEAR
+          && texCoordGeneration.getEnable()) {
+        this.planeS = new Vector4f();
+        this.planeT = new Vector4f();
+        texCoordGeneration.getPlaneS(this.planeS);
+        texCoordGeneration.getPlaneT(this.planeT);
+      } else {
+        this.planeS = null;
+        this.planeT = null;
+      }
+      this.textureTransform = textureTransform;
+      this.cullFace = cullFace;
+      this.backFaceNormalFlip = backFaceNormalFlip;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof SharedGeometryKey) {
+        SharedGeometryKey key = (SharedGeometryKey)obj;
+        return key.geometry == this.geometry
+            && key.texCoordGenerated == this.texCoordGenerated
+            && (key.planeS == null && this.planeS == null
+                || key.planeS != null && key.planeS.equals(this.planeS) && key.planeT.equals(this.planeT))
+            && key.textureTransform.equals(this.textureTransform)
+            && key.cullFace == this.cullFace
+            && key.backFaceNormalFlip == this.backFaceNormalFlip;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.geometry)
+          + (this.planeS != null ? 31 * this.planeS.hashCode() + this.planeT.hashCode() : 0)
+          + 17 * this.textureTransform.hashCode()
+          + this.cullFace
+          + (this.backFaceNormalFlip ? 1 : 0);
+    }
+  }
+
+  /**
+   * The names of the objects exported for a shared geometry and the count of their instances.
+   */
+  private static final class SharedGeometry {
+    private final String [] objectsName;
+    private int             instanceCount;
+
+    public SharedGeometry(String [] objectsName) {
+      this.objectsName = objectsName;
+    }
+  }
+
   /**
    * A SunFlow display that updates an existing image.
    * Implementation mostly copied from org.sunflow.system.ImagePanel.
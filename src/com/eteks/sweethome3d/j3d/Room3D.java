@@ -132,6 +132,14 @@ public class Room3D extends Object3DBranch {
     }
   }
 
+  /**
+   * Creates a 3D room without shapes, only able to compute the geometries
+   * of a room snapshot in a worker thread.
+   */
+  private Room3D(Room roomSnapshot, Home homeSnapshot, Room3D room3D) {
+    super(roomSnapshot, homeSnapshot, room3D.getUserPreferences(), room3D.getContext());
+  }
+
   /**
    * Returns a new room part shape with no geometry
    * and a default appearance with a white material.
@@ -176,12 +184,84 @@ public class Room3D extends Object3DBranch {
     updateRoomAppearance(false);
   }
 
+  /**
+   * Updates the appearance of this room and returns the task that will compute
+   * its geometry from a snapshot of the room and of the visible rooms, walls and staircases
+   * its geometry depends on.
+   * @since 7.5
+   */
+  @Override
+  protected GeometryUpdate update(final HomeSnapshot homeSnapshot) {
+    final Room room = (Room)getUserData();
+    updateRoomAppearance(false);
+    updateRoomPickability();
+    homeSnapshot.addItem(room);
+    Home home = getHome();
+    for (Room homeRoom : home.getRooms()) {
+      if (homeRoom.getLevel() == null || homeRoom.getLevel().isViewableAndVisible()) {
+        homeSnapshot.addItem(homeRoom);
+      }
+    }
+    Level roomLevel = room.getLevel();
+    List<Level> levels = home.getLevels();
+    if (roomLevel == null || isLastLevel(roomLevel, levels)) {
+      // Ceiling height may depend on the walls at the last level
+      for (Wall wall : home.getWalls()) {
+        if ((wall.getLevel() == null || wall.getLevel().isViewable())
+            && wall.isAtLevel(roomLevel)) {
+          homeSnapshot.addItem(wall);
+        }
+      }
+    }
+    if (roomLevel != null) {
+      boolean firstLevel = roomLevel.getElevation() == levels.get(0).getElevation();
+      for (HomePieceOfFurniture piece : home.getFurniture()) {
+        List<HomePieceOfFurniture> furniture = Collections.singletonList(piece);
+        if (!getVisibleStaircases(furniture, FLOOR_PART, roomLevel, firstLevel).isEmpty()
+            || !getVisibleStaircases(furniture, CEILING_PART, roomLevel, firstLevel).isEmpty()) {
+          homeSnapshot.addItem(piece);
+        }
+      }
+    }
+    return new GeometryUpdate() {
+        private Room3D      roomSnapshot3D;
+        private Geometry [] floorGeometries;
+        private Geometry [] ceilingGeometries;
+        private Geometry    selectionGeometry;
+
+        public void computeGeometries() {
+          Room roomSnapshot = homeSnapshot.getItem(room);
+          if (roomSnapshot != null) {
+            this.roomSnapshot3D = new Room3D(roomSnapshot, homeSnapshot.getHome(), Room3D.this);
+            this.floorGeometries = this.roomSnapshot3D.createRoomPartGeometries(FLOOR_PART, roomSnapshot.getFloorTexture());
+            this.ceilingGeometries = this.roomSnapshot3D.createRoomPartGeometries(CEILING_PART, roomSnapshot.getCeilingTexture());
+            this.selectionGeometry = this.roomSnapshot3D.createRoomSelectionGeometry();
+          }
+        }
+
+        public void updateGeometries() {
+          if (this.roomSnapshot3D == null) {
+            // Room not in home
+            update();
+          } else {
+            updateRoomPartGeometry(FLOOR_PART, this.floorGeometries);
+            updateRoomPartGeometry(CEILING_PART, this.ceilingGeometries);
+            updateRoomSelectionGeometry(this.selectionGeometry);
+          }
+        }
+      };
+  }
+
   /**
    * Sets the 3D geometry of this room shapes that matches its 2D geometry.
    */
   private void updateRoomGeometry() {
     updateRoomPartGeometry(FLOOR_PART, ((Room)getUserData()).getFloorTexture());
     updateRoomPartGeometry(CEILING_PART, ((Room)getUserData()).getCeilingTexture());
+    updateRoomPickability();
+  }
+
+  private void updateRoomPickability() {
     Room room = (Room)getUserData();
     setPickable(getHome().getEnvironment().getWallsAlpha() == 0
         || room.getLevel() == null
@@ -189,19 +269,36 @@ public class Room3D extends Object3DBranch {
   }
 
   private void updateRoomPartGeometry(int roomPart, HomeTexture texture) {
+    updateRoomPartGeometry(roomPart, createRoomPartGeometries(roomPart, texture));
+    updateRoomSelectionGeometry(createRoomSelectionGeometry());
+  }
+
+  /**
+   * Returns the geometries of the given room part or an empty array if the room isn't visible.
+   */
+  private Geometry [] createRoomPartGeometries(int roomPart, HomeTexture texture) {
+    Room room = (Room)getUserData();
+    if (room.getLevel() == null || room.getLevel().isViewableAndVisible()) {
+      return createRoomGeometries(roomPart, texture);
+    } else {
+      return new Geometry [0];
+    }
+  }
+
+  /**
+   * Replaces the geometries of the given room part by the given ones.
+   */
+  private void updateRoomPartGeometry(int roomPart, Geometry [] roomGeometries) {
     Group roomPartGroup = (Group)getChild(roomPart);
     Shape3D roomFilledShape = (Shape3D)roomPartGroup.getChild(0);
     Shape3D roomOutlineShape = roomPartGroup.numChildren() > 1
         ? (Shape3D)roomPartGroup.getChild(1)
         : null;
     int currentGeometriesCount = roomFilledShape.numGeometries();
-    Room room = (Room)getUserData();
-    if (room.getLevel() == null || room.getLevel().isViewableAndVisible()) {
-      for (Geometry roomGeometry : createRoomGeometries(roomPart, texture)) {
-        roomFilledShape.addGeometry(roomGeometry);
-        if (roomOutlineShape != null) {
-          roomOutlineShape.addGeometry(roomGeometry);
-        }
+    for (Geometry roomGeometry : roomGeometries) {
+      roomFilledShape.addGeometry(roomGeometry);
+      if (roomOutlineShape != null) {
+        roomOutlineShape.addGeometry(roomGeometry);
       }
     }
     for (int i = currentGeometriesCount - 1; i >= 0; i--) {
@@ -210,9 +307,11 @@ public class Room3D extends Object3DBranch {
         roomOutlineShape.removeGeometry(i);
       }
     }
+  }
 
+  private void updateRoomSelectionGeometry(Geometry selectionGeometry) {
     Shape3D roomSelectionShape = (Shape3D)getChild(2);
-    roomSelectionShape.addGeometry(createRoomSelectionGeometry());
+    roomSelectionShape.addGeometry(selectionGeometry);
     roomSelectionShape.removeGeometry(0);
   }
 
@@ -148,17 +148,20 @@ public class ShapeTools {
    * Returns the AWT shape matching the given <a href="http://www.w3.org/TR/SVG/paths.html">SVG path shape</a>.
    */
   public static Shape getShape(String svgPathShape) {
-    Shape shape = parsedShapes.get(svgPathShape);
-    if (shape == null) {
-      try {
-        shape = SVGPathSupport.parsePathShape(svgPathShape);
-      } catch (LinkageError ex) {
-        // Fallback to default square shape if batik classes aren't in classpath
-        shape = new Rectangle2D.Float(0, 0, 1, 1);
+    // Synchronize cache access because shapes may be requested by geometries computed in worker threads
+    synchronized (parsedShapes) {
+      Shape shape = parsedShapes.get(svgPathShape);
+      if (shape == null) {
+        try {
+          shape = SVGPathSupport.parsePathShape(svgPathShape);
+        } catch (LinkageError ex) {
+          // Fallback to default square shape if batik classes aren't in classpath
+          shape = new Rectangle2D.Float(0, 0, 1, 1);
+        }
+        parsedShapes.put(svgPathShape, shape);
       }
-      parsedShapes.put(svgPathShape, shape);
+      return shape;
     }
-    return shape;
   }
 
   /**
@@ -0,0 +1,144 @@
+/*
+ * TextureCache.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import com.eteks.sweethome3d.model.Content;
+
+/**
+ * A cache storing in files the mipmap levels of the textures built by {@link TextureManager},
+ * to be able to read them at next launches without decoding and scaling their image again.
+ * The levels of a texture are stored in a binary file named after the digest of its image content,
+ * its rotation angle and its maximum size.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public abstract class TextureCache extends FileCache {
+  private static final int    MAGIC_NUMBER   = 0x53483354; // SH3T
+  private static final int    VERSION        = 1;
+  private static final String FILE_EXTENSION = ".mipmaps";
+
+  /**
+   * Creates a cache of textures stored in the given folder.
+   * @param cacheFolder the folder where cached textures are stored, created if it doesn't exist
+   * @param maximumSize the size in bytes over which the least recently used textures are deleted
+   */
+  public TextureCache(File cacheFolder, long maximumSize) {
+    super(cacheFolder, maximumSize, FILE_EXTENSION);
+  }
+
+  /**
+   * Returns the file where the texture of the given <code>content</code> is cached
+   * or <code>null</code> if it can't be cached.
+   */
+  private File getTextureFile(Content content, float angle, int maximumSize) {
+    // Combine content digest with the parameters used to build mipmaps
+    return getCacheFile(content, ByteBuffer.allocate(8).putInt(Float.floatToIntBits(angle)).putInt(maximumSize).array());
+  }
+
+  /**
+   * Returns the mipmap levels cached for the image of the given <code>content</code>
+   * or <code>null</code> if they aren't in cache.
+   * @param content     the content of an image
+   * @param angle       the rotation angle applied to the image
+   * @param maximumSize the maximum width and height of the first level
+   */
+  public BufferedImage [] readMipmaps(Content content, float angle, int maximumSize) {
+    File textureFile = getTextureFile(content, angle, maximumSize);
+    if (textureFile == null
+        || !textureFile.exists()) {
+      return null;
+    }
+    try {
+      ByteBuffer buffer = readCacheFile(textureFile);
+      if (buffer.getInt() != MAGIC_NUMBER
+          || buffer.getInt() != VERSION) {
+        textureFile.delete();
+        return null;
+      }
+      boolean alpha = buffer.get() != 0;
+      BufferedImage [] levels = new BufferedImage [buffer.getInt()];
+      for (int i = 0; i < levels.length; i++) {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        levels [i] = new BufferedImage(width, height,
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        IntBuffer pixels = buffer.asIntBuffer();
+        pixels.get(((DataBufferInt)levels [i].getRaster().getDataBuffer()).getData());
+        buffer.position(buffer.position() + 4 * width * height);
+      }
+      return levels;
+    } catch (IOException ex) {
+      // Ignore cache when it can't be read
+      return null;
+    } catch (RuntimeException ex) {
+      // Delete damaged file
+      textureFile.delete();
+      return null;
+    }
+  }
+
+  /**
+   * Stores in this cache the mipmap levels built from the image of the given <code>content</code>.
+   * @param content     the content of an image
+   * @param angle       the rotation angle applied to the image
+   * @param maximumSize the maximum width and height of the first level
+   * @param levels      images of <code>TYPE_INT_RGB</code> or <code>TYPE_INT_ARGB</code> type
+   * @return <code>true</code> if the levels were stored
+   */
+  public boolean writeMipmaps(Content content, float angle, int maximumSize, BufferedImage [] levels) {
+    File textureFile = getTextureFile(content, angle, maximumSize);
+    if (textureFile == null
+        || textureFile.exists()) {
+      return false;
+    }
+    long length = 13;
+    for (BufferedImage level : levels) {
+      if (level.getType() != BufferedImage.TYPE_INT_RGB
+          && level.getType() != BufferedImage.TYPE_INT_ARGB) {
+        return false;
+      }
+      length += 8 + 4L * level.getWidth() * level.getHeight();
+    }
+    if (length > Integer.MAX_VALUE) {
+      return false;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int)length);
+    buffer.putInt(MAGIC_NUMBER);
+    buffer.putInt(VERSION);
+    buffer.put((byte)(levels [0].getType() == BufferedImage.TYPE_INT_ARGB ? 1 : 0));
+    buffer.putInt(levels.length);
+    for (BufferedImage level : levels) {
+      buffer.putInt(level.getWidth());
+      buffer.putInt(level.getHeight());
+      buffer.asIntBuffer().put(((DataBufferInt)level.getRaster().getDataBuffer()).getData());
+      buffer.position(buffer.position() + 4 * level.getWidth() * level.getHeight());
+    }
+    buffer.flip();
+    return writeCacheFile(textureFile, buffer);
+  }
+}
@@ -29,21 +29,31 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.media.j3d.ImageComponent;
 import javax.media.j3d.ImageComponent2D;
 import javax.media.j3d.Texture;
+import javax.media.j3d.Texture2D;
 
 import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.model.HomeTexture;
@@ -52,29 +62,70 @@ import com.sun.j3d.utils.image.TextureLoader;
 
 /**
  * Singleton managing texture image cache.
+ * Loaded textures are kept in a cache which total size in MB may be set in the
+ * <code>com.eteks.sweethome3d.j3d.loadedTexturesMaximumSize</code> system property
+ * (256 MB by default), and which least recently used textures are evicted first.
+ * Texture images are scaled down to fit in a maximum width and height in pixels which may be set
+ * in the <code>com.eteks.sweethome3d.j3d.textureMaximumSize</code> system property (2048 by default,
+ * 0 for no limit), and are built with their mipmap levels, to let the graphics card choose
+ * the level matching the size of textured surfaces on screen.
  * @author Emmanuel Puybaret
  */
 public class TextureManager {
+  private static final String   LOADED_TEXTURES_MAXIMUM_SIZE = "com.eteks.sweethome3d.j3d.loadedTexturesMaximumSize";
+  private static final long     DEFAULT_LOADED_TEXTURES_MAXIMUM_SIZE = 256;
+  private static final String   TEXTURE_MAXIMUM_SIZE = "com.eteks.sweethome3d.j3d.textureMaximumSize";
+  private static final long     DEFAULT_TEXTURE_MAXIMUM_SIZE = 2048;
+
   private static TextureManager instance;
   // Image used if an image content couldn't be loaded
   private final Texture         errorTexture;
   // Image used while an image content is loaded
   private final Texture         waitTexture;
-  // Map storing loaded rotated texture contents
-  private final Map<Content, List<ComparableTextureAngleTuple>> contentTextures;
-  // Map storing loaded textures used to compare their images
+  // Cache storing loaded rotated texture contents
+  private final LeastRecentlyUsedCache<Content, List<ComparableTextureAngleTuple>> contentTextures;
+  // Map storing the data of shared textures, released once their texture isn't used anymore
   private final Map<Texture, ComparableTexture>                 textures;
+  // Map storing shared textures keyed by their image
+  private final ConcurrentMap<ComparableTexture, ComparableTexture> sharedTextures;
+  // Queue where are enqueued the data of shared textures not used anymore
+  private final ReferenceQueue<Texture>                         releasedTextures;
   // Map storing model textures being loaded
   private Map<RotatedContentKey, List<TextureObserver>>         loadingTextureObservers;
   // Executor used to load images
   private ExecutorService       texturesLoader;
+  // Maximum width and height of texture images
+  private final int             textureMaximumSize;
+  // Persistent cache of mipmap levels
+  private TextureCache          textureCache;
 
   private TextureManager() {
     this.errorTexture = getColoredImageTexture(Color.RED);
     this.waitTexture = getColoredImageTexture(Color.WHITE);
-    this.contentTextures = new WeakHashMap<Content, List<ComparableTextureAngleTuple>>();
-    this.textures = new WeakHashMap<Texture, ComparableTexture>();
+    this.contentTextures = new LeastRecentlyUsedCache<Content, List<ComparableTextureAngleTuple>>(
+        ModelManager.getMaximumSizeProperty(LOADED_TEXTURES_MAXIMUM_SIZE, DEFAULT_LOADED_TEXTURES_MAXIMUM_SIZE) << 20) {
+        @Override
+        protected long getSize(Content content, List<ComparableTextureAngleTuple> textures) {
+          long size = 0;
+          for (ComparableTextureAngleTuple textureAngleTuple : textures) {
+            Texture texture = textureAngleTuple.getTexture();
+            // Count 4 bytes per pixel
+            long textureSize = 4L * texture.getWidth() * texture.getHeight();
+            if (texture.getMipMapMode() == Texture.MULTI_LEVEL_MIPMAP) {
+              // Add the third of the size used by mipmap levels
+              textureSize += textureSize / 3;
+            }
+            size += textureSize;
+          }
+          return size;
+        }
+      };
+    this.textures = Collections.synchronizedMap(new WeakHashMap<Texture, ComparableTexture>());
+    this.sharedTextures = new ConcurrentHashMap<ComparableTexture, ComparableTexture>();
+    this.releasedTextures = new ReferenceQueue<Texture>();
     this.loadingTextureObservers = new HashMap<RotatedContentKey, List<TextureObserver>>();
+    this.textureMaximumSize = (int)Math.max(0, Math.min(1 << 14,
+        ModelManager.getMaximumSizeProperty(TEXTURE_MAXIMUM_SIZE, DEFAULT_TEXTURE_MAXIMUM_SIZE)));
   }
 
   /**
@@ -87,6 +138,33 @@ public class TextureManager {
     return instance;
   }
 
+  /**
+   * Returns the cache of loaded textures, which maximum size is expressed in bytes.
+   * This cache may be used to tune its maximum size and follow its hit, miss and eviction counts.
+   * @since 7.5
+   */
+  public LeastRecentlyUsedCache<Content, ?> getLoadedTexturesCache() {
+    return this.contentTextures;
+  }
+
+  /**
+   * Sets the persistent cache where the mipmap levels of textures are stored to avoid
+   * decoding and scaling their images again at next launches.
+   * @param textureCache a cache of textures or <code>null</code> to build textures each time they're loaded
+   * @since 7.5
+   */
+  public void setTextureCache(TextureCache textureCache) {
+    this.textureCache = textureCache;
+  }
+
+  /**
+   * Returns the persistent cache of textures or <code>null</code> if it doesn't exist.
+   * @since 7.5
+   */
+  public TextureCache getTextureCache() {
+    return this.textureCache;
+  }
+
   /**
    * Shutdowns the multithreaded service that load textures. 
    */
@@ -95,10 +173,9 @@ public class TextureManager {
       this.texturesLoader.shutdownNow();
       this.texturesLoader = null;
     }
-    synchronized (this.textures) {
-      this.contentTextures.clear();
-      this.textures.clear();
-    }
+    this.contentTextures.clear();
+    this.textures.clear();
+    this.sharedTextures.clear();
     this.loadingTextureObservers.clear();
   }
   
@@ -168,7 +245,7 @@ public class TextureManager {
                           boolean synchronous,
                           final TextureObserver textureObserver) {
     Texture texture = null;
-    synchronized (this.textures) { // Use one mutex for both maps
+    synchronized (this.contentTextures) {
       List<ComparableTextureAngleTuple> contentTexturesList = this.contentTextures.get(content);
       if (contentTexturesList != null) {
         for (ComparableTextureAngleTuple textureAngleTuple : contentTexturesList) {
@@ -242,45 +319,30 @@ public class TextureManager {
    */
   private Texture loadTexture(final Content content, float angle) {
     try {
-      // Read the image 
-      InputStream contentStream = content.openStream();
-      BufferedImage image;          
-      try {
-        image = ImageIO.read(contentStream);
-      } catch (ConcurrentModificationException ex) {
-        // Try to read the image once more, 
-        // see unfixed Java bug http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6986863
-        contentStream.close();
-        contentStream = content.openStream();
-       image = ImageIO.read(contentStream);
+      BufferedImage [] mipmaps = null;
+      TextureCache textureCache = this.textureCache;
+      if (textureCache != null) {
+        mipmaps = textureCache.readMipmaps(content, angle, this.textureMaximumSize);
       }
-      if (angle != 0) {
-        double cos = Math.cos(angle);
-        double sin = Math.sin(angle);
-        BufferedImage rotatedImage = new BufferedImage((int)Math.round(Math.abs(image.getWidth() * cos) + Math.abs(image.getHeight() * sin)), 
-            (int)Math.round(Math.abs(image.getWidth() * sin) + Math.abs(image.getHeight() * cos)), 
-            image.getTransparency() == BufferedImage.TRANSLUCENT ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2D = (Graphics2D)rotatedImage.getGraphics();
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2D.setPaint(new TexturePaint(image, 
-                        new Rectangle2D.Float(0, 0, image.getWidth(), image.getHeight())));
-        g2D.rotate(angle);
-        float maxDimension = Math.max(rotatedImage.getWidth(), rotatedImage.getHeight());
-        g2D.fill(new Rectangle2D.Float(-maxDimension, -maxDimension, 3 * maxDimension, 3 * maxDimension));
-        g2D.dispose();
-        image = rotatedImage;
-      }
-      contentStream.close();
-      if (image != null) {
-        Texture texture = new TextureLoader(image).getTexture();
-        // Keep in user data the URL of the texture image
-        if (content instanceof URLContent && angle == 0) {
-          texture.setUserData(((URLContent)content).getURL());
+      if (mipmaps == null) {
+        BufferedImage image = readImage(content);
+        if (image == null) {
+          return this.errorTexture;
+        }
+        if (angle != 0) {
+          image = getRotatedImage(image, angle);
+        }
+        mipmaps = getMipmaps(image);
+        if (textureCache != null) {
+          textureCache.writeMipmaps(content, angle, this.textureMaximumSize, mipmaps);
         }
-        return texture;
-      } else {
-        return this.errorTexture;
       }
+      Texture texture = createTexture(mipmaps);
+      // Keep in user data the URL of the texture image
+      if (content instanceof URLContent && angle == 0) {
+        texture.setUserData(((URLContent)content).getURL());
+      }
+      return texture;
     } catch (IOException ex) {
       // Too bad, we'll use errorTexture
       return this.errorTexture;
@@ -296,6 +358,152 @@ public class TextureManager {
     }            
   }
 
+  /**
+   * Returns the image read from <code>content</code> or <code>null</code> if its format isn't supported.
+   */
+  private BufferedImage readImage(Content content) throws IOException {
+    InputStream contentStream = content.openStream();
+    try {
+      return readImage(contentStream);
+    } catch (ConcurrentModificationException ex) {
+      // Try to read the image once more, 
+      // see unfixed Java bug http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6986863
+      contentStream.close();
+      contentStream = content.openStream();
+      return readImage(contentStream);
+    } finally {
+      contentStream.close();
+    }
+  }
+
+  /**
+   * Returns the image read from <code>in</code>, skipping pixels if it's much larger than
+   * the maximum size of textures to avoid decoding all its pixels.
+   */
+  private BufferedImage readImage(InputStream in) throws IOException {
+    ImageInputStream imageIn = ImageIO.createImageInputStream(in);
+    if (imageIn == null) {
+      return null;
+    }
+    try {
+      Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageIn);
+      if (!imageReaders.hasNext()) {
+        return null;
+      }
+      ImageReader reader = imageReaders.next();
+      try {
+        reader.setInput(imageIn, true, true);
+        ImageReadParam readParam = reader.getDefaultReadParam();
+        if (this.textureMaximumSize > 0) {
+          // Keep at least twice the maximum size to scale down image with a good quality
+          int subsampling = Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * this.textureMaximumSize);
+          if (subsampling > 1) {
+            readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+          }
+        }
+        return reader.read(0, readParam);
+      } finally {
+        reader.dispose();
+      }
+    } finally {
+      imageIn.close();
+    }
+  }
+
+  /**
+   * Returns the given <code>image</code> rotated of <code>angle</code>.
+   */
+  private BufferedImage getRotatedImage(BufferedImage image, float angle) {
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+    BufferedImage rotatedImage = new BufferedImage((int)Math.round(Math.abs(image.getWidth() * cos) + Math.abs(image.getHeight() * sin)), 
+        (int)Math.round(Math.abs(image.getWidth() * sin) + Math.abs(image.getHeight() * cos)), 
+        image.getTransparency() == BufferedImage.TRANSLUCENT ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2D = (Graphics2D)rotatedImage.getGraphics();
+    g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    g2D.setPaint(new TexturePaint(image, 
+                    new Rectangle2D.Float(0, 0, image.getWidth(), image.getHeight())));
+    g2D.rotate(angle);
+    float maxDimension = Math.max(rotatedImage.getWidth(), rotatedImage.getHeight());
+    g2D.fill(new Rectangle2D.Float(-maxDimension, -maxDimension, 3 * maxDimension, 3 * maxDimension));
+    g2D.dispose();
+    return rotatedImage;
+  }
+
+  /**
+   * Returns the mipmap levels of the given <code>image</code>, the first level being
+   * scaled to the closest power of 2 sizes smaller than the maximum size of textures.
+   */
+  private BufferedImage [] getMipmaps(BufferedImage image) {
+    int width = getClosestPowerOf2(image.getWidth());
+    int height = getClosestPowerOf2(image.getHeight());
+    if (this.textureMaximumSize > 0) {
+      int maximumSize = Integer.highestOneBit(this.textureMaximumSize);
+      width = Math.min(width, maximumSize);
+      height = Math.min(height, maximumSize);
+    }
+    int imageType = image.getColorModel().hasAlpha()
+        ? BufferedImage.TYPE_INT_ARGB
+        : BufferedImage.TYPE_INT_RGB;
+    BufferedImage level = image;
+    // Halve large images progressively for a better quality
+    while (level.getWidth() >= 2 * width
+        || level.getHeight() >= 2 * height) {
+      level = getScaledImage(level, Math.max(width, level.getWidth() / 2),
+          Math.max(height, level.getHeight() / 2), imageType);
+    }
+    if (level.getWidth() != width
+        || level.getHeight() != height
+        || level.getType() != imageType) {
+      level = getScaledImage(level, width, height, imageType);
+    }
+    List<BufferedImage> mipmaps = new ArrayList<BufferedImage>();
+    mipmaps.add(level);
+    while (level.getWidth() > 1
+        || level.getHeight() > 1) {
+      level = getScaledImage(level, Math.max(1, level.getWidth() / 2),
+          Math.max(1, level.getHeight() / 2), imageType);
+      mipmaps.add(level);
+    }
+    return mipmaps.toArray(new BufferedImage [mipmaps.size()]);
+  }
+
+  /**
+   * Returns the power of 2 closest to the given <code>value</code>.
+   */
+  private static int getClosestPowerOf2(int value) {
+    int lowerPowerOf2 = Integer.highestOneBit(Math.max(1, value));
+    return value - lowerPowerOf2 > 2 * lowerPowerOf2 - value
+        ? 2 * lowerPowerOf2
+        : lowerPowerOf2;
+  }
+
+  /**
+   * Returns the given <code>image</code> scaled to <code>width</code> and <code>height</code>.
+   */
+  private static BufferedImage getScaledImage(BufferedImage image, int width, int height, int imageType) {
+    BufferedImage scaledImage = new BufferedImage(width, height, imageType);
+    Graphics2D g2D = (Graphics2D)scaledImage.getGraphics();
+    g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    g2D.drawImage(image, 0, 0, width, height, null);
+    g2D.dispose();
+    return scaledImage;
+  }
+
+  /**
+   * Returns a texture built with the given mipmap levels.
+   */
+  private Texture createTexture(BufferedImage [] mipmaps) {
+    boolean alpha = mipmaps [0].getColorModel().hasAlpha();
+    Texture2D texture = new Texture2D(mipmaps.length > 1 ? Texture.MULTI_LEVEL_MIPMAP : Texture.BASE_LEVEL,
+        alpha ? Texture.RGBA : Texture.RGB, mipmaps [0].getWidth(), mipmaps [0].getHeight());
+    for (int i = 0; i < mipmaps.length; i++) {
+      texture.setImage(i, new ImageComponent2D(alpha ? ImageComponent.FORMAT_RGBA : ImageComponent.FORMAT_RGB, mipmaps [i]));
+    }
+    return texture;
+  }
+
   /**
    * Returns either the <code>texture</code> in parameter or a shared texture 
    * if the same texture as the one in parameter is already shared.
@@ -312,29 +520,42 @@ public class TextureManager {
   private Texture shareTexture(final Texture texture,
                                final float   angle,
                                final Content content) {
-    ComparableTexture textureData = new ComparableTexture(texture);
+    // Remove the data of textures not used anymore, once textures evicted from cache were garbage collected
+    for (Reference<? extends Texture> reference; (reference = this.releasedTextures.poll()) != null; ) {
+      this.sharedTextures.remove(reference);
+    }
     Texture sharedTexture = null;
-    synchronized (this.textures) { // Use one mutex for both maps
-      // Search which existing key matches texture key to share unique texture
-      for (Map.Entry<Texture, ComparableTexture> entry : this.textures.entrySet()) {
-        if (textureData.equalsImage(entry.getValue())) {
-          sharedTexture = entry.getKey();
-          textureData = entry.getValue(); 
-          break;
-        }
+    ComparableTexture textureData = this.textures.get(texture);
+    if (textureData != null) {
+      sharedTexture = textureData.get();
+    }
+    if (sharedTexture == null) {
+      // Prepare texture before it's visible to other threads
+      setSharedTextureAttributesAndCapabilities(texture);
+      textureData = new ComparableTexture(texture, this.releasedTextures);
+      // Search the shared texture with the same image from the hash code of its pixels
+      ComparableTexture sharedTextureData = this.sharedTextures.putIfAbsent(textureData, textureData);
+      if (sharedTextureData != null) {
+        sharedTexture = sharedTextureData.get();
       }
       if (sharedTexture == null) {
+        // Replace shared texture data if its texture was garbage collected in the mean time
+        if (sharedTextureData != null) {
+          this.sharedTextures.put(textureData, textureData);
+        }
+        this.textures.put(texture, textureData);
         sharedTexture = texture;
-        setSharedTextureAttributesAndCapabilities(sharedTexture);
-        this.textures.put(sharedTexture, textureData);
       }
-      if (content != null) {
-        List<ComparableTextureAngleTuple> contentTexturesList = this.contentTextures.get(content);
+    }
+    if (content != null) {
+      synchronized (this.contentTextures) {
+        List<ComparableTextureAngleTuple> contentTexturesList = this.contentTextures.remove(content);
         if (contentTexturesList == null) {
           contentTexturesList = new ArrayList<ComparableTextureAngleTuple>(1);
-          this.contentTextures.put(content, contentTexturesList);
         }
-        contentTexturesList.add(new ComparableTextureAngleTuple(textureData, angle));
+        contentTexturesList.add(new ComparableTextureAngleTuple(sharedTexture, angle));
+        // Put again the list to update its size in cache
+        this.contentTextures.put(content, contentTexturesList);
       }
     }
     return sharedTexture;
@@ -363,13 +584,11 @@ public class TextureManager {
    * at least one transparent pixel.
    */
   public boolean isTextureTransparent(Texture texture) {
-    synchronized (this.textures) { // Use one mutex for both maps
-      ComparableTexture textureData = this.textures.get(texture);
-      if (textureData != null) {
-        return textureData.isTransparent();
-      }
-      return texture.getFormat() == Texture.RGBA;
+    ComparableTexture textureData = this.textures.get(texture);
+    if (textureData != null) {
+      return textureData.isTransparent();
     }
+    return texture.getFormat() == Texture.RGBA;
   }
 
   /**
@@ -438,37 +657,38 @@ public class TextureManager {
 
   /**
    * Texture used to compare textures images and ensure texture uniqueness in textures map.
-   * Image bits of the texture are stored in a weak reference to avoid grabbing memory uselessly.
+   * The texture and the image bits of the texture are stored in a weak reference to avoid
+   * grabbing memory uselessly, and the hash code of the image is computed at creation time
+   * to be able to remove this object from maps once its texture was garbage collected.
    */
-  private static class ComparableTexture {
-    private Texture               texture;
+  private static class ComparableTexture extends WeakReference<Texture> {
     private WeakReference<int []> imageBits;
-    private Integer               imageBitsHashCode;
+    private final int             imageBitsHashCode;
     private Boolean               transparent;
 
-    public ComparableTexture(Texture texture) {
-      this.texture = texture;      
+    public ComparableTexture(Texture texture, ReferenceQueue<Texture> queue) {
+      super(texture, queue);
+      this.imageBitsHashCode = Arrays.hashCode(getImageBits());
     }
-    
-    public Texture getTexture() {
-      return this.texture;
-    }
-    
+
     /**
-     * Returns the pixels of the given <code>image</code>.
+     * Returns the pixels of the given <code>image</code>,
+     * or <code>null</code> if the texture was garbage collected.
      */
-    private int [] getImageBits() {
+    private synchronized int [] getImageBits() {
       int [] imageBits = null;
       if (this.imageBits != null) {
         imageBits = this.imageBits.get();
       }
-      if (imageBits == null) {
-        BufferedImage image = ((ImageComponent2D)this.texture.getImage(0)).getImage();
+      Texture texture;
+      if (imageBits == null
+          && (texture = get()) != null) {
+        BufferedImage image = ((ImageComponent2D)texture.getImage(0)).getImage();
         if (image.getType() != BufferedImage.TYPE_INT_RGB
             && image.getType() != BufferedImage.TYPE_INT_ARGB) {
           // Transform as TYPE_INT_ARGB or TYPE_INT_RGB (much faster than calling image.getRGB())
           BufferedImage tmp = new BufferedImage(image.getWidth(), image.getHeight(), 
-              this.texture.getFormat() == Texture.RGBA ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+              texture.getFormat() == Texture.RGBA ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
           Graphics2D g = (Graphics2D)tmp.getGraphics();
           g.drawImage(image, null, 0, 0);
           g.dispose();
@@ -484,17 +704,6 @@ public class TextureManager {
       return imageBits;
     }
 
-    /**
-     * Returns an hash code for the image of the texture that allows
-     * a faster comparison and storing images bits in a weak reference.
-     */
-    private int getImageBitsHashCode() {
-      if (this.imageBitsHashCode == null) {
-        this.imageBitsHashCode = Arrays.hashCode(getImageBits());
-      }
-      return this.imageBitsHashCode;
-    }
-    
     /**
      * Returns <code>true</code> if the image contains at least a transparent pixel. 
      */
@@ -512,7 +721,7 @@ public class TextureManager {
     /**
      * Returns <code>true</code> if the image of the texture contains at least one transparent pixel.
      */
-    public boolean isTransparent() {
+    public synchronized boolean isTransparent() {
       if (this.transparent == null) {
         getImageBits();
       }
@@ -526,29 +735,41 @@ public class TextureManager {
     public boolean equalsImage(ComparableTexture comparableTexture) {
       if (this == comparableTexture) {
         return true;
-      } else if (this.texture == comparableTexture.texture) {
-        return true;
-      } else if (getImageBitsHashCode() == comparableTexture.getImageBitsHashCode()){
-        return Arrays.equals(getImageBits(), comparableTexture.getImageBits());
+      } else if (this.imageBitsHashCode == comparableTexture.imageBitsHashCode) {
+        // Textures garbage collected are equal only to themselves
+        return get() != null
+            && comparableTexture.get() != null
+            && Arrays.equals(getImageBits(), comparableTexture.getImageBits());
       }
       return false;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ComparableTexture
+          && equalsImage((ComparableTexture)obj);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.imageBitsHashCode;
+    }
   }
 
   /** 
    * A tuple that associates a texture and one of its possible rotation angle.
    */
   private static class ComparableTextureAngleTuple {
-    private ComparableTexture texture;
-    private float             angle;
+    private Texture texture;
+    private float   angle;
 
-    public ComparableTextureAngleTuple(ComparableTexture texture, float angle) {
+    public ComparableTextureAngleTuple(Texture texture, float angle) {
       this.texture = texture;
       this.angle = angle;
     }
 
     public Texture getTexture() {
-      return this.texture.getTexture();
+      return this.texture;
     }
     
     public float getAngle() {
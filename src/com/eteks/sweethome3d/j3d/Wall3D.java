@@ -78,8 +78,13 @@ public class Wall3D extends Object3DBranch {
   private static final int WALL_LEFT_SIDE  = 0;
   private static final int WALL_RIGHT_SIDE = 1;
 
-  private static Map<HomePieceOfFurniture, ModelRotationTuple> doorOrWindowRotatedModels = new WeakHashMap<HomePieceOfFurniture, ModelRotationTuple>();
-  private static Map<ModelRotationTuple, Area>                 rotatedModelsFrontAreas   = new WeakHashMap<ModelRotationTuple, Area>();
+  // Synchronized maps because they may be read by snapshot walls in worker threads
+  private static Map<HomePieceOfFurniture, ModelRotationTuple> doorOrWindowRotatedModels =
+      Collections.synchronizedMap(new WeakHashMap<HomePieceOfFurniture, ModelRotationTuple>());
+  private static Map<ModelRotationTuple, Area>                 rotatedModelsFrontAreas   =
+      Collections.synchronizedMap(new WeakHashMap<ModelRotationTuple, Area>());
+
+  private boolean doorOrWindowModelsMissing;
 
   /**
    * Creates the 3D wall matching the given home <code>wall</code>.
@@ -134,6 +139,14 @@ public class Wall3D extends Object3DBranch {
     updateWallAppearance(waitModelAndTextureLoadingEnd);
   }
 
+  /**
+   * Creates a 3D wall without shapes, only able to compute the geometries
+   * of a wall snapshot in a worker thread.
+   */
+  private Wall3D(Wall wallSnapshot, Home homeSnapshot, Wall3D wall3D) {
+    super(wallSnapshot, homeSnapshot, wall3D.getUserPreferences(), wall3D.getContext());
+  }
+
   /**
    * Returns a new wall part shape with no geometry
    * and a default appearance with a white material.
@@ -177,6 +190,54 @@ public class Wall3D extends Object3DBranch {
     updateWallAppearance(false);
   }
 
+  /**
+   * Updates the appearance of this wall and returns the task that will compute
+   * its geometry from a snapshot of the wall and of the doors and windows of its home.
+   * @since 7.5
+   */
+  @Override
+  protected GeometryUpdate update(final HomeSnapshot homeSnapshot) {
+    final Wall wall = (Wall)getUserData();
+    updateWallAppearance(false);
+    setPickable(getHome().getEnvironment().getWallsAlpha() == 0);
+    homeSnapshot.addItem(wall);
+    for (HomePieceOfFurniture piece : getHome().getFurniture()) {
+      if (!getVisibleDoorsAndWindows(Collections.singletonList(piece)).isEmpty()) {
+        homeSnapshot.addItem(piece);
+      }
+    }
+    return new GeometryUpdate() {
+        private Wall3D            wallSnapshot3D;
+        private List<Geometry> [] leftSideGeometries;
+        private List<Geometry> [] rightSideGeometries;
+        private Geometry          selectionGeometry;
+
+        public void computeGeometries() {
+          Wall wallSnapshot = homeSnapshot.getItem(wall);
+          if (wallSnapshot != null) {
+            this.wallSnapshot3D = new Wall3D(wallSnapshot, homeSnapshot.getHome(), Wall3D.this);
+            this.leftSideGeometries = this.wallSnapshot3D.createWallSideGeometries(WALL_LEFT_SIDE, false);
+            this.rightSideGeometries = this.wallSnapshot3D.createWallSideGeometries(WALL_RIGHT_SIDE, false);
+            this.selectionGeometry = this.wallSnapshot3D.createWallSelectionGeometry();
+          }
+        }
+
+        public void updateGeometries() {
+          if (this.wallSnapshot3D == null) {
+            // Wall not in home
+            update();
+          } else if (this.wallSnapshot3D.doorOrWindowModelsMissing) {
+            // Let the wall load the models of its doors or windows
+            updateWallGeometry(false);
+          } else {
+            updateWallSideGeometry(WALL_LEFT_SIDE, this.leftSideGeometries);
+            updateWallSideGeometry(WALL_RIGHT_SIDE, this.rightSideGeometries);
+            updateWallSelectionGeometry(this.selectionGeometry);
+          }
+        }
+      };
+  }
+
   /**
    * Sets the 3D geometry of this wall shapes that matches its 2D geometry.
    */
@@ -184,39 +245,37 @@ public class Wall3D extends Object3DBranch {
     updateWallSideGeometry(WALL_LEFT_SIDE, waitDoorOrWindowModelsLoadingEnd);
     updateWallSideGeometry(WALL_RIGHT_SIDE, waitDoorOrWindowModelsLoadingEnd);
     setPickable(getHome().getEnvironment().getWallsAlpha() == 0);
+    updateWallSelectionGeometry(createWallSelectionGeometry());
+  }
 
+  private void updateWallSelectionGeometry(Geometry selectionGeometry) {
     Shape3D wallSelectionShape = (Shape3D)getChild(8);
-    wallSelectionShape.addGeometry(createWallSelectionGeometry());
+    wallSelectionShape.addGeometry(selectionGeometry);
     wallSelectionShape.removeGeometry(0);
   }
 
   private void updateWallSideGeometry(int wallSide,
                                       boolean waitDoorOrWindowModelsLoadingEnd) {
+    updateWallSideGeometry(wallSide, createWallSideGeometries(wallSide, waitDoorOrWindowModelsLoadingEnd));
+  }
+
+  /**
+   * Returns the geometries of the bottom, baseboard, main and top parts of the given wall side,
+   * or <code>null</code> if the wall isn't visible.
+   */
+  private List<Geometry> [] createWallSideGeometries(int wallSide,
+                                                     boolean waitDoorOrWindowModelsLoadingEnd) {
     Wall wall = (Wall)getUserData();
-    HomeTexture wallTexture;
-    Baseboard baseboard;
-    if (wallSide == WALL_LEFT_SIDE) {
-      wallTexture = wall.getLeftSideTexture();
-      baseboard = wall.getLeftSideBaseboard();
-    } else {
-      wallTexture = wall.getRightSideTexture();
-      baseboard = wall.getRightSideBaseboard();
-    }
-    Group [] wallSideGroups = {(Group)getChild(wallSide),      // Bottom group    (0 or 1)
-                               (Group)getChild(wallSide + 2),  // Baseboard group (2 or 3)
-                               (Group)getChild(wallSide + 4),  // Main group      (4 or 5)
-                               (Group)getChild(wallSide + 6)}; // Top group       (6 or 7)
-    Shape3D [] wallFilledShapes = new Shape3D [wallSideGroups.length];
-    Shape3D [] wallOutlineShapes = new Shape3D [wallSideGroups.length];
-    int [] currentGeometriesCounts = new int [wallSideGroups.length];
-    for (int i = 0; i < wallSideGroups.length; i++) {
-      wallFilledShapes [i] = (Shape3D)wallSideGroups [i].getChild(0);
-      wallOutlineShapes [i] = wallSideGroups [i].numChildren() > 1
-          ? (Shape3D)wallSideGroups [i].getChild(1)
-          : null;
-      currentGeometriesCounts [i] = wallFilledShapes [i].numGeometries();
-    }
     if (wall.getLevel() == null || wall.getLevel().isViewableAndVisible()) {
+      HomeTexture wallTexture;
+      Baseboard baseboard;
+      if (wallSide == WALL_LEFT_SIDE) {
+        wallTexture = wall.getLeftSideTexture();
+        baseboard = wall.getLeftSideBaseboard();
+      } else {
+        wallTexture = wall.getRightSideTexture();
+        baseboard = wall.getRightSideBaseboard();
+      }
       List [] wallGeometries = {new ArrayList<Geometry>(),
                                 new ArrayList<Geometry>(),
                                 new ArrayList<Geometry>(),
@@ -234,8 +293,33 @@ public class Wall3D extends Object3DBranch {
         createWallGeometries(wallGeometries [1], wallGeometries [1], wallGeometries [1], wallSide,
             baseboard, baseboardTexture, waitDoorOrWindowModelsLoadingEnd);
       }
+      return wallGeometries;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the geometries of the given wall side by the ones in <code>wallGeometries</code>.
+   */
+  private void updateWallSideGeometry(int wallSide, List<Geometry> [] wallGeometries) {
+    Group [] wallSideGroups = {(Group)getChild(wallSide),      // Bottom group    (0 or 1)
+                               (Group)getChild(wallSide + 2),  // Baseboard group (2 or 3)
+                               (Group)getChild(wallSide + 4),  // Main group      (4 or 5)
+                               (Group)getChild(wallSide + 6)}; // Top group       (6 or 7)
+    Shape3D [] wallFilledShapes = new Shape3D [wallSideGroups.length];
+    Shape3D [] wallOutlineShapes = new Shape3D [wallSideGroups.length];
+    int [] currentGeometriesCounts = new int [wallSideGroups.length];
+    for (int i = 0; i < wallSideGroups.length; i++) {
+      wallFilledShapes [i] = (Shape3D)wallSideGroups [i].getChild(0);
+      wallOutlineShapes [i] = wallSideGroups [i].numChildren() > 1
+          ? (Shape3D)wallSideGroups [i].getChild(1)
+          : null;
+      currentGeometriesCounts [i] = wallFilledShapes [i].numGeometries();
+    }
+    if (wallGeometries != null) {
       for (int i = 0; i < wallSideGroups.length; i++) {
-        for (Geometry wallGeometry : (List<Geometry>)wallGeometries [i]) {
+        for (Geometry wallGeometry : wallGeometries [i]) {
           if (wallGeometry != null) {
             wallFilledShapes [i].addGeometry(wallGeometry);
             if (wallOutlineShapes [i] != null) {
@@ -554,11 +638,10 @@ public class Wall3D extends Object3DBranch {
                 || angleDifference > 2 * Math.PI - epsilon
                 || Math.abs(angleDifference - Math.PI) < epsilon) {
               final int frontOrBackSide = Math.abs(angleDifference - Math.PI) < epsilon ? 1 : -1;
-              ModelRotationTuple rotatedModel = doorOrWindowRotatedModels.get(doorOrWindow);
-              if (rotatedModel != null
-                  && rotatedModel.equals(doorOrWindow.getModel(), doorOrWindow.getModelRotation(), doorOrWindow.getCutOutShape())
+              Area frontArea = getCachedFrontArea(doorOrWindow);
+              if (frontArea != null
                   && (missingModels.size() == 0 || !waitDoorOrWindowModelsLoadingEnd)) {
-                createGeometriesSurroundingDoorOrWindow((HomeDoorOrWindow)doorOrWindow, rotatedModelsFrontAreas.get(rotatedModel), frontOrBackSide,
+                createGeometriesSurroundingDoorOrWindow((HomeDoorOrWindow)doorOrWindow, frontArea, frontOrBackSide,
                     wall, sideGeometries, topGeometries,
                     wallSideOrBaseboardPoints, wallElevation, cosWallYawAngle, sinWallYawAngle, topLineAlpha, topLineBeta,
                     texture, textureReferencePoint, wallSide);
@@ -569,7 +652,12 @@ public class Wall3D extends Object3DBranch {
           }
         }
       }
-      if (missingModels.size() > 0) {
+      if (missingModels.size() > 0
+          && !waitDoorOrWindowModelsLoadingEnd
+          && !EventQueue.isDispatchThread()) {
+        // Models can't be loaded asynchronously out of Event Dispatch Thread
+        this.doorOrWindowModelsMissing = true;
+      } else if (missingModels.size() > 0) {
         final ModelManager modelManager = ModelManager.getInstance();
         for (final HomeDoorOrWindow doorOrWindow : (List<HomeDoorOrWindow>)missingModels.clone()) {
           double angleDifference = Math.abs(wallYawAngle - doorOrWindow.getAngle()) % (2 * Math.PI);
@@ -596,10 +684,12 @@ public class Wall3D extends Object3DBranch {
                       // As doorOrWindowRotatedModels and rotatedModelsFrontAreas are both WeakHashMap instances,
                       // use the ModelRotationTuple key that already exists in rotatedModelsFrontAreas
                       // to avoid the deletion of the entry containing the new sibling when doorOrWindow is garbage collected
-                      for (ModelRotationTuple key : rotatedModelsFrontAreas.keySet()) {
-                        if (key.equals(rotatedModel)) {
-                          rotatedModel = key;
-                          break;
+                      synchronized (rotatedModelsFrontAreas) {
+                        for (ModelRotationTuple key : rotatedModelsFrontAreas.keySet()) {
+                          if (key.equals(rotatedModel)) {
+                            rotatedModel = key;
+                            break;
+                          }
                         }
                       }
                     }
@@ -644,6 +734,20 @@ public class Wall3D extends Object3DBranch {
     }
   }
 
+  /**
+   * Returns the front area of the model of the given door or window stored in cache
+   * or <code>null</code> if it wasn't computed yet.
+   */
+  private Area getCachedFrontArea(HomeDoorOrWindow doorOrWindow) {
+    ModelRotationTuple rotatedModel = doorOrWindowRotatedModels.get(doorOrWindow);
+    if (rotatedModel == null
+        || !rotatedModel.equals(doorOrWindow.getModel(), doorOrWindow.getModelRotation(), doorOrWindow.getCutOutShape())) {
+      // Search the front area of a door or window of a snapshot with its model and rotation
+      rotatedModel = new ModelRotationTuple(doorOrWindow.getModel(), doorOrWindow.getModelRotation(), doorOrWindow.getCutOutShape());
+    }
+    return rotatedModelsFrontAreas.get(rotatedModel);
+  }
+
   /**
    * Returns all the visible doors and windows in the given <code>furniture</code>.
    */
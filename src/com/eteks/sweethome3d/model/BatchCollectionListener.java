@@ -0,0 +1,32 @@
+/*
+ * BatchCollectionListener.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.model;
+
+/**
+ * A collection listener able to handle in one call the events about several items
+ * added or deleted at once. Listeners which don't implement this interface receive
+ * such changes as a sequence of single item events.
+ * <code>T</code> is the type of item stored in the collection.
+ * @see CollectionEvent#getItems()
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public interface BatchCollectionListener<T> extends CollectionListener<T> {
+}
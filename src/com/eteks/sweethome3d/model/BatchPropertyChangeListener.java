@@ -0,0 +1,39 @@
+/*
+ * BatchPropertyChangeListener.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+/**
+ * A property change listener able to handle at once the property changes
+ * notified at the end of a transaction started with {@link Home#beginPropertyChangeTransaction()}.
+ * Out of transactions, changes are notified to {@link #propertyChange(PropertyChangeEvent) propertyChange}.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public interface BatchPropertyChangeListener extends PropertyChangeListener {
+  /**
+   * Called once at the end of a transaction with the property changes of all the objects
+   * this listener is bound to, in the order they happened.
+   */
+  public void propertiesChanged(List<PropertyChangeEvent> events);
+}
@@ -1267,7 +1267,7 @@ public class CatalogPieceOfFurniture implements Comparable<CatalogPieceOfFurnitu
   /**
    * Returns the collation key bytes of each criterion in the given <code>filter</code>.
    */
-  private byte [][] getFilterCollationKeys(String filter) {
+  static byte [][] getFilterCollationKeys(String filter) {
     if (filter.length() == 0) {
       return EMPTY_CRITERIA;
     }
@@ -1294,7 +1294,7 @@ public class CatalogPieceOfFurniture implements Comparable<CatalogPieceOfFurnitu
   /**
    * Returns the collation key bytes used to compare the given <code>piece</code> with filter.
    */
-  private byte [] getPieceOfFurnitureCollationKey() {
+  byte [] getPieceOfFurnitureCollationKey() {
     if (this.filterCollationKey == null) {
       // Prepare filter string collation key
       StringBuilder search = new StringBuilder();
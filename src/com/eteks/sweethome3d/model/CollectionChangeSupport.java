@@ -85,4 +85,46 @@ public class CollectionChangeSupport<T> {
       }
     }
   }
+
+  /**
+   * Fires a collection event about several <code>items</code> added or deleted at once.
+   * Listeners implementing {@link BatchCollectionListener} receive a single event,
+   * and other listeners receive an event for each item, in ascending order of <code>indices</code>
+   * for added items and in descending order for deleted items, as if they had been added
+   * or deleted one after the other.
+   * @param items     the added or deleted items, sorted in the ascending order of their index
+   * @param indices   the indices at which the items were added or deleted, or <code>null</code>
+   * @param eventType <code>CollectionEvent.Type.ADD</code> or <code>CollectionEvent.Type.DELETE</code>
+   * @since 7.5
+   */
+  @SuppressWarnings("unchecked")
+  public void fireCollectionChanged(List<T> items, int [] indices,
+                                    CollectionEvent.Type eventType) {
+    if (!this.collectionListeners.isEmpty()
+        && !items.isEmpty()) {
+      CollectionEvent<T> batchEvent = new CollectionEvent<T>(this.source, items, indices, eventType);
+      CollectionEvent<T> [] itemEvents = null;
+      CollectionListener<T> [] listeners = this.collectionListeners.
+        toArray(new CollectionListener [this.collectionListeners.size()]);
+      for (CollectionListener<T> listener : listeners) {
+        if (listener instanceof BatchCollectionListener) {
+          listener.collectionChanged(batchEvent);
+        } else {
+          if (itemEvents == null) {
+            itemEvents = new CollectionEvent [items.size()];
+            for (int i = 0; i < itemEvents.length; i++) {
+              int itemIndex = eventType == CollectionEvent.Type.ADD
+                  ? i
+                  : itemEvents.length - 1 - i;
+              itemEvents [i] = new CollectionEvent<T>(this.source, items.get(itemIndex),
+                  indices != null ? indices [itemIndex] : -1, eventType);
+            }
+          }
+          for (CollectionEvent<T> event : itemEvents) {
+            listener.collectionChanged(event);
+          }
+        }
+      }
+    }
+  }
 }
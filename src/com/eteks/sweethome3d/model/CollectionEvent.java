@@ -19,7 +19,9 @@
  */
 package com.eteks.sweethome3d.model;
 
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 
 /**
  * Type of event notified when an item is added or deleted from a list.
@@ -32,9 +34,11 @@ public class CollectionEvent<T> extends EventObject {
    */
   public enum Type {ADD, DELETE}
 
-  private final T    item;
-  private final int  index;
-  private final Type type;
+  private final T       item;
+  private final int     index;
+  private final List<T> items;
+  private final int []  indices;
+  private final Type    type;
 
   /**
    * Creates an event for an item that has no index.
@@ -57,11 +61,42 @@ public class CollectionEvent<T> extends EventObject {
     super(source);
     this.item = item;
     this.index = index;
+    this.items = Collections.singletonList(item);
+    this.indices = new int [] {index};
+    this.type =  type;
+  }
+
+  /**
+   * Creates an event for several items added or deleted at once.
+   * @param source  the object to which items were added or deleted
+   * @param items   the added or deleted items
+   * @param indices the indices at which each item was added or deleted,
+   *                or <code>null</code> if unknown
+   * @param type    <code>CollectionEvent.Type.ADD</code> or <code>CollectionEvent.Type.DELETE</code>
+   * @since 7.5
+   */
+  public CollectionEvent(Object source, List<T> items, int [] indices, Type type) {
+    super(source);
+    if (items.isEmpty()) {
+      throw new IllegalArgumentException("No item");
+    }
+    this.items = Collections.unmodifiableList(items);
+    if (indices == null) {
+      indices = new int [items.size()];
+      for (int i = 0; i < indices.length; i++) {
+        indices [i] = -1;
+      }
+    } else if (indices.length != items.size()) {
+      throw new IllegalArgumentException("Indices count different from items count");
+    }
+    this.indices = indices;
+    this.item = items.get(0);
+    this.index = indices [0];
     this.type =  type;
   }
   
   /**
-   * Returns the added or deleted item.
+   * Returns the added or deleted item, or the first one if this event is about several items.
    */
   public T getItem() {
     return this.item;
@@ -74,6 +109,25 @@ public class CollectionEvent<T> extends EventObject {
     return this.index;
   }
 
+  /**
+   * Returns the added or deleted items. The list contains only the item returned
+   * by {@link #getItem() getItem} if this event isn't a multi-item event.
+   * @since 7.5
+   */
+  public List<T> getItems() {
+    return this.items;
+  }
+
+  /**
+   * Returns the index of each item returned by {@link #getItems() getItems}.
+   * For added items, indices are the ones of the items once they were all added,
+   * and for deleted items, the ones they had before they were all deleted.
+   * @since 7.5
+   */
+  public int [] getIndices() {
+    return this.indices.clone();
+  }
+
   /**
    * Returns the type of event. 
    */
@@ -31,6 +31,7 @@ public class FurnitureCatalog {
   private List<FurnitureCategory> categories = new ArrayList<FurnitureCategory>();
   private final CollectionChangeSupport<CatalogPieceOfFurniture> furnitureChangeSupport =
                              new CollectionChangeSupport<CatalogPieceOfFurniture>(this);
+  private FurnitureCatalogFilterIndex filterIndex;
 
   /**
    * Returns the categories list sorted by name.
@@ -122,6 +123,24 @@ public class FurnitureCatalog {
     throw new IllegalArgumentException("catalog doesn't contain piece " + piece.getName());
   }
 
+  /**
+   * Returns the furniture of this catalog matching the given <code>filter</code> text,
+   * sorted in ascending order. Matching pieces are searched in an index built at first call
+   * and updated as furniture is added to or deleted from this catalog.
+   * @see CatalogPieceOfFurniture#matchesFilter(String)
+   * @since 7.5
+   */
+  public List<CatalogPieceOfFurniture> getFilteredFurniture(String filter) {
+    FurnitureCatalogFilterIndex filterIndex;
+    synchronized (this) {
+      if (this.filterIndex == null) {
+        this.filterIndex = new FurnitureCatalogFilterIndex(this);
+      }
+      filterIndex = this.filterIndex;
+    }
+    return filterIndex.getFilteredFurniture(filter);
+  }
+
   /**
    * Returns the piece of furniture with the given <code>id</code> if it exists.
    * @since 7.2
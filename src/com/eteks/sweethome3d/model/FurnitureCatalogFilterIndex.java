@@ -0,0 +1,251 @@
+/*
+ * FurnitureCatalogFilterIndex.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index of the furniture of a catalog, used to search quickly the pieces
+ * matching a filter text. Pieces are indexed on the pairs of consecutive primary weights found in
+ * the collation key of their filter criteria, which makes the index insensitive to case and accents
+ * like {@link CatalogPieceOfFurniture#matchesFilter(String) matchesFilter} method.
+ * @author Emmanuel Puybaret
+ */
+class FurnitureCatalogFilterIndex implements CollectionListener<CatalogPieceOfFurniture> {
+  private final List<CatalogPieceOfFurniture>          sortedFurniture;
+  private final List<CatalogPieceOfFurniture>          indexedFurniture;
+  private final Map<CatalogPieceOfFurniture, Integer>  furnitureIds;
+  private final Map<Integer, PostingList>              postingLists;
+  private int                                          deletedPieceCount;
+
+  /**
+   * Creates the index of the furniture of the given <code>catalog</code>
+   * updated each time a piece is added or deleted from the catalog.
+   */
+  public FurnitureCatalogFilterIndex(FurnitureCatalog catalog) {
+    this.sortedFurniture = new ArrayList<CatalogPieceOfFurniture>();
+    this.indexedFurniture = new ArrayList<CatalogPieceOfFurniture>();
+    this.furnitureIds = new IdentityHashMap<CatalogPieceOfFurniture, Integer>();
+    this.postingLists = new HashMap<Integer, PostingList>();
+    for (FurnitureCategory category : catalog.getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        this.sortedFurniture.add(piece);
+        addPieceOfFurnitureToIndex(piece);
+      }
+    }
+    Collections.sort(this.sortedFurniture);
+    catalog.addFurnitureListener(this);
+  }
+
+  /**
+   * Updates this index when a piece is added or deleted from catalog.
+   */
+  public synchronized void collectionChanged(CollectionEvent<CatalogPieceOfFurniture> ev) {
+    CatalogPieceOfFurniture piece = ev.getItem();
+    if (ev.getType() == CollectionEvent.Type.ADD) {
+      int index = Collections.binarySearch(this.sortedFurniture, piece);
+      this.sortedFurniture.add(index < 0 ? -index - 1 : index, piece);
+      addPieceOfFurnitureToIndex(piece);
+    } else {
+      int index = getSortedPieceOfFurnitureIndex(piece);
+      if (index >= 0) {
+        this.sortedFurniture.remove(index);
+      }
+      Integer id = this.furnitureIds.remove(piece);
+      if (id != null) {
+        // Keep posting lists unchanged and ignore the id of the deleted piece in searches
+        this.indexedFurniture.set(id, null);
+        if (++this.deletedPieceCount > this.furnitureIds.size()) {
+          rebuildIndex();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the given <code>piece</code> in sorted furniture.
+   */
+  private int getSortedPieceOfFurnitureIndex(CatalogPieceOfFurniture piece) {
+    int index = Collections.binarySearch(this.sortedFurniture, piece);
+    if (index >= 0) {
+      // Search piece among the pieces equal to it
+      for (int i = index; i >= 0 && this.sortedFurniture.get(i).compareTo(piece) == 0; i--) {
+        if (this.sortedFurniture.get(i) == piece) {
+          return i;
+        }
+      }
+      for (int i = index + 1; i < this.sortedFurniture.size() && this.sortedFurniture.get(i).compareTo(piece) == 0; i++) {
+        if (this.sortedFurniture.get(i) == piece) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Rebuilds posting lists without the ids of deleted pieces.
+   */
+  private void rebuildIndex() {
+    this.indexedFurniture.clear();
+    this.furnitureIds.clear();
+    this.postingLists.clear();
+    this.deletedPieceCount = 0;
+    for (CatalogPieceOfFurniture piece : this.sortedFurniture) {
+      addPieceOfFurnitureToIndex(piece);
+    }
+  }
+
+  /**
+   * Adds the id of the given <code>piece</code> to the posting lists of its collation key grams.
+   */
+  private void addPieceOfFurnitureToIndex(CatalogPieceOfFurniture piece) {
+    int id = this.indexedFurniture.size();
+    this.indexedFurniture.add(piece);
+    this.furnitureIds.put(piece, id);
+    int [] grams = getCollationKeyGrams(piece.getPieceOfFurnitureCollationKey());
+    Arrays.sort(grams);
+    for (int i = 0; i < grams.length; i++) {
+      if (i == 0 || grams [i] != grams [i - 1]) {
+        PostingList postingList = this.postingLists.get(grams [i]);
+        if (postingList == null) {
+          postingList = new PostingList();
+          this.postingLists.put(grams [i], postingList);
+        }
+        postingList.add(id);
+      }
+    }
+  }
+
+  /**
+   * Returns the pairs of consecutive 16 bit primary weights of the given collation key,
+   * ignoring its last 4 bytes as {@link CatalogPieceOfFurniture} does.
+   */
+  private static int [] getCollationKeyGrams(byte [] collationKey) {
+    int weightCount = (collationKey.length - 4) / 2;
+    if (weightCount < 2) {
+      return new int [0];
+    }
+    int [] grams = new int [weightCount - 1];
+    for (int i = 0; i < grams.length; i++) {
+      grams [i] = ((collationKey [2 * i] & 0xFF) << 24)
+          | ((collationKey [2 * i + 1] & 0xFF) << 16)
+          | ((collationKey [2 * i + 2] & 0xFF) << 8)
+          | (collationKey [2 * i + 3] & 0xFF);
+    }
+    return grams;
+  }
+
+  /**
+   * Returns the indexed furniture matching the given <code>filter</code>, sorted in ascending order.
+   */
+  public synchronized List<CatalogPieceOfFurniture> getFilteredFurniture(String filter) {
+    // Intersect the posting lists of the grams of each filter criterion
+    int [] candidateIds = null;
+    for (byte [] criterionCollationKey : CatalogPieceOfFurniture.getFilterCollationKeys(filter)) {
+      for (int gram : getCollationKeyGrams(criterionCollationKey)) {
+        PostingList postingList = this.postingLists.get(gram);
+        if (postingList == null) {
+          return new ArrayList<CatalogPieceOfFurniture>();
+        } else if (candidateIds == null) {
+          candidateIds = postingList.toArray();
+        } else {
+          candidateIds = postingList.intersect(candidateIds);
+        }
+      }
+    }
+
+    List<CatalogPieceOfFurniture> filteredFurniture = new ArrayList<CatalogPieceOfFurniture>();
+    if (candidateIds == null) {
+      // Check each piece when no criterion is long enough to be searched in index
+      for (CatalogPieceOfFurniture piece : this.sortedFurniture) {
+        if (piece.matchesFilter(filter)) {
+          filteredFurniture.add(piece);
+        }
+      }
+    } else {
+      // Check candidates since grams may not be consecutive in their collation key
+      for (int id : candidateIds) {
+        CatalogPieceOfFurniture piece = this.indexedFurniture.get(id);
+        if (piece != null
+            && piece.matchesFilter(filter)) {
+          filteredFurniture.add(piece);
+        }
+      }
+      Collections.sort(filteredFurniture);
+    }
+    return filteredFurniture;
+  }
+
+  /**
+   * A list of piece ids sorted in ascending order.
+   */
+  private static class PostingList {
+    private int [] ids = new int [4];
+    private int    size;
+
+    public void add(int id) {
+      if (this.size == this.ids.length) {
+        int [] ids = new int [this.size * 2];
+        System.arraycopy(this.ids, 0, ids, 0, this.size);
+        this.ids = ids;
+      }
+      this.ids [this.size++] = id;
+    }
+
+    public int [] toArray() {
+      int [] ids = new int [this.size];
+      System.arraycopy(this.ids, 0, ids, 0, this.size);
+      return ids;
+    }
+
+    /**
+     * Returns the ids of the given sorted array that belong to this list.
+     */
+    public int [] intersect(int [] sortedIds) {
+      int [] intersection = new int [Math.min(this.size, sortedIds.length)];
+      int count = 0;
+      for (int i = 0, j = 0; i < this.size && j < sortedIds.length; ) {
+        if (this.ids [i] < sortedIds [j]) {
+          i++;
+        } else if (this.ids [i] > sortedIds [j]) {
+          j++;
+        } else {
+          intersection [count++] = this.ids [i];
+          i++;
+          j++;
+        }
+      }
+      if (count < intersection.length) {
+        int [] ids = new int [count];
+        System.arraycopy(intersection, 0, ids, 0, count);
+        return ids;
+      } else {
+        return intersection;
+      }
+    }
+  }
+}
@@ -31,8 +31,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The home managed by the application with its furniture and walls.
@@ -821,6 +823,85 @@ public class Home implements Serializable, Cloneable {
     this.furnitureChangeSupport.fireCollectionChanged(piece, index, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the <code>furniture</code> in parameter at the end of the furniture list of this home.
+   * Once the furniture is added, furniture listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added pieces if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each piece otherwise.
+   * @param furniture  the furniture to add
+   * @since 7.5
+   */
+  public void addFurniture(List<HomePieceOfFurniture> furniture) {
+    addFurniture(furniture, null);
+  }
+
+  /**
+   * Adds the <code>furniture</code> in parameter at the given <code>indices</code>.
+   * Once the furniture is added, furniture listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added pieces if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each piece otherwise.
+   * @param furniture  the furniture to add
+   * @param indices    the indices in ascending order at which each piece will be added,
+   *                   or <code>null</code> to add furniture at the end of the list
+   * @since 7.5
+   */
+  public void addFurniture(List<HomePieceOfFurniture> furniture, int [] indices) {
+    if (!furniture.isEmpty()) {
+      furniture = new ArrayList<HomePieceOfFurniture>(furniture);
+      for (HomePieceOfFurniture piece : furniture) {
+        piece.setLevel(this.selectedLevel);
+      }
+      indices = getAddedItemsIndices(this.furniture, furniture, indices);
+      this.furniture = getItemsWithAddedItems(this.furniture, furniture, indices);
+      this.furnitureChangeSupport.fireCollectionChanged(furniture, indices, CollectionEvent.Type.ADD);
+    }
+  }
+
+  /**
+   * Returns the indices of the given <code>addedItems</code>
+   * or the indices at the end of <code>items</code> if <code>indices</code> is <code>null</code>.
+   */
+  private static <T> int [] getAddedItemsIndices(List<T> items, List<T> addedItems, int [] indices) {
+    if (indices == null) {
+      indices = new int [addedItems.size()];
+      for (int i = 0; i < indices.length; i++) {
+        indices [i] = items.size() + i;
+      }
+    } else {
+      if (indices.length != addedItems.size()) {
+        throw new IllegalArgumentException("Indices count different from items count");
+      }
+      indices = indices.clone();
+      for (int i = 1; i < indices.length; i++) {
+        if (indices [i] <= indices [i - 1]) {
+          throw new IllegalArgumentException("Indices not in ascending order");
+        }
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Returns a new list containing <code>items</code> and <code>addedItems</code>
+   * inserted at the given <code>indices</code>, copying each list once.
+   */
+  private static <T> List<T> getItemsWithAddedItems(List<T> items, List<T> addedItems, int [] indices) {
+    List<T> newItems = new ArrayList<T>(items.size() + addedItems.size());
+    int itemIndex = 0;
+    for (int i = 0; i < indices.length; i++) {
+      while (newItems.size() < indices [i]) {
+        newItems.add(items.get(itemIndex++));
+      }
+      newItems.add(addedItems.get(i));
+    }
+    while (itemIndex < items.size()) {
+      newItems.add(items.get(itemIndex++));
+    }
+    return newItems;
+  }
+
   /**
    * Adds the <code>piece</code> in parameter at the <code>index</code> in the given <code>group</code>.
    * Once the <code>piece</code> is added, furniture listeners added to this home will receive a
@@ -1012,6 +1093,42 @@ public class Home implements Serializable, Cloneable {
     this.roomsChangeSupport.fireCollectionChanged(room, index, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the given <code>rooms</code> at the end of the rooms list of this home.
+   * Once the rooms are added, room listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added rooms if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each room otherwise.
+   * @param rooms  the rooms to add
+   * @since 7.5
+   */
+  public void addRooms(List<Room> rooms) {
+    addRooms(rooms, null);
+  }
+
+  /**
+   * Adds the given <code>rooms</code> at the given <code>indices</code>.
+   * Once the rooms are added, room listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added rooms if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each room otherwise.
+   * @param rooms    the rooms to add
+   * @param indices  the indices in ascending order at which each room will be added,
+   *                 or <code>null</code> to add rooms at the end of the list
+   * @since 7.5
+   */
+  public void addRooms(List<Room> rooms, int [] indices) {
+    if (!rooms.isEmpty()) {
+      rooms = new ArrayList<Room>(rooms);
+      indices = getAddedItemsIndices(this.rooms, rooms, indices);
+      this.rooms = getItemsWithAddedItems(this.rooms, rooms, indices);
+      for (Room room : rooms) {
+        room.setLevel(this.selectedLevel);
+      }
+      this.roomsChangeSupport.fireCollectionChanged(rooms, indices, CollectionEvent.Type.ADD);
+    }
+  }
+
   /**
    * Removes the given <code>room</code> from the set of rooms of this home.
    * Once the <code>room</code> is removed, room listeners added to this home will receive a
@@ -1072,6 +1189,26 @@ public class Home implements Serializable, Cloneable {
     this.wallsChangeSupport.fireCollectionChanged(wall, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the given <code>walls</code> to the set of walls of this home.
+   * Once the walls are added, wall listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added walls if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each wall otherwise.
+   * @param walls  the walls to add
+   * @since 7.5
+   */
+  public void addWalls(List<Wall> walls) {
+    if (!walls.isEmpty()) {
+      walls = new ArrayList<Wall>(walls);
+      this.walls = getItemsWithAddedItems(this.walls, walls, getAddedItemsIndices(this.walls, walls, null));
+      for (Wall wall : walls) {
+        wall.setLevel(this.selectedLevel);
+      }
+      this.wallsChangeSupport.fireCollectionChanged(walls, null, CollectionEvent.Type.ADD);
+    }
+  }
+
   /**
    * Removes the given <code>wall</code> from the set of walls of this home.
    * Once the <code>wall</code> is removed, wall listeners added to this home will receive a
@@ -1159,6 +1296,29 @@ public class Home implements Serializable, Cloneable {
     this.polylinesChangeSupport.fireCollectionChanged(polyline, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the given <code>polylines</code> at the given <code>indices</code>.
+   * Once the polylines are added, polyline listeners added to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added polylines if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each polyline otherwise.
+   * @param polylines  the polylines to add
+   * @param indices    the indices in ascending order at which each polyline will be added,
+   *                   or <code>null</code> to add polylines at the end of the list
+   * @since 7.5
+   */
+  public void addPolylines(List<Polyline> polylines, int [] indices) {
+    if (!polylines.isEmpty()) {
+      polylines = new ArrayList<Polyline>(polylines);
+      this.polylines = getItemsWithAddedItems(this.polylines, polylines,
+          getAddedItemsIndices(this.polylines, polylines, indices));
+      for (Polyline polyline : polylines) {
+        polyline.setLevel(this.selectedLevel);
+      }
+      this.polylinesChangeSupport.fireCollectionChanged(polylines, null, CollectionEvent.Type.ADD);
+    }
+  }
+
   /**
    * Removes a given <code>polyline</code> from the set of polylines of this home.
    * Once the <code>polyline</code> is removed, polyline listeners added to this home will receive a
@@ -1221,6 +1381,28 @@ public class Home implements Serializable, Cloneable {
     this.dimensionLinesChangeSupport.fireCollectionChanged(dimensionLine, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the given dimension lines to the set of dimension lines of this home.
+   * Once <code>dimensionLines</code> are added, dimension line listeners added
+   * to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added dimension lines if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each dimension line otherwise.
+   * @param dimensionLines  the dimension lines to add
+   * @since 7.5
+   */
+  public void addDimensionLines(List<DimensionLine> dimensionLines) {
+    if (!dimensionLines.isEmpty()) {
+      dimensionLines = new ArrayList<DimensionLine>(dimensionLines);
+      this.dimensionLines = getItemsWithAddedItems(this.dimensionLines, dimensionLines,
+          getAddedItemsIndices(this.dimensionLines, dimensionLines, null));
+      for (DimensionLine dimensionLine : dimensionLines) {
+        dimensionLine.setLevel(this.selectedLevel);
+      }
+      this.dimensionLinesChangeSupport.fireCollectionChanged(dimensionLines, null, CollectionEvent.Type.ADD);
+    }
+  }
+
   /**
    * Removes the given dimension line from the set of dimension lines of this home.
    * Once <code>dimensionLine</code> is removed, dimension line listeners added
@@ -1283,6 +1465,27 @@ public class Home implements Serializable, Cloneable {
     this.labelsChangeSupport.fireCollectionChanged(label, CollectionEvent.Type.ADD);
   }
 
+  /**
+   * Adds the given labels to the set of labels of this home.
+   * Once <code>labels</code> are added, label listeners added
+   * to this home will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the added labels if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each label otherwise.
+   * @param labels  the labels to add
+   * @since 7.5
+   */
+  public void addLabels(List<Label> labels) {
+    if (!labels.isEmpty()) {
+      labels = new ArrayList<Label>(labels);
+      this.labels = getItemsWithAddedItems(this.labels, labels, getAddedItemsIndices(this.labels, labels, null));
+      for (Label label : labels) {
+        label.setLevel(this.selectedLevel);
+      }
+      this.labelsChangeSupport.fireCollectionChanged(labels, null, CollectionEvent.Type.ADD);
+    }
+  }
+
   /**
    * Removes the given label from the set of labels of this home.
    * Once <code>label</code> is removed, label listeners added to this home will receive a
@@ -1304,6 +1507,151 @@ public class Home implements Serializable, Cloneable {
     }
   }
 
+  /**
+   * Deletes the given <code>items</code> from this home, copying each list of home items once.
+   * Once the items are deleted, the listeners of each kind of item will receive a
+   * {@link CollectionListener#collectionChanged(CollectionEvent) collectionChanged}
+   * notification about all the deleted items if they're {@link BatchCollectionListener batch listeners},
+   * or a notification for each item otherwise. Walls attached to deleted walls are detached from them.
+   * @param items  the furniture, walls, rooms, polylines, dimension lines and labels to delete
+   * @since 7.5
+   */
+  public void deleteItems(List<? extends Selectable> items) {
+    Set<Selectable> deletedItems = new HashSet<Selectable>(items);
+    for (Selectable item : items) {
+      if (item instanceof HomeFurnitureGroup) {
+        deletedItems.addAll(((HomeFurnitureGroup)item).getAllFurniture());
+      }
+    }
+    // Ensure selectedItems don't keep a reference to deleted items or to a child piece
+    List<Selectable> selectedItems = new ArrayList<Selectable>(this.selectedItems.size());
+    for (Selectable item : this.selectedItems) {
+      if (!deletedItems.contains(item)) {
+        selectedItems.add(item);
+      }
+    }
+    if (selectedItems.size() != this.selectedItems.size()) {
+      setSelectedItems(selectedItems);
+    }
+
+    List<HomePieceOfFurniture> deletedFurniture = getFurnitureSubList(items);
+    if (!deletedFurniture.isEmpty()) {
+      List<HomePieceOfFurniture> furniture = new ArrayList<HomePieceOfFurniture>(this.furniture.size());
+      List<HomePieceOfFurniture> deletedHomeFurniture = new ArrayList<HomePieceOfFurniture>(deletedFurniture.size());
+      int [] indices = getDeletedItemsIndices(this.furniture, deletedItems, furniture, deletedHomeFurniture);
+      if (!deletedHomeFurniture.isEmpty()) {
+        for (HomePieceOfFurniture piece : deletedHomeFurniture) {
+          piece.setLevel(null);
+        }
+        this.furniture = furniture;
+        this.furnitureChangeSupport.fireCollectionChanged(deletedHomeFurniture, indices, CollectionEvent.Type.DELETE);
+      }
+      if (deletedHomeFurniture.size() != deletedFurniture.size()) {
+        // Delete pieces belonging to groups one by one
+        deletedFurniture = new ArrayList<HomePieceOfFurniture>(deletedFurniture);
+        deletedFurniture.removeAll(deletedHomeFurniture);
+        for (HomePieceOfFurniture piece : deletedFurniture) {
+          deletePieceOfFurniture(piece);
+        }
+      }
+    }
+
+    if (!getWallsSubList(items).isEmpty()) {
+      List<Wall> walls = new ArrayList<Wall>(this.walls.size());
+      List<Wall> deletedWalls = new ArrayList<Wall>();
+      getDeletedItemsIndices(this.walls, deletedItems, walls, deletedWalls);
+      // Detach any other wall attached to deleted walls
+      for (Wall wall : this.walls) {
+        if (deletedItems.contains(wall.getWallAtStart())) {
+          wall.setWallAtStart(null);
+        }
+        if (deletedItems.contains(wall.getWallAtEnd())) {
+          wall.setWallAtEnd(null);
+        }
+      }
+      if (!deletedWalls.isEmpty()) {
+        for (Wall wall : deletedWalls) {
+          wall.setLevel(null);
+        }
+        this.walls = walls;
+        this.wallsChangeSupport.fireCollectionChanged(deletedWalls, null, CollectionEvent.Type.DELETE);
+      }
+    }
+
+    if (!getRoomsSubList(items).isEmpty()) {
+      List<Room> rooms = new ArrayList<Room>(this.rooms.size());
+      List<Room> deletedRooms = new ArrayList<Room>();
+      int [] indices = getDeletedItemsIndices(this.rooms, deletedItems, rooms, deletedRooms);
+      if (!deletedRooms.isEmpty()) {
+        for (Room room : deletedRooms) {
+          room.setLevel(null);
+        }
+        this.rooms = rooms;
+        this.roomsChangeSupport.fireCollectionChanged(deletedRooms, indices, CollectionEvent.Type.DELETE);
+      }
+    }
+
+    if (!getPolylinesSubList(items).isEmpty()) {
+      List<Polyline> polylines = new ArrayList<Polyline>(this.polylines.size());
+      List<Polyline> deletedPolylines = new ArrayList<Polyline>();
+      getDeletedItemsIndices(this.polylines, deletedItems, polylines, deletedPolylines);
+      if (!deletedPolylines.isEmpty()) {
+        for (Polyline polyline : deletedPolylines) {
+          polyline.setLevel(null);
+        }
+        this.polylines = polylines;
+        this.polylinesChangeSupport.fireCollectionChanged(deletedPolylines, null, CollectionEvent.Type.DELETE);
+      }
+    }
+
+    if (!getDimensionLinesSubList(items).isEmpty()) {
+      List<DimensionLine> dimensionLines = new ArrayList<DimensionLine>(this.dimensionLines.size());
+      List<DimensionLine> deletedDimensionLines = new ArrayList<DimensionLine>();
+      getDeletedItemsIndices(this.dimensionLines, deletedItems, dimensionLines, deletedDimensionLines);
+      if (!deletedDimensionLines.isEmpty()) {
+        for (DimensionLine dimensionLine : deletedDimensionLines) {
+          dimensionLine.setLevel(null);
+        }
+        this.dimensionLines = dimensionLines;
+        this.dimensionLinesChangeSupport.fireCollectionChanged(deletedDimensionLines, null, CollectionEvent.Type.DELETE);
+      }
+    }
+
+    if (!getLabelsSubList(items).isEmpty()) {
+      List<Label> labels = new ArrayList<Label>(this.labels.size());
+      List<Label> deletedLabels = new ArrayList<Label>();
+      getDeletedItemsIndices(this.labels, deletedItems, labels, deletedLabels);
+      if (!deletedLabels.isEmpty()) {
+        for (Label label : deletedLabels) {
+          label.setLevel(null);
+        }
+        this.labels = labels;
+        this.labelsChangeSupport.fireCollectionChanged(deletedLabels, null, CollectionEvent.Type.DELETE);
+      }
+    }
+  }
+
+  /**
+   * Dispatches <code>items</code> between <code>keptItems</code> and <code>removedItems</code>
+   * lists and returns the indices of the removed items in <code>items</code>.
+   */
+  private static <T> int [] getDeletedItemsIndices(List<T> items, Set<Selectable> deletedItems,
+                                                   List<T> keptItems, List<T> removedItems) {
+    int [] indices = new int [items.size()];
+    for (int i = 0; i < indices.length; i++) {
+      T item = items.get(i);
+      if (deletedItems.contains(item)) {
+        indices [removedItems.size()] = i;
+        removedItems.add(item);
+      } else {
+        keptItems.add(item);
+      }
+    }
+    int [] removedItemsIndices = new int [removedItems.size()];
+    System.arraycopy(indices, 0, removedItemsIndices, 0, removedItemsIndices.length);
+    return removedItemsIndices;
+  }
+
   /**
    * Returns all the selectable and viewable items in this home, except the observer camera.
    * @return a list containing viewable walls, rooms, furniture, dimension lines, polylines, labels and compass.
@@ -1388,6 +1736,30 @@ public class Home implements Serializable, Cloneable {
         && this.labels.isEmpty();
   }
 
+  /**
+   * Starts a transaction that defers the notifications of the property changes of the walls, rooms,
+   * furniture and other home objects modified by the current thread, until the matching call to
+   * {@link #endPropertyChangeTransaction() endPropertyChangeTransaction}. Transactions may be nested,
+   * and should be ended in a <code>finally</code> block.
+   * @since 7.5
+   */
+  public void beginPropertyChangeTransaction() {
+    PropertyChangeTransaction.begin();
+  }
+
+  /**
+   * Ends the transaction started with {@link #beginPropertyChangeTransaction() beginPropertyChangeTransaction}.
+   * Once the outermost transaction is ended, the changes of each property of a home object are merged
+   * in one event notified to the listeners still bound to that object, and
+   * {@link BatchPropertyChangeListener batch listeners} receive all their events in one call.
+   * Changes of the properties of this home itself aren't deferred.
+   * @throws IllegalStateException if no transaction was started in the current thread
+   * @since 7.5
+   */
+  public void endPropertyChangeTransaction() {
+    PropertyChangeTransaction.end();
+  }
+
   /**
    * Adds the property change <code>listener</code> in parameter to this home.
    * Properties change will be notified with an event of {@link PropertyChangeEvent} class which property name
@@ -1897,6 +2269,23 @@ public class Home implements Serializable, Cloneable {
     return this.properties.keySet();
   }
 
+  /**
+   * Adds the property change <code>listener</code> in parameter to this home for all its properties,
+   * including the ones set with {@link #setProperty(String, String) setProperty}.
+   * @since 7.5
+   */
+  public void addPropertyChangeListener(PropertyChangeListener listener) {
+    this.propertyChangeSupport.addPropertyChangeListener(listener);
+  }
+
+  /**
+   * Removes the property change <code>listener</code> in parameter from this home.
+   * @since 7.5
+   */
+  public void removePropertyChangeListener(PropertyChangeListener listener) {
+    this.propertyChangeSupport.removePropertyChangeListener(listener);
+  }
+
   /**
    * Adds the property change <code>listener</code> in parameter to this home for a specific property name.
    * Properties set with {@link #setProperty(String, String) setProperty} will be notified with
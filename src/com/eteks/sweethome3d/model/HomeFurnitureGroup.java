@@ -30,6 +30,7 @@ import java.io.ObjectInputStream;
 import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -273,7 +274,7 @@ public class HomeFurnitureGroup extends HomePieceOfFurniture {
    * This listener is bound to this group with a weak reference to avoid a strong link
    * of this group towards the furniture it contains.
    */
-  private static class LocationAndSizeChangeListener implements PropertyChangeListener {
+  private static class LocationAndSizeChangeListener implements BatchPropertyChangeListener {
     private WeakReference<HomeFurnitureGroup> group;
 
     public LocationAndSizeChangeListener(HomeFurnitureGroup group) {
@@ -281,18 +282,30 @@ public class HomeFurnitureGroup extends HomePieceOfFurniture {
     }
 
     public void propertyChange(PropertyChangeEvent ev) {
+      propertiesChanged(Arrays.asList(new PropertyChangeEvent [] {ev}));
+    }
+
+    public void propertiesChanged(List<PropertyChangeEvent> events) {
       // If the group was garbage collected, remove this listener from furniture
       final HomeFurnitureGroup group = this.group.get();
       if (group == null) {
-        ((HomePieceOfFurniture)ev.getSource()).removePropertyChangeListener(this);
-      } else if (HomePieceOfFurniture.Property.X.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.Y.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.ELEVATION.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.ANGLE.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.WIDTH_IN_PLAN.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.DEPTH_IN_PLAN.name().equals(ev.getPropertyName())
-          || HomePieceOfFurniture.Property.HEIGHT_IN_PLAN.name().equals(ev.getPropertyName())) {
-        group.updateLocationAndSize(group.getFurniture(), group.getAngle(), false);
+        for (PropertyChangeEvent ev : events) {
+          ((HomePieceOfFurniture)ev.getSource()).removePropertyChangeListener(this);
+        }
+      } else {
+        for (PropertyChangeEvent ev : events) {
+          if (HomePieceOfFurniture.Property.X.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.Y.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.ELEVATION.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.ANGLE.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.WIDTH_IN_PLAN.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.DEPTH_IN_PLAN.name().equals(ev.getPropertyName())
+              || HomePieceOfFurniture.Property.HEIGHT_IN_PLAN.name().equals(ev.getPropertyName())) {
+            // Update group once for all the changes of its children
+            group.updateLocationAndSize(group.getFurniture(), group.getAngle(), false);
+            break;
+          }
+        }
       }
     }
   }
@@ -21,14 +21,18 @@ package com.eteks.sweethome3d.model;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
 import java.beans.PropertyChangeSupport;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -155,11 +159,39 @@ public abstract class HomeObject implements Serializable, Cloneable {
 
   /**
    * Fires a property change of {@link PropertyChangeEvent} class to listeners.
+   * If a transaction was started in the current thread with {@link Home#beginPropertyChangeTransaction()},
+   * the change is notified at the end of the transaction.
    * @since 6.4
    */
   protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
     if (this.propertyChangeSupport != null) {
-      this.propertyChangeSupport.firePropertyChange(propertyName, oldValue, newValue);
+      PropertyChangeTransaction transaction = PropertyChangeTransaction.getCurrentTransaction();
+      if (transaction != null) {
+        transaction.addPropertyChange(this, propertyName, oldValue, newValue,
+            getPropertyChangeListeners(propertyName));
+      } else {
+        this.propertyChangeSupport.firePropertyChange(propertyName, oldValue, newValue);
+      }
+    }
+  }
+
+  /**
+   * Returns the listeners notified of the changes of the given property,
+   * in the order they're notified.
+   */
+  PropertyChangeListener [] getPropertyChangeListeners(String propertyName) {
+    if (this.propertyChangeSupport == null) {
+      return new PropertyChangeListener [0];
+    } else {
+      List<PropertyChangeListener> listeners = new ArrayList<PropertyChangeListener>();
+      for (PropertyChangeListener listener : this.propertyChangeSupport.getPropertyChangeListeners()) {
+        // Listeners bound to a property are returned by PropertyChangeSupport as proxies
+        if (!(listener instanceof PropertyChangeListenerProxy)) {
+          listeners.add(listener);
+        }
+      }
+      listeners.addAll(Arrays.asList(this.propertyChangeSupport.getPropertyChangeListeners(propertyName)));
+      return listeners.toArray(new PropertyChangeListener [listeners.size()]);
     }
   }
 
@@ -0,0 +1,164 @@
+/*
+ * PropertyChangeTransaction.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The property changes of home objects deferred by the current thread
+ * until the end of a transaction.
+ * @author Emmanuel Puybaret
+ */
+class PropertyChangeTransaction {
+  private static final ThreadLocal<PropertyChangeTransaction> currentTransaction =
+      new ThreadLocal<PropertyChangeTransaction>();
+
+  private int                                                 depth;
+  private final List<PropertyChange>                          changes;
+  private final Map<HomeObject, Map<String, PropertyChange>>  objectsChanges;
+
+  private PropertyChangeTransaction() {
+    this.changes = new ArrayList<PropertyChange>();
+    this.objectsChanges = new IdentityHashMap<HomeObject, Map<String, PropertyChange>>();
+  }
+
+  /**
+   * Starts a transaction in the current thread or a nested one if a transaction is already started.
+   */
+  public static void begin() {
+    PropertyChangeTransaction transaction = currentTransaction.get();
+    if (transaction == null) {
+      transaction = new PropertyChangeTransaction();
+      currentTransaction.set(transaction);
+    }
+    transaction.depth++;
+  }
+
+  /**
+   * Ends the current transaction and notifies deferred changes if it's not a nested transaction.
+   * @throws IllegalStateException if no transaction was started in the current thread
+   */
+  public static void end() {
+    PropertyChangeTransaction transaction = currentTransaction.get();
+    if (transaction == null) {
+      throw new IllegalStateException("No transaction started");
+    }
+    if (--transaction.depth == 0) {
+      // Remove transaction before notifying listeners to let them change other properties
+      currentTransaction.remove();
+      transaction.fireChanges();
+    }
+  }
+
+  /**
+   * Returns the transaction started in the current thread or <code>null</code>.
+   */
+  public static PropertyChangeTransaction getCurrentTransaction() {
+    return currentTransaction.get();
+  }
+
+  /**
+   * Records the change of the property of the given <code>source</code>, merging it
+   * with a previous change of the same property.
+   */
+  public void addPropertyChange(HomeObject source, String propertyName, Object oldValue, Object newValue,
+                                PropertyChangeListener [] listeners) {
+    Map<String, PropertyChange> objectChanges = this.objectsChanges.get(source);
+    if (objectChanges == null) {
+      objectChanges = new HashMap<String, PropertyChange>();
+      this.objectsChanges.put(source, objectChanges);
+    }
+    PropertyChange change = objectChanges.get(propertyName);
+    if (change == null) {
+      change = new PropertyChange(source, propertyName, oldValue);
+      objectChanges.put(propertyName, change);
+      this.changes.add(change);
+    }
+    change.newValue = newValue;
+    for (PropertyChangeListener listener : listeners) {
+      if (!change.listeners.contains(listener)) {
+        change.listeners.add(listener);
+      }
+    }
+  }
+
+  /**
+   * Notifies the recorded changes to the listeners that were bound to their source
+   * when a change happened and that are still bound to it.
+   */
+  private void fireChanges() {
+    Map<BatchPropertyChangeListener, List<PropertyChangeEvent>> batchEvents =
+        new IdentityHashMap<BatchPropertyChangeListener, List<PropertyChangeEvent>>();
+    List<BatchPropertyChangeListener> batchListeners = new ArrayList<BatchPropertyChangeListener>();
+    for (PropertyChange change : this.changes) {
+      if (change.oldValue == null
+          || !change.oldValue.equals(change.newValue)) {
+        PropertyChangeEvent event = new PropertyChangeEvent(change.source,
+            change.propertyName, change.oldValue, change.newValue);
+        List<PropertyChangeListener> boundListeners = new ArrayList<PropertyChangeListener>();
+        for (PropertyChangeListener listener : change.source.getPropertyChangeListeners(change.propertyName)) {
+          boundListeners.add(listener);
+        }
+        for (PropertyChangeListener listener : change.listeners) {
+          if (boundListeners.contains(listener)) {
+            if (listener instanceof BatchPropertyChangeListener) {
+              List<PropertyChangeEvent> events = batchEvents.get(listener);
+              if (events == null) {
+                events = new ArrayList<PropertyChangeEvent>();
+                batchEvents.put((BatchPropertyChangeListener)listener, events);
+                batchListeners.add((BatchPropertyChangeListener)listener);
+              }
+              events.add(event);
+            } else {
+              listener.propertyChange(event);
+            }
+          }
+        }
+      }
+    }
+    for (BatchPropertyChangeListener listener : batchListeners) {
+      listener.propertiesChanged(batchEvents.get(listener));
+    }
+  }
+
+  /**
+   * The merged changes of a property.
+   */
+  private static class PropertyChange {
+    private final HomeObject                   source;
+    private final String                       propertyName;
+    private final Object                       oldValue;
+    private Object                             newValue;
+    private final List<PropertyChangeListener> listeners;
+
+    public PropertyChange(HomeObject source, String propertyName, Object oldValue) {
+      this.source = source;
+      this.propertyName = propertyName;
+      this.oldValue = oldValue;
+      this.listeners = new ArrayList<PropertyChangeListener>(2);
+    }
+  }
+}
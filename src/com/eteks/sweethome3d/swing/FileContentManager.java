@@ -84,8 +84,9 @@ import com.eteks.sweethome3d.viewcontroller.View;
  */
 public class FileContentManager implements ContentManager {
   private static final String OBJ_EXTENSION = ".obj";
+  private static final String GLB_EXTENSION = ".glb";
   /**
-   * Supported OBJ filter.
+   * Supported OBJ filters.
    */
   private static final FileFilter [] OBJ_FILTER = {
       new FileFilter() {
@@ -100,6 +101,19 @@ public class FileContentManager implements ContentManager {
         public String getDescription() {
           return "OBJ - Wavefront";
         }
+      },
+      new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+          // Accept directories and .glb files
+          return file.isDirectory()
+              || file.getName().toLowerCase().endsWith(GLB_EXTENSION);
+        }
+
+        @Override
+        public String getDescription() {
+          return "GLB - Binary glTF";
+        }
       }};
   /**
    * Supported 3D model file filters.
@@ -469,7 +483,7 @@ public class FileContentManager implements ContentManager {
     this.fileExtensions.put(ContentType.PDF,               new String [] {PDF_EXTENSION});
     this.fileExtensions.put(ContentType.CSV,               new String [] {CSV_EXTENSION});
     this.fileExtensions.put(ContentType.SVG,               new String [] {SVG_EXTENSION});
-    this.fileExtensions.put(ContentType.OBJ,               new String [] {OBJ_EXTENSION});
+    this.fileExtensions.put(ContentType.OBJ,               new String [] {OBJ_EXTENSION, GLB_EXTENSION});
     this.fileExtensions.put(ContentType.MODEL,
         new String [] {OBJ_EXTENSION, LWS_EXTENSION, THREEDS_EXTENSION, DAE_EXTENSION, ZIP_EXTENSION, KMZ_EXTENSION});
     this.fileExtensions.put(ContentType.IMAGE,
@@ -647,7 +661,12 @@ public class FileContentManager implements ContentManager {
     boolean addedExtension = false;
     if (savedPath != null) {
       if (defaultExtension != null) {
-        if (!savedPath.toLowerCase().endsWith(defaultExtension)) {
+        boolean supportedExtension = savedPath.toLowerCase().endsWith(defaultExtension);
+        if (contentType == ContentType.OBJ) {
+          // Keep GLB extension chosen by user for 3D export
+          supportedExtension |= savedPath.toLowerCase().endsWith(GLB_EXTENSION);
+        }
+        if (!supportedExtension) {
           savedPath += defaultExtension;
           addedExtension = true;
         }
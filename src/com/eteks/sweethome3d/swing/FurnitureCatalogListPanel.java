@@ -50,7 +50,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import javax.accessibility.AccessibleRole;
@@ -859,18 +858,18 @@ public class FurnitureCatalogListPanel extends JPanel implements View {
 
     private void checkFurnitureList() {
       if (this.furniture == null) {
-        this.furniture = new ArrayList<CatalogPieceOfFurniture>();
-        this.furniture.clear();
-        for (FurnitureCategory category : this.catalog.getCategories()) {
-          for (CatalogPieceOfFurniture piece : category.getFurniture()) {
-            if ((this.filterCategory == null
-                  || piece.getCategory().equals(this.filterCategory))
-                && piece.matchesFilter(this.filterText)) {
-              furniture.add(piece);
+        // Search sorted furniture matching filter text in catalog index
+        List<CatalogPieceOfFurniture> filteredFurniture = this.catalog.getFilteredFurniture(this.filterText);
+        if (this.filterCategory == null) {
+          this.furniture = filteredFurniture;
+        } else {
+          this.furniture = new ArrayList<CatalogPieceOfFurniture>();
+          for (CatalogPieceOfFurniture piece : filteredFurniture) {
+            if (piece.getCategory().equals(this.filterCategory)) {
+              this.furniture.add(piece);
             }
           }
         }
-        Collections.sort(this.furniture);
       }
     }
 
@@ -68,6 +68,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -116,6 +117,8 @@ import javax.swing.tree.TreeCellRenderer;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
+import com.eteks.sweethome3d.model.BatchCollectionListener;
+import com.eteks.sweethome3d.model.BatchPropertyChangeListener;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
 import com.eteks.sweethome3d.model.Content;
@@ -143,6 +146,8 @@ import com.eteks.sweethome3d.viewcontroller.FurnitureView;
 public class FurnitureTable extends JTable implements FurnitureView, Printable {
   private static final String EXPANDED_ROWS_VISUAL_PROPERTY = "com.eteks.sweethome3d.SweetHome3D.ExpandedGroups";
   private static final String COLUMN_WIDTHS_VISUAL_PROPERTY = "com.eteks.sweethome3d.SweetHome3D.ColumnWidths";
+  // Count of modified pieces above which it's faster to filter and sort all the furniture again
+  private static final int    MAX_INCREMENTALLY_UPDATED_PIECES = 16;
 
   private UserPreferences        preferences;
   private ListSelectionListener  tableSelectionListener;
@@ -696,13 +701,40 @@ public class FurnitureTable extends JTable implements FurnitureView, Printable {
     home.addPropertyChangeListener(Home.Property.FURNITURE_DESCENDING_SORTED, sortListener);
 
     final PropertyChangeListener changeListener =
-      new PropertyChangeListener () {
+      new BatchPropertyChangeListener () {
         public void propertyChange(PropertyChangeEvent ev) {
-          // As furniture properties values change may alter sort order and filter, update the whole table
-          ((FurnitureTreeTableModel)getModel()).filterAndSortFurniture();
-          // Update selected rows
-          updateTableSelectedFurniture(home);
-          storeExpandedRows(home, controller);
+          propertiesChanged(Arrays.asList(new PropertyChangeEvent [] {ev}));
+        }
+
+        public void propertiesChanged(List<PropertyChangeEvent> events) {
+          FurnitureTreeTableModel tableModel = (FurnitureTreeTableModel)getModel();
+          Set<HomePieceOfFurniture> modifiedPieces = new LinkedHashSet<HomePieceOfFurniture>();
+          for (PropertyChangeEvent ev : events) {
+            if (ev.getSource() instanceof HomePieceOfFurniture
+                && !HomePieceOfFurniture.Property.LEVEL.name().equals(ev.getPropertyName())) {
+              modifiedPieces.add((HomePieceOfFurniture)ev.getSource());
+            } else {
+              // Level changes may alter the viewable furniture
+              modifiedPieces = null;
+              break;
+            }
+          }
+          boolean rowsChanged = true;
+          if (modifiedPieces != null
+              && modifiedPieces.size() <= MAX_INCREMENTALLY_UPDATED_PIECES) {
+            // Update only the rows of modified pieces
+            rowsChanged = false;
+            for (HomePieceOfFurniture piece : modifiedPieces) {
+              rowsChanged |= tableModel.updatePieceOfFurniture(piece);
+            }
+          } else {
+            tableModel.filterAndSortFurniture();
+          }
+          if (rowsChanged) {
+            // Update selected rows
+            updateTableSelectedFurniture(home);
+            storeExpandedRows(home, controller);
+          }
         }
       };
     for (HomePieceOfFurniture piece : home.getFurniture()) {
@@ -713,21 +745,22 @@ public class FurnitureTable extends JTable implements FurnitureView, Printable {
         }
       }
     }
-    home.addFurnitureListener(new CollectionListener<HomePieceOfFurniture>() {
+    home.addFurnitureListener(new BatchCollectionListener<HomePieceOfFurniture>() {
       public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
-          HomePieceOfFurniture piece = ev.getItem();
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            piece.addPropertyChangeListener(changeListener);
-            if (piece instanceof HomeFurnitureGroup) {
-              for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
-                childPiece.addPropertyChangeListener(changeListener);
+          for (HomePieceOfFurniture piece : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              piece.addPropertyChangeListener(changeListener);
+              if (piece instanceof HomeFurnitureGroup) {
+                for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
+                  childPiece.addPropertyChangeListener(changeListener);
+                }
               }
-            }
-          } else {
-            piece.removePropertyChangeListener(changeListener);
-            if (piece instanceof HomeFurnitureGroup) {
-              for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
-                childPiece.removePropertyChangeListener(changeListener);
+            } else {
+              piece.removePropertyChangeListener(changeListener);
+              if (piece instanceof HomeFurnitureGroup) {
+                for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
+                  childPiece.removePropertyChangeListener(changeListener);
+                }
               }
             }
           }
@@ -2652,45 +2685,53 @@ public class FurnitureTable extends JTable implements FurnitureView, Printable {
     }
 
     private void addHomeListener(final Home home) {
-      home.addFurnitureListener(new CollectionListener<HomePieceOfFurniture>() {
+      home.addFurnitureListener(new BatchCollectionListener<HomePieceOfFurniture>() {
           public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
-            HomePieceOfFurniture piece = ev.getItem();
-            int pieceIndex = ev.getIndex();
-            switch (ev.getType()) {
-              case ADD :
-                if (!expandedGroups.isEmpty()
-                    || containsNotViewableFurniture
-                    || pieceIndex < 0) {
-                  filterAndSortFurniture();
-                } else {
-                  int insertionIndex = getPieceOfFurnitureInsertionIndex(piece, home, pieceIndex);
-                  if (insertionIndex != -1) {
-                    filteredAndSortedFurniture.add(insertionIndex, piece);
-                    fireTableRowsInserted(insertionIndex, insertionIndex);
-                    fireTreeModelChanged();
-                  }
-                }
-                break;
-              case DELETE :
-                if (furnitureFilter != null
-                    || pieceIndex < 0) {
-                  filterAndSortFurniture();
-                } else {
-                  int deletionIndex = getPieceOfFurnitureDeletionIndex(piece, home, pieceIndex);
-                  if (deletionIndex != -1) {
-                    if (expandedGroups.contains(piece)) {
-                      filterAndSortFurniture();
-                    } else {
-                      filteredAndSortedFurniture.remove(deletionIndex);
-                      fireTableRowsDeleted(deletionIndex, deletionIndex);
+            if (ev.getItems().size() > 1) {
+              // Filter and sort furniture once when several pieces are added or deleted
+              if (ev.getType() == CollectionEvent.Type.DELETE) {
+                expandedGroups.removeAll(ev.getItems());
+              }
+              filterAndSortFurniture();
+            } else {
+              HomePieceOfFurniture piece = ev.getItem();
+              int pieceIndex = ev.getIndex();
+              switch (ev.getType()) {
+                case ADD :
+                  if (!expandedGroups.isEmpty()
+                      || containsNotViewableFurniture
+                      || pieceIndex < 0) {
+                    filterAndSortFurniture();
+                  } else {
+                    int insertionIndex = getPieceOfFurnitureInsertionIndex(piece, home, pieceIndex);
+                    if (insertionIndex != -1) {
+                      filteredAndSortedFurniture.add(insertionIndex, piece);
+                      fireTableRowsInserted(insertionIndex, insertionIndex);
                       fireTreeModelChanged();
                     }
                   }
-                }
-                if (piece instanceof HomeFurnitureGroup) {
-                  expandedGroups.remove(piece);
-                }
-                break;
+                  break;
+                case DELETE :
+                  if (furnitureFilter != null
+                      || pieceIndex < 0) {
+                    filterAndSortFurniture();
+                  } else {
+                    int deletionIndex = getPieceOfFurnitureDeletionIndex(piece, home, pieceIndex);
+                    if (deletionIndex != -1) {
+                      if (expandedGroups.contains(piece)) {
+                        filterAndSortFurniture();
+                      } else {
+                        filteredAndSortedFurniture.remove(deletionIndex);
+                        fireTableRowsDeleted(deletionIndex, deletionIndex);
+                        fireTreeModelChanged();
+                      }
+                    }
+                  }
+                  if (piece instanceof HomeFurnitureGroup) {
+                    expandedGroups.remove(piece);
+                  }
+                  break;
+              }
             }
           }
 
@@ -2811,6 +2852,97 @@ public class FurnitureTable extends JTable implements FurnitureView, Printable {
       fireTreeModelChanged();
     }
 
+    /**
+     * Updates the row of the given <code>piece</code> after one of its properties changed.
+     * If the piece stays at its place in sort order, only its row is updated, otherwise
+     * its row is moved to the index found by binary search, or all the furniture is filtered
+     * and sorted again when expanded groups or filter don't allow incremental changes.
+     * The rows of the groups containing <code>piece</code> are updated too, because some of their
+     * values like price are computed from their children.
+     * @return <code>true</code> if the order or the count of rows changed
+     */
+    public boolean updatePieceOfFurniture(HomePieceOfFurniture piece) {
+      List<HomePieceOfFurniture> furniture = this.filteredAndSortedFurniture;
+      boolean rowsChanged = updatePieceOfFurnitureRow(piece);
+      // Stop once all rows were filtered and sorted again
+      for (HomeFurnitureGroup group = getPieceOfFurnitureGroup(piece, null, this.home.getFurniture());
+           group != null && furniture == this.filteredAndSortedFurniture;
+           group = getPieceOfFurnitureGroup(group, null, this.home.getFurniture())) {
+        rowsChanged |= updatePieceOfFurnitureRow(group);
+      }
+      return rowsChanged;
+    }
+
+    /**
+     * Returns the furniture group that contains the given <code>piece</code> or <code>null</code> if it can't be found.
+     */
+    private HomeFurnitureGroup getPieceOfFurnitureGroup(HomePieceOfFurniture piece,
+                                                        HomeFurnitureGroup furnitureGroup,
+                                                        List<HomePieceOfFurniture> furniture) {
+      for (HomePieceOfFurniture homePiece : furniture) {
+        if (homePiece == piece) {
+          return furnitureGroup;
+        } else if (homePiece instanceof HomeFurnitureGroup) {
+          HomeFurnitureGroup group = getPieceOfFurnitureGroup(piece,
+              (HomeFurnitureGroup)homePiece, ((HomeFurnitureGroup)homePiece).getFurniture());
+          if (group != null) {
+            return group;
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Updates the row of the given <code>piece</code> if it's listed in the table.
+     */
+    private boolean updatePieceOfFurnitureRow(HomePieceOfFurniture piece) {
+      int rowIndex = getPieceOfFurnitureIndex(piece);
+      boolean included = this.furnitureFilter == null
+          || this.furnitureFilter.include(this.home, piece);
+      if (rowIndex == -1) {
+        if (included && this.furnitureFilter != null) {
+          // Piece excluded by filter may have to be listed now
+          filterAndSortFurniture();
+          return true;
+        } else {
+          // Piece is in a collapsed group or at a level not viewable
+          return false;
+        }
+      } else if (!included) {
+        filterAndSortFurniture();
+        return true;
+      } else if (this.home.getFurnitureSortedPropertyName() == null) {
+        fireTableRowsUpdated(rowIndex, rowIndex);
+        return false;
+      } else if (!this.expandedGroups.isEmpty()) {
+        // Sorted rows mix the furniture of expanded groups
+        filterAndSortFurniture();
+        return true;
+      } else {
+        Comparator<HomePieceOfFurniture> furnitureComparator = getFurnitureComparator(this.home);
+        if ((rowIndex == 0
+              || furnitureComparator.compare(this.filteredAndSortedFurniture.get(rowIndex - 1), piece) <= 0)
+            && (rowIndex == this.filteredAndSortedFurniture.size() - 1
+              || furnitureComparator.compare(piece, this.filteredAndSortedFurniture.get(rowIndex + 1)) <= 0)) {
+          fireTableRowsUpdated(rowIndex, rowIndex);
+          return false;
+        } else {
+          // Move piece row to its new sorted index, updating rows in between
+          // rather than deleting then inserting it to keep table selection unchanged
+          this.filteredAndSortedFurniture.remove(rowIndex);
+          int insertionIndex = Collections.binarySearch(this.filteredAndSortedFurniture, piece, furnitureComparator);
+          if (insertionIndex < 0) {
+            insertionIndex = -(insertionIndex + 1);
+          }
+          this.filteredAndSortedFurniture.add(insertionIndex, piece);
+          fireTableRowsUpdated(Math.min(rowIndex, insertionIndex), Math.max(rowIndex, insertionIndex));
+          fireTreeNodeMoved(piece, rowIndex, insertionIndex);
+          return true;
+        }
+      }
+    }
+
     /**
      * Returns a filtered and sorted list of the given <code>furniture</code>.
      */
@@ -3040,6 +3172,24 @@ public class FurnitureTable extends JTable implements FurnitureView, Printable {
       }
     }
 
+    /**
+     * Moves the given root <code>piece</code> in the cached tree nodes and notifies tree listeners.
+     */
+    private void fireTreeNodeMoved(HomePieceOfFurniture piece, int oldIndex, int newIndex) {
+      List<HomePieceOfFurniture> rootFurniture = this.childFurnitureCache.get(this.home);
+      if (rootFurniture != null) {
+        rootFurniture.remove(oldIndex);
+        rootFurniture.add(newIndex, piece);
+      }
+      TreePath rootPath = new TreePath(this.home);
+      for (TreeModelListener listener : this.treeModelListeners) {
+        listener.treeNodesRemoved(new TreeModelEvent(this, rootPath, new int [] {oldIndex}, new Object [] {piece}));
+      }
+      for (TreeModelListener listener : this.treeModelListeners) {
+        listener.treeNodesInserted(new TreeModelEvent(this, rootPath, new int [] {newIndex}, new Object [] {piece}));
+      }
+    }
+
     /**
      * Returns <code>true</code> if the furniture group at the given row should be expanded.
      */
@@ -75,6 +75,7 @@ import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -147,9 +148,12 @@ import com.eteks.sweethome3d.j3d.Ground3D;
 import com.eteks.sweethome3d.j3d.HomePieceOfFurniture3D;
 import com.eteks.sweethome3d.j3d.ModelManager;
 import com.eteks.sweethome3d.j3d.Object3DBranch;
+import com.eteks.sweethome3d.j3d.Object3DBranchUpdater;
 import com.eteks.sweethome3d.j3d.Object3DBranchFactory;
+import com.eteks.sweethome3d.j3d.Object3DDependencyGraph;
 import com.eteks.sweethome3d.j3d.TextureManager;
 import com.eteks.sweethome3d.j3d.Wall3D;
+import com.eteks.sweethome3d.model.BatchCollectionListener;
 import com.eteks.sweethome3d.model.Camera;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
@@ -210,6 +214,8 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
   private final Object3DFactory                    object3dFactory;
   private Projection                               projection;
   private final Map<Selectable, Object3DBranch>    homeObjects = new HashMap<Selectable, Object3DBranch>();
+  private final Object3DBranchUpdater              homeObjectsUpdater;
+  private Object3DDependencyGraph                  homeObjectsDependencies;
   private Light []                                 sceneLights;
   private Collection<Selectable>                   homeObjectsToUpdate;
   private Collection<Selectable>                   lightScopeObjectsToUpdate;
@@ -351,6 +357,7 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
         ? object3dFactory
         : new Object3DBranchFactory(preferences, this);
     this.projection = projection;
+    this.homeObjectsUpdater = new Object3DBranchUpdater(home);
 
     if (controller != null) {
       createActions(controller);
@@ -2715,7 +2722,7 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
               // Group updates
               EventQueue.invokeLater(this.updater = new Runnable () {
                 public void run() {
-                  ground3D.update();
+                  homeObjectsUpdater.updateBranches(Arrays.asList(new Object3DBranch [] {ground3D}));
                   updater = null;
                 }
               });
@@ -2989,6 +2996,7 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
 
     if (listenToHomeUpdates) {
       // Add level, wall, furniture, room listeners to home for further update
+      this.homeObjectsDependencies = new Object3DDependencyGraph(this.home);
       addLevelListener(homeRoot);
       addWallListener(homeRoot);
       addFurnitureListener(homeRoot);
@@ -3050,10 +3058,12 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
           } else if (Level.Property.BACKGROUND_IMAGE.name().equals(ev.getPropertyName())) {
             groundChangeListener.propertyChange(null);
           } else if (Level.Property.FLOOR_THICKNESS.name().equals(ev.getPropertyName())) {
-            updateObjects(home.getWalls());
-            updateObjects(home.getRooms());
+            Level level = (Level)ev.getSource();
+            updateObjects(homeObjectsDependencies.getWallsDependingOnLevel(level));
+            updateObjects(homeObjectsDependencies.getRoomsDependingOnLevel(level, (Float)ev.getOldValue(), level.getHeight()));
           } else if (Level.Property.HEIGHT.name().equals(ev.getPropertyName())) {
-            updateObjects(home.getRooms());
+            Level level = (Level)ev.getSource();
+            updateObjects(homeObjectsDependencies.getRoomsDependingOnLevel(level, level.getFloorThickness(), (Float)ev.getOldValue()));
           }
         }
       };
@@ -3088,13 +3098,11 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
           if (!Wall.Property.PATTERN.name().equals(propertyName)) {
             Wall updatedWall = (Wall)ev.getSource();
             updateWall(updatedWall);
-            List<Level> levels = home.getLevels();
-            if (updatedWall.getLevel() == null
-                || updatedWall.isAtLevel(levels.get(levels.size() - 1))) {
-              // Update rooms which ceiling height may need an update at last level
-              updateObjects(home.getRooms());
-            }
-            if (updatedWall.getLevel() != null && updatedWall.getLevel().getElevation() < 0) {
+            // Update rooms which ceiling height may need an update at last level
+            updateObjects(homeObjectsDependencies.getRoomsDependingOnWall(updatedWall, propertyName, ev.getOldValue()));
+            if (homeObjectsDependencies.isGroundDependingOnLevel(updatedWall.getLevel())
+                || Wall.Property.LEVEL.name().equals(propertyName)
+                    && homeObjectsDependencies.isGroundDependingOnLevel((Level)ev.getOldValue())) {
               groundChangeListener.propertyChange(null);
             }
             if (home.getEnvironment().getSubpartSizeUnderLight() > 0) {
@@ -3123,22 +3131,29 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (Wall wall : this.home.getWalls()) {
       wall.addPropertyChangeListener(this.wallChangeListener);
     }
-    this.wallListener = new CollectionListener<Wall>() {
+    this.wallListener = new BatchCollectionListener<Wall>() {
         public void collectionChanged(CollectionEvent<Wall> ev) {
-          Wall wall = ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              addObject(group, wall, true, false);
-              wall.addPropertyChangeListener(wallChangeListener);
-              break;
-            case DELETE :
-              deleteObject(wall);
-              wall.removePropertyChangeListener(wallChangeListener);
-              break;
+          Set<Room> rooms = new LinkedHashSet<Room>();
+          boolean groundUpdated = false;
+          for (Wall wall : ev.getItems()) {
+            switch (ev.getType()) {
+              case ADD :
+                addObject(group, wall, true, false);
+                wall.addPropertyChangeListener(wallChangeListener);
+                break;
+              case DELETE :
+                deleteObject(wall);
+                wall.removePropertyChangeListener(wallChangeListener);
+                break;
+            }
+            rooms.addAll(homeObjectsDependencies.getRoomsDependingOnWall(wall, null, null));
+            groundUpdated |= homeObjectsDependencies.isGroundDependingOnLevel(wall.getLevel());
           }
           lightScopeOutsideWallsAreaCache = null;
-          updateObjects(home.getRooms());
-          groundChangeListener.propertyChange(null);
+          updateObjects(rooms);
+          if (groundUpdated) {
+            groundChangeListener.propertyChange(null);
+          }
           cameraChangeListener.propertyChange(null);
           updateObjectsLightScope(null);
         }
@@ -3228,8 +3243,9 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
               // Property value change won't influence the walls that intersect the door or window
               updateIntersectingWalls(piece);
             }
-          } else if (containsStaircases(piece)) {
-            updateObjects(home.getRooms());
+          } else {
+            // Update rooms which floor or ceiling is cut out by the staircases of the piece
+            updateObjects(homeObjectsDependencies.getRoomsDependingOnStaircase(piece, false));
           }
           if (piece.getLevel() != null && piece.getLevel().getElevation() < 0) {
             groundChangeListener.propertyChange(null);
@@ -3239,33 +3255,35 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (HomePieceOfFurniture piece : this.home.getFurniture()) {
       addPropertyChangeListener(piece, this.furnitureChangeListener);
     }
-    this.furnitureListener = new CollectionListener<HomePieceOfFurniture>() {
+    this.furnitureListener = new BatchCollectionListener<HomePieceOfFurniture>() {
         public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
-          HomePieceOfFurniture piece = (HomePieceOfFurniture)ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              addPieceOfFurniture(group, piece, true, false);
-              addPropertyChangeListener(piece, furnitureChangeListener);
-              break;
-            case DELETE :
-              deletePieceOfFurniture(piece);
-              removePropertyChangeListener(piece, furnitureChangeListener);
-              break;
-          }
-          // If piece is or contains a door or a window, update walls that intersect with piece
-          if (containsDoorsAndWindows(piece)) {
-            updateIntersectingWalls(piece);
-          } else if (containsStaircases(piece)) {
-            updateObjects(home.getRooms());
-          } else {
-            approximateHomeBoundsCache = null;
-            homeHeightCache = null;
+          Set<Room> rooms = new LinkedHashSet<Room>();
+          for (HomePieceOfFurniture piece : ev.getItems()) {
+            switch (ev.getType()) {
+              case ADD :
+                addPieceOfFurniture(group, piece, true, false);
+                addPropertyChangeListener(piece, furnitureChangeListener);
+                break;
+              case DELETE :
+                deletePieceOfFurniture(piece);
+                removePropertyChangeListener(piece, furnitureChangeListener);
+                break;
+            }
+            // If piece is or contains a door or a window, update walls that intersect with piece
+            if (containsDoorsAndWindows(piece)) {
+              updateIntersectingWalls(piece);
+            } else {
+              // Update rooms which floor or ceiling is cut out by the staircases of the piece
+              rooms.addAll(homeObjectsDependencies.getRoomsDependingOnStaircase(piece,
+                  ev.getType() == CollectionEvent.Type.DELETE));
+            }
           }
+          updateObjects(rooms);
           groundChangeListener.propertyChange(null);
           if (projection != Projection.PERSPECTIVE) {
             cameraChangeListener.propertyChange(null);
           }
-          updateObjectsLightScope(Arrays.asList(new HomePieceOfFurniture [] {piece}));
+          updateObjectsLightScope(ev.getItems());
         }
       };
     this.home.addFurnitureListener(this.furnitureListener);
@@ -3313,23 +3331,6 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     }
   }
 
-  /**
-   * Returns <code>true</code> if the given <code>piece</code> is or contains a staircase
-   * with a top cut out shape.
-   */
-  private boolean containsStaircases(HomePieceOfFurniture piece) {
-    if (piece instanceof HomeFurnitureGroup) {
-      for (HomePieceOfFurniture groupPiece : ((HomeFurnitureGroup)piece).getFurniture()) {
-        if (containsStaircases(groupPiece)) {
-          return true;
-        }
-      }
-      return false;
-    } else {
-      return piece.getStaircaseCutOutShape() != null;
-    }
-  }
-
   /**
    * Adds a room listener to home rooms that updates the children of the given
    * <code>group</code>, each time a room is added, updated or deleted.
@@ -3398,27 +3399,31 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (Room room : this.home.getRooms()) {
       room.addPropertyChangeListener(this.roomChangeListener);
     }
-    this.roomListener = new CollectionListener<Room>() {
+    this.roomListener = new BatchCollectionListener<Room>() {
         public void collectionChanged(CollectionEvent<Room> ev) {
-          Room room = ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              // Add room to its group at the index indicated by the event
-              // to ensure the 3D rooms are drawn in the same order as in the plan
-              addObject(group, room, ev.getIndex(), true, false);
-              room.addPropertyChangeListener(roomChangeListener);
-              break;
-            case DELETE :
-              deleteObject(room);
-              room.removePropertyChangeListener(roomChangeListener);
-              break;
+          List<Room> rooms = ev.getItems();
+          int [] indices = ev.getIndices();
+          for (int i = 0; i < indices.length; i++) {
+            Room room = rooms.get(i);
+            switch (ev.getType()) {
+              case ADD :
+                // Add room to its group at the index indicated by the event
+                // to ensure the 3D rooms are drawn in the same order as in the plan
+                addObject(group, room, indices [i], true, false);
+                room.addPropertyChangeListener(roomChangeListener);
+                break;
+              case DELETE :
+                deleteObject(room);
+                room.removePropertyChangeListener(roomChangeListener);
+                break;
+            }
           }
           updateObjects(home.getRooms());
           groundChangeListener.propertyChange(null);
           if (projection != Projection.PERSPECTIVE) {
             cameraChangeListener.propertyChange(null);
           }
-          updateObjectsLightScope(Arrays.asList(new Room [] {room}));
+          updateObjectsLightScope(rooms);
           updateObjectsLightScope(getHomeObjects(HomeLight.class));
         }
       };
@@ -3461,18 +3466,19 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (Polyline polyline : this.home.getPolylines()) {
       polyline.addPropertyChangeListener(this.polylineChangeListener);
     }
-    this.polylineListener = new CollectionListener<Polyline>() {
+    this.polylineListener = new BatchCollectionListener<Polyline>() {
         public void collectionChanged(CollectionEvent<Polyline> ev) {
-          Polyline polyline = ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              addObject(group, polyline, true, false);
-              polyline.addPropertyChangeListener(polylineChangeListener);
-              break;
-            case DELETE :
-              deleteObject(polyline);
-              polyline.removePropertyChangeListener(polylineChangeListener);
-              break;
+          for (Polyline polyline : ev.getItems()) {
+            switch (ev.getType()) {
+              case ADD :
+                addObject(group, polyline, true, false);
+                polyline.addPropertyChangeListener(polylineChangeListener);
+                break;
+              case DELETE :
+                deleteObject(polyline);
+                polyline.removePropertyChangeListener(polylineChangeListener);
+                break;
+            }
           }
           if (projection != Projection.PERSPECTIVE) {
             cameraChangeListener.propertyChange(null);
@@ -3509,18 +3515,19 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (DimensionLine dimensionLine : this.home.getDimensionLines()) {
       dimensionLine.addPropertyChangeListener(this.dimensionLineChangeListener);
     }
-    this.dimensionLineListener = new CollectionListener<DimensionLine>() {
+    this.dimensionLineListener = new BatchCollectionListener<DimensionLine>() {
         public void collectionChanged(CollectionEvent<DimensionLine> ev) {
-          DimensionLine dimensionLine = ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              addObject(group, dimensionLine, true, false);
-              dimensionLine.addPropertyChangeListener(dimensionLineChangeListener);
-              break;
-            case DELETE :
-              deleteObject(dimensionLine);
-              dimensionLine.removePropertyChangeListener(dimensionLineChangeListener);
-              break;
+          for (DimensionLine dimensionLine : ev.getItems()) {
+            switch (ev.getType()) {
+              case ADD :
+                addObject(group, dimensionLine, true, false);
+                dimensionLine.addPropertyChangeListener(dimensionLineChangeListener);
+                break;
+              case DELETE :
+                deleteObject(dimensionLine);
+                dimensionLine.removePropertyChangeListener(dimensionLineChangeListener);
+                break;
+            }
           }
           if (projection != Projection.PERSPECTIVE) {
             cameraChangeListener.propertyChange(null);
@@ -3554,18 +3561,19 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     for (Label label : this.home.getLabels()) {
       label.addPropertyChangeListener(this.labelChangeListener);
     }
-    this.labelListener = new CollectionListener<Label>() {
+    this.labelListener = new BatchCollectionListener<Label>() {
         public void collectionChanged(CollectionEvent<Label> ev) {
-          Label label = ev.getItem();
-          switch (ev.getType()) {
-            case ADD :
-              addObject(group, label, true, false);
-              label.addPropertyChangeListener(labelChangeListener);
-              break;
-            case DELETE :
-              deleteObject(label);
-              label.removePropertyChangeListener(labelChangeListener);
-              break;
+          for (Label label : ev.getItems()) {
+            switch (ev.getType()) {
+              case ADD :
+                addObject(group, label, true, false);
+                label.addPropertyChangeListener(labelChangeListener);
+                break;
+              case DELETE :
+                deleteObject(label);
+                label.removePropertyChangeListener(labelChangeListener);
+                break;
+            }
           }
           if (projection != Projection.PERSPECTIVE) {
             cameraChangeListener.propertyChange(null);
@@ -3657,6 +3665,15 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
     return this.object3dFactory;
   }
 
+  /**
+   * Returns the updater of the 3D objects of this component, which counts
+   * the branches updated after home modifications.
+   * @since 7.5
+   */
+  public Object3DBranchUpdater getObject3DBranchUpdater() {
+    return this.homeObjectsUpdater;
+  }
+
   /**
    * Detaches from the scene the branch matching <code>homeObject</code>.
    */
@@ -3687,23 +3704,29 @@ public class HomeComponent3D extends JComponent implements View3D, Printable {
    * Updates 3D <code>objects</code> later. Should be invoked from Event Dispatch Thread.
    */
   private void updateObjects(Collection<? extends Selectable> objects) {
-    if (this.homeObjectsToUpdate != null) {
-      this.homeObjectsToUpdate.addAll(objects);
-    } else {
-      this.homeObjectsToUpdate = new HashSet<Selectable>(objects);
-      // Invoke later the update of objects of homeObjectsToUpdate
-      EventQueue.invokeLater(new Runnable () {
-        public void run() {
-          for (Selectable object : homeObjectsToUpdate) {
-            Object3DBranch objectBranch = homeObjects.get(object);
-            // Check object wasn't deleted since updateObjects call
-            if (objectBranch != null) {
-              objectBranch.update();
+    // Schedule an update only for a non empty collection
+    if (!objects.isEmpty()) {
+      if (this.homeObjectsToUpdate != null) {
+        this.homeObjectsToUpdate.addAll(objects);
+      } else {
+        this.homeObjectsToUpdate = new HashSet<Selectable>(objects);
+        // Invoke later the update of objects of homeObjectsToUpdate
+        EventQueue.invokeLater(new Runnable () {
+          public void run() {
+            List<Object3DBranch> objectBranches = new ArrayList<Object3DBranch>(homeObjectsToUpdate.size());
+            for (Selectable object : homeObjectsToUpdate) {
+              Object3DBranch objectBranch = homeObjects.get(object);
+              // Check object wasn't deleted since updateObjects call
+              if (objectBranch != null) {
+                objectBranches.add(objectBranch);
+              }
             }
+            homeObjectsToUpdate = null;
+            // Update branches and compute the geometry of walls, rooms and ground in a worker thread
+            homeObjectsUpdater.updateBranches(objectBranches);
           }
-          homeObjectsToUpdate = null;
-        }
-      });
+        });
+      }
     }
 
     clearPrintedImageCache();
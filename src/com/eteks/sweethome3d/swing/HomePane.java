@@ -174,7 +174,9 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumnModel;
 import javax.swing.text.JTextComponent;
 
+import com.eteks.sweethome3d.j3d.GLBWriter;
 import com.eteks.sweethome3d.j3d.Ground3D;
+import com.eteks.sweethome3d.j3d.NodeWriter;
 import com.eteks.sweethome3d.j3d.OBJWriter;
 import com.eteks.sweethome3d.j3d.Object3DBranchFactory;
 import com.eteks.sweethome3d.model.BackgroundImage;
@@ -5429,15 +5431,19 @@ public class HomePane extends JRootPane implements HomeView {
   }
 
   /**
-   * Export to OBJ in a separate class to be able to run HomePane without Java 3D classes.
+   * Export to OBJ or GLB in a separate class to be able to run HomePane without Java 3D classes.
    */
   private static class OBJExporter {
     public static void exportHomeToFile(Home home, String objFile, String header,
                                         boolean exportAllToOBJ, Object3DFactory object3dFactory) throws RecorderException {
-      OBJWriter writer = null;
+      NodeWriter writer = null;
       boolean exportInterrupted = false;
       try {
-        writer = new OBJWriter(objFile, header, -1);
+        if (objFile.toLowerCase().endsWith(".glb")) {
+          writer = new GLBWriter(new File(objFile), header);
+        } else {
+          writer = new OBJWriter(objFile, header, -1);
+        }
 
         List<Selectable> exportedItems = new ArrayList<Selectable>(exportAllToOBJ
             ? home.getSelectableViewableItems()
@@ -5484,7 +5490,7 @@ public class HomePane extends JRootPane implements HomeView {
           Node node = (Node)object3dFactory.createObject3D(home, item, true);
           if (node != null) {
             if (item instanceof HomePieceOfFurniture) {
-              writer.writeNode(node);
+              writer.writeNode(node, null);
             } else if (!(item instanceof DimensionLine)) {
               writer.writeNode(node, item.getClass().getSimpleName().toLowerCase() + "_" + ++i);
             }
@@ -0,0 +1,277 @@
+/*
+ * PhotoImagesPipeline.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.swing;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+import com.eteks.sweethome3d.j3d.AbstractPhotoRenderer;
+import com.eteks.sweethome3d.model.Camera;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.viewcontroller.Object3DFactory;
+
+/**
+ * A generator of video frames using photo renderers in parallel. Each renderer renders in a worker thread
+ * a stripe of frames, one frame out of <code>rendererCount</code>, then rendered images are
+ * encoded in JPEG by a separate thread and reassembled in the order of the path.
+ * Renderers can't get ahead of the last frame read by more than two frames each,
+ * to keep bounded the memory used by pending frames. Worker threads are stopped and
+ * renderers disposed once the last frame is read or when this pipeline is closed.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class PhotoImagesPipeline {
+  private final Thread                   launchingThread;
+  private final AbstractPhotoRenderer [] renderers;
+  private final int                      width;
+  private final int                      height;
+  private final int                      maximumPendingFrames;
+  private final Map<Integer, byte []>    encodedFrames = new HashMap<Integer, byte []>();
+  private ExecutorService                renderingExecutor;
+  private ExecutorService                encodingExecutor;
+  private int                            nextFrameIndex;
+  private Throwable                      exception;
+  private boolean                        stopped;
+
+  /**
+   * Creates a pipeline of <code>rendererCount</code> photo renderers of the given class
+   * able to render the frames of a video of <code>home</code>.
+   */
+  public PhotoImagesPipeline(Home home, int width, int height, String photoRendererClass,
+                             Object3DFactory object3dFactory, AbstractPhotoRenderer.Quality quality,
+                             int rendererCount) throws IOException {
+    this.launchingThread = Thread.currentThread();
+    this.renderers = new AbstractPhotoRenderer [rendererCount];
+    try {
+      for (int i = 0; i < rendererCount; i++) {
+        // Give a different home to each renderer because renderers may modify it during their initialization
+        this.renderers [i] = AbstractPhotoRenderer.createInstance(photoRendererClass,
+            i == 0 ? home : home.clone(), object3dFactory, quality);
+      }
+    } catch (RuntimeException ex) {
+      for (AbstractPhotoRenderer renderer : this.renderers) {
+        if (renderer != null) {
+          renderer.dispose();
+        }
+      }
+      throw ex;
+    }
+    this.width = width;
+    this.height = height;
+    this.maximumPendingFrames = 2 * rendererCount;
+  }
+
+  /**
+   * Returns the JPEG data of the frame at the given <code>index</code> in <code>framesPath</code>.
+   * Frames must be requested in the order of the path, and the rendering of the path
+   * starts at the first request.
+   */
+  public byte [] getFrameData(Camera [] framesPath, int index) throws IOException {
+    try {
+      checkLaunchingThreadIsntInterrupted();
+      if (this.renderingExecutor == null) {
+        start(framesPath);
+      }
+      byte [] data;
+      synchronized (this) {
+        while ((data = this.encodedFrames.remove(index)) == null
+            && this.exception == null) {
+          checkLaunchingThreadIsntInterrupted();
+          wait(100);
+        }
+        if (data != null) {
+          // Let renderers continue with next frames
+          this.nextFrameIndex = index + 1;
+          notifyAll();
+        }
+      }
+      if (data == null) {
+        close();
+        if (this.exception instanceof IOException) {
+          throw (IOException)this.exception;
+        } else if (this.exception instanceof Error) {
+          throw (Error)this.exception;
+        } else if (this.exception instanceof RuntimeException) {
+          throw (RuntimeException)this.exception;
+        } else {
+          IOException ex = new IOException(this.exception.getMessage());
+          ex.initCause(this.exception);
+          throw ex;
+        }
+      } else if (index == framesPath.length - 1) {
+        this.renderingExecutor.shutdown();
+        this.encodingExecutor.shutdown();
+      }
+      return data;
+    } catch (InterruptedException ex) {
+      close();
+      throw new InterruptedIOException("Lauching thread interrupted");
+    } catch (InterruptedIOException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Launches the rendering of the frames of the given path.
+   */
+  private void start(final Camera [] framesPath) {
+    ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Video frames renderer");
+          // Don't prevent the application from exiting
+          thread.setDaemon(true);
+          return thread;
+        }
+      };
+    this.renderingExecutor = Executors.newFixedThreadPool(this.renderers.length, threadFactory);
+    this.encodingExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    for (int i = 0; i < this.renderers.length; i++) {
+      final int firstFrameIndex = i;
+      final AbstractPhotoRenderer renderer = this.renderers [i];
+      this.renderingExecutor.execute(new Runnable() {
+          public void run() {
+            try {
+              for (int frameIndex = firstFrameIndex; frameIndex < framesPath.length; frameIndex += renderers.length) {
+                if (!waitRenderingTurn(frameIndex)) {
+                  break;
+                }
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                renderer.render(image, framesPath [frameIndex].clone(), null);
+                if (Thread.currentThread().isInterrupted()) {
+                  break;
+                }
+                encodeFrame(frameIndex, image);
+              }
+            } catch (InterruptedException ex) {
+              // Stop rendering
+            } catch (InterruptedIOException ex) {
+              // Stop rendering
+            } catch (IOException ex) {
+              setException(ex);
+            } catch (RuntimeException ex) {
+              setException(ex);
+            } catch (Error ex) {
+              setException(ex);
+            } finally {
+              renderer.dispose();
+            }
+          }
+        });
+    }
+  }
+
+  /**
+   * Waits until the frame at the given index may be rendered without exceeding
+   * the maximum count of pending frames, and returns <code>false</code> if this pipeline was stopped.
+   */
+  private synchronized boolean waitRenderingTurn(int frameIndex) throws InterruptedException, InterruptedIOException {
+    while (!this.stopped
+        && frameIndex >= this.nextFrameIndex + this.maximumPendingFrames) {
+      // Check regularly the launching thread wasn't interrupted in case this pipeline isn't closed
+      checkLaunchingThreadIsntInterrupted();
+      wait(100);
+    }
+    return !this.stopped;
+  }
+
+  /**
+   * Encodes the given frame in the encoding thread.
+   */
+  private void encodeFrame(final int frameIndex, final BufferedImage image) {
+    this.encodingExecutor.execute(new Runnable() {
+        public void run() {
+          try {
+            byte [] data = encodeJPEG(image);
+            synchronized (PhotoImagesPipeline.this) {
+              encodedFrames.put(frameIndex, data);
+              PhotoImagesPipeline.this.notifyAll();
+            }
+          } catch (Throwable ex) {
+            setException(ex);
+          }
+        }
+      });
+  }
+
+  /**
+   * Returns the count of frames rendered and encoded but not read yet.
+   * The pipeline notifies the threads waiting on its monitor each time a frame is encoded.
+   */
+  public synchronized int getPendingFrameCount() {
+    return this.encodedFrames.size();
+  }
+
+  private synchronized void setException(Throwable exception) {
+    if (this.exception == null) {
+      this.exception = exception;
+    }
+    notifyAll();
+  }
+
+  /**
+   * Stops rendering and encoding threads. Renderers are disposed by their thread
+   * once it's interrupted, or immediately if rendering wasn't started.
+   */
+  public void close() {
+    synchronized (this) {
+      if (this.stopped) {
+        return;
+      }
+      this.stopped = true;
+      notifyAll();
+    }
+    if (this.renderingExecutor != null) {
+      for (AbstractPhotoRenderer renderer : this.renderers) {
+        renderer.stop();
+      }
+      this.renderingExecutor.shutdownNow();
+      this.encodingExecutor.shutdownNow();
+    } else {
+      for (AbstractPhotoRenderer renderer : this.renderers) {
+        renderer.dispose();
+      }
+    }
+  }
+
+  private void checkLaunchingThreadIsntInterrupted() throws InterruptedIOException {
+    if (this.launchingThread.isInterrupted()) {
+      throw new InterruptedIOException("Lauching thread interrupted");
+    }
+  }
+
+  /**
+   * Returns the given image encoded in JPEG.
+   */
+  private static byte [] encodeJPEG(BufferedImage image) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    ImageIO.write(image, "JPEG", outputStream);
+    return outputStream.toByteArray();
+  }
+}
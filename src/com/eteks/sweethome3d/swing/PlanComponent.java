@@ -175,6 +175,7 @@ import com.eteks.sweethome3d.j3d.Object3DBranchFactory;
 import com.eteks.sweethome3d.j3d.ShapeTools;
 import com.eteks.sweethome3d.j3d.TextureManager;
 import com.eteks.sweethome3d.model.BackgroundImage;
+import com.eteks.sweethome3d.model.BatchCollectionListener;
 import com.eteks.sweethome3d.model.Camera;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
@@ -208,6 +209,7 @@ import com.eteks.sweethome3d.viewcontroller.Object3DFactory;
 import com.eteks.sweethome3d.viewcontroller.PlanController;
 import com.eteks.sweethome3d.viewcontroller.PlanView;
 import com.eteks.sweethome3d.viewcontroller.View;
+import com.eteks.sweethome3d.viewcontroller.WallsAreaCache;
 import com.sun.j3d.utils.universe.SimpleUniverse;
 import com.sun.j3d.utils.universe.Viewer;
 import com.sun.j3d.utils.universe.ViewingPlatform;
@@ -263,6 +265,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   };
 
   private static final float    MARGIN = 40;
+  private static final int      PLAN_TILE_SIZE = 256;
 
   private final Home            home;
   private final UserPreferences preferences;
@@ -322,10 +325,23 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   private Color                             wallsPatternBackgroundCache;
   private Color                             wallsPatternForegroundCache;
   private Map<Collection<Wall>, Area>       wallAreasCache;
+  private Map<TextureImage, WallsAreaCache> wallAreaUnionsCache;
   private Map<HomeDoorOrWindow, Area>       doorOrWindowWallThicknessAreasCache;
   private Map<HomeTexture, BufferedImage>   floorTextureImagesCache;
   private Map<HomePieceOfFurniture, HomePieceOfFurnitureTopViewIconKey> furnitureTopViewIconKeys;
   private Map<HomePieceOfFurnitureTopViewIconKey, PieceOfFurnitureTopViewIcon> furnitureTopViewIconsCache;
+  private Map<Long, BufferedImage>          planTilesCache;
+  private int                               planTilesMaxCount;
+  private double                            planTilesScale;
+  private boolean                           planTilesOpaque;
+  private boolean                           planTilesWithoutTexts;
+  private Color                             planTilesBackground;
+  private Color                             planTilesForeground;
+  private Font                              planTilesFont;
+  private volatile boolean                  planTilesOutdated;
+  private Map<Selectable, Rectangle2D>      planTilesItemBounds;
+  private boolean                           planTilePainting;
+  private boolean                           planTileIncomplete;
 
   private static ExecutorService            backgroundImageLoader;
 
@@ -773,6 +789,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                       public void propertyChange(PropertyChangeEvent ev2) {
                         for (HomePieceOfFurniture piece : invalidFurnitureTopViewIcons) {
                           furnitureTopViewIconKeys.remove(piece);
+                          invalidatePlanTiles(piece);
                         }
                         invalidFurnitureTopViewIcons = null;
                         repaint();
@@ -793,15 +810,18 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             // From version 5.2, these changes can happen only for individual pieces because groups
             // can't have their own color, texture, materials and shininess anymore
             furnitureTopViewIconKeys.remove((HomePieceOfFurniture)ev.getSource());
+            invalidatePlanTiles((HomePieceOfFurniture)ev.getSource());
             repaint();
           } else if (HomePieceOfFurniture.Property.ELEVATION.name().equals(ev.getPropertyName())
                      || HomePieceOfFurniture.Property.LEVEL.name().equals(ev.getPropertyName())
                      || HomePieceOfFurniture.Property.HEIGHT_IN_PLAN.name().equals(ev.getPropertyName())) {
             sortedLevelFurniture = null;
+            invalidatePlanTiles((HomePieceOfFurniture)ev.getSource());
             repaint();
           } else if (HomePieceOfFurniture.Property.ICON.name().equals(ev.getPropertyName())
                      || HomeDoorOrWindow.Property.WALL_CUT_OUT_ON_BOTH_SIDES.name().equals(ev.getPropertyName())) {
             // Should repaint only if icons rather than plan icons or top views are drawn but this may depends on various criteria
+            invalidatePlanTiles((HomePieceOfFurniture)ev.getSource());
             repaint();
           } else if (doorOrWindowWallThicknessAreasCache != null
                      && (HomePieceOfFurniture.Property.WIDTH.name().equals(ev.getPropertyName())
@@ -819,7 +839,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                      && doorOrWindowWallThicknessAreasCache.remove(ev.getSource()) != null) {
             revalidate();
           } else {
-            revalidate();
+            invalidatePlanTiles((HomePieceOfFurniture)ev.getSource());
+            revalidate(false);
           }
         }
       };
@@ -831,26 +852,28 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         }
       }
     }
-    home.addFurnitureListener(new CollectionListener<HomePieceOfFurniture>() {
+    home.addFurnitureListener(new BatchCollectionListener<HomePieceOfFurniture>() {
         public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
-          HomePieceOfFurniture piece = ev.getItem();
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            piece.addPropertyChangeListener(furnitureChangeListener);
-            if (piece instanceof HomeFurnitureGroup) {
-              for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
-                childPiece.addPropertyChangeListener(furnitureChangeListener);
+          for (HomePieceOfFurniture piece : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              piece.addPropertyChangeListener(furnitureChangeListener);
+              if (piece instanceof HomeFurnitureGroup) {
+                for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
+                  childPiece.addPropertyChangeListener(furnitureChangeListener);
+                }
               }
-            }
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            piece.removePropertyChangeListener(furnitureChangeListener);
-            if (piece instanceof HomeFurnitureGroup) {
-              for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
-                childPiece.removePropertyChangeListener(furnitureChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              piece.removePropertyChangeListener(furnitureChangeListener);
+              if (piece instanceof HomeFurnitureGroup) {
+                for (HomePieceOfFurniture childPiece : ((HomeFurnitureGroup)piece).getAllFurniture()) {
+                  childPiece.removePropertyChangeListener(furnitureChangeListener);
+                }
               }
             }
+            invalidatePlanTiles(piece, ev.getType() == CollectionEvent.Type.DELETE);
           }
           sortedLevelFurniture = null;
-          revalidate();
+          revalidate(false);
         }
       });
 
@@ -871,15 +894,25 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               otherLevelsWallAreaCache = null;
               otherLevelsWallsCache = null;
             }
+            // Compute again only the area of the modified wall and the walls joined to it
+            Wall wall = (Wall)ev.getSource();
+            invalidateWallArea(wall);
+            invalidateWallPlanTiles(wall, false);
+            if (Wall.Property.WALL_AT_START.name().equals(propertyName)
+                || Wall.Property.WALL_AT_END.name().equals(propertyName)) {
+              invalidateWallArea((Wall)ev.getOldValue());
+              invalidatePlanTiles((Wall)ev.getOldValue());
+            }
             wallAreasCache = null;
             doorOrWindowWallThicknessAreasCache = null;
-            revalidate();
+            revalidate(false);
           } else if (Wall.Property.LEVEL.name().equals(propertyName)
               || Wall.Property.HEIGHT.name().equals(propertyName)
               || Wall.Property.HEIGHT_AT_END.name().equals(propertyName)) {
             otherLevelsWallAreaCache = null;
             otherLevelsWallsCache = null;
             wallAreasCache = null;
+            clearPlanTiles();
             repaint();
           }
         }
@@ -887,18 +920,21 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     for (Wall wall : home.getWalls()) {
       wall.addPropertyChangeListener(wallChangeListener);
     }
-    home.addWallsListener(new CollectionListener<Wall> () {
+    home.addWallsListener(new BatchCollectionListener<Wall> () {
         public void collectionChanged(CollectionEvent<Wall> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(wallChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(wallChangeListener);
+          for (Wall wall : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              wall.addPropertyChangeListener(wallChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              wall.removePropertyChangeListener(wallChangeListener);
+            }
+            invalidateWallPlanTiles(wall, ev.getType() == CollectionEvent.Type.DELETE);
           }
           otherLevelsWallAreaCache = null;
           otherLevelsWallsCache = null;
           wallAreasCache = null;
           doorOrWindowWallThicknessAreasCache = null;
-          revalidate();
+          revalidate(false);
         }
       });
 
@@ -922,11 +958,13 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             sortedLevelRooms = null;
             otherLevelsRoomAreaCache = null;
             otherLevelsRoomsCache = null;
-            revalidate();
+            invalidatePlanTiles((Room)ev.getSource());
+            revalidate(false);
           } else if (preferences.isRoomFloorColoredOrTextured()
                      && (Room.Property.FLOOR_COLOR.name().equals(propertyName)
                          || Room.Property.FLOOR_TEXTURE.name().equals(propertyName)
                          || Room.Property.FLOOR_VISIBLE.name().equals(propertyName))) {
+            invalidatePlanTiles((Room)ev.getSource());
             repaint();
           }
         }
@@ -934,17 +972,20 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     for (Room room : home.getRooms()) {
       room.addPropertyChangeListener(roomChangeListener);
     }
-    home.addRoomsListener(new CollectionListener<Room> () {
+    home.addRoomsListener(new BatchCollectionListener<Room> () {
         public void collectionChanged(CollectionEvent<Room> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(roomChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(roomChangeListener);
+          for (Room room : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              room.addPropertyChangeListener(roomChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              room.removePropertyChangeListener(roomChangeListener);
+            }
+            invalidatePlanTiles(room, ev.getType() == CollectionEvent.Type.DELETE);
           }
           sortedLevelRooms = null;
           otherLevelsRoomAreaCache = null;
           otherLevelsRoomsCache = null;
-          revalidate();
+          revalidate(false);
         }
       });
 
@@ -952,25 +993,29 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
      final PropertyChangeListener changeListener = new PropertyChangeListener() {
          public void propertyChange(PropertyChangeEvent ev) {
            String propertyName = ev.getPropertyName();
+           invalidatePlanTiles((Polyline)ev.getSource());
            if (Polyline.Property.COLOR.name().equals(propertyName)
                || Polyline.Property.DASH_STYLE.name().equals(propertyName)) {
              repaint();
            } else {
-             revalidate();
+             revalidate(false);
            }
          }
        };
      for (Polyline polyline : home.getPolylines()) {
        polyline.addPropertyChangeListener(changeListener);
      }
-     home.addPolylinesListener(new CollectionListener<Polyline>() {
+     home.addPolylinesListener(new BatchCollectionListener<Polyline>() {
         public void collectionChanged(CollectionEvent<Polyline> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(changeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(changeListener);
+          for (Polyline polyline : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              polyline.addPropertyChangeListener(changeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              polyline.removePropertyChangeListener(changeListener);
+            }
+            invalidatePlanTiles(polyline, ev.getType() == CollectionEvent.Type.DELETE);
           }
-          revalidate();
+          revalidate(false);
         }
       });
 
@@ -988,8 +1033,10 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               || DimensionLine.Property.END_MARK_SIZE.name().equals(propertyName)
               || DimensionLine.Property.PITCH.name().equals(propertyName)
               || DimensionLine.Property.LENGTH_STYLE.name().equals(propertyName)) {
-            revalidate();
+            invalidatePlanTiles((DimensionLine)ev.getSource());
+            revalidate(false);
           } else if (DimensionLine.Property.COLOR.name().equals(propertyName)) {
+            invalidatePlanTiles((DimensionLine)ev.getSource());
             repaint();
           }
         }
@@ -997,34 +1044,41 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     for (DimensionLine dimensionLine : home.getDimensionLines()) {
       dimensionLine.addPropertyChangeListener(dimensionLineChangeListener);
     }
-    home.addDimensionLinesListener(new CollectionListener<DimensionLine> () {
+    home.addDimensionLinesListener(new BatchCollectionListener<DimensionLine> () {
         public void collectionChanged(CollectionEvent<DimensionLine> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(dimensionLineChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(dimensionLineChangeListener);
+          for (DimensionLine dimensionLine : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              dimensionLine.addPropertyChangeListener(dimensionLineChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              dimensionLine.removePropertyChangeListener(dimensionLineChangeListener);
+            }
+            invalidatePlanTiles(dimensionLine, ev.getType() == CollectionEvent.Type.DELETE);
           }
-          revalidate();
+          revalidate(false);
         }
       });
 
     // Add listener to update plan when labels change
     final PropertyChangeListener labelChangeListener = new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
-          revalidate();
+          invalidatePlanTiles((Label)ev.getSource());
+          revalidate(false);
         }
       };
     for (Label label : home.getLabels()) {
       label.addPropertyChangeListener(labelChangeListener);
     }
-    home.addLabelsListener(new CollectionListener<Label> () {
+    home.addLabelsListener(new BatchCollectionListener<Label> () {
         public void collectionChanged(CollectionEvent<Label> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(labelChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(labelChangeListener);
+          for (Label label : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              label.addPropertyChangeListener(labelChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              label.removePropertyChangeListener(labelChangeListener);
+            }
+            invalidatePlanTiles(label, ev.getType() == CollectionEvent.Type.DELETE);
           }
-          revalidate();
+          revalidate(false);
         }
       });
 
@@ -1039,6 +1093,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                      || Level.Property.ELEVATION_INDEX.name().equals(propertyName)
                      || Level.Property.VIEWABLE.name().equals(propertyName)) {
             clearLevelCache();
+            clearPlanTiles();
             repaint();
           }
         }
@@ -1060,7 +1115,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
 
     home.addPropertyChangeListener(Home.Property.CAMERA, new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
-          revalidate();
+          revalidate(false);
         }
       });
     home.getObserverCamera().addPropertyChangeListener(new PropertyChangeListener() {
@@ -1073,7 +1128,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               || ObserverCamera.Property.WIDTH.name().equals(propertyName)
               || ObserverCamera.Property.DEPTH.name().equals(propertyName)
               || ObserverCamera.Property.HEIGHT.name().equals(propertyName)) {
-            revalidate();
+            revalidate(false);
           }
         }
       });
@@ -1090,7 +1145,12 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         }
       });
     home.addSelectionListener(new SelectionListener () {
+        private List<Selectable> selectedItems = new ArrayList<Selectable>(home.getSelectedItems());
+
         public void selectionChanged(SelectionEvent ev) {
+          List<Selectable> oldSelectedItems = this.selectedItems;
+          this.selectedItems = new ArrayList<Selectable>(home.getSelectedItems());
+          invalidateSelectionPlanTiles(oldSelectedItems, this.selectedItems);
           repaint();
         }
       });
@@ -1098,12 +1158,14 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
           backgroundImageCache = null;
+          clearPlanTiles();
           repaint();
         }
       });
     home.addPropertyChangeListener(Home.Property.SELECTED_LEVEL, new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
           clearLevelCache();
+          clearPlanTiles();
           repaint();
         }
       });
@@ -1175,6 +1237,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           default:
             break;
         }
+        planComponent.clearPlanTiles();
         planComponent.repaint();
       }
     }
@@ -1200,8 +1263,19 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    */
   @Override
   public void revalidate() {
+    revalidate(true);
+  }
+
+  /**
+   * Revalidates and repaints this component and its rulers, clearing the tiles cache
+   * of home items if <code>clearPlanTiles</code> is <code>true</code>.
+   */
+  private void revalidate(boolean clearPlanTiles) {
     // Revalidate and repaint
     super.revalidate();
+    if (clearPlanTiles) {
+      clearPlanTiles();
+    }
     repaint();
 
     if (this.horizontalRuler != null) {
@@ -1448,6 +1522,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             }
             if (PlanComponent.this.wallsDoorsOrWindowsModification != wallsDoorsOrWindowsModification) {
               PlanComponent.this.wallsDoorsOrWindowsModification = wallsDoorsOrWindowsModification;
+              clearPlanTiles();
               repaint();
             }
           }
@@ -2152,6 +2227,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   public void setBackgroundPainted(boolean backgroundPainted) {
     if (this.backgroundPainted != backgroundPainted) {
       this.backgroundPainted = backgroundPainted;
+      clearPlanTiles();
       repaint();
     }
   }
@@ -2199,14 +2275,295 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     float scale = getScale() * this.resolutionScale;
     g2D.translate(insets.left + (MARGIN - planBounds.getMinX()) * scale,
         insets.top + (MARGIN - planBounds.getMinY()) * scale);
-    g2D.scale(scale, scale);
+    if (isPlanTilesCacheUsable(g2D)) {
+      paintContentWithPlanTiles(g2D, this.home.getSelectedLevel(), scale);
+    } else {
+      g2D.scale(scale, scale);
+      setRenderingHints(g2D);
+      try {
+        paintContent(g2D, this.home.getSelectedLevel(), getScale(), PaintMode.PAINT);
+      } catch (InterruptedIOException ex) {
+        // Ignore exception because it may happen only in EXPORT paint mode
+      }
+    }
+    g2D.dispose();
+  }
+
+  /**
+   * Returns <code>true</code> if home items may be painted from the tiles cache with the given graphics,
+   * i.e. if its transform is only a translation and a uniform scale.
+   */
+  private boolean isPlanTilesCacheUsable(Graphics2D g2D) {
+    return (g2D.getTransform().getType()
+        & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) == 0;
+  }
+
+  /**
+   * Paints home items at the given <code>level</code> with the tiles of the cache,
+   * then selected items and feedback over them.
+   * Tiles are images of the plan without selection painted at the current scale
+   * in device space, and missing tiles are painted and cached first.
+   * When polylines, dimension lines or labels are selected, tiles don't contain these selected items
+   * nor texts, to be able to paint them over tiles in the same order as without tiles.
+   */
+  private void paintContentWithPlanTiles(Graphics2D g2D, Level level, float scale) {
+    AffineTransform transform = g2D.getTransform();
+    double tilesScale = scale * transform.getScaleX();
+    boolean opaqueTiles = isOpaque() && this.backgroundPainted;
+    boolean tilesWithoutTexts = false;
+    for (Selectable item : this.home.getSelectedItems()) {
+      if (item instanceof Polyline
+          || item instanceof DimensionLine
+          || item instanceof Label) {
+        tilesWithoutTexts = true;
+        break;
+      }
+    }
+    Color backgroundColor = getBackgroundColor(PaintMode.PAINT);
+    Color foregroundColor = getForegroundColor(PaintMode.PAINT);
+    Font font = g2D.getFont();
+    if (this.planTilesOutdated) {
+      this.planTilesOutdated = false;
+      this.planTilesCache = null;
+      this.planTilesItemBounds = null;
+    }
+    if (this.planTilesCache == null
+        || this.planTilesScale != tilesScale
+        || this.planTilesOpaque != opaqueTiles
+        || this.planTilesWithoutTexts != tilesWithoutTexts
+        || !backgroundColor.equals(this.planTilesBackground)
+        || !foregroundColor.equals(this.planTilesForeground)
+        || !font.equals(this.planTilesFont)) {
+      this.planTilesMaxCount = 0;
+      this.planTilesCache = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > planTilesMaxCount;
+          }
+        };
+      this.planTilesScale = tilesScale;
+      this.planTilesOpaque = opaqueTiles;
+      this.planTilesWithoutTexts = tilesWithoutTexts;
+      this.planTilesBackground = backgroundColor;
+      this.planTilesForeground = foregroundColor;
+      this.planTilesFont = font;
+    }
+    if (this.planTilesItemBounds == null) {
+      // Store the bounds of painted items to be able to remove only the tiles of modified items
+      this.planTilesItemBounds = new HashMap<Selectable, Rectangle2D>();
+      for (Selectable item : getPaintedItems()) {
+        this.planTilesItemBounds.put(item, getPlanTileItemBounds(item));
+        if (item instanceof HomeFurnitureGroup) {
+          for (HomePieceOfFurniture piece : ((HomeFurnitureGroup)item).getAllFurniture()) {
+            this.planTilesItemBounds.put(piece, getPlanTileItemBounds(piece));
+          }
+        }
+      }
+    }
+
+    // Round plan origin to device pixels to draw tiles and the items over them at the same location
+    double xOrigin = Math.round(transform.getTranslateX());
+    double yOrigin = Math.round(transform.getTranslateY());
+    Rectangle clipBounds = transform.createTransformedShape(g2D.getClip()).getBounds();
+    int minColumn = (int)Math.floor((clipBounds.getMinX() - xOrigin) / PLAN_TILE_SIZE);
+    int maxColumn = (int)Math.floor((clipBounds.getMaxX() - 1 - xOrigin) / PLAN_TILE_SIZE);
+    int minRow = (int)Math.floor((clipBounds.getMinY() - yOrigin) / PLAN_TILE_SIZE);
+    int maxRow = (int)Math.floor((clipBounds.getMaxY() - 1 - yOrigin) / PLAN_TILE_SIZE);
+    // Keep in cache twice the count of visible tiles
+    this.planTilesMaxCount = Math.max(this.planTilesMaxCount,
+        2 * (maxColumn - minColumn + 1) * (maxRow - minRow + 1));
+
+    g2D.setTransform(AffineTransform.getTranslateInstance(xOrigin, yOrigin));
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        Long tileKey = ((long)row << 32) | (column & 0xFFFFFFFFL);
+        BufferedImage tile = this.planTilesCache.get(tileKey);
+        if (tile == null) {
+          tile = paintPlanTile(column, row, level, font);
+          // Don't keep tiles painted while some images are still loading
+          if (!this.planTileIncomplete) {
+            this.planTilesCache.put(tileKey, tile);
+          }
+        }
+        g2D.drawImage(tile, column * PLAN_TILE_SIZE, row * PLAN_TILE_SIZE, this);
+      }
+    }
+
+    g2D.scale(tilesScale, tilesScale);
     setRenderingHints(g2D);
+    float planScale = getScale();
+    paintSelectedItems(g2D, level, planScale);
+    paintFeedback(g2D, level, planScale);
+  }
+
+  /**
+   * Returns a new tile image displaying home items at the given <code>column</code> and <code>row</code>.
+   */
+  private BufferedImage paintPlanTile(int column, int row, Level level, Font font) {
+    BufferedImage tile = new BufferedImage(PLAN_TILE_SIZE, PLAN_TILE_SIZE,
+        this.planTilesOpaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D tileGraphics = tile.createGraphics();
+    if (this.planTilesOpaque) {
+      tileGraphics.setColor(getBackgroundColor(PaintMode.PAINT));
+      tileGraphics.fillRect(0, 0, PLAN_TILE_SIZE, PLAN_TILE_SIZE);
+    }
+    tileGraphics.clipRect(0, 0, PLAN_TILE_SIZE, PLAN_TILE_SIZE);
+    tileGraphics.translate(-column * PLAN_TILE_SIZE, -row * PLAN_TILE_SIZE);
+    tileGraphics.scale(this.planTilesScale, this.planTilesScale);
+    tileGraphics.setFont(font);
+    setRenderingHints(tileGraphics);
+    this.planTilePainting = true;
+    this.planTileIncomplete = false;
     try {
-      paintContent(g2D, this.home.getSelectedLevel(), getScale(), PaintMode.PAINT);
+      paintBackgroundAndHomeItems(tileGraphics, level, getScale(), PaintMode.PAINT);
     } catch (InterruptedIOException ex) {
       // Ignore exception because it may happen only in EXPORT paint mode
+    } finally {
+      this.planTilePainting = false;
+      tileGraphics.dispose();
     }
-    g2D.dispose();
+    return tile;
+  }
+
+  /**
+   * Removes from the tiles cache the tiles where the given <code>item</code> was painted
+   * and where it will be painted once modified. If the bounds of the item before its modification
+   * are unknown, the cache will be fully cleared.
+   */
+  private void invalidatePlanTiles(Selectable item) {
+    invalidatePlanTiles(item, false);
+  }
+
+  /**
+   * Removes from the tiles cache the tiles where the given <code>item</code> was painted,
+   * and where it will be painted if it's not deleted.
+   */
+  private void invalidatePlanTiles(Selectable item, boolean deletedItem) {
+    if (item != null
+        && this.planTilesCache != null
+        && !this.planTilesOutdated) {
+      if (this.planTilesItemBounds == null
+          || item instanceof HomeDoorOrWindow) {
+        // Clear all tiles when items bounds are unknown
+        // or when a door or window changes since it may update the painted area of walls around it
+        this.planTilesOutdated = true;
+      } else {
+        Rectangle2D oldBounds = deletedItem
+            ? this.planTilesItemBounds.remove(item)
+            : this.planTilesItemBounds.get(item);
+        if (oldBounds != null) {
+          removePlanTiles(oldBounds);
+        }
+        if (!deletedItem) {
+          Rectangle2D newBounds = getPlanTileItemBounds(item);
+          this.planTilesItemBounds.put(item, newBounds);
+          removePlanTiles(newBounds);
+        }
+        if (item instanceof HomeFurnitureGroup) {
+          for (HomePieceOfFurniture piece : ((HomeFurnitureGroup)item).getFurniture()) {
+            invalidatePlanTiles(piece, deletedItem);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes from the tiles cache the tiles where the given <code>wall</code> and the walls joined to it
+   * were painted and where they will be painted.
+   */
+  private void invalidateWallPlanTiles(Wall wall, boolean deletedWall) {
+    invalidatePlanTiles(wall, deletedWall);
+    invalidatePlanTiles(wall.getWallAtStart());
+    invalidatePlanTiles(wall.getWallAtEnd());
+  }
+
+  /**
+   * Removes from the tiles cache the tiles where the polylines and dimension lines
+   * which were selected or deselected are painted, since these items aren't painted in tiles
+   * while they're selected.
+   */
+  private void invalidateSelectionPlanTiles(List<Selectable> oldSelectedItems, List<Selectable> selectedItems) {
+    if (this.planTilesCache != null
+        && this.planTilesItemBounds != null
+        && !this.planTilesOutdated) {
+      Set<Selectable> changedItems = new HashSet<Selectable>(oldSelectedItems);
+      for (Selectable item : selectedItems) {
+        if (!changedItems.remove(item)) {
+          changedItems.add(item);
+        }
+      }
+      for (Selectable item : changedItems) {
+        if (item instanceof Polyline
+            || item instanceof DimensionLine) {
+          Rectangle2D bounds = this.planTilesItemBounds.get(item);
+          if (bounds != null) {
+            removePlanTiles(bounds);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the items of the given collection which aren't selected.
+   */
+  private <T extends Selectable> Collection<T> getUnselectedItems(Collection<T> items, List<Selectable> selectedItems) {
+    if (selectedItems.isEmpty()) {
+      return items;
+    } else {
+      Set<Selectable> selectedItemsSet = new HashSet<Selectable>(selectedItems);
+      List<T> unselectedItems = new ArrayList<T>(items.size());
+      for (T item : items) {
+        if (!selectedItemsSet.contains(item)) {
+          unselectedItems.add(item);
+        }
+      }
+      return unselectedItems;
+    }
+  }
+
+  /**
+   * Returns the bounds of the area where the given <code>item</code> is painted.
+   */
+  private Rectangle2D getPlanTileItemBounds(Selectable item) {
+    Rectangle2D itemBounds = getItemBounds(null, item);
+    if (item instanceof Polyline) {
+      // Add polyline thickness and arrows length
+      float thickness = ((Polyline)item).getThickness();
+      double margin = thickness + Math.pow(thickness, 0.66f) * 14;
+      itemBounds = new Rectangle2D.Double(itemBounds.getX() - margin, itemBounds.getY() - margin,
+          itemBounds.getWidth() + 2 * margin, itemBounds.getHeight() + 2 * margin);
+    }
+    return itemBounds;
+  }
+
+  /**
+   * Removes from the tiles cache the tiles intersecting the given bounds in plan.
+   */
+  private void removePlanTiles(Rectangle2D bounds) {
+    // Add a few pixels to take into account stroke widths and text antialiasing
+    double margin = 8;
+    int minColumn = (int)Math.floor((bounds.getMinX() * this.planTilesScale - margin) / PLAN_TILE_SIZE);
+    int maxColumn = (int)Math.floor((bounds.getMaxX() * this.planTilesScale + margin) / PLAN_TILE_SIZE);
+    int minRow = (int)Math.floor((bounds.getMinY() * this.planTilesScale - margin) / PLAN_TILE_SIZE);
+    int maxRow = (int)Math.floor((bounds.getMaxY() * this.planTilesScale + margin) / PLAN_TILE_SIZE);
+    for (Iterator<Long> it = this.planTilesCache.keySet().iterator(); it.hasNext(); ) {
+      long tileKey = it.next();
+      int row = (int)(tileKey >> 32);
+      int column = (int)tileKey;
+      if (column >= minColumn && column <= maxColumn
+          && row >= minRow && row <= maxRow) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Clears the tiles cache of home items.
+   */
+  private void clearPlanTiles() {
+    this.planTilesOutdated = true;
   }
 
   /**
@@ -2783,7 +3140,14 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     float xMax;
     float yMax;
     Rectangle2D planBounds = getPlanBounds();
-    if (getParent() instanceof JViewport) {
+    if (this.planTilePainting) {
+      // Paint grid only in the painted tile
+      Rectangle2D tileBounds = g2D.getClip().getBounds2D();
+      xMin = (float)tileBounds.getMinX();
+      yMin = (float)tileBounds.getMinY();
+      xMax = (float)tileBounds.getMaxX();
+      yMax = (float)tileBounds.getMaxY();
+    } else if (getParent() instanceof JViewport) {
       Rectangle viewRectangle = ((JViewport)getParent()).getViewRect();
       xMin = convertXPixelToModel(viewRectangle.x - 1);
       yMin = convertYPixelToModel(viewRectangle.y - 1);
@@ -2906,6 +3270,16 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    *           if <code>paintMode</code> is equal to <code>PaintMode.EXPORT</code>).
    */
   private void paintContent(Graphics2D g2D, Level level, float planScale, PaintMode paintMode) throws InterruptedIOException {
+    paintBackgroundAndHomeItems(g2D, level, planScale, paintMode);
+    if (paintMode == PaintMode.PAINT) {
+      paintFeedback(g2D, level, planScale);
+    }
+  }
+
+  /**
+   * Paints background and home items at the given <code>level</code>.
+   */
+  private void paintBackgroundAndHomeItems(Graphics2D g2D, Level level, float planScale, PaintMode paintMode) throws InterruptedIOException {
     Color backgroundColor = getBackgroundColor(paintMode);
     Color foregroundColor = getForegroundColor(paintMode);
     if (this.backgroundPainted) {
@@ -2924,75 +3298,81 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     } else {
       paintHomeItems(g2D, level, planScale, backgroundColor, foregroundColor, paintMode);
     }
+  }
 
-    if (paintMode == PaintMode.PAINT) {
-      List<Selectable> selectedItems = this.home.getSelectedItems();
-
-      Color selectionColor = getSelectionColor();
-      Color furnitureOutlineColor = getFurnitureOutlineColor();
-      Paint selectionOutlinePaint = new Color(selectionColor.getRed(), selectionColor.getGreen(),
-          selectionColor.getBlue(), 128);
-      Stroke selectionOutlineStroke = new BasicStroke(6 / planScale,
-          BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-      Stroke dimensionLinesSelectionOutlineStroke = new BasicStroke(4 / planScale,
-          BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-      Stroke locationFeedbackStroke = new BasicStroke(
-          1 / planScale, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_BEVEL, 0,
-          new float [] {20 / planScale, 5 / planScale, 5 / planScale, 5 / planScale}, 4 / planScale);
+  /**
+   * Paints camera, alignment, dimension lines, dragged items and rectangle feedback.
+   */
+  private void paintFeedback(Graphics2D g2D, Level level, float planScale) {
+    PaintMode paintMode = PaintMode.PAINT;
+    Color backgroundColor = getBackgroundColor(paintMode);
+    Color foregroundColor = getForegroundColor(paintMode);
+    List<Selectable> selectedItems = this.home.getSelectedItems();
 
-      paintCamera(g2D, selectedItems, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
-          planScale, backgroundColor, foregroundColor);
-
-      // Paint alignment feedback depending on aligned object class
-      if (this.alignedObjectClass != null) {
-        if (Wall.class.isAssignableFrom(this.alignedObjectClass)) {
-          paintWallAlignmentFeedback(g2D, (Wall)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
-              selectionColor, locationFeedbackStroke, planScale,
-              selectionOutlinePaint, selectionOutlineStroke);
-        } else if (Room.class.isAssignableFrom(this.alignedObjectClass)) {
-          paintRoomAlignmentFeedback(g2D, (Room)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
-              selectionColor, locationFeedbackStroke, planScale,
-              selectionOutlinePaint, selectionOutlineStroke);
-        } else if (Polyline.class.isAssignableFrom(this.alignedObjectClass)) {
-          if (this.showPointFeedback) {
-            paintPointFeedback(g2D, this.locationFeeback, selectionColor, planScale, selectionOutlinePaint, selectionOutlineStroke);
-          }
-        } else if (DimensionLine.class.isAssignableFrom(this.alignedObjectClass)) {
-          paintDimensionLineAlignmentFeedback(g2D, (DimensionLine)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
-              selectionColor, locationFeedbackStroke, planScale,
-              selectionOutlinePaint, selectionOutlineStroke);
-        }
-      }
-      if (this.centerAngleFeedback != null) {
-       paintAngleFeedback(g2D, this.centerAngleFeedback, this.point1AngleFeedback, this.point2AngleFeedback,
-           planScale, selectionColor);
-      }
-      if (this.dimensionLinesFeedback != null) {
-        List<Selectable> emptySelection = Collections.emptyList();
-        paintDimensionLines(g2D, this.dimensionLinesFeedback, emptySelection, level,
-            null, null, null, locationFeedbackStroke, planScale,
-            backgroundColor, selectionColor, paintMode, true);
-      }
-
-      if (this.draggedItemsFeedback != null) {
-        paintDimensionLines(g2D, Home.getDimensionLinesSubList(this.draggedItemsFeedback), this.draggedItemsFeedback, level,
-            selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, null,
-            locationFeedbackStroke, planScale, backgroundColor, foregroundColor, paintMode, false);
-        paintLabels(g2D, Home.getLabelsSubList(this.draggedItemsFeedback), this.draggedItemsFeedback, level,
-            selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, null,
-            planScale, foregroundColor, paintMode);
-        paintRoomsOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
-            planScale, foregroundColor);
-        paintWallsOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
-            planScale, foregroundColor);
-        paintFurniture(g2D, Home.getFurnitureSubList(this.draggedItemsFeedback), selectedItems, level, planScale, null,
-            foregroundColor, furnitureOutlineColor, paintMode, false);
-        paintFurnitureOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
-            planScale, foregroundColor);
-      }
+    Color selectionColor = getSelectionColor();
+    Color furnitureOutlineColor = getFurnitureOutlineColor();
+    Paint selectionOutlinePaint = new Color(selectionColor.getRed(), selectionColor.getGreen(),
+        selectionColor.getBlue(), 128);
+    Stroke selectionOutlineStroke = new BasicStroke(6 / planScale,
+        BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    Stroke dimensionLinesSelectionOutlineStroke = new BasicStroke(4 / planScale,
+        BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    Stroke locationFeedbackStroke = new BasicStroke(
+        1 / planScale, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_BEVEL, 0,
+        new float [] {20 / planScale, 5 / planScale, 5 / planScale, 5 / planScale}, 4 / planScale);
 
-      paintRectangleFeedback(g2D, selectionColor, planScale);
+    paintCamera(g2D, selectedItems, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
+        planScale, backgroundColor, foregroundColor);
+
+    // Paint alignment feedback depending on aligned object class
+    if (this.alignedObjectClass != null) {
+      if (Wall.class.isAssignableFrom(this.alignedObjectClass)) {
+        paintWallAlignmentFeedback(g2D, (Wall)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
+            selectionColor, locationFeedbackStroke, planScale,
+            selectionOutlinePaint, selectionOutlineStroke);
+      } else if (Room.class.isAssignableFrom(this.alignedObjectClass)) {
+        paintRoomAlignmentFeedback(g2D, (Room)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
+            selectionColor, locationFeedbackStroke, planScale,
+            selectionOutlinePaint, selectionOutlineStroke);
+      } else if (Polyline.class.isAssignableFrom(this.alignedObjectClass)) {
+        if (this.showPointFeedback) {
+          paintPointFeedback(g2D, this.locationFeeback, selectionColor, planScale, selectionOutlinePaint, selectionOutlineStroke);
+        }
+      } else if (DimensionLine.class.isAssignableFrom(this.alignedObjectClass)) {
+        paintDimensionLineAlignmentFeedback(g2D, (DimensionLine)this.alignedObjectFeedback, level, this.locationFeeback, this.showPointFeedback,
+            selectionColor, locationFeedbackStroke, planScale,
+            selectionOutlinePaint, selectionOutlineStroke);
+      }
+    }
+    if (this.centerAngleFeedback != null) {
+     paintAngleFeedback(g2D, this.centerAngleFeedback, this.point1AngleFeedback, this.point2AngleFeedback,
+         planScale, selectionColor);
+    }
+    if (this.dimensionLinesFeedback != null) {
+      List<Selectable> emptySelection = Collections.emptyList();
+      paintDimensionLines(g2D, this.dimensionLinesFeedback, emptySelection, level,
+          null, null, null, locationFeedbackStroke, planScale,
+          backgroundColor, selectionColor, paintMode, true);
+    }
+
+    if (this.draggedItemsFeedback != null) {
+      paintDimensionLines(g2D, Home.getDimensionLinesSubList(this.draggedItemsFeedback), this.draggedItemsFeedback, level,
+          selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, null,
+          locationFeedbackStroke, planScale, backgroundColor, foregroundColor, paintMode, false);
+      paintLabels(g2D, Home.getLabelsSubList(this.draggedItemsFeedback), this.draggedItemsFeedback, level,
+          selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, null,
+          planScale, foregroundColor, paintMode);
+      paintRoomsOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
+          planScale, foregroundColor);
+      paintWallsOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
+          planScale, foregroundColor);
+      paintFurniture(g2D, Home.getFurnitureSubList(this.draggedItemsFeedback), selectedItems, level, planScale, null,
+          foregroundColor, furnitureOutlineColor, paintMode, false);
+      paintFurnitureOutline(g2D, this.draggedItemsFeedback, level, selectionOutlinePaint, selectionOutlineStroke, null,
+          planScale, foregroundColor);
     }
+
+    paintRectangleFeedback(g2D, selectionColor, planScale);
   }
 
   /**
@@ -3012,22 +3392,22 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   protected void paintHomeItems(Graphics g, Level level, float planScale,
                                 Color backgroundColor, Color foregroundColor, PaintMode paintMode) throws InterruptedIOException {
     Graphics2D g2D = (Graphics2D)g;
-    List<Selectable> selectedItems = this.home.getSelectedItems();
-    if (this.sortedLevelFurniture == null) {
-      // Sort home furniture in elevation order
-      this.sortedLevelFurniture = new ArrayList<HomePieceOfFurniture>();
-      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
-        if (isViewableAtLevel(piece, level)) {
-          this.sortedLevelFurniture.add(piece);
-        }
-      }
-      Collections.sort(this.sortedLevelFurniture,
-          new Comparator<HomePieceOfFurniture>() {
-            public int compare(HomePieceOfFurniture piece1, HomePieceOfFurniture piece2) {
-              return Float.compare(piece1.getGroundElevation(), piece2.getGroundElevation());
-            }
-          });
+    List<Selectable> selectedItems;
+    Collection<Polyline> polylines;
+    Collection<DimensionLine> dimensionLines;
+    if (this.planTilePainting) {
+      // Paint tiles without selection, and without selected polylines and dimension lines
+      // which are painted differently when they're selected and painted over tiles
+      selectedItems = Collections.emptyList();
+      List<Selectable> homeSelectedItems = this.home.getSelectedItems();
+      polylines = getUnselectedItems(this.home.getPolylines(), homeSelectedItems);
+      dimensionLines = getUnselectedItems(this.home.getDimensionLines(), homeSelectedItems);
+    } else {
+      selectedItems = this.home.getSelectedItems();
+      polylines = this.home.getPolylines();
+      dimensionLines = this.home.getDimensionLines();
     }
+    List<HomePieceOfFurniture> sortedLevelFurniture = getSortedLevelFurniture(level);
 
     Color selectionColor = getSelectionColor();
     Paint selectionOutlinePaint = new Color(selectionColor.getRed(), selectionColor.getGreen(),
@@ -3049,43 +3429,117 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     paintWalls(g2D, selectedItems, level, planScale, backgroundColor, foregroundColor, paintMode);
 
     checkCurrentThreadIsntInterrupted(paintMode);
-    paintFurniture(g2D, this.sortedLevelFurniture, selectedItems, level,
+    paintFurniture(g2D, sortedLevelFurniture, selectedItems, level,
         planScale, backgroundColor, foregroundColor, getFurnitureOutlineColor(), paintMode, true);
 
     checkCurrentThreadIsntInterrupted(paintMode);
-    paintPolylines(g2D, this.home.getPolylines(), selectedItems, level,
+    paintPolylines(g2D, polylines, selectedItems, level,
         selectionOutlinePaint, selectionColor, planScale, foregroundColor, paintMode);
 
     checkCurrentThreadIsntInterrupted(paintMode);
-    paintDimensionLines(g2D, this.home.getDimensionLines(), selectedItems, level,
+    paintDimensionLines(g2D, dimensionLines, selectedItems, level,
         selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, selectionColor,
         locationFeedbackStroke, planScale, backgroundColor, foregroundColor, paintMode, false);
 
-    // Paint rooms text, furniture name and labels last to ensure they are not hidden
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintRoomsNameAndArea(g2D, selectedItems, planScale, foregroundColor, paintMode);
+    if (!this.planTilePainting
+        || !this.planTilesWithoutTexts) {
+      // Paint rooms text, furniture name and labels last to ensure they are not hidden
+      checkCurrentThreadIsntInterrupted(paintMode);
+      paintRoomsNameAndArea(g2D, selectedItems, level, planScale, foregroundColor, paintMode);
 
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintFurnitureName(g2D, this.sortedLevelFurniture, selectedItems, planScale, foregroundColor, paintMode);
+      checkCurrentThreadIsntInterrupted(paintMode);
+      paintFurnitureName(g2D, sortedLevelFurniture, selectedItems, planScale, foregroundColor, paintMode);
 
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintLabels(g2D, this.home.getLabels(), selectedItems, level,
-        selectionOutlinePaint, dimensionLinesSelectionOutlineStroke,
-        selectionColor, planScale, foregroundColor, paintMode);
+      checkCurrentThreadIsntInterrupted(paintMode);
+      paintLabels(g2D, this.home.getLabels(), selectedItems, level,
+          selectionOutlinePaint, dimensionLinesSelectionOutlineStroke,
+          selectionColor, planScale, foregroundColor, paintMode);
+    }
 
     if (paintMode == PaintMode.PAINT
         && this.selectedItemsOutlinePainted) {
-      paintCompassOutline(g2D, selectedItems, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
-          planScale, foregroundColor);
-      paintRoomsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
-          planScale, foregroundColor);
-      paintWallsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
-          planScale, foregroundColor);
-      paintFurnitureOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
+      paintSelectedItemsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
           planScale, foregroundColor);
     }
   }
 
+  /**
+   * Returns the furniture viewable at the given <code>level</code> sorted in elevation order.
+   */
+  private List<HomePieceOfFurniture> getSortedLevelFurniture(Level level) {
+    if (this.sortedLevelFurniture == null) {
+      // Sort home furniture in elevation order
+      this.sortedLevelFurniture = new ArrayList<HomePieceOfFurniture>();
+      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+        if (isViewableAtLevel(piece, level)) {
+          this.sortedLevelFurniture.add(piece);
+        }
+      }
+      Collections.sort(this.sortedLevelFurniture,
+          new Comparator<HomePieceOfFurniture>() {
+            public int compare(HomePieceOfFurniture piece1, HomePieceOfFurniture piece2) {
+              return Float.compare(piece1.getGroundElevation(), piece2.getGroundElevation());
+            }
+          });
+    }
+    return this.sortedLevelFurniture;
+  }
+
+  /**
+   * Paints the outline of selected compass, rooms, walls and furniture.
+   */
+  private void paintSelectedItemsOutline(Graphics2D g2D, List<Selectable> selectedItems, Level level,
+                                         Paint selectionOutlinePaint, Stroke selectionOutlineStroke,
+                                         Paint indicatorPaint, float planScale, Color foregroundColor) {
+    paintCompassOutline(g2D, selectedItems, selectionOutlinePaint, selectionOutlineStroke, indicatorPaint,
+        planScale, foregroundColor);
+    paintRoomsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, indicatorPaint,
+        planScale, foregroundColor);
+    paintWallsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, indicatorPaint,
+        planScale, foregroundColor);
+    paintFurnitureOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, indicatorPaint,
+        planScale, foregroundColor);
+  }
+
+  /**
+   * Paints over tiles the selected polylines and dimension lines, then rooms text,
+   * furniture name and labels if they're not painted in tiles, and the outline of selected items.
+   */
+  private void paintSelectedItems(Graphics2D g2D, Level level, float planScale) {
+    List<Selectable> selectedItems = this.home.getSelectedItems();
+    if (!selectedItems.isEmpty()) {
+      Color backgroundColor = getBackgroundColor(PaintMode.PAINT);
+      Color foregroundColor = getForegroundColor(PaintMode.PAINT);
+      Color selectionColor = getSelectionColor();
+      Paint selectionOutlinePaint = new Color(selectionColor.getRed(), selectionColor.getGreen(),
+          selectionColor.getBlue(), 128);
+      Stroke selectionOutlineStroke = new BasicStroke(6 / planScale,
+          BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+      Stroke dimensionLinesSelectionOutlineStroke = new BasicStroke(4 / planScale,
+          BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+      Stroke locationFeedbackStroke = new BasicStroke(
+          1 / planScale, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_BEVEL, 0,
+          new float [] {20 / planScale, 5 / planScale, 5 / planScale, 5 / planScale}, 4 / planScale);
+
+      paintPolylines(g2D, Home.getPolylinesSubList(selectedItems), selectedItems, level,
+          selectionOutlinePaint, selectionColor, planScale, foregroundColor, PaintMode.PAINT);
+      paintDimensionLines(g2D, Home.getDimensionLinesSubList(selectedItems), selectedItems, level,
+          selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, selectionColor,
+          locationFeedbackStroke, planScale, backgroundColor, foregroundColor, PaintMode.PAINT, false);
+      if (this.planTilesWithoutTexts) {
+        paintRoomsNameAndArea(g2D, selectedItems, level, planScale, foregroundColor, PaintMode.PAINT);
+        paintFurnitureName(g2D, getSortedLevelFurniture(level), selectedItems, planScale, foregroundColor, PaintMode.PAINT);
+        paintLabels(g2D, this.home.getLabels(), selectedItems, level,
+            selectionOutlinePaint, dimensionLinesSelectionOutlineStroke,
+            selectionColor, planScale, foregroundColor, PaintMode.PAINT);
+      }
+      if (this.selectedItemsOutlinePainted) {
+        paintSelectedItemsOutline(g2D, selectedItems, level, selectionOutlinePaint, selectionOutlineStroke, selectionColor,
+            planScale, foregroundColor);
+      }
+    }
+  }
+
   /**
    * Returns the color used to draw selection outlines.
    */
@@ -3132,36 +3586,12 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    */
   private void paintRooms(Graphics2D g2D, List<Selectable> selectedItems, Level level, float planScale,
                           Color foregroundColor, PaintMode paintMode) {
-    if (this.sortedLevelRooms == null) {
-      // Sort home rooms in floor / floor-ceiling / ceiling order
-      this.sortedLevelRooms = new ArrayList<Room>();
-      for (Room room : this.home.getRooms()) {
-        if (isViewableAtLevel(room, level)) {
-          this.sortedLevelRooms.add(room);
-        }
-      }
-      Collections.sort(this.sortedLevelRooms,
-          new Comparator<Room>() {
-            public int compare(Room room1, Room room2) {
-              if (room1.isFloorVisible() == room2.isFloorVisible()
-                  && room1.isCeilingVisible() == room2.isCeilingVisible()) {
-                return 0; // Keep default order if the room floors and ceilings have the same visibility
-              } else if (!room1.isFloorVisible() && !room1.isCeilingVisible()
-                         || room1.isFloorVisible() && room2.isCeilingVisible()) {
-                return -1;
-              } else {
-                return 1;
-              }
-            }
-          });
-    }
-
     Color defaultFillPaint = paintMode == PaintMode.PRINT
         ? Color.WHITE
         : Color.GRAY;
     // Draw rooms area
     g2D.setStroke(new BasicStroke(getStrokeWidth(Room.class, paintMode) / planScale));
-    for (Room room : this.sortedLevelRooms) {
+    for (Room room : getSortedLevelRooms(level)) {
       boolean selectedRoom = selectedItems.contains(room);
       // In clipboard paint mode, paint room only if it is selected
       if (paintMode != PaintMode.CLIPBOARD
@@ -3196,6 +3626,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                           floorTextureImagesCache.put(floorTexture,
                               ((ImageComponent2D)texture.getImage(0)).getImage());
                           if (!waitForTexture) {
+                            clearPlanTiles();
                             repaint();
                           }
                         }
@@ -3219,6 +3650,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                 }
                 textureImage = this.floorTextureImagesCache.get(floorTexture);
               }
+              if (textureImage == WAIT_TEXTURE_IMAGE) {
+                this.planTileIncomplete = true;
+              }
 
               if (room.getFloorTexture().isFittingArea()) {
                 float [] min = room.getBoundsMinimumCoordinates();
@@ -3266,6 +3700,36 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
   }
 
+  /**
+   * Returns the rooms viewable at the given <code>level</code> sorted in floor / floor-ceiling / ceiling order.
+   */
+  private List<Room> getSortedLevelRooms(Level level) {
+    if (this.sortedLevelRooms == null) {
+      // Sort home rooms in floor / floor-ceiling / ceiling order
+      this.sortedLevelRooms = new ArrayList<Room>();
+      for (Room room : this.home.getRooms()) {
+        if (isViewableAtLevel(room, level)) {
+          this.sortedLevelRooms.add(room);
+        }
+      }
+      Collections.sort(this.sortedLevelRooms,
+          new Comparator<Room>() {
+            public int compare(Room room1, Room room2) {
+              if (room1.isFloorVisible() == room2.isFloorVisible()
+                  && room1.isCeilingVisible() == room2.isCeilingVisible()) {
+                return 0; // Keep default order if the room floors and ceilings have the same visibility
+              } else if (!room1.isFloorVisible() && !room1.isCeilingVisible()
+                         || room1.isFloorVisible() && room2.isCeilingVisible()) {
+                return -1;
+              } else {
+                return 1;
+              }
+            }
+          });
+    }
+    return this.sortedLevelRooms;
+  }
+
   /**
    * Fills the given <code>shape</code>.
    */
@@ -3322,11 +3786,11 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   /**
    * Paints rooms name and area.
    */
-  private void paintRoomsNameAndArea(Graphics2D g2D, List<Selectable> selectedItems, float planScale,
+  private void paintRoomsNameAndArea(Graphics2D g2D, List<Selectable> selectedItems, Level level, float planScale,
                                      Color foregroundColor, PaintMode paintMode) {
     g2D.setPaint(foregroundColor);
     Font previousFont = g2D.getFont();
-    for (Room room : this.sortedLevelRooms) {
+    for (Room room : getSortedLevelRooms(level)) {
       boolean selectedRoom = selectedItems.contains(room);
       // In clipboard paint mode, paint room only if it is selected
       if (paintMode != PaintMode.CLIPBOARD
@@ -3923,11 +4387,24 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    */
   private Map<Collection<Wall>, Area> getWallAreasAtLevel(Level level) {
     if (this.wallAreasCache == null) {
-      this.wallAreasCache = getWallAreas(getDrawableWallsAtLevel(this.home.getWalls(), level));
+      this.wallAreasCache = getWallAreas(getDrawableWallsAtLevel(this.home.getWalls(), level), true);
     }
     return this.wallAreasCache;
   }
 
+  /**
+   * Invalidates the area of the given <code>wall</code> and of the walls joined to it
+   * in the cached unions of walls.
+   */
+  private void invalidateWallArea(Wall wall) {
+    if (wall != null
+        && this.wallAreaUnionsCache != null) {
+      for (WallsAreaCache wallsAreaCache : this.wallAreaUnionsCache.values()) {
+        wallsAreaCache.invalidateWall(wall);
+      }
+    }
+  }
+
   /**
    * Returns the walls that belong to the given <code>level</code> in home.
    */
@@ -3945,7 +4422,19 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    * Returns areas matching the union of <code>walls</code> shapes sorted by pattern.
    */
   private Map<Collection<Wall>, Area> getWallAreas(Collection<Wall> walls) {
+    return getWallAreas(walls, false);
+  }
+
+  /**
+   * Returns areas matching the union of <code>walls</code> shapes sorted by pattern.
+   * If <code>incremental</code> is <code>true</code>, the union of the walls that didn't change
+   * since last call will be reused.
+   */
+  private Map<Collection<Wall>, Area> getWallAreas(Collection<Wall> walls, boolean incremental) {
     if (walls.size() == 0) {
+      if (incremental) {
+        this.wallAreaUnionsCache = null;
+      }
       return Collections.emptyMap();
     }
     // Check if all walls use the same pattern
@@ -3958,8 +4447,11 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       }
     }
     Map<Collection<Wall>, Area> wallAreas = new LinkedHashMap<Collection<Wall>, Area>();
+    Map<TextureImage, WallsAreaCache> wallAreaUnions = incremental
+        ? new HashMap<TextureImage, WallsAreaCache>()
+        : null;
     if (samePattern) {
-      wallAreas.put(walls, getItemsArea(walls));
+      wallAreas.put(walls, getWallsArea(pattern, walls, wallAreaUnions));
     } else {
       // Create walls sublists by pattern
       Map<TextureImage, Collection<Wall>> sortedWalls = new LinkedHashMap<TextureImage, Collection<Wall>>();
@@ -3975,13 +4467,37 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         }
         patternWalls.add(wall);
       }
-      for (Collection<Wall> patternWalls : sortedWalls.values()) {
-        wallAreas.put(patternWalls, getItemsArea(patternWalls));
+      for (Map.Entry<TextureImage, Collection<Wall>> patternWalls : sortedWalls.entrySet()) {
+        wallAreas.put(patternWalls.getValue(), getWallsArea(patternWalls.getKey(), patternWalls.getValue(), wallAreaUnions));
       }
     }
+    if (incremental) {
+      // Keep only the unions of walls matching current patterns
+      this.wallAreaUnionsCache = wallAreaUnions;
+    }
     return wallAreas;
   }
 
+  /**
+   * Returns the area matching the union of <code>walls</code> drawn with the given <code>pattern</code>,
+   * computed with a reused union of walls if <code>wallAreaUnions</code> isn't <code>null</code>.
+   */
+  private Area getWallsArea(TextureImage pattern, Collection<Wall> walls,
+                            Map<TextureImage, WallsAreaCache> wallAreaUnions) {
+    if (wallAreaUnions == null) {
+      return getItemsArea(walls);
+    } else {
+      WallsAreaCache wallsAreaCache = this.wallAreaUnionsCache != null
+          ? this.wallAreaUnionsCache.get(pattern)
+          : null;
+      if (wallsAreaCache == null) {
+        wallsAreaCache = new WallsAreaCache(false);
+      }
+      wallAreaUnions.put(pattern, wallsAreaCache);
+      return wallsAreaCache.getArea(walls);
+    }
+  }
+
   /**
    * Returns an area matching the union of all <code>items</code> shapes.
    */
@@ -4407,6 +4923,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Get piece icon
     Icon icon = IconManager.getInstance().getIcon(piece.getIcon(), 128,
         paintMode == PaintMode.PAINT ? this : null);
+    if (IconManager.getInstance().isWaitIcon(icon)) {
+      this.planTileIncomplete = true;
+    }
     paintPieceOfFurnitureIcon(g2D, piece, icon, pieceShape2D, planScale, backgroundColor);
   }
 
@@ -4491,6 +5010,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
 
     if (icon.isWaitIcon() || icon.isErrorIcon()) {
+      if (icon.isWaitIcon()) {
+        this.planTileIncomplete = true;
+      }
       paintPieceOfFurnitureIcon(g2D, piece, icon, pieceShape2D, planScale, backgroundColor);
       g2D.setPaint(foregroundColor);
       g2D.setStroke(pieceBorderStroke);
@@ -1502,11 +1502,14 @@ public class VideoPanel extends JPanel implements DialogView {
     try {
       file = OperatingSystem.createTemporaryFile("video", ".mov");
       if (quality >= 2) {
-        frameGenerator = new PhotoImageGenerator(home, width, height,
+        int rendererCount = Integer.getInteger("com.eteks.sweethome3d.swing.videoRendererCount",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4)));
+        frameGenerator = new PhotoImagesGenerator(home, width, height,
             this.controller.getRenderer(), this.object3dFactory,
             quality == 2
                 ? AbstractPhotoRenderer.Quality.LOW
-                : AbstractPhotoRenderer.Quality.HIGH);
+                : AbstractPhotoRenderer.Quality.HIGH,
+            Math.max(1, rendererCount));
       } else {
         frameGenerator = new Image3DGenerator(home, this.preferences, width, height, this.object3dFactory,
             quality == 1
@@ -1531,6 +1534,9 @@ public class VideoPanel extends JPanel implements DialogView {
           this.preferences.getLocalizedString(VideoPanel.class, "outOfMemory.message"));
       file = null;
     } finally {
+      if (frameGenerator != null) {
+        frameGenerator.close();
+      }
       this.videoFile = file;
       EventQueue.invokeLater(new Runnable() {
           public void run() {
@@ -1812,11 +1818,7 @@ public class VideoPanel extends JPanel implements DialogView {
         buffer.setLength(0);
       } else {
         checkAppContext();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        BufferedImage frame = this.frameGenerator.renderImageAt(this.framesPath [this.imageIndex],
-            this.imageIndex == this.framesPath.length - 1);
-        ImageIO.write(frame, "JPEG", outputStream);
-        byte [] data = outputStream.toByteArray();
+        byte [] data = this.frameGenerator.getFrameData(this.framesPath, this.imageIndex);
         buffer.setData(data);
         buffer.setLength(data.length);
         buffer.setFormat(this.format);
@@ -1895,43 +1897,55 @@ public class VideoPanel extends JPanel implements DialogView {
       this.launchingThread = Thread.currentThread();
     }
 
-    public abstract BufferedImage renderImageAt(Camera frameCamera, boolean last) throws IOException;
+    /**
+     * Returns the JPEG data of the frame at the given <code>index</code> in <code>framesPath</code>.
+     * Frames are requested in the order of the path.
+     */
+    public abstract byte [] getFrameData(Camera [] framesPath, int index) throws IOException;
+
+    /**
+     * Releases the resources used by this generator, even if all the frames weren't requested.
+     */
+    public void close() {
+    }
 
     protected void checkLaunchingThreadIsntInterrupted() throws InterruptedIOException {
       if (this.launchingThread.isInterrupted()) {
         throw new InterruptedIOException("Lauching thread interrupted");
       }
     }
+
+    /**
+     * Returns the given image encoded in JPEG.
+     */
+    protected static byte [] encodeJPEG(BufferedImage image) throws IOException {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      ImageIO.write(image, "JPEG", outputStream);
+      return outputStream.toByteArray();
+    }
   }
 
   /**
-   * A frame generator using photo renderer.
+   * A frame generator using a pipeline of photo renderers.
    */
-  private static class PhotoImageGenerator extends FrameGenerator {
-    private AbstractPhotoRenderer renderer;
-    private BufferedImage         image;
+  private static class PhotoImagesGenerator extends FrameGenerator {
+    private final PhotoImagesPipeline pipeline;
+
+    public PhotoImagesGenerator(Home home, int width, int height, String photoRendererClass,
+                                Object3DFactory object3dFactory, AbstractPhotoRenderer.Quality quality,
+                                int rendererCount) throws IOException {
+      this.pipeline = new PhotoImagesPipeline(home, width, height, photoRendererClass,
+          object3dFactory, quality, rendererCount);
+    }
 
-    public PhotoImageGenerator(Home home, int width, int height, String photoRendererClass,
-                               Object3DFactory object3dFactory, AbstractPhotoRenderer.Quality quality) throws IOException {
-      this.renderer = AbstractPhotoRenderer.createInstance(photoRendererClass, home, object3dFactory, quality);
-      this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    @Override
+    public byte [] getFrameData(Camera [] framesPath, int index) throws IOException {
+      return this.pipeline.getFrameData(framesPath, index);
     }
 
-    public BufferedImage renderImageAt(Camera frameCamera, boolean last) throws IOException {
-      try {
-        checkLaunchingThreadIsntInterrupted();
-        this.renderer.render(this.image, frameCamera, null);
-        checkLaunchingThreadIsntInterrupted();
-        return image;
-      } catch(InterruptedIOException ex) {
-        this.renderer = null;
-        throw ex;
-      } finally {
-        if (last) {
-          this.renderer.dispose();
-          this.renderer = null;
-        }
-      }
+    @Override
+    public void close() {
+      this.pipeline.close();
     }
   }
 
@@ -1952,7 +1966,17 @@ public class VideoPanel extends JPanel implements DialogView {
       this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
     }
 
-    public BufferedImage renderImageAt(Camera frameCamera, boolean last) throws IOException {
+    @Override
+    public byte [] getFrameData(Camera [] framesPath, int index) throws IOException {
+      return encodeJPEG(renderImageAt(framesPath [index], index == framesPath.length - 1));
+    }
+
+    @Override
+    public void close() {
+      this.homeComponent3D.endOffscreenImagesCreation();
+    }
+
+    private BufferedImage renderImageAt(Camera frameCamera, boolean last) throws IOException {
       try {
         checkLaunchingThreadIsntInterrupted();
         // Replace home camera with frameCamera to avoid animation interpolator in 3D component
@@ -314,12 +314,23 @@ public class FurnitureController implements Controller {
                                      Level [] furnitureLevels,
                                      boolean basePlanLocked,
                                      boolean allLevelsSelection) {
+    boolean furnitureAddedAtOnce = true;
+    for (int i = 0; i < furnitureIndex.length && furnitureAddedAtOnce; i++) {
+      furnitureAddedAtOnce = (furnitureGroups == null || furnitureGroups [i] == null)
+          && (i == 0 || furnitureIndex [i] > furnitureIndex [i - 1]);
+    }
+    if (furnitureAddedAtOnce) {
+      // Add furniture to home with a single notification
+      home.addFurniture(Arrays.asList(furniture), furnitureIndex);
+    }
     for (int i = 0; i < furnitureIndex.length; i++) {
-      if (furnitureGroups != null && furnitureGroups [i] != null) {
-        home.addPieceOfFurnitureToGroup(furniture [i], furnitureGroups [i], furnitureIndex [i]);
-        furniture [i].setVisible(furnitureGroups [i].isVisible());
-      } else {
-        home.addPieceOfFurniture(furniture [i], furnitureIndex [i]);
+      if (!furnitureAddedAtOnce) {
+        if (furnitureGroups != null && furnitureGroups [i] != null) {
+          home.addPieceOfFurnitureToGroup(furniture [i], furnitureGroups [i], furnitureIndex [i]);
+          furniture [i].setVisible(furnitureGroups [i].isVisible());
+        } else {
+          home.addPieceOfFurniture(furniture [i], furnitureIndex [i]);
+        }
       }
       furniture [i].setLevel(furnitureLevels != null ? furnitureLevels [i] : furnitureLevel);
     }
@@ -454,9 +465,7 @@ public class FurnitureController implements Controller {
                                         HomePieceOfFurniture [] furniture,
                                         boolean basePlanLocked,
                                         boolean allLevelsSelection) {
-    for (HomePieceOfFurniture piece : furniture) {
-      home.deletePieceOfFurniture(piece);
-    }
+    home.deleteItems(Arrays.asList(furniture));
     home.setBasePlanLocked(basePlanLocked);
     home.setAllLevelsSelection(allLevelsSelection);
   }
@@ -30,6 +30,7 @@ import java.util.List;
 
 import javax.swing.undo.UndoableEditSupport;
 
+import com.eteks.sweethome3d.model.BatchCollectionListener;
 import com.eteks.sweethome3d.model.Camera;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
@@ -849,65 +850,79 @@ public class HomeController3D implements Controller {
           updateCameraFromHomeBounds(false, false);
         }
       };
-    private CollectionListener<Wall> wallsListener = new CollectionListener<Wall>() {
+    private CollectionListener<Wall> wallsListener = new BatchCollectionListener<Wall>() {
         public void collectionChanged(CollectionEvent<Wall> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(objectChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(objectChangeListener);
+          for (Wall item : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              item.addPropertyChangeListener(objectChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              item.removePropertyChangeListener(objectChangeListener);
+            }
           }
           updateCameraFromHomeBounds(false, false);
         }
       };
-    private CollectionListener<HomePieceOfFurniture> furnitureListener = new CollectionListener<HomePieceOfFurniture>() {
+    private CollectionListener<HomePieceOfFurniture> furnitureListener = new BatchCollectionListener<HomePieceOfFurniture>() {
         public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
           if (ev.getType() == CollectionEvent.Type.ADD) {
-            addPropertyChangeListener(ev.getItem(), objectChangeListener);
-            updateCameraFromHomeBounds(home.getFurniture().size() == 1
+            for (HomePieceOfFurniture piece : ev.getItems()) {
+              addPropertyChangeListener(piece, objectChangeListener);
+            }
+            updateCameraFromHomeBounds(home.getFurniture().size() == ev.getItems().size()
                 && home.getWalls().isEmpty()
                 && home.getRooms().isEmpty(), false);
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            removePropertyChangeListener(ev.getItem(), objectChangeListener);
+            for (HomePieceOfFurniture piece : ev.getItems()) {
+              removePropertyChangeListener(piece, objectChangeListener);
+            }
             updateCameraFromHomeBounds(false, false);
           }
         }
       };
-    private CollectionListener<Room> roomsListener = new CollectionListener<Room>() {
+    private CollectionListener<Room> roomsListener = new BatchCollectionListener<Room>() {
         public void collectionChanged(CollectionEvent<Room> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(objectChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(objectChangeListener);
+          for (Room item : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              item.addPropertyChangeListener(objectChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              item.removePropertyChangeListener(objectChangeListener);
+            }
           }
           updateCameraFromHomeBounds(false, false);
         }
       };
-    private CollectionListener<Polyline> polylinesListener = new CollectionListener<Polyline>() {
+    private CollectionListener<Polyline> polylinesListener = new BatchCollectionListener<Polyline>() {
         public void collectionChanged(CollectionEvent<Polyline> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(objectChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(objectChangeListener);
+          for (Polyline item : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              item.addPropertyChangeListener(objectChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              item.removePropertyChangeListener(objectChangeListener);
+            }
           }
           updateCameraFromHomeBounds(false, false);
         }
       };
-    private CollectionListener<DimensionLine> dimensionLinesListener = new CollectionListener<DimensionLine>() {
+    private CollectionListener<DimensionLine> dimensionLinesListener = new BatchCollectionListener<DimensionLine>() {
         public void collectionChanged(CollectionEvent<DimensionLine> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(objectChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(objectChangeListener);
+          for (DimensionLine item : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              item.addPropertyChangeListener(objectChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              item.removePropertyChangeListener(objectChangeListener);
+            }
           }
           updateCameraFromHomeBounds(false, false);
         }
       };
-    private CollectionListener<Label> labelsListener = new CollectionListener<Label>() {
+    private CollectionListener<Label> labelsListener = new BatchCollectionListener<Label>() {
         public void collectionChanged(CollectionEvent<Label> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(objectChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(objectChangeListener);
+          for (Label item : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              item.addPropertyChangeListener(objectChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              item.removePropertyChangeListener(objectChangeListener);
+            }
           }
           updateCameraFromHomeBounds(false, false);
         }
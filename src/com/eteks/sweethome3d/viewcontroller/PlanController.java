@@ -48,6 +48,7 @@ import javax.swing.undo.UndoableEditSupport;
 
 import com.eteks.sweethome3d.model.BackgroundImage;
 import com.eteks.sweethome3d.model.Baseboard;
+import com.eteks.sweethome3d.model.BatchCollectionListener;
 import com.eteks.sweethome3d.model.BoxBounds;
 import com.eteks.sweethome3d.model.Camera;
 import com.eteks.sweethome3d.model.CollectionEvent;
@@ -191,9 +192,12 @@ public class PlanController extends FurnitureController implements Controller {
   private float                           yLastMouseMove;
   private Area                            wallsAreaCache;
   private Area                            wallsIncludingBaseboardsAreaCache;
+  private WallsAreaCache                  wallsAreaUnionCache;
+  private WallsAreaCache                  wallsIncludingBaseboardsAreaUnionCache;
   private Area                            insideWallsAreaCache;
   private List<GeneralPath>               roomPathsCache;
   private Map<HomePieceOfFurniture, Area> furnitureSidesCache;
+  private PlanItemsIndex                  itemsIndex;
   private List<Selectable>                draggedItems;
   private boolean                         feedbackDisplayed = true;
 
@@ -2338,15 +2342,27 @@ public class PlanController extends FurnitureController implements Controller {
    * Returns the viewable and selectable home items at the selected level, except camera.
    */
   private List<Selectable> getVisibleItemsAtSelectedLevel() {
+    return getVisibleItemsAtSelectedLevel(this.home.getSelectableViewableItems());
+  }
+
+  /**
+   * Returns the viewable and selectable items at the selected level among the given <code>items</code>.
+   */
+  private List<Selectable> getVisibleItemsAtSelectedLevel(List<Selectable> items) {
     List<Selectable> selectableItems = new ArrayList<Selectable>();
     Level selectedLevel = this.home.getSelectedLevel();
-    for (Selectable item : this.home.getSelectableViewableItems()) {
+    for (Selectable item : items) {
       if (item instanceof HomePieceOfFurniture) {
         if (isPieceOfFurnitureVisibleAtSelectedLevel((HomePieceOfFurniture)item)) {
           selectableItems.add(item);
         }
+      } else if (item instanceof Compass) {
+        if (((Compass)item).isVisible()) {
+          selectableItems.add(item);
+        }
       } else if (!(item instanceof Elevatable)
-          || ((Elevatable)item).isAtLevel(selectedLevel)) {
+          || isLevelNullOrViewable(((Elevatable)item).getLevel())
+              && ((Elevatable)item).isAtLevel(selectedLevel)) {
         selectableItems.add(item);
       }
     }
@@ -2439,6 +2455,9 @@ public class PlanController extends FurnitureController implements Controller {
   }
 
   private void addModelListeners() {
+    this.itemsIndex = new PlanItemsIndex(this.home);
+    this.wallsAreaUnionCache = new WallsAreaCache(false);
+    this.wallsIncludingBaseboardsAreaUnionCache = new WallsAreaCache(true);
     this.selectionListener = new SelectionListener() {
         public void selectionChanged(SelectionEvent ev) {
           selectLevelFromSelectedItems();
@@ -2474,9 +2493,15 @@ public class PlanController extends FurnitureController implements Controller {
               || Wall.Property.HEIGHT_AT_END.name().equals(propertyName)
               || Wall.Property.LEFT_SIDE_BASEBOARD.name().equals(propertyName)
               || Wall.Property.RIGHT_SIDE_BASEBOARD.name().equals(propertyName)) {
+            // Compute again only the area of the modified wall and the walls joined to it
+            Wall wall = (Wall)ev.getSource();
+            invalidateWallArea(wall);
+            if (Wall.Property.WALL_AT_START.name().equals(propertyName)
+                || Wall.Property.WALL_AT_END.name().equals(propertyName)) {
+              invalidateWallArea((Wall)ev.getOldValue());
+            }
             resetAreaCache();
             // Unselect unreachable wall
-            Wall wall = (Wall)ev.getSource();
             if (!wall.isAtLevel(home.getSelectedLevel())) {
               List<Selectable> selectedItems = new ArrayList<Selectable>(home.getSelectedItems());
               if (selectedItems.remove(wall)) {
@@ -2489,12 +2514,14 @@ public class PlanController extends FurnitureController implements Controller {
     for (Wall wall : this.home.getWalls()) {
       wall.addPropertyChangeListener(this.wallChangeListener);
     }
-    this.home.addWallsListener(new CollectionListener<Wall> () {
+    this.home.addWallsListener(new BatchCollectionListener<Wall> () {
         public void collectionChanged(CollectionEvent<Wall> ev) {
-          if (ev.getType() == CollectionEvent.Type.ADD) {
-            ev.getItem().addPropertyChangeListener(wallChangeListener);
-          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
-            ev.getItem().removePropertyChangeListener(wallChangeListener);
+          for (Wall wall : ev.getItems()) {
+            if (ev.getType() == CollectionEvent.Type.ADD) {
+              wall.addPropertyChangeListener(wallChangeListener);
+            } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+              wall.removePropertyChangeListener(wallChangeListener);
+            }
           }
           resetAreaCache();
         }
@@ -2593,6 +2620,17 @@ public class PlanController extends FurnitureController implements Controller {
     return this.selectionListener;
   }
 
+  /**
+   * Invalidates the area of the given <code>wall</code> and the walls joined to it
+   * in the union of walls area.
+   */
+  private void invalidateWallArea(Wall wall) {
+    if (wall != null) {
+      this.wallsAreaUnionCache.invalidateWall(wall);
+      this.wallsIncludingBaseboardsAreaUnionCache.invalidateWall(wall);
+    }
+  }
+
   private void resetAreaCache() {
     wallsAreaCache = null;
     wallsIncludingBaseboardsAreaCache = null;
@@ -4204,7 +4242,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private Wall getWallStartAt(float x, float y, Wall ignoredWall) {
     float margin = WALL_ENDS_PIXEL_MARGIN / getScale();
-    for (Wall wall : this.home.getWalls()) {
+    for (Wall wall : this.itemsIndex.getWallsAt(x, y, margin)) {
       if (wall != ignoredWall
           && isLevelNullOrViewable(wall.getLevel())
           && wall.isAtLevel(this.home.getSelectedLevel())
@@ -4222,7 +4260,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private Wall getWallEndAt(float x, float y, Wall ignoredWall) {
     float margin = WALL_ENDS_PIXEL_MARGIN / getScale();
-    for (Wall wall : this.home.getWalls()) {
+    for (Wall wall : this.itemsIndex.getWallsAt(x, y, margin)) {
       if (wall != ignoredWall
           && isLevelNullOrViewable(wall.getLevel())
           && wall.isAtLevel(this.home.getSelectedLevel())
@@ -5092,7 +5130,8 @@ public class PlanController extends FurnitureController implements Controller {
       }
     }
 
-    List<HomePieceOfFurniture> furniture = this.home.getFurniture();
+    // Search only among the pieces which bounds contain the point or which name may be drawn outside
+    List<HomePieceOfFurniture> furniture = this.itemsIndex.getFurnitureAt(x, y, margin, true);
     // Search in home furniture in reverse order to give priority to last drawn piece
     // at highest elevation in case it covers an other piece
     List<HomePieceOfFurniture> foundFurniture = new ArrayList<HomePieceOfFurniture>();
@@ -5194,7 +5233,7 @@ public class PlanController extends FurnitureController implements Controller {
           }
         });
       items.addAll(foundFurniture);
-      for (Wall wall : this.home.getWalls()) {
+      for (Wall wall : this.itemsIndex.getWallsAt(x, y, margin)) {
         if ((!basePlanLocked
               || !isItemPartOfBasePlan(wall))
             && isLevelNullOrViewable(wall.getLevel())
@@ -5207,7 +5246,7 @@ public class PlanController extends FurnitureController implements Controller {
         }
       }
 
-      List<Room> rooms = this.home.getRooms();
+      List<Room> rooms = this.itemsIndex.getRoomsAt(x, y, margin, true);
       // Search in home rooms in reverse order to give priority to last drawn room
       // at highest elevation in case it covers an other piece
       Room foundRoom = null;
@@ -5279,9 +5318,18 @@ public class PlanController extends FurnitureController implements Controller {
    * <code>y0</code>), (<code>x1</code>, <code>y1</code>) opposite corners.
    */
   protected List<Selectable> getSelectableItemsIntersectingRectangle(float x0, float y0, float x1, float y1) {
+    // Search walls, rooms and furniture only among the ones which bounds intersect the rectangle
+    List<Selectable> candidateItems = new ArrayList<Selectable>();
+    candidateItems.addAll(this.itemsIndex.getWallsIntersectingRectangle(x0, y0, x1, y1));
+    candidateItems.addAll(this.itemsIndex.getRoomsIntersectingRectangle(x0, y0, x1, y1));
+    candidateItems.addAll(this.home.getDimensionLines());
+    candidateItems.addAll(this.home.getPolylines());
+    candidateItems.addAll(this.home.getLabels());
+    candidateItems.addAll(this.itemsIndex.getFurnitureIntersectingRectangle(x0, y0, x1, y1));
+    candidateItems.add(this.home.getCompass());
     List<Selectable> items = new ArrayList<Selectable>();
     boolean basePlanLocked = this.home.isBasePlanLocked();
-    for (Selectable item : getVisibleItemsAtSelectedLevel()) {
+    for (Selectable item : getVisibleItemsAtSelectedLevel(candidateItems)) {
       if ((!basePlanLocked
             || !isItemPartOfBasePlan(item))
           && item.intersectsRectangle(x0, y0, x1, y1)) {
@@ -5957,20 +6005,8 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doDeleteItems(List<Selectable> items) {
     boolean basePlanLocked = this.home.isBasePlanLocked();
+    this.home.deleteItems(items);
     for (Selectable item : items) {
-      if (item instanceof Wall) {
-        home.deleteWall((Wall)item);
-      } else if (item instanceof DimensionLine) {
-        home.deleteDimensionLine((DimensionLine)item);
-      } else if (item instanceof Room) {
-        home.deleteRoom((Room)item);
-      } else if (item instanceof Polyline) {
-        home.deletePolyline((Polyline)item);
-      } else if (item instanceof Label) {
-        home.deleteLabel((Label)item);
-      } else if (item instanceof HomePieceOfFurniture) {
-        home.deletePieceOfFurniture((HomePieceOfFurniture)item);
-      }
       // Unlock base plan if item is a part of it
       basePlanLocked &= !isItemPartOfBasePlan(item);
     }
@@ -6006,31 +6042,47 @@ public class PlanController extends FurnitureController implements Controller {
    * Moves <code>items</code> of (<code>dx</code>, <code>dy</code>) units.
    */
   public void moveItems(List<? extends Selectable> items, float dx, float dy) {
-    for (Selectable item : items) {
-      if (item instanceof Wall) {
-        Wall wall = (Wall)item;
-        // Remove temporarily listener to avoid side effect
-        wall.removePropertyChangeListener(this.wallChangeListener);
-        moveWallStartPoint(wall,
-            wall.getXStart() + dx, wall.getYStart() + dy,
-            !items.contains(wall.getWallAtStart()));
-        moveWallEndPoint(wall,
-            wall.getXEnd() + dx, wall.getYEnd() + dy,
-            !items.contains(wall.getWallAtEnd()));
-        resetAreaCache();
-        wall.addPropertyChangeListener(this.wallChangeListener);
-      } else {
-        boolean boundToWall = false;
-        if (item instanceof HomeDoorOrWindow) {
-          boundToWall = ((HomeDoorOrWindow)item).isBoundToWall();
-        }
-        item.move(dx, dy);
-        if (boundToWall) {
-          Area itemArea = new Area(getPath(item.getPoints()));
-          itemArea.intersect(getWallsArea(true));
-          ((HomeDoorOrWindow)item).setBoundToWall(!itemArea.isEmpty());
+    // Notify the changes of moved items once they're all moved
+    this.home.beginPropertyChangeTransaction();
+    try {
+      List<HomeDoorOrWindow> boundDoorsOrWindows = new ArrayList<HomeDoorOrWindow>();
+      for (Selectable item : items) {
+        if (item instanceof Wall) {
+          Wall wall = (Wall)item;
+          // Remove temporarily listener to avoid side effect
+          wall.removePropertyChangeListener(this.wallChangeListener);
+          moveWallStartPoint(wall,
+              wall.getXStart() + dx, wall.getYStart() + dy,
+              !items.contains(wall.getWallAtStart()));
+          moveWallEndPoint(wall,
+              wall.getXEnd() + dx, wall.getYEnd() + dy,
+              !items.contains(wall.getWallAtEnd()));
+          // Invalidate directly the area of moved walls since wall listener isn't notified
+          invalidateWallArea(wall);
+          if (!items.contains(wall.getWallAtStart())) {
+            invalidateWallArea(wall.getWallAtStart());
+          }
+          if (!items.contains(wall.getWallAtEnd())) {
+            invalidateWallArea(wall.getWallAtEnd());
+          }
+          resetAreaCache();
+          wall.addPropertyChangeListener(this.wallChangeListener);
+        } else {
+          if (item instanceof HomeDoorOrWindow
+              && ((HomeDoorOrWindow)item).isBoundToWall()) {
+            boundDoorsOrWindows.add((HomeDoorOrWindow)item);
+          }
+          item.move(dx, dy);
         }
       }
+      // Update bound doors and windows once all the walls are moved
+      for (HomeDoorOrWindow doorOrWindow : boundDoorsOrWindows) {
+        Area doorOrWindowArea = new Area(getPath(doorOrWindow.getPoints()));
+        doorOrWindowArea.intersect(getWallsArea(true));
+        doorOrWindow.setBoundToWall(!doorOrWindowArea.isEmpty());
+      }
+    } finally {
+      this.home.endPropertyChangeTransaction();
     }
   }
 
@@ -6275,9 +6327,7 @@ public class PlanController extends FurnitureController implements Controller {
    * Adds <code>walls</code> to home and post an undoable new wall operation.
    */
   public void addWalls(List<Wall> walls) {
-    for (Wall wall : walls) {
-      this.home.addWall(wall);
-    }
+    this.home.addWalls(walls);
     postCreateWalls(walls, this.home.getSelectedItems(),
         home.isBasePlanLocked(), home.isAllLevelsSelection());
   }
@@ -6355,10 +6405,9 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doAddWalls(JoinedWall [] joinedWalls, boolean basePlanLocked) {
     // First add all walls to home
+    this.home.addWalls(JoinedWall.getWalls(joinedWalls));
     for (JoinedWall joinedNewWall : joinedWalls) {
-      Wall wall = joinedNewWall.getWall();
-      this.home.addWall(wall);
-      wall.setLevel(joinedNewWall.getLevel());
+      joinedNewWall.getWall().setLevel(joinedNewWall.getLevel());
     }
     this.home.setBasePlanLocked(basePlanLocked);
 
@@ -6391,9 +6440,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doDeleteWalls(JoinedWall [] joinedDeletedWalls,
                              boolean basePlanLocked) {
-    for (JoinedWall joinedWall : joinedDeletedWalls) {
-      this.home.deleteWall(joinedWall.getWall());
-    }
+    this.home.deleteItems(JoinedWall.getWalls(joinedDeletedWalls));
     this.home.setBasePlanLocked(basePlanLocked);
   }
 
@@ -6407,8 +6454,8 @@ public class PlanController extends FurnitureController implements Controller {
     int endIndex = home.getRooms().size();
     for (int i = 0; i < roomsIndex.length; i++) {
       roomsIndex [i] = endIndex++;
-      this.home.addRoom(newRooms [i], roomsIndex [i]);
     }
+    this.home.addRooms(rooms, roomsIndex);
     postCreateRooms(newRooms, roomsIndex, this.home.getSelectedItems(),
         this.home.isBasePlanLocked(), this.home.isAllLevelsSelection());
   }
@@ -6509,8 +6556,8 @@ public class PlanController extends FurnitureController implements Controller {
                           Level [] roomsLevels,
                           Level uniqueRoomsLevel,
                           boolean basePlanLocked) {
+    this.home.addRooms(Arrays.asList(rooms), roomsIndices);
     for (int i = 0; i < roomsIndices.length; i++) {
-      this.home.addRoom (rooms [i], roomsIndices [i]);
       rooms [i].setLevel(roomsLevels != null
           ? roomsLevels [i]
           : uniqueRoomsLevel);
@@ -6523,9 +6570,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doDeleteRooms(Room [] rooms,
                              boolean basePlanLocked) {
-    for (Room room : rooms) {
-      this.home.deleteRoom(room);
-    }
+    this.home.deleteItems(Arrays.asList(rooms));
     this.home.setBasePlanLocked(basePlanLocked);
   }
 
@@ -6533,9 +6578,7 @@ public class PlanController extends FurnitureController implements Controller {
    * Add <code>dimensionLines</code> to home and post an undoable new dimension line operation.
    */
   public void addDimensionLines(List<DimensionLine> dimensionLines) {
-    for (DimensionLine dimensionLine : dimensionLines) {
-      this.home.addDimensionLine(dimensionLine);
-    }
+    this.home.addDimensionLines(dimensionLines);
     postCreateDimensionLines(dimensionLines, this.home.getSelectedItems(),
         this.home.isBasePlanLocked(), this.home.isAllLevelsSelection());
   }
@@ -6615,10 +6658,9 @@ public class PlanController extends FurnitureController implements Controller {
   private void doAddDimensionLines(DimensionLine [] dimensionLines,
                                    Level [] dimensionLinesLevels,
                                    Level uniqueDimensionLinesLevel, boolean basePlanLocked) {
+    this.home.addDimensionLines(Arrays.asList(dimensionLines));
     for (int i = 0; i < dimensionLines.length; i++) {
-      DimensionLine dimensionLine = dimensionLines [i];
-      this.home.addDimensionLine(dimensionLine);
-      dimensionLine.setLevel(dimensionLinesLevels != null
+      dimensionLines [i].setLevel(dimensionLinesLevels != null
           ? dimensionLinesLevels [i]
           : uniqueDimensionLinesLevel);
     }
@@ -6630,9 +6672,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doDeleteDimensionLines(DimensionLine [] dimensionLines,
                                       boolean basePlanLocked) {
-    for (DimensionLine dimensionLine : dimensionLines) {
-      this.home.deleteDimensionLine(dimensionLine);
-    }
+    this.home.deleteItems(Arrays.asList(dimensionLines));
     this.home.setBasePlanLocked(basePlanLocked);
   }
 
@@ -6646,8 +6686,8 @@ public class PlanController extends FurnitureController implements Controller {
     int endIndex = home.getPolylines().size();
     for (int i = 0; i < polylinesIndex.length; i++) {
       polylinesIndex [i] = endIndex++;
-      this.home.addPolyline(newPolylines [i], polylinesIndex [i]);
     }
+    this.home.addPolylines(polylines, polylinesIndex);
     postCreatePolylines(newPolylines, polylinesIndex, this.home.getSelectedItems(),
         this.home.isBasePlanLocked(), this.home.isAllLevelsSelection());
   }
@@ -6748,8 +6788,8 @@ public class PlanController extends FurnitureController implements Controller {
                               Level [] polylinesLevels,
                               Level uniqueDimensionLinesLevel,
                               boolean basePlanLocked) {
+    this.home.addPolylines(Arrays.asList(polylines), polylinesIndex);
     for (int i = 0; i < polylinesIndex.length; i++) {
-      this.home.addPolyline(polylines [i], polylinesIndex [i]);
       polylines [i].setLevel(polylinesLevels != null
           ? polylinesLevels [i]
           : uniqueDimensionLinesLevel);
@@ -6762,9 +6802,7 @@ public class PlanController extends FurnitureController implements Controller {
    */
   private void doDeletePolylines(Polyline [] polylines,
                                  boolean basePlanLocked) {
-    for (Polyline polyline : polylines) {
-      this.home.deletePolyline(polyline);
-    }
+    this.home.deleteItems(Arrays.asList(polylines));
     this.home.setBasePlanLocked(basePlanLocked);
   }
 
@@ -6772,9 +6810,7 @@ public class PlanController extends FurnitureController implements Controller {
    * Add <code>labels</code> to home and post an undoable new label operation.
    */
   public void addLabels(List<Label> labels) {
-    for (Label label : labels) {
-      this.home.addLabel(label);
-    }
+    this.home.addLabels(labels);
     postCreateLabels(labels, this.home.getSelectedItems(),
         this.home.isBasePlanLocked(), this.home.isAllLevelsSelection());
   }
@@ -6851,10 +6887,9 @@ public class PlanController extends FurnitureController implements Controller {
    * Adds the labels in <code>labels</code> to plan component.
    */
   private void doAddLabels(Label [] labels, Level [] labelsLevels, Level uniqueLabelLevel, boolean basePlanLocked) {
+    this.home.addLabels(Arrays.asList(labels));
     for (int i = 0; i < labels.length; i++) {
-      Label label = labels [i];
-      this.home.addLabel(label);
-      label.setLevel(labelsLevels != null
+      labels [i].setLevel(labelsLevels != null
           ? labelsLevels [i]
           : uniqueLabelLevel);
     }
@@ -6865,9 +6900,7 @@ public class PlanController extends FurnitureController implements Controller {
    * Deletes labels in <code>labels</code>.
    */
   private void doDeleteLabels(Label [] labels, boolean basePlanLocked) {
-    for (Label label : labels) {
-      this.home.deleteLabel(label);
-    }
+    this.home.deleteItems(Arrays.asList(labels));
     this.home.setBasePlanLocked(basePlanLocked);
   }
 
@@ -8563,14 +8596,17 @@ public class PlanController extends FurnitureController implements Controller {
   private Area getWallsArea(boolean includeBaseboards) {
     if (!includeBaseboards && this.wallsAreaCache == null
         || includeBaseboards && this.wallsIncludingBaseboardsAreaCache == null) {
-      // Compute walls area
-      Area wallsArea = new Area();
+      // Compute walls area, reusing the union of the walls that didn't change
+      List<Wall> wallsAtLevel = new ArrayList<Wall>();
       Level selectedLevel = this.home.getSelectedLevel();
       for (Wall wall : this.home.getWalls()) {
         if (wall.isAtLevel(selectedLevel)) {
-          wallsArea.add(new Area(getPath(wall.getPoints(includeBaseboards))));
+          wallsAtLevel.add(wall);
         }
       }
+      Area wallsArea = includeBaseboards
+          ? this.wallsIncludingBaseboardsAreaUnionCache.getArea(wallsAtLevel)
+          : this.wallsAreaUnionCache.getArea(wallsAtLevel);
       if (includeBaseboards) {
         this.wallsIncludingBaseboardsAreaCache = wallsArea;
       } else {
@@ -9940,23 +9976,22 @@ public class PlanController extends FurnitureController implements Controller {
           // Duplicate original items and add them to home
           this.duplicatedItems = this.movedItems;
           this.movedItems = new ArrayList<Selectable>();
-          for (Selectable item : Home.duplicate(this.duplicatedItems)) {
-            if (item instanceof Wall) {
-              home.addWall((Wall)item);
-            } else if (item instanceof Room) {
-              home.addRoom((Room)item);
-            } else if (item instanceof Polyline) {
-              home.addPolyline((Polyline)item);
-            } else if (item instanceof DimensionLine) {
-              home.addDimensionLine((DimensionLine)item);
-            } else if (item instanceof HomePieceOfFurniture) {
-              home.addPieceOfFurniture((HomePieceOfFurniture)item);
-            } else if (item instanceof Label) {
-              home.addLabel((Label)item);
-            } else {
-              continue;
+          List<Selectable> duplicatedItems = Home.duplicate(this.duplicatedItems);
+          home.addWalls(Home.getWallsSubList(duplicatedItems));
+          home.addRooms(Home.getRoomsSubList(duplicatedItems));
+          home.addPolylines(Home.getPolylinesSubList(duplicatedItems), null);
+          home.addDimensionLines(Home.getDimensionLinesSubList(duplicatedItems));
+          home.addFurniture(Home.getFurnitureSubList(duplicatedItems));
+          home.addLabels(Home.getLabelsSubList(duplicatedItems));
+          for (Selectable item : duplicatedItems) {
+            if (item instanceof Wall
+                || item instanceof Room
+                || item instanceof Polyline
+                || item instanceof DimensionLine
+                || item instanceof HomePieceOfFurniture
+                || item instanceof Label) {
+              this.movedItems.add(item);
             }
-            this.movedItems.add(item);
           }
 
           // Put original items back to their initial location
@@ -0,0 +1,456 @@
+/*
+ * PlanItemsIndex.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.viewcontroller;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eteks.sweethome3d.model.CollectionEvent;
+import com.eteks.sweethome3d.model.CollectionListener;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Selectable;
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * A spatial index of the walls, rooms and furniture of a home, used by the plan controller
+ * to find quickly the items that may be found at a point or in a rectangle.
+ * Items are stored per level in a uniform grid of cells according to their bounds,
+ * and are reindexed lazily once they were modified.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+class PlanItemsIndex {
+  private static final float CELL_SIZE          = 100;
+  private static final int   MAX_CELLS_PER_ITEM = 1024;
+
+  private final Home                           home;
+  private final ItemsGrid<Wall>                 walls;
+  private final ItemsGrid<Room>                 rooms;
+  private final ItemsGrid<HomePieceOfFurniture> furniture;
+
+  public PlanItemsIndex(Home home) {
+    this.home = home;
+    this.walls = new ItemsGrid<Wall>();
+    this.rooms = new ItemsGrid<Room>() {
+        @Override
+        protected boolean isTextDrawnOutside(Room room) {
+          return room.getName() != null
+              || room.isAreaVisible();
+        }
+      };
+    this.furniture = new ItemsGrid<HomePieceOfFurniture>() {
+        @Override
+        protected boolean isTextDrawnOutside(HomePieceOfFurniture piece) {
+          return piece.getName() != null
+              && piece.isNameVisible();
+        }
+      };
+    addModelListeners();
+  }
+
+  /**
+   * Adds listeners to home collections and items to keep this index up to date.
+   */
+  private void addModelListeners() {
+    final PropertyChangeListener wallChangeListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          walls.invalidateItem((Wall)ev.getSource());
+        }
+      };
+    for (Wall wall : this.home.getWalls()) {
+      wall.addPropertyChangeListener(wallChangeListener);
+      this.walls.addItem(wall);
+    }
+    this.home.addWallsListener(new CollectionListener<Wall>() {
+        public void collectionChanged(CollectionEvent<Wall> ev) {
+          Wall wall = ev.getItem();
+          if (ev.getType() == CollectionEvent.Type.ADD) {
+            wall.addPropertyChangeListener(wallChangeListener);
+            walls.addItem(wall);
+          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+            wall.removePropertyChangeListener(wallChangeListener);
+            walls.removeItem(wall);
+          }
+        }
+      });
+
+    final PropertyChangeListener roomChangeListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          rooms.invalidateItem((Room)ev.getSource());
+        }
+      };
+    for (Room room : this.home.getRooms()) {
+      room.addPropertyChangeListener(roomChangeListener);
+      this.rooms.addItem(room);
+    }
+    this.home.addRoomsListener(new CollectionListener<Room>() {
+        public void collectionChanged(CollectionEvent<Room> ev) {
+          Room room = ev.getItem();
+          if (ev.getType() == CollectionEvent.Type.ADD) {
+            room.addPropertyChangeListener(roomChangeListener);
+            rooms.addItem(room);
+          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+            room.removePropertyChangeListener(roomChangeListener);
+            rooms.removeItem(room);
+          }
+        }
+      });
+
+    // Index only pieces at first level of home furniture,
+    // groups being updated when their children change
+    final PropertyChangeListener pieceChangeListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          furniture.invalidateItem((HomePieceOfFurniture)ev.getSource());
+        }
+      };
+    for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+      piece.addPropertyChangeListener(pieceChangeListener);
+      this.furniture.addItem(piece);
+    }
+    this.home.addFurnitureListener(new CollectionListener<HomePieceOfFurniture>() {
+        public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
+          HomePieceOfFurniture piece = ev.getItem();
+          if (ev.getType() == CollectionEvent.Type.ADD) {
+            if (ev.getIndex() != -1) {
+              piece.addPropertyChangeListener(pieceChangeListener);
+              furniture.addItem(piece);
+            }
+          } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+            piece.removePropertyChangeListener(pieceChangeListener);
+            furniture.removeItem(piece);
+          }
+        }
+      });
+  }
+
+  /**
+   * Returns the walls of home which bounds contain the point at (<code>x</code>, <code>y</code>)
+   * with a given <code>margin</code>, in the order of home walls.
+   */
+  public List<Wall> getWallsAt(float x, float y, float margin) {
+    return this.walls.getItems(this.home.getWalls(), x - margin, y - margin, x + margin, y + margin, false);
+  }
+
+  /**
+   * Returns the walls of home which bounds intersect the rectangle of (<code>x0</code>,
+   * <code>y0</code>), (<code>x1</code>, <code>y1</code>) opposite corners, in the order of home walls.
+   */
+  public List<Wall> getWallsIntersectingRectangle(float x0, float y0, float x1, float y1) {
+    return this.walls.getItems(this.home.getWalls(), x0, y0, x1, y1, false);
+  }
+
+  /**
+   * Returns the rooms of home which bounds contain the point at (<code>x</code>, <code>y</code>)
+   * with a given <code>margin</code>, in the order of home rooms. If <code>includeRoomsWithText</code>
+   * is <code>true</code>, the rooms which name or area may be drawn outside of their shape
+   * are returned too.
+   */
+  public List<Room> getRoomsAt(float x, float y, float margin, boolean includeRoomsWithText) {
+    return this.rooms.getItems(this.home.getRooms(), x - margin, y - margin, x + margin, y + margin, includeRoomsWithText);
+  }
+
+  /**
+   * Returns the rooms of home which bounds intersect the rectangle of (<code>x0</code>,
+   * <code>y0</code>), (<code>x1</code>, <code>y1</code>) opposite corners, in the order of home rooms.
+   */
+  public List<Room> getRoomsIntersectingRectangle(float x0, float y0, float x1, float y1) {
+    return this.rooms.getItems(this.home.getRooms(), x0, y0, x1, y1, false);
+  }
+
+  /**
+   * Returns the pieces of home furniture which bounds contain the point at (<code>x</code>, <code>y</code>)
+   * with a given <code>margin</code>, in the order of home furniture. If <code>includeFurnitureWithText</code>
+   * is <code>true</code>, the pieces which name is visible are returned too.
+   */
+  public List<HomePieceOfFurniture> getFurnitureAt(float x, float y, float margin, boolean includeFurnitureWithText) {
+    return this.furniture.getItems(this.home.getFurniture(), x - margin, y - margin, x + margin, y + margin, includeFurnitureWithText);
+  }
+
+  /**
+   * Returns the pieces of home furniture which bounds intersect the rectangle of (<code>x0</code>,
+   * <code>y0</code>), (<code>x1</code>, <code>y1</code>) opposite corners, in the order of home furniture.
+   */
+  public List<HomePieceOfFurniture> getFurnitureIntersectingRectangle(float x0, float y0, float x1, float y1) {
+    return this.furniture.getItems(this.home.getFurniture(), x0, y0, x1, y1, false);
+  }
+
+  /**
+   * The location of an item in a grid.
+   */
+  private static class ItemLocation {
+    private final Level   level;
+    private final float   xMin;
+    private final float   yMin;
+    private final float   xMax;
+    private final float   yMax;
+    private final boolean large;
+
+    public ItemLocation(Level level, float xMin, float yMin, float xMax, float yMax, boolean large) {
+      this.level = level;
+      this.xMin = xMin;
+      this.yMin = yMin;
+      this.xMax = xMax;
+      this.yMax = yMax;
+      this.large = large;
+    }
+
+    public boolean intersects(float xMin, float yMin, float xMax, float yMax) {
+      return this.xMin <= xMax
+          && this.xMax >= xMin
+          && this.yMin <= yMax
+          && this.yMax >= yMin;
+    }
+  }
+
+  /**
+   * A uniform grid of items stored per level.
+   */
+  private static class ItemsGrid<T extends Selectable> {
+    private final Map<Level, Map<Long, List<T>>> levelCells  = new HashMap<Level, Map<Long, List<T>>>();
+    private final Map<Level, List<T>>            levelLargeItems = new HashMap<Level, List<T>>();
+    private final Map<T, ItemLocation>           locations   = new HashMap<T, ItemLocation>();
+    private final Set<T>                         invalidItems = new HashSet<T>();
+    private final Set<T>                         textItems   = new HashSet<T>();
+    private Map<T, Integer>                      itemIndices;
+
+    /**
+     * Returns <code>true</code> if the given <code>item</code> may display a text outside of its bounds.
+     */
+    protected boolean isTextDrawnOutside(T item) {
+      return false;
+    }
+
+    public void addItem(T item) {
+      this.invalidItems.add(item);
+      this.itemIndices = null;
+    }
+
+    public void removeItem(T item) {
+      removeItemFromCells(item);
+      this.invalidItems.remove(item);
+      this.textItems.remove(item);
+      this.itemIndices = null;
+    }
+
+    public void invalidateItem(T item) {
+      if (this.locations.containsKey(item)) {
+        this.invalidItems.add(item);
+      }
+    }
+
+    /**
+     * Returns the items of this grid with bounds intersecting the given rectangle,
+     * sorted in the order of <code>homeItems</code>.
+     */
+    public List<T> getItems(Collection<T> homeItems, float x0, float y0, float x1, float y1, boolean includeTextItems) {
+      updateInvalidItems();
+      if (this.itemIndices == null
+          || this.itemIndices.size() != homeItems.size()) {
+        this.itemIndices = new HashMap<T, Integer>(homeItems.size() * 4 / 3 + 1);
+        int i = 0;
+        for (T item : homeItems) {
+          this.itemIndices.put(item, i++);
+        }
+      }
+      float xMin = Math.min(x0, x1);
+      float yMin = Math.min(y0, y1);
+      float xMax = Math.max(x0, x1);
+      float yMax = Math.max(y0, y1);
+      Set<T> foundItems = new HashSet<T>();
+      if (includeTextItems) {
+        foundItems.addAll(this.textItems);
+      }
+      long cellXMin = getCellIndex(xMin);
+      long cellYMin = getCellIndex(yMin);
+      long cellXMax = getCellIndex(xMax);
+      long cellYMax = getCellIndex(yMax);
+      for (Map.Entry<Level, Map<Long, List<T>>> levelEntry : this.levelCells.entrySet()) {
+        Level level = levelEntry.getKey();
+        if (level == null || level.isViewable()) {
+          Map<Long, List<T>> cells = levelEntry.getValue();
+          if ((cellXMax - cellXMin + 1) * (cellYMax - cellYMin + 1) > cells.size()) {
+            // Browse existing cells when the searched rectangle is large
+            for (List<T> cellItems : cells.values()) {
+              addIntersectingItems(cellItems, xMin, yMin, xMax, yMax, foundItems);
+            }
+          } else {
+            for (long cellX = cellXMin; cellX <= cellXMax; cellX++) {
+              for (long cellY = cellYMin; cellY <= cellYMax; cellY++) {
+                List<T> cellItems = cells.get(getCellKey(cellX, cellY));
+                if (cellItems != null) {
+                  addIntersectingItems(cellItems, xMin, yMin, xMax, yMax, foundItems);
+                }
+              }
+            }
+          }
+        }
+      }
+      for (Map.Entry<Level, List<T>> levelEntry : this.levelLargeItems.entrySet()) {
+        Level level = levelEntry.getKey();
+        if (level == null || level.isViewable()) {
+          addIntersectingItems(levelEntry.getValue(), xMin, yMin, xMax, yMax, foundItems);
+        }
+      }
+
+      List<T> items = new ArrayList<T>(foundItems);
+      final Map<T, Integer> itemIndices = this.itemIndices;
+      Collections.sort(items, new Comparator<T>() {
+          public int compare(T item1, T item2) {
+            return itemIndices.get(item1) - itemIndices.get(item2);
+          }
+        });
+      return items;
+    }
+
+    private void addIntersectingItems(List<T> items, float xMin, float yMin, float xMax, float yMax,
+                                      Set<T> foundItems) {
+      for (T item : items) {
+        if (this.locations.get(item).intersects(xMin, yMin, xMax, yMax)) {
+          foundItems.add(item);
+        }
+      }
+    }
+
+    /**
+     * Computes again the location of modified items.
+     */
+    private void updateInvalidItems() {
+      if (!this.invalidItems.isEmpty()) {
+        for (T item : this.invalidItems) {
+          removeItemFromCells(item);
+          addItemToCells(item);
+          if (isTextDrawnOutside(item)) {
+            this.textItems.add(item);
+          } else {
+            this.textItems.remove(item);
+          }
+        }
+        this.invalidItems.clear();
+      }
+    }
+
+    private void addItemToCells(T item) {
+      float xMin = Float.POSITIVE_INFINITY;
+      float yMin = Float.POSITIVE_INFINITY;
+      float xMax = Float.NEGATIVE_INFINITY;
+      float yMax = Float.NEGATIVE_INFINITY;
+      for (float [] point : item.getPoints()) {
+        xMin = Math.min(xMin, point [0]);
+        yMin = Math.min(yMin, point [1]);
+        xMax = Math.max(xMax, point [0]);
+        yMax = Math.max(yMax, point [1]);
+      }
+      Level level = item instanceof HomePieceOfFurniture
+          ? ((HomePieceOfFurniture)item).getLevel()
+          : (item instanceof Wall
+              ? ((Wall)item).getLevel()
+              : ((Room)item).getLevel());
+      // Consider as large items the ones with unknown bounds or spread on too many cells
+      boolean large = Float.isNaN(xMin) || Float.isInfinite(xMin)
+          || Float.isNaN(yMin) || Float.isInfinite(yMin)
+          || Float.isNaN(xMax) || Float.isInfinite(xMax)
+          || Float.isNaN(yMax) || Float.isInfinite(yMax)
+          || ((double)getCellIndex(xMax) - getCellIndex(xMin) + 1)
+              * ((double)getCellIndex(yMax) - getCellIndex(yMin) + 1) > MAX_CELLS_PER_ITEM;
+      ItemLocation location;
+      if (large) {
+        location = new ItemLocation(level, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+            Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, true);
+        List<T> largeItems = this.levelLargeItems.get(level);
+        if (largeItems == null) {
+          largeItems = new ArrayList<T>();
+          this.levelLargeItems.put(level, largeItems);
+        }
+        largeItems.add(item);
+      } else {
+        // Enlarge a little bounds to avoid rounding issues
+        float epsilon = 1E-3f;
+        location = new ItemLocation(level, xMin - epsilon, yMin - epsilon, xMax + epsilon, yMax + epsilon, false);
+        Map<Long, List<T>> cells = this.levelCells.get(level);
+        if (cells == null) {
+          cells = new HashMap<Long, List<T>>();
+          this.levelCells.put(level, cells);
+        }
+        for (long cellX = getCellIndex(location.xMin), cellXMax = getCellIndex(location.xMax); cellX <= cellXMax; cellX++) {
+          for (long cellY = getCellIndex(location.yMin), cellYMax = getCellIndex(location.yMax); cellY <= cellYMax; cellY++) {
+            Long cellKey = getCellKey(cellX, cellY);
+            List<T> cellItems = cells.get(cellKey);
+            if (cellItems == null) {
+              cellItems = new ArrayList<T>(4);
+              cells.put(cellKey, cellItems);
+            }
+            cellItems.add(item);
+          }
+        }
+      }
+      this.locations.put(item, location);
+    }
+
+    private void removeItemFromCells(T item) {
+      ItemLocation location = this.locations.remove(item);
+      if (location != null) {
+        if (location.large) {
+          List<T> largeItems = this.levelLargeItems.get(location.level);
+          largeItems.remove(item);
+          if (largeItems.isEmpty()) {
+            this.levelLargeItems.remove(location.level);
+          }
+        } else {
+          Map<Long, List<T>> cells = this.levelCells.get(location.level);
+          for (long cellX = getCellIndex(location.xMin), cellXMax = getCellIndex(location.xMax); cellX <= cellXMax; cellX++) {
+            for (long cellY = getCellIndex(location.yMin), cellYMax = getCellIndex(location.yMax); cellY <= cellYMax; cellY++) {
+              Long cellKey = getCellKey(cellX, cellY);
+              List<T> cellItems = cells.get(cellKey);
+              if (cellItems != null) {
+                cellItems.remove(item);
+                if (cellItems.isEmpty()) {
+                  cells.remove(cellKey);
+                }
+              }
+            }
+          }
+          if (cells.isEmpty()) {
+            this.levelCells.remove(location.level);
+          }
+        }
+      }
+    }
+
+    private static long getCellIndex(float coordinate) {
+      return (long)Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static Long getCellKey(long cellX, long cellY) {
+      return (cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * WallsAreaCache.java 18 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.viewcontroller;
+
+import java.awt.geom.Area;
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * A cache able to compute incrementally the area matching the union of wall shapes.
+ * Walls are sorted by groups of joined walls and their areas are stored as leaves
+ * of a binary tree which nodes keep the union of their children.
+ * Once a wall is invalidated, only the nodes between its leaf and the root are computed again,
+ * instead of the union of all the walls.
+ * @author Emmanuel Puybaret
+ * @since 7.5
+ */
+public class WallsAreaCache {
+  private final boolean     includeBaseboards;
+  private Map<Wall, Integer> wallIndices;
+  private Wall []           walls;
+  private Area []           nodes;
+  private boolean []        invalidNodes;
+  private boolean           invalidTree;
+
+  /**
+   * Creates a cache of walls area.
+   * @param includeBaseboards if <code>true</code> the area will include the baseboards of walls
+   */
+  public WallsAreaCache(boolean includeBaseboards) {
+    this.includeBaseboards = includeBaseboards;
+    this.wallIndices = new HashMap<Wall, Integer>();
+    this.walls = new Wall [0];
+  }
+
+  /**
+   * Returns the area matching the union of the shapes of the given <code>walls</code>.
+   * The returned area is shared and mustn't be modified.
+   */
+  public Area getArea(Collection<Wall> walls) {
+    if (walls.size() != this.walls.length
+        || !this.wallIndices.keySet().containsAll(walls)) {
+      buildTree(walls);
+    }
+    if (this.walls.length == 0) {
+      return new Area();
+    }
+    if (this.invalidTree) {
+      int leafCount = this.walls.length;
+      // Compute again invalid leaves then invalid nodes from bottom to top
+      for (int i = 0; i < leafCount; i++) {
+        if (this.invalidNodes [leafCount + i]) {
+          this.nodes [leafCount + i] = getWallArea(this.walls [i]);
+          this.invalidNodes [leafCount + i] = false;
+        }
+      }
+      for (int i = leafCount - 1; i >= 1; i--) {
+        if (this.invalidNodes [i]) {
+          Area area = new Area(this.nodes [2 * i]);
+          area.add(this.nodes [2 * i + 1]);
+          this.nodes [i] = area;
+          this.invalidNodes [i] = false;
+        }
+      }
+      this.invalidTree = false;
+    }
+    return this.nodes [1];
+  }
+
+  /**
+   * Invalidates the area of the given <code>wall</code> and of the walls joined to it.
+   */
+  public void invalidateWall(Wall wall) {
+    invalidateWallArea(wall);
+    invalidateWallArea(wall.getWallAtStart());
+    invalidateWallArea(wall.getWallAtEnd());
+  }
+
+  private void invalidateWallArea(Wall wall) {
+    if (wall != null) {
+      Integer index = this.wallIndices.get(wall);
+      if (index != null) {
+        for (int i = this.walls.length + index; i >= 1 && !this.invalidNodes [i]; i /= 2) {
+          this.invalidNodes [i] = true;
+        }
+        this.invalidTree = true;
+      }
+    }
+  }
+
+  /**
+   * Invalidates the area of all the walls.
+   */
+  public void invalidate() {
+    this.wallIndices.clear();
+    this.walls = new Wall [0];
+    this.nodes = null;
+    this.invalidNodes = null;
+  }
+
+  /**
+   * Builds the tree of areas for the given walls, sorting them by groups of joined walls
+   * to keep small the intermediate unions.
+   */
+  private void buildTree(Collection<Wall> walls) {
+    Set<Wall> remainingWalls = new HashSet<Wall>(walls);
+    List<Wall> sortedWalls = new ArrayList<Wall>(walls.size());
+    List<Wall> joinedWalls = new ArrayList<Wall>();
+    for (Wall wall : walls) {
+      if (remainingWalls.remove(wall)) {
+        joinedWalls.add(wall);
+        while (!joinedWalls.isEmpty()) {
+          Wall joinedWall = joinedWalls.remove(joinedWalls.size() - 1);
+          sortedWalls.add(joinedWall);
+          Wall wallAtStart = joinedWall.getWallAtStart();
+          if (wallAtStart != null
+              && remainingWalls.remove(wallAtStart)) {
+            joinedWalls.add(wallAtStart);
+          }
+          Wall wallAtEnd = joinedWall.getWallAtEnd();
+          if (wallAtEnd != null
+              && remainingWalls.remove(wallAtEnd)) {
+            joinedWalls.add(wallAtEnd);
+          }
+        }
+      }
+    }
+
+    int leafCount = sortedWalls.size();
+    this.walls = sortedWalls.toArray(new Wall [leafCount]);
+    this.wallIndices = new HashMap<Wall, Integer>(leafCount * 4 / 3 + 1);
+    for (int i = 0; i < leafCount; i++) {
+      this.wallIndices.put(this.walls [i], i);
+    }
+    this.nodes = new Area [2 * leafCount];
+    this.invalidNodes = new boolean [2 * leafCount];
+    for (int i = 1; i < this.invalidNodes.length; i++) {
+      this.invalidNodes [i] = true;
+    }
+    this.invalidTree = true;
+  }
+
+  /**
+   * Returns the area of the given <code>wall</code>.
+   */
+  private Area getWallArea(Wall wall) {
+    float [][] points = wall.getPoints(this.includeBaseboards);
+    GeneralPath path = new GeneralPath();
+    path.moveTo(points [0][0], points [0][1]);
+    for (int i = 1; i < points.length; i++) {
+      path.lineTo(points [i][0], points [i][1]);
+    }
+    path.closePath();
+    return new Area(path);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * ContentDigestManagerTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.eteks.sweethome3d.io.Base64;
+import com.eteks.sweethome3d.io.ContentDigestManager;
+import com.eteks.sweethome3d.tools.URLContent;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link ContentDigestManager} class.
+ * @author Emmanuel Puybaret
+ */
+public class ContentDigestManagerTest extends TestCase {
+  /**
+   * Tests that digests computed concurrently are correct and shared among threads.
+   */
+  public void testConcurrentDigests() throws Exception {
+    final List<File> files = new ArrayList<File>();
+    List<byte []> expectedDigests = new ArrayList<byte[]>();
+    for (int i = 0; i < 8; i++) {
+      File file = createFile(1 << 20);
+      files.add(file);
+      expectedDigests.add(computeDigest(file));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<List<byte []>>> results = new ArrayList<Future<List<byte []>>>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(new Callable<List<byte []>>() {
+          public List<byte []> call() throws Exception {
+            List<byte []> digests = new ArrayList<byte[]>();
+            for (File file : files) {
+              digests.add(ContentDigestManager.getInstance().getContentDigest(new URLContent(file.toURI().toURL())));
+            }
+            return digests;
+          }
+        }));
+    }
+    List<byte []> firstDigests = results.get(0).get();
+    for (Future<List<byte []>> result : results) {
+      List<byte []> digests = result.get();
+      for (int i = 0; i < files.size(); i++) {
+        assertTrue("Wrong digest", Arrays.equals(expectedDigests.get(i), digests.get(i)));
+        assertSame("Digest not shared", firstDigests.get(i), digests.get(i));
+      }
+    }
+    executor.shutdown();
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests digest index.
+   */
+  public void testDigestIndex() throws Exception {
+    ContentDigestManager digestManager = ContentDigestManager.getInstance();
+    File indexFile = File.createTempFile("digests", ".properties");
+    indexFile.delete();
+    digestManager.setDigestIndexFile(indexFile);
+
+    // Check computed digest is stored in index
+    File file = createFile(1000);
+    byte [] digest = digestManager.getContentDigest(new URLContent(file.toURI().toURL()));
+    digestManager.writeDigestIndex();
+    Properties index = readIndex(indexFile);
+    assertEquals("Wrong index size", 1, index.size());
+    Map.Entry<Object, Object> entry = index.entrySet().iterator().next();
+    assertTrue("Wrong index key", ((String)entry.getKey()).startsWith(file.getPath() + "\t"));
+    assertEquals("Wrong index value", file.length() + " " + file.lastModified() + " " + Base64.encodeBytes(digest),
+        entry.getValue());
+
+    // Check indexed digests are used only for unchanged files
+    File indexedFile = createFile(1000);
+    File modifiedFile = createFile(1000);
+    byte [] indexedDigest = new byte [20];
+    index.setProperty(((String)entry.getKey()).replace(file.getPath(), indexedFile.getPath()),
+        indexedFile.length() + " " + indexedFile.lastModified() + " " + Base64.encodeBytes(indexedDigest));
+    index.setProperty(((String)entry.getKey()).replace(file.getPath(), modifiedFile.getPath()),
+        modifiedFile.length() + " " + (modifiedFile.lastModified() - 1000) + " " + Base64.encodeBytes(indexedDigest));
+    OutputStream out = new FileOutputStream(indexFile);
+    index.store(out, null);
+    out.close();
+    digestManager.setDigestIndexFile(indexFile);
+    assertTrue("Indexed digest not used", Arrays.equals(indexedDigest,
+        digestManager.getContentDigest(new URLContent(indexedFile.toURI().toURL()))));
+    assertTrue("Wrong digest", Arrays.equals(computeDigest(modifiedFile),
+        digestManager.getContentDigest(new URLContent(modifiedFile.toURI().toURL()))));
+
+    // Check entries of deleted files are removed from index
+    file.delete();
+    indexedFile.delete();
+    digestManager.writeDigestIndex();
+    index = readIndex(indexFile);
+    assertEquals("Wrong index size", 1, index.size());
+    modifiedFile.delete();
+    indexFile.delete();
+  }
+
+  private File createFile(int length) throws IOException {
+    File file = File.createTempFile("content", ".bin");
+    byte [] bytes = new byte [length];
+    new Random().nextBytes(bytes);
+    OutputStream out = new FileOutputStream(file);
+    out.write(bytes);
+    out.close();
+    return file;
+  }
+
+  private byte [] computeDigest(File file) throws IOException, NoSuchAlgorithmException {
+    MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+    InputStream in = new FileInputStream(file);
+    byte [] buffer = new byte [8192];
+    for (int size; (size = in.read(buffer)) != -1; ) {
+      messageDigest.update(buffer, 0, size);
+    }
+    in.close();
+    return messageDigest.digest();
+  }
+
+  private Properties readIndex(File indexFile) throws IOException {
+    Properties index = new Properties();
+    InputStream in = new FileInputStream(indexFile);
+    index.load(in);
+    in.close();
+    return index;
+  }
+}
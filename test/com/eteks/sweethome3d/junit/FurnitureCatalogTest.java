@@ -0,0 +1,85 @@
+/*
+ * FurnitureCatalogTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.eteks.sweethome3d.io.DefaultFurnitureCatalog;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.FurnitureCatalog;
+import com.eteks.sweethome3d.model.FurnitureCategory;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link FurnitureCatalog} filtering.
+ * @author Emmanuel Puybaret
+ */
+public class FurnitureCatalogTest extends TestCase {
+  /**
+   * Tests that furniture found in catalog index matches furniture found by filtering each piece.
+   */
+  public void testFilteredFurniture() {
+    FurnitureCatalog catalog = new DefaultFurnitureCatalog();
+    CatalogPieceOfFurniture firstPiece = catalog.getCategories().get(0).getFurniture().get(0);
+    String [] filters = {"", "c", "CHAIR", "chaise", "tab", "bed white", "b-e-d", "t", firstPiece.getName(),
+                         firstPiece.getCategory().getName() + " " + firstPiece.getName(), "xyzxyz"};
+    for (String filter : filters) {
+      assertEquals("Wrong furniture for filter " + filter, getFilteredFurniture(catalog, filter),
+          catalog.getFilteredFurniture(filter));
+    }
+
+    // Check index is updated once a piece is deleted then added again
+    FurnitureCategory firstCategory = firstPiece.getCategory();
+    catalog.delete(firstPiece);
+    assertFalse("Deleted piece found", catalog.getFilteredFurniture(firstPiece.getName()).contains(firstPiece));
+    catalog.add(firstCategory, firstPiece);
+    assertTrue("Added piece not found", catalog.getFilteredFurniture(firstPiece.getName()).contains(firstPiece));
+    for (String filter : filters) {
+      assertEquals("Wrong furniture for filter " + filter, getFilteredFurniture(catalog, filter),
+          catalog.getFilteredFurniture(filter));
+    }
+
+    // Check index is still valid once most of the furniture is deleted
+    List<CatalogPieceOfFurniture> furniture = catalog.getFilteredFurniture("");
+    for (CatalogPieceOfFurniture piece : furniture.subList(0, furniture.size() - 5)) {
+      catalog.delete(piece);
+    }
+    for (String filter : filters) {
+      assertEquals("Wrong furniture for filter " + filter, getFilteredFurniture(catalog, filter),
+          catalog.getFilteredFurniture(filter));
+    }
+  }
+
+  private List<CatalogPieceOfFurniture> getFilteredFurniture(FurnitureCatalog catalog, String filter) {
+    List<CatalogPieceOfFurniture> furniture = new ArrayList<CatalogPieceOfFurniture>();
+    for (FurnitureCategory category : catalog.getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        if (piece.matchesFilter(filter)) {
+          furniture.add(piece);
+        }
+      }
+    }
+    Collections.sort(furniture);
+    return furniture;
+  }
+}
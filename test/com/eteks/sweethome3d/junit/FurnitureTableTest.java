@@ -20,8 +20,10 @@
 package com.eteks.sweethome3d.junit;
 
 import java.awt.Component;
+import java.math.BigDecimal;
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -32,6 +34,8 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableModel;
@@ -41,6 +45,7 @@ import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
 import com.eteks.sweethome3d.model.FurnitureCatalog;
 import com.eteks.sweethome3d.model.FurnitureCategory;
 import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeFurnitureGroup;
 import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.LengthUnit;
 import com.eteks.sweethome3d.model.UserPreferences;
@@ -156,6 +161,20 @@ public class FurnitureTableTest extends TestCase {
     firstPiece.setName("Aaaa");
     // Check table data is sorted in alphabetical descending order
     assertFurnitureIsSortedByName(table, false);
+
+    // 6. Select a piece and rename it to move its row at the top
+    HomePieceOfFurniture lastPiece = (HomePieceOfFurniture)table.getModel().getValueAt(table.getRowCount() - 1, 0);
+    home.setSelectedItems(Arrays.asList(new HomePieceOfFurniture [] {lastPiece}));
+    lastPiece.setName("Zzzz");
+    // Check the piece moved and is still selected
+    assertFurnitureIsSortedByName(table, false);
+    assertSame("Piece not moved", lastPiece, table.getModel().getValueAt(0, 0));
+    assertEquals("Wrong selected row", 0, table.getSelectedRow());
+    assertEquals("Wrong selected item", Arrays.asList(new Object [] {lastPiece}), home.getSelectedItems());
+    // Check a change that doesn't alter sort order keeps row
+    lastPiece.setX(lastPiece.getX() + 100);
+    assertSame("Piece moved", lastPiece, table.getModel().getValueAt(0, 0));
+    assertEquals("Wrong row count", home.getFurniture().size(), table.getRowCount());
   }
 
   private void assertFurnitureIsSortedByName(JTable table,
@@ -250,6 +269,55 @@ public class FurnitureTableTest extends TestCase {
     assertFurnitureIsSortedByName(table, true);
   }
 
+  /**
+   * Tests the rows of groups are updated when one of their child changes.
+   */
+  public void testFurnitureTableGroupUpdate() {
+    // 1. Create a home containing two pieces and a group that contains a piece and a nested group
+    UserPreferences preferences = new DefaultUserPreferences();
+    List<HomePieceOfFurniture> homeFurniture =
+      createHomeFurnitureFromCatalog(preferences.getFurnitureCatalog()).subList(0, 4);
+    for (int i = 0; i < homeFurniture.size(); i++) {
+      homeFurniture.get(i).setPrice(new BigDecimal(10 * (i + 1)));
+    }
+    HomePieceOfFurniture piece = homeFurniture.get(2);
+    HomeFurnitureGroup nestedGroup = new HomeFurnitureGroup(
+        Arrays.asList(new HomePieceOfFurniture [] {piece}), "Nested group");
+    HomeFurnitureGroup group = new HomeFurnitureGroup(
+        Arrays.asList(new HomePieceOfFurniture [] {nestedGroup, homeFurniture.get(3)}), "Group");
+    Home home = new Home(Arrays.asList(new HomePieceOfFurniture [] {
+        homeFurniture.get(0), homeFurniture.get(1), group}));
+
+    FurnitureController furnitureController =
+        new FurnitureController(home, preferences, new SwingViewFactory());
+    FurnitureTable table = SwingTools.findChildren((JComponent)furnitureController.getView(), FurnitureTable.class).get(0);
+    assertEquals("Wrong row count", 3, table.getRowCount());
+
+    // 2. Change the price of the piece in the nested group and check group row is updated
+    final List<Integer> updatedRows = new ArrayList<Integer>();
+    table.getModel().addTableModelListener(new TableModelListener() {
+        public void tableChanged(TableModelEvent ev) {
+          if (ev.getType() == TableModelEvent.UPDATE) {
+            for (int row = ev.getFirstRow(); row <= ev.getLastRow(); row++) {
+              updatedRows.add(row);
+            }
+          }
+        }
+      });
+    piece.setPrice(new BigDecimal(1));
+    assertTrue("Group row not updated", updatedRows.contains(2));
+
+    // 3. Sort furniture by price including VAT, computed from children in groups,
+    //    and check group row moves when the price of its children changes
+    furnitureController.sortFurniture(HomePieceOfFurniture.SortableProperty.PRICE_VALUE_ADDED_TAX_INCLUDED.name());
+    assertSame("Group not sorted", group, table.getModel().getValueAt(2, 0));
+    homeFurniture.get(3).setPrice(new BigDecimal(1));
+    assertSame("Group not moved", group, table.getModel().getValueAt(0, 0));
+    piece.setPrice(new BigDecimal(100));
+    assertSame("Group not moved", group, table.getModel().getValueAt(2, 0));
+    assertEquals("Wrong row count", 3, table.getRowCount());
+  }
+
   public static void main(String [] args) {
     UserPreferences preferences = new DefaultUserPreferences();
     List<HomePieceOfFurniture> homeFurniture =
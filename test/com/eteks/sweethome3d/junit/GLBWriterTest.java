@@ -0,0 +1,107 @@
+/*
+ * GLBWriterTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.media.j3d.Transform3D;
+import javax.media.j3d.TransformGroup;
+import javax.vecmath.Vector3f;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.GLBWriter;
+import com.sun.j3d.utils.geometry.Box;
+import com.sun.j3d.utils.geometry.Sphere;
+
+/**
+ * Tests {@link GLBWriter GLB writer} features.
+ * @author Emmanuel Puybaret
+ */
+public class GLBWriterTest extends TestCase {
+  /**
+   * Tests the structure of a GLB file written with Java 3D objects.
+   */
+  public void testGLBWriter() throws IOException {
+    File glbFile = File.createTempFile("test", ".glb");
+    GLBWriter writer = new GLBWriter(glbFile, "Test");
+    // Write a box at center and a sphere centered at (2, 0, 2)
+    writer.writeNode(new Box());
+    Transform3D translation = new Transform3D();
+    translation.setTranslation(new Vector3f(2f, 0, 2f));
+    TransformGroup translationGroup = new TransformGroup(translation);
+    translationGroup.addChild(new Sphere());
+    writer.writeNode(translationGroup, "sphere");
+    writer.close();
+
+    byte [] content = new byte [(int)glbFile.length()];
+    DataInputStream in = new DataInputStream(new FileInputStream(glbFile));
+    in.readFully(content);
+    in.close();
+    glbFile.delete();
+
+    ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals("Wrong magic", 0x46546C67, buffer.getInt());
+    assertEquals("Wrong version", 2, buffer.getInt());
+    assertEquals("Wrong length", content.length, buffer.getInt());
+    int jsonLength = buffer.getInt();
+    assertEquals("Wrong JSON chunk type", 0x4E4F534A, buffer.getInt());
+    assertEquals("JSON chunk not aligned", 0, jsonLength % 4);
+    String json = new String(content, 20, jsonLength, "UTF-8");
+    assertTrue("No generator", json.contains("\"generator\":\"Test\""));
+    // Check the 6 faces of the box with 4 vertices each and the sphere were written
+    assertEquals("Wrong mesh count", 7, json.split("\"mesh\":").length - 1);
+    assertEquals("Wrong box faces", 6, json.split("\"count\":4,\"type\":\"VEC3\",\"min\"").length - 1);
+    assertTrue("No sphere", json.contains("\"name\":\"sphere_7\""));
+    // Check a single material is shared by shapes
+    assertTrue("No material", json.contains("\"materials\":[{"));
+    assertFalse("Material duplicated", json.contains("\"material\":1"));
+
+    buffer.position(20 + jsonLength);
+    int binLength = buffer.getInt();
+    assertEquals("Wrong BIN chunk type", 0x004E4942, buffer.getInt());
+    assertEquals("Wrong BIN chunk length", content.length - 28 - jsonLength, binLength);
+    assertTrue("Wrong buffer length", json.contains("\"buffers\":[{\"byteLength\":" + binLength + "}]"));
+  }
+
+  /**
+   * Tests that no file is written once writer is interrupted.
+   */
+  public void testGLBWriterInterruption() throws IOException {
+    File glbFile = File.createTempFile("test", ".glb");
+    glbFile.delete();
+    GLBWriter writer = new GLBWriter(glbFile);
+    Thread.currentThread().interrupt();
+    try {
+      writer.writeNode(new Box());
+      fail("Writer not interrupted");
+    } catch (InterruptedIOException ex) {
+      // Expected exception
+    }
+    writer.close();
+    assertFalse("File written", glbFile.exists());
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * HomeAppletRecorderTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.eteks.sweethome3d.applet.HomeAppletRecorder;
+import com.eteks.sweethome3d.io.ContentRecording;
+import com.eteks.sweethome3d.io.DefaultFurnitureCatalog;
+import com.eteks.sweethome3d.model.FurnitureCatalog;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link HomeAppletRecorder} class against a local HTTP server.
+ * @author Emmanuel Puybaret
+ */
+public class HomeAppletRecorderTest extends TestCase {
+  private HttpServer   server;
+  private Set<String>  storedContentDigests;
+  private List<String> uploadedEntries;
+  private String       transferEncoding;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.storedContentDigests = new HashSet<String>();
+    this.uploadedEntries = new ArrayList<String>();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    // Service returning the digests of missing content
+    this.server.createContext("/missingContent", new HttpHandler() {
+        public void handle(HttpExchange exchange) throws IOException {
+          BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+          StringBuilder missingContentDigests = new StringBuilder();
+          for (String line; (line = reader.readLine()) != null; ) {
+            if (!storedContentDigests.contains(line)) {
+              missingContentDigests.append(line).append('\n');
+            }
+          }
+          sendResponse(exchange, missingContentDigests.toString());
+        }
+      });
+    // Service storing the digests of uploaded content
+    this.server.createContext("/writeHome", new HttpHandler() {
+        public void handle(HttpExchange exchange) throws IOException {
+          transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-encoding");
+          byte [] request = readFully(exchange.getRequestBody());
+          ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(request,
+              indexOf(request, "PK"), request.length));
+          uploadedEntries.clear();
+          for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null; ) {
+            uploadedEntries.add(entry.getName());
+            if ("ContentDigests".equals(entry.getName())) {
+              BufferedReader reader = new BufferedReader(new InputStreamReader(zipIn, "UTF-8"));
+              for (String line; (line = reader.readLine()) != null; ) {
+                if (line.startsWith("SHA-1-Digest: ")) {
+                  storedContentDigests.add(line.substring("SHA-1-Digest: ".length()));
+                }
+              }
+            }
+          }
+          sendResponse(exchange, "1");
+        }
+      });
+    this.server.start();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.server.stop(0);
+  }
+
+  /**
+   * Tests that content already stored on server isn't uploaded again.
+   */
+  public void testContentDeduplication() throws Exception {
+    Home home = new Home();
+    FurnitureCatalog catalog = new DefaultFurnitureCatalog();
+    for (int i = 0; i < 2; i++) {
+      home.addPieceOfFurniture(new HomePieceOfFurniture(
+          catalog.getCategories().get(0).getFurniture().get(i)));
+    }
+
+    String serverURL = "http://127.0.0.1:" + this.server.getAddress().getPort();
+    HomeAppletRecorder recorder = new HomeAppletRecorder(serverURL + "/writeHome", serverURL + "/readHome?home=%s",
+        serverURL + "/listHomes", null, serverURL + "/missingContent", ContentRecording.INCLUDE_ALL_CONTENT, null, null);
+    // Check that all content is uploaded at first save
+    recorder.writeHome(home, "home");
+    assertEquals("Request not streamed", "chunked", this.transferEncoding);
+    assertTrue("No content digests", this.storedContentDigests.size() > 0);
+    int firstUploadEntryCount = this.uploadedEntries.size();
+    assertTrue("No uploaded content", firstUploadEntryCount > 2);
+
+    // Check that only home entries are uploaded at second save
+    recorder.writeHome(home, "home");
+    assertEquals("Wrong uploaded entries", 2, this.uploadedEntries.size());
+    assertEquals("Wrong uploaded entries", "Home", this.uploadedEntries.get(0));
+    assertEquals("Wrong uploaded entries", "ContentDigests", this.uploadedEntries.get(1));
+
+    // Check that new content is uploaded
+    home.addPieceOfFurniture(new HomePieceOfFurniture(
+        catalog.getCategories().get(1).getFurniture().get(0)));
+    recorder.writeHome(home, "home");
+    assertTrue("Missing new content", this.uploadedEntries.size() > 2);
+    assertTrue("Too many entries", this.uploadedEntries.size() < firstUploadEntryCount);
+  }
+
+  private static void sendResponse(HttpExchange exchange, String response) throws IOException {
+    byte [] bytes = response.getBytes("UTF-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+  private static byte [] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte [] buffer = new byte [8192];
+    for (int length; (length = in.read(buffer)) != -1; ) {
+      out.write(buffer, 0, length);
+    }
+    in.close();
+    return out.toByteArray();
+  }
+
+  private static int indexOf(byte [] bytes, String text) throws IOException {
+    byte [] textBytes = text.getBytes("UTF-8");
+    for (int i = 0; i <= bytes.length - textBytes.length; i++) {
+      int j = 0;
+      while (j < textBytes.length && bytes [i + j] == textBytes [j]) {
+        j++;
+      }
+      if (j == textBytes.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -21,14 +21,26 @@ package com.eteks.sweethome3d.junit;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
+import com.eteks.sweethome3d.io.ContentRecording;
+import com.eteks.sweethome3d.io.DamagedHomeIOException;
 import com.eteks.sweethome3d.io.DefaultFurnitureCatalog;
+import com.eteks.sweethome3d.io.DefaultHomeInputStream;
+import com.eteks.sweethome3d.io.DefaultHomeOutputStream;
 import com.eteks.sweethome3d.io.DefaultUserPreferences;
 import com.eteks.sweethome3d.io.FileUserPreferences;
 import com.eteks.sweethome3d.io.HomeFileRecorder;
@@ -159,6 +171,216 @@ public class HomeFileRecorderTest extends TestCase {
     savedFileWithXmlEntry2.delete();
   }
 
+  /**
+   * Checks a home saved with entries compressed in parallel contains the same entries
+   * as a home saved sequentially and can be read again.
+   */
+  public void testParallelCompression() throws URISyntaxException, RecorderException, IOException {
+    Home home = new HomeFileRecorder().readHome(new File(
+        HomeControllerTest.class.getResource("resources/home1.sh3d").toURI()).getAbsolutePath());
+    File sequentialFile = File.createTempFile("sequential", ".sh3d");
+    File parallelFile = File.createTempFile("parallel", ".sh3d");
+    for (File file : new File [] {sequentialFile, parallelFile}) {
+      DefaultHomeOutputStream out = new DefaultHomeOutputStream(new FileOutputStream(file),
+          9, ContentRecording.INCLUDE_ALL_CONTENT, true, null, file == parallelFile);
+      out.writeHome(home);
+      out.close();
+    }
+
+    // Compare entries read sequentially
+    List<String> sequentialEntries = getEntryNames(sequentialFile);
+    List<String> parallelEntries = getEntryNames(parallelFile);
+    assertTrue("No content entries", sequentialEntries.size() > 2);
+    assertEquals("Different entries", sequentialEntries, parallelEntries);
+    // Compare entries content read from zip central directory, except serialized home
+    // which may be different at each save
+    for (String entryName : sequentialEntries.subList(1, sequentialEntries.size())) {
+      assertContentEquals("Different " + entryName + " entry",
+          new URLContent(new URL("jar:" + sequentialFile.toURI().toURL() + "!/" + entryName)),
+          new URLContent(new URL("jar:" + parallelFile.toURI().toURL() + "!/" + entryName)));
+    }
+
+    Home readHome = new HomeFileRecorder().readHome(parallelFile.getAbsolutePath());
+    assertEquals("Different wall count", home.getWalls().size(), readHome.getWalls().size());
+    assertEquals("Different furniture count", home.getFurniture().size(), readHome.getFurniture().size());
+    sequentialFile.delete();
+    parallelFile.delete();
+  }
+
+  /**
+   * Checks a home referencing content larger than the memory buffers of entries
+   * is saved with entries compressed in parallel.
+   */
+  public void testParallelCompressionOfLargeEntry() throws URISyntaxException, RecorderException, IOException {
+    Home home = new HomeFileRecorder().readHome(new File(
+        HomeControllerTest.class.getResource("resources/home1.sh3d").toURI()).getAbsolutePath());
+    // Use as icon of a piece a file of 20 MB of random data which can't be compressed
+    File iconFile = File.createTempFile("icon", ".png");
+    byte [] data = new byte [20 << 20];
+    new Random(0).nextBytes(data);
+    FileOutputStream iconOut = new FileOutputStream(iconFile);
+    iconOut.write(data);
+    iconOut.close();
+    home.getFurniture().get(0).setIcon(new URLContent(iconFile.toURI().toURL()));
+    File parallelFile = File.createTempFile("parallel", ".sh3d");
+    DefaultHomeOutputStream out = new DefaultHomeOutputStream(new FileOutputStream(parallelFile),
+        9, ContentRecording.INCLUDE_ALL_CONTENT, true, null, true);
+    out.writeHome(home);
+    out.close();
+
+    Home readHome = new HomeFileRecorder().readHome(parallelFile.getAbsolutePath());
+    assertEquals("Different furniture count", home.getFurniture().size(), readHome.getFurniture().size());
+    assertContentEquals("Different icon",
+        new URLContent(iconFile.toURI().toURL()), readHome.getFurniture().get(0).getIcon());
+    iconFile.delete();
+    parallelFile.delete();
+  }
+
+  /**
+   * Checks the content entries copied from a read home file are unchanged once saved again,
+   * whether the home is saved with the same compression or not, and that their compressed data
+   * is copied as is, with its time, only when compression matches.
+   */
+  public void testUnchangedContentCopy() throws URISyntaxException, RecorderException, IOException {
+    String homeFile = new File(
+        HomeControllerTest.class.getResource("resources/home1.sh3d").toURI()).getAbsolutePath();
+    ZipFile homeZipFile = new ZipFile(homeFile);
+    for (int compressionLevel : new int [] {0, 9}) {
+      HomeRecorder recorder = new HomeFileRecorder(compressionLevel, false, null, false, true, false, true);
+      File savedFile = File.createTempFile("saved", ".sh3d");
+      recorder.writeHome(recorder.readHome(homeFile), savedFile.getAbsolutePath());
+      ZipFile zipFile = new ZipFile(savedFile);
+      if (compressionLevel != 0) {
+        // Deflated texture copied from home file keeps its time
+        assertEquals("Entry not copied", homeZipFile.getEntry("0").getTime(), zipFile.getEntry("0").getTime());
+      }
+      zipFile.close();
+      for (HomeRecorder otherRecorder : new HomeRecorder [] {recorder,
+                                                           new HomeFileRecorder(9 - compressionLevel, false, null, false, true, false, true)}) {
+        File savedAgainFile = File.createTempFile("savedAgain", ".sh3d");
+        Home home = recorder.readHome(savedFile.getAbsolutePath());
+        otherRecorder.writeHome(home, savedAgainFile.getAbsolutePath());
+        Home readHome = otherRecorder.readHome(savedAgainFile.getAbsolutePath());
+        assertEquals("Different furniture count", home.getFurniture().size(), readHome.getFurniture().size());
+
+        List<String> entryNames = getEntryNames(savedFile);
+        assertEquals("Different entries", entryNames, getEntryNames(savedAgainFile));
+        zipFile = new ZipFile(savedFile);
+        ZipFile savedAgainZipFile = new ZipFile(savedAgainFile);
+        // Compare content entries placed after Home, Home.xml and ContentDigests entries
+        for (String entryName : entryNames.subList(3, entryNames.size())) {
+          ZipEntry entry = zipFile.getEntry(entryName);
+          ZipEntry savedAgainEntry = savedAgainZipFile.getEntry(entryName);
+          assertEquals("Different CRC for " + entryName, entry.getCrc(), savedAgainEntry.getCrc());
+          if (otherRecorder == recorder) {
+            // Check compressed data was copied
+            assertEquals("Different method for " + entryName, entry.getMethod(), savedAgainEntry.getMethod());
+            assertEquals("Different compressed size for " + entryName,
+                entry.getCompressedSize(), savedAgainEntry.getCompressedSize());
+            assertEquals("Different time for " + entryName, entry.getTime(), savedAgainEntry.getTime());
+          } else {
+            assertEquals("Wrong method for " + entryName,
+                compressionLevel != 0 ? ZipEntry.STORED : ZipEntry.DEFLATED, savedAgainEntry.getMethod());
+          }
+          assertContentEquals("Different " + entryName + " entry",
+              new URLContent(new URL("jar:" + savedFile.toURI().toURL() + "!/" + entryName)),
+              new URLContent(new URL("jar:" + savedAgainFile.toURI().toURL() + "!/" + entryName)));
+        }
+        zipFile.close();
+        savedAgainZipFile.close();
+        savedAgainFile.delete();
+      }
+      savedFile.delete();
+    }
+    homeZipFile.close();
+  }
+
+  private List<String> getEntryNames(File zipFile) throws IOException {
+    List<String> entryNames = new ArrayList<String>();
+    ZipInputStream zipIn = new ZipInputStream(new FileInputStream(zipFile));
+    try {
+      for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null; ) {
+        entryNames.add(entry.getName());
+      }
+    } finally {
+      zipIn.close();
+    }
+    return entryNames;
+  }
+
+  /**
+   * Checks a home read with the central directory of its file is the same as the one read
+   * with a stream, and that its damaged entries are detected the same way.
+   */
+  public void testFastOpen() throws URISyntaxException, RecorderException, IOException, ClassNotFoundException {
+    String homeFile = new File(
+        HomeControllerTest.class.getResource("resources/home1.sh3d").toURI()).getAbsolutePath();
+    HomeRecorder recorder = new HomeFileRecorder(0, false, null, false, true);
+    File savedFile = File.createTempFile("saved", ".sh3d");
+    recorder.writeHome(recorder.readHome(homeFile), savedFile.getAbsolutePath());
+
+    Home home = readHome(savedFile, true);
+    Home streamHome = readHome(savedFile, false);
+    assertEquals("Different furniture count", streamHome.getFurniture().size(), home.getFurniture().size());
+    for (int i = 0; i < home.getFurniture().size(); i++) {
+      assertEquals(streamHome.getFurniture().get(i), home.getFurniture().get(i));
+    }
+    assertFalse("Home is repaired", home.isRepaired());
+
+    // Damage the largest content entry stored in saved file
+    ZipFile zipFile = new ZipFile(savedFile);
+    ZipEntry damagedEntry = null;
+    for (String entryName : getEntryNames(savedFile)) {
+      ZipEntry entry = zipFile.getEntry(entryName);
+      if (!Arrays.asList("Home", "Home.xml", "ContentDigests").contains(entryName)
+          && (damagedEntry == null || entry.getSize() > damagedEntry.getSize())) {
+        damagedEntry = entry;
+      }
+    }
+    zipFile.close();
+    RandomAccessFile file = new RandomAccessFile(savedFile, "rw");
+    byte [] fileData = new byte [(int)file.length()];
+    file.readFully(fileData);
+    byte [] entryName = damagedEntry.getName().getBytes("UTF-8");
+    for (int i = 30; i < fileData.length; i++) {
+      if (fileData [i] == entryName [0]
+          && damagedEntry.getName().equals(new String(fileData, i, entryName.length, "UTF-8"))) {
+        // Change a byte in the middle of entry data following its local header
+        int dataOffset = i + entryName.length + ((fileData [i - 2] & 0xFF) | (fileData [i - 1] & 0xFF) << 8);
+        file.seek(dataOffset + damagedEntry.getSize() / 2);
+        file.write(~fileData [(int)(dataOffset + damagedEntry.getSize() / 2)]);
+        break;
+      }
+    }
+    file.close();
+
+    int invalidContentCount = -1;
+    try {
+      readHome(savedFile, false);
+      fail("Home shouldn't be readable");
+    } catch (DamagedHomeIOException ex) {
+      invalidContentCount = ex.getInvalidContent().size();
+    }
+    try {
+      readHome(savedFile, true);
+      fail("Home shouldn't be readable");
+    } catch (DamagedHomeIOException ex) {
+      assertEquals("Different damaged content count", invalidContentCount, ex.getInvalidContent().size());
+    }
+    savedFile.delete();
+  }
+
+  private Home readHome(File homeFile, boolean fastOpen) throws IOException, ClassNotFoundException {
+    DefaultHomeInputStream in = fastOpen
+        ? new DefaultHomeInputStream(homeFile, ContentRecording.INCLUDE_ALL_CONTENT, null, null, false, true)
+        : new DefaultHomeInputStream(new FileInputStream(homeFile));
+    try {
+      return in.readHome();
+    } finally {
+      in.close();
+    }
+  }
+
   /**
    * Test repaired home file management.
    */
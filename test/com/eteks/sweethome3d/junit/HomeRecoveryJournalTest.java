@@ -0,0 +1,135 @@
+/*
+ * HomeRecoveryJournalTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import com.eteks.sweethome3d.io.DefaultFurnitureCatalog;
+import com.eteks.sweethome3d.io.HomeFileRecorder;
+import com.eteks.sweethome3d.io.HomeRecoveryJournal;
+import com.eteks.sweethome3d.model.FurnitureCatalog;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.HomeRecorder;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.RecorderException;
+import com.eteks.sweethome3d.model.Wall;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link HomeRecoveryJournal} class.
+ * @author Emmanuel Puybaret
+ */
+public class HomeRecoveryJournalTest extends TestCase {
+  public void testReplayJournal() throws RecorderException, IOException {
+    // Create a home with two joined walls and a piece of furniture
+    Home home = new Home();
+    Wall wall1 = new Wall(0, 0, 100, 0, 10, home.getWallHeight());
+    Wall wall2 = new Wall(100, 0, 100, 100, 10, home.getWallHeight());
+    wall1.setWallAtEnd(wall2);
+    wall2.setWallAtStart(wall1);
+    home.addWall(wall1);
+    home.addWall(wall2);
+    FurnitureCatalog catalog = new DefaultFurnitureCatalog();
+    HomePieceOfFurniture piece = new HomePieceOfFurniture(
+        catalog.getCategories().get(0).getFurniture().get(0));
+    home.addPieceOfFurniture(piece);
+
+    // Save a snapshot of home and start its journal
+    HomeRecorder recorder = new HomeFileRecorder();
+    File snapshotFile = File.createTempFile("snapshot", ".recovered");
+    recorder.writeHome(home, snapshotFile.getPath());
+    HomeRecoveryJournal journal = new HomeRecoveryJournal(home);
+    assertTrue("Snapshot not required", journal.isSnapshotRequired());
+    journal.resetChanges();
+    journal.startJournal(snapshotFile);
+    assertFalse("Snapshot required", journal.isSnapshotRequired());
+    assertNull("Unexpected record", journal.recordChanges());
+
+    // Record the changes of existing objects
+    wall1.setXStart(-50);
+    piece.setX(30);
+    HomeRecoveryJournal.Record record = journal.recordChanges();
+    assertNotNull("No record", record);
+    journal.writeRecord(record);
+
+    // Record new objects and the removal of an other one
+    Wall wall3 = new Wall(100, 100, 0, 100, 10, home.getWallHeight());
+    wall2.setWallAtEnd(wall3);
+    wall3.setWallAtStart(wall2);
+    home.addWall(wall3);
+    home.deletePieceOfFurniture(piece);
+    home.setName("Recovered home");
+    journal.writeRecord(journal.recordChanges());
+
+    // Record the change of a property set with setProperty
+    home.setProperty("com.eteks.sweethome3d.SweetHome3D.PlanScale", "0.5");
+    record = journal.recordChanges();
+    assertNotNull("No record for home property", record);
+    journal.writeRecord(record);
+
+    // Record the change of an object added in previous record
+    wall3.setHeight(300f);
+    journal.writeRecord(journal.recordChanges());
+    assertFalse("Snapshot required", journal.isSnapshotRequired());
+    assertNull("Unexpected record", journal.recordChanges());
+
+    Home replayedHome = HomeRecoveryJournal.replayJournal(recorder.readHome(snapshotFile.getPath()), snapshotFile);
+    assertEquals("Wrong name", "Recovered home", replayedHome.getName());
+    assertEquals("Wrong property", "0.5", replayedHome.getProperty("com.eteks.sweethome3d.SweetHome3D.PlanScale"));
+    assertEquals("Wrong furniture count", 0, replayedHome.getFurniture().size());
+    assertEquals("Wrong wall count", 3, replayedHome.getWalls().size());
+    Wall [] replayedWalls = replayedHome.getWalls().toArray(new Wall [3]);
+    Wall replayedWall1 = replayedWalls [0];
+    Wall replayedWall2 = replayedWalls [1];
+    Wall replayedWall3 = replayedWalls [2];
+    assertEquals("Wrong wall start", -50f, replayedWall1.getXStart());
+    assertSame("Wrong joined wall", replayedWall2, replayedWall1.getWallAtEnd());
+    assertSame("Wrong joined wall", replayedWall1, replayedWall2.getWallAtStart());
+    assertSame("Wrong joined wall", replayedWall3, replayedWall2.getWallAtEnd());
+    assertSame("Wrong joined wall", replayedWall2, replayedWall3.getWallAtStart());
+    assertEquals("Wrong wall height", 300f, replayedWall3.getHeight());
+
+    // Check that truncated last record is ignored
+    File journalFile = HomeRecoveryJournal.getJournalFile(snapshotFile);
+    RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+    file.setLength(file.length() - 10);
+    file.close();
+    replayedHome = HomeRecoveryJournal.replayJournal(recorder.readHome(snapshotFile.getPath()), snapshotFile);
+    assertEquals("Wrong wall count", 3, replayedHome.getWalls().size());
+    assertEquals("Wrong wall height", home.getWallHeight(), replayedHome.getWalls().toArray(new Wall [3]) [2].getHeight());
+
+    // Check that a journal is ignored once its snapshot changed
+    home.addLevel(new Level("Level 1", 0, 12, 250));
+    journal.writeRecord(journal.recordChanges());
+    recorder.writeHome(home, snapshotFile.getPath());
+    replayedHome = HomeRecoveryJournal.replayJournal(recorder.readHome(snapshotFile.getPath()), snapshotFile);
+    assertEquals("Wrong level count", 1, replayedHome.getLevels().size());
+    assertEquals("Wrong wall count", 3, replayedHome.getWalls().size());
+
+    journal.deleteJournal();
+    journal.dispose();
+    assertFalse("Journal not deleted", journalFile.exists());
+    snapshotFile.delete();
+  }
+}
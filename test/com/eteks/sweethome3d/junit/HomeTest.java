@@ -22,15 +22,22 @@ package com.eteks.sweethome3d.junit;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.eteks.sweethome3d.io.DefaultFurnitureCatalog;
+import com.eteks.sweethome3d.model.BatchCollectionListener;
+import com.eteks.sweethome3d.model.BatchPropertyChangeListener;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
+import com.eteks.sweethome3d.model.FurnitureCatalog;
 import com.eteks.sweethome3d.model.Home;
 import com.eteks.sweethome3d.model.HomeObject;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.Label;
+import com.eteks.sweethome3d.model.Selectable;
 import com.eteks.sweethome3d.model.Wall;
 import com.eteks.sweethome3d.tools.URLContent;
 
@@ -133,6 +140,128 @@ public class HomeTest extends TestCase {
     assertWallCollectionContains(deletedWalls, wall2);
   }
 
+  public void testBatchCollectionChanges() {
+    // Create a home with a batch listener and a listener that mirrors home furniture
+    Home home = new Home();
+    final List<CollectionEvent<HomePieceOfFurniture>> batchEvents = new ArrayList<CollectionEvent<HomePieceOfFurniture>>();
+    home.addFurnitureListener(new BatchCollectionListener<HomePieceOfFurniture> () {
+        public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
+          batchEvents.add(ev);
+        }
+      });
+    final List<HomePieceOfFurniture> mirroredFurniture = new ArrayList<HomePieceOfFurniture>();
+    home.addFurnitureListener(new CollectionListener<HomePieceOfFurniture> () {
+        public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
+          if (ev.getType() == CollectionEvent.Type.ADD) {
+            mirroredFurniture.add(ev.getIndex(), ev.getItem());
+          } else {
+            assertSame("Wrong deleted piece", mirroredFurniture.remove(ev.getIndex()), ev.getItem());
+          }
+        }
+      });
+
+    FurnitureCatalog catalog = new DefaultFurnitureCatalog();
+    HomePieceOfFurniture [] pieces = new HomePieceOfFurniture [5];
+    for (int i = 0; i < pieces.length; i++) {
+      pieces [i] = new HomePieceOfFurniture(catalog.getCategories().get(0).getFurniture().get(i));
+    }
+    // Add furniture at once at the end of home then inside existing furniture
+    home.addFurniture(Arrays.asList(pieces [0], pieces [2], pieces [4]));
+    home.addFurniture(Arrays.asList(pieces [1], pieces [3]), new int [] {1, 3});
+    assertEquals("Wrong furniture", Arrays.asList(pieces), home.getFurniture());
+    assertEquals("Wrong mirrored furniture", home.getFurniture(), mirroredFurniture);
+    assertEquals("Wrong batch event count", 2, batchEvents.size());
+    assertEquals("Wrong event items", Arrays.asList(pieces [1], pieces [3]), batchEvents.get(1).getItems());
+    assertTrue("Wrong event indices", Arrays.equals(new int [] {1, 3}, batchEvents.get(1).getIndices()));
+
+    // Delete selected furniture and walls at once
+    Wall wall1 = new Wall(0, 0, 100, 0, 0, home.getWallHeight());
+    Wall wall2 = new Wall(100, 0, 100, 100, 0, home.getWallHeight());
+    wall1.setWallAtEnd(wall2);
+    wall2.setWallAtStart(wall1);
+    home.addWalls(Arrays.asList(wall1, wall2));
+    home.setSelectedItems(Arrays.asList(pieces [0], pieces [3], wall1));
+    batchEvents.clear();
+    home.deleteItems(Arrays.<Selectable>asList(pieces [3], pieces [0], wall1));
+    assertEquals("Wrong furniture", Arrays.asList(pieces [1], pieces [2], pieces [4]), home.getFurniture());
+    assertEquals("Wrong mirrored furniture", home.getFurniture(), mirroredFurniture);
+    assertEquals("Wrong batch event count", 1, batchEvents.size());
+    assertTrue("Wrong event indices", Arrays.equals(new int [] {0, 3}, batchEvents.get(0).getIndices()));
+    assertTrue("Selection not empty", home.getSelectedItems().isEmpty());
+    assertWallCollectionContains(home.getWalls(), wall2);
+    assertNull("Wall not detached", wall2.getWallAtStart());
+  }
+
+  /**
+   * Tests property changes deferred in transactions.
+   */
+  public void testPropertyChangeTransaction() {
+    Home home = new Home();
+    FurnitureCatalog catalog = new DefaultFurnitureCatalog();
+    HomePieceOfFurniture piece = new HomePieceOfFurniture(
+        catalog.getCategories().get(0).getFurniture().get(0));
+    piece.setX(0);
+    home.addPieceOfFurniture(piece);
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    final List<List<PropertyChangeEvent>> batches = new ArrayList<List<PropertyChangeEvent>>();
+    PropertyChangeListener listener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          events.add(ev);
+        }
+      };
+    BatchPropertyChangeListener batchListener = new BatchPropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          batches.add(Arrays.asList(new PropertyChangeEvent [] {ev}));
+        }
+
+        public void propertiesChanged(List<PropertyChangeEvent> events) {
+          batches.add(events);
+        }
+      };
+    piece.addPropertyChangeListener(listener);
+    piece.addPropertyChangeListener(batchListener);
+
+    // Check changes are deferred, merged and notified once in nested transactions
+    home.beginPropertyChangeTransaction();
+    piece.setX(10);
+    home.beginPropertyChangeTransaction();
+    piece.setX(20);
+    piece.setY(30);
+    home.endPropertyChangeTransaction();
+    assertEquals("Changes not deferred", 0, events.size());
+    home.endPropertyChangeTransaction();
+    assertEquals("Wrong event count", 2, events.size());
+    assertEquals("Wrong property", HomePieceOfFurniture.Property.X.name(), events.get(0).getPropertyName());
+    assertEquals("Wrong old value", 0f, events.get(0).getOldValue());
+    assertEquals("Wrong new value", 20f, events.get(0).getNewValue());
+    assertEquals("Wrong property", HomePieceOfFurniture.Property.Y.name(), events.get(1).getPropertyName());
+    assertEquals("Wrong batch count", 1, batches.size());
+    assertEquals("Wrong batch size", 2, batches.get(0).size());
+
+    // Check changes back to their initial value and to removed listeners aren't notified
+    events.clear();
+    batches.clear();
+    home.beginPropertyChangeTransaction();
+    piece.setX(40);
+    piece.setX(20);
+    piece.setY(50);
+    piece.removePropertyChangeListener(batchListener);
+    home.endPropertyChangeTransaction();
+    assertEquals("Wrong event count", 1, events.size());
+    assertEquals("Wrong property", HomePieceOfFurniture.Property.Y.name(), events.get(0).getPropertyName());
+    assertEquals("Removed listener notified", 0, batches.size());
+
+    // Check changes aren't deferred anymore
+    piece.setX(60);
+    assertEquals("Wrong event count", 2, events.size());
+    try {
+      home.endPropertyChangeTransaction();
+      fail("No transaction started");
+    } catch (IllegalStateException ex) {
+      // Expected exception
+    }
+  }
+
   public void testProperties() {
     // Test properties management on a subclass of HomeObject
     HomeObject object = new HomeObject() { };
@@ -0,0 +1,72 @@
+/*
+ * LeastRecentlyUsedCacheTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.LeastRecentlyUsedCache;
+
+/**
+ * Tests {@link LeastRecentlyUsedCache} class.
+ * @author Emmanuel Puybaret
+ */
+public class LeastRecentlyUsedCacheTest extends TestCase {
+  /**
+   * Checks least recently used entries are evicted once cache is full.
+   */
+  public void testEviction() {
+    LeastRecentlyUsedCache<String, String> cache = new LeastRecentlyUsedCache<String, String>(10) {
+        @Override
+        protected long getSize(String key, String value) {
+          return value.length();
+        }
+      };
+    cache.put("a", "1234");
+    cache.put("b", "1234");
+    assertEquals("Wrong size", 8, cache.getSize());
+    // Use a to make b the least recently used entry
+    assertEquals("Wrong value", "1234", cache.get("a"));
+    cache.put("c", "1234");
+    assertEquals("Wrong size", 8, cache.getSize());
+    assertNull("b not evicted", cache.get("b"));
+    assertTrue("a evicted", cache.containsKey("a"));
+    assertTrue("c evicted", cache.containsKey("c"));
+    assertEquals("Wrong hit count", 1, cache.getHitCount());
+    assertEquals("Wrong miss count", 1, cache.getMissCount());
+    assertEquals("Wrong eviction count", 1, cache.getEvictionCount());
+
+    // Replace a value by a larger one
+    cache.put("c", "123456");
+    assertEquals("Wrong size", 10, cache.getSize());
+    assertEquals("Wrong entry count", 2, cache.getEntryCount());
+    // An entry larger than the cache is kept alone
+    cache.put("d", "123456789012");
+    assertEquals("Wrong entry count", 1, cache.getEntryCount());
+    assertEquals("Wrong value", "123456789012", cache.get("d"));
+    assertEquals("Wrong eviction count", 3, cache.getEvictionCount());
+
+    cache.setMaximumSize(5);
+    assertEquals("Entry not evicted", 0, cache.getEntryCount());
+    assertEquals("Wrong size", 0, cache.getSize());
+    cache.put("e", "123");
+    assertEquals("Wrong removed value", "123", cache.remove("e"));
+    assertEquals("Wrong size", 0, cache.getSize());
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * ModelCacheTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.media.j3d.BoundingBox;
+import javax.media.j3d.BranchGroup;
+import javax.vecmath.Point3d;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.ContentDigestManager;
+import com.eteks.sweethome3d.j3d.ModelCache;
+import com.eteks.sweethome3d.j3d.ModelManager;
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.model.HomeMaterial;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * Tests {@link ModelCache} class.
+ * @author Emmanuel Puybaret
+ */
+public class ModelCacheTest extends TestCase {
+  /**
+   * Checks a model read from cache is the same as the parsed model.
+   */
+  public void testModelCache() throws IOException {
+    File cacheFolder = File.createTempFile("cache", "");
+    cacheFolder.delete();
+    ModelCache modelCache = new ModelCache(cacheFolder, 1 << 20) {
+        @Override
+        protected byte [] getContentDigest(Content content) {
+          return ContentDigestManager.getInstance().getContentDigest(content);
+        }
+      };
+    // Create a zip file containing an OBJ model and its materials
+    File zipFile = File.createTempFile("model", ".zip");
+    zipFile.deleteOnExit();
+    ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zipFile));
+    zipOut.putNextEntry(new ZipEntry("model.obj"));
+    zipOut.write(("mtllib model.mtl\n"
+        + "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 0 0 2\n"
+        + "g box\nusemtl red\nf 1 2 3 4\n"
+        + "g sweethome3d_window_pane\nusemtl blue\nf 1 2 5\n").getBytes("ISO-8859-1"));
+    zipOut.putNextEntry(new ZipEntry("model.mtl"));
+    zipOut.write(("newmtl red\nKd 1 0 0\n"
+        + "newmtl blue\nKd 0 0 1\nNs 50\n").getBytes("ISO-8859-1"));
+    zipOut.close();
+    Content model = new URLContent(new URL("jar:" + zipFile.toURI().toURL() + "!/model.obj"));
+
+    ModelManager modelManager = ModelManager.getInstance();
+    try {
+      modelManager.setModelCache(modelCache);
+      assertNull("Model in cache", modelCache.readModel(model, ((URLContent)model).getURL()));
+      BranchGroup parsedModel = modelManager.loadModel(model);
+      assertEquals("Model not stored in cache", 1, cacheFolder.listFiles().length);
+      assertNotNull("Model not in cache", modelCache.readModel(model, ((URLContent)model).getURL()));
+
+      BranchGroup cachedModel = modelManager.loadModel(model);
+      assertSame("Wrong user data", model, cachedModel.getUserData());
+      assertEquals("Wrong shape count", parsedModel.numChildren(), cachedModel.numChildren());
+      assertTrue("Wrong shape name", modelManager.containsNode(cachedModel, ModelManager.WINDOW_PANE_SHAPE_PREFIX));
+      BoundingBox parsedBounds = modelManager.getBounds(parsedModel);
+      BoundingBox cachedBounds = modelManager.getBounds(cachedModel);
+      Point3d parsedUpper = new Point3d();
+      parsedBounds.getUpper(parsedUpper);
+      Point3d cachedUpper = new Point3d();
+      cachedBounds.getUpper(cachedUpper);
+      assertEquals("Wrong bounds", parsedUpper, cachedUpper);
+      HomeMaterial [] parsedMaterials = modelManager.getMaterials(parsedModel);
+      HomeMaterial [] cachedMaterials = modelManager.getMaterials(cachedModel);
+      assertEquals("Wrong material count", parsedMaterials.length, cachedMaterials.length);
+      for (int i = 0; i < parsedMaterials.length; i++) {
+        assertEquals("Wrong material name", parsedMaterials [i].getName(), cachedMaterials [i].getName());
+        assertEquals("Wrong material color", parsedMaterials [i].getColor(), cachedMaterials [i].getColor());
+        assertEquals("Wrong material shininess", parsedMaterials [i].getShininess(), cachedMaterials [i].getShininess());
+      }
+
+      modelCache.clear();
+      assertEquals("Cache not cleared", 0, cacheFolder.listFiles().length);
+    } finally {
+      modelManager.setModelCache(null);
+      modelCache.clear();
+      cacheFolder.delete();
+    }
+  }
+}
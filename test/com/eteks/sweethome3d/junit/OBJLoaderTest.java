@@ -0,0 +1,259 @@
+/*
+ * OBJLoaderTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.media.j3d.BranchGroup;
+import javax.media.j3d.GeometryArray;
+import javax.media.j3d.Group;
+import javax.media.j3d.LineStripArray;
+import javax.media.j3d.Node;
+import javax.media.j3d.Shape3D;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.j3d.OBJLoader;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.model.FurnitureCategory;
+import com.eteks.sweethome3d.tools.URLContent;
+import com.sun.j3d.loaders.IncorrectFormatException;
+import com.sun.j3d.loaders.Scene;
+
+/**
+ * Tests {@link OBJLoader} class.
+ * @author Emmanuel Puybaret
+ */
+public class OBJLoaderTest extends TestCase {
+  /**
+   * Checks the shapes built from an OBJ stream using the different syntaxes of the format.
+   */
+  public void testOBJLoader() throws FileNotFoundException {
+    String obj = "# Comment\r\n"
+        + "v 0 0 0\r\n"
+        + "v 1.5e0 0 0 1\r\n"
+        + "v +1 1 \\\r\n"
+        + " 0\r\n"
+        + "v .5 -2.25E-1 0.000001\r\n"
+        + "vt 0 0\r\n"
+        + "vt 1 0 0\r\n"
+        + "vt 1 1\r\n"
+        + "vn 0 0 1\r\n"
+        + "g\r\n"
+        + "s off\r\n"
+        + "f 1 2 3\r\n"
+        + "f -4/1 -3/2 -2/3\r\n"
+        + "usemtl red  \r\n"
+        + "f 1//1 2//1 3//1\r\n"
+        + "f 1/1/1 2/2/1 3/3/1 4/3/1\r\n"
+        + "g group other\r\n"
+        + "s 1\r\n"
+        + "f 1 2 3 4\r\n"
+        + "l 1 2 3\r\n"
+        + "l 1/1 2/2\r\n"
+        + "o object\r\n"
+        + "usemtl black\r\n"
+        + "f 1 3 4";
+    Scene scene = new OBJLoader().load(new StringReader(obj));
+    BranchGroup sceneRoot = scene.getSceneGroup();
+    assertEquals("Wrong shape count", 8, sceneRoot.numChildren());
+    Map<?, ?> namedObjects = scene.getNamedObjects();
+    String [] expectedNames = {"default", "default_1", "default_2", "default_3",
+                               "group", "group_1", "group_2", "object"};
+    int [] expectedVertexCounts = {3, 3, 3, 6, 6, 3, 2, 3};
+    for (int i = 0; i < expectedNames.length; i++) {
+      Shape3D shape = (Shape3D)namedObjects.get(expectedNames [i]);
+      assertSame("Wrong shape order", sceneRoot.getChild(i), shape);
+      assertEquals("Wrong vertex count", expectedVertexCounts [i], ((GeometryArray)shape.getGeometry()).getVertexCount());
+    }
+    LineStripArray lines = (LineStripArray)((Shape3D)namedObjects.get("group_1")).getGeometry();
+    float [] coordinates = new float [9];
+    lines.getCoordinates(0, coordinates);
+    assertEquals("Wrong x", 1.5f, coordinates [3]);
+    assertEquals("Wrong z", 0f, coordinates [8]);
+
+    try {
+      new OBJLoader().load(new StringReader("v 0 0 0\nv 1,1 1 0\n"));
+      fail("Number not detected as incorrect");
+    } catch (IncorrectFormatException ex) {
+      // Expected exception
+    }
+  }
+
+  /**
+   * The count of shapes and vertices of the OBJ models of the default furniture catalog,
+   * as they were built by the OBJ parser based on <code>StreamTokenizer</code>.
+   */
+  private static final Object [][] CATALOG_MODELS_SHAPE_AND_VERTEX_COUNTS = {
+      {"bath.obj", 13, 17202},
+      {"fittedBath.obj", 8, 9123},
+      {"shower.obj", 18, 2484},
+      {"toiletUnit.obj", 5, 15720},
+      {"washbasin.obj", 7, 24216},
+      {"washbasinWithCabinet.obj", 14, 7128},
+      {"bed.obj", 6, 2955},
+      {"bedsideTable.obj", 7, 252},
+      {"bunkBed90x190.obj", 24, 2412},
+      {"chest.obj", 18, 5628},
+      {"cornerBunkBed90x190.obj", 29, 2916},
+      {"crib.obj", 8, 3408},
+      {"bed140x190.obj", 13, 1428},
+      {"loftBed140x190.obj", 22, 1812},
+      {"bed90x190.obj", 13, 1428},
+      {"slidingDoors.obj", 13, 588},
+      {"wardrobe.obj", 9, 2496},
+      {"door.obj", 9, 1536},
+      {"doorFrame.obj", 1, 132},
+      {"doubleFrenchWindow126x200.obj", 13, 1590},
+      {"doubleHungWindow80x122.obj", 6, 468},
+      {"doubleWindow126x123.obj", 13, 1608},
+      {"doubleWindow126x163.obj", 12, 1611},
+      {"fixedTriangleWindow85x85.obj", 3, 258},
+      {"fixedWindow85x123.obj", 3, 234},
+      {"frenchWindow85x200.obj", 8, 1152},
+      {"frontDoor.obj", 12, 2694},
+      {"garageDoor.obj", 5, 1020},
+      {"halfRoundWindow.obj", 5, 954},
+      {"openDoor.obj", 9, 1536},
+      {"doubleOutwardOpeningWindow.obj", 20, 3180},
+      {"roundDoorFrame.obj", 1, 498},
+      {"roundedDoor.obj", 11, 4770},
+      {"roundWindow.obj", 3, 1920},
+      {"serviceHatch.obj", 1, 270},
+      {"sliderWindow126x200.obj", 8, 912},
+      {"window85x123.obj", 8, 1107},
+      {"window85x163.obj", 7, 1032},
+      {"clothesWasher.obj", 15, 3192},
+      {"cooker.obj", 26, 4908},
+      {"dishwasher.obj", 9, 948},
+      {"fridge.obj", 6, 1542},
+      {"fridgeFreezer.obj", 11, 3048},
+      {"hood.obj", 7, 1224},
+      {"kitchenCabinet.obj", 5, 1290},
+      {"kitchenUpperCabinet.obj", 5, 1290},
+      {"oven.obj", 19, 3690},
+      {"sink.obj", 17, 4752},
+      {"lightSource.obj", 1, 105},
+      {"floorUplight.obj", 7, 2184},
+      {"lamp.obj", 8, 2769},
+      {"pendantLamp.obj", 4, 1764},
+      {"spotlight.obj", 9, 798},
+      {"wallUplight.obj", 5, 633},
+      {"workLamp.obj", 3, 3300},
+      {"aquarium.obj", 16, 2394},
+      {"armchair2.obj", 9, 4104},
+      {"armchair.obj", 3, 11580},
+      {"bookcase.obj", 11, 396},
+      {"chair2.obj", 4, 2028},
+      {"chair.obj", 9, 324},
+      {"coffeeTable.obj", 4, 1296},
+      {"cornerSofa.obj", 8, 35928},
+      {"desk.obj", 9, 1860},
+      {"dresser.obj", 12, 2664},
+      {"filledBookcase.obj", 67, 5655},
+      {"fireplace.obj", 9, 1686},
+      {"flatTV.obj", 7, 1425},
+      {"flowers.obj", 50, 12672},
+      {"glassDoorCabinet.obj", 20, 4668},
+      {"laptop.obj", 12, 4407},
+      {"piano.obj", 20, 3222},
+      {"plant.obj", 29, 10584},
+      {"roundTable.obj", 3, 960},
+      {"sofa2.obj", 11, 6792},
+      {"sofa.obj", 4, 15594},
+      {"squareTable.obj", 9, 372},
+      {"stool.obj", 6, 2256},
+      {"table.obj", 3, 804},
+      {"tvUnit.obj", 7, 1176},
+      {"texturableBox/texturableBox.obj", 6, 36},
+      {"curtains/curtains.obj", 8, 5100},
+      {"texturableCylinder0/texturableCylinder0.obj", 3, 384},
+      {"electricRadiator.obj", 13, 810},
+      {"frame/frame.obj", 7, 234},
+      {"hotWaterRadiator.obj", 17, 40104},
+      {"mannequin/mannequin.obj", 44, 15000},
+      {"railing.obj", 5, 744},
+      {"texturableTriangle/texturableTriangle.obj", 5, 24},
+      {"blind.obj", 8, 5283},
+      {"curveStaircase.obj", 38, 1476},
+      {"spiralStaircase.obj", 9, 4068},
+      {"staircase.obj", 41, 1524}
+    };
+
+  /**
+   * Tests that the OBJ models of the default furniture catalog are loaded
+   * with the same shapes and vertices as with the previous OBJ parser.
+   */
+  public void testOBJLoaderCatalogModels() throws FileNotFoundException {
+    List<URL> modelUrls = new ArrayList<URL>();
+    for (FurnitureCategory category : new DefaultUserPreferences().getFurnitureCatalog().getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        Content model = piece.getModel();
+        if (model instanceof URLContent
+            && ((URLContent)model).getURL().getFile().toLowerCase().endsWith(".obj")) {
+          modelUrls.add(((URLContent)model).getURL());
+        }
+      }
+    }
+    assertFalse("No OBJ model in catalog", modelUrls.isEmpty());
+
+    Map<String, Object []> expectedCounts = new HashMap<String, Object []>();
+    for (Object [] modelCounts : CATALOG_MODELS_SHAPE_AND_VERTEX_COUNTS) {
+      expectedCounts.put((String)modelCounts [0], modelCounts);
+    }
+    for (URL modelUrl : modelUrls) {
+      String modelFile = modelUrl.getFile();
+      String modelName = modelFile.substring(modelFile.lastIndexOf("resources/") + "resources/".length());
+      Object [] modelCounts = expectedCounts.get(modelName);
+      assertNotNull("Unknown model " + modelName, modelCounts);
+      int [] counts = new int [2];
+      countShapesAndVertices(new OBJLoader().load(modelUrl).getSceneGroup(), counts);
+      assertEquals("Different shape count in " + modelName, modelCounts [1], counts [0]);
+      assertEquals("Different vertex count in " + modelName, modelCounts [2], counts [1]);
+    }
+  }
+
+  /**
+   * Adds to <code>counts</code> the count of shapes and vertices of the given <code>node</code>.
+   */
+  private void countShapesAndVertices(Node node, int [] counts) {
+    if (node instanceof Group) {
+      Enumeration<?> enumeration = ((Group)node).getAllChildren();
+      while (enumeration.hasMoreElements()) {
+        countShapesAndVertices((Node)enumeration.nextElement(), counts);
+      }
+    } else if (node instanceof Shape3D) {
+      Shape3D shape = (Shape3D)node;
+      counts [0]++;
+      for (int i = 0; i < shape.numGeometries(); i++) {
+        counts [1] += ((GeometryArray)shape.getGeometry(i)).getVertexCount();
+      }
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Object3DBranchUpdaterTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.media.j3d.GeometryArray;
+import javax.media.j3d.Group;
+import javax.media.j3d.Node;
+import javax.media.j3d.Shape3D;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.j3d.Object3DBranch;
+import com.eteks.sweethome3d.j3d.Object3DBranchUpdater;
+import com.eteks.sweethome3d.j3d.Room3D;
+import com.eteks.sweethome3d.j3d.Wall3D;
+import com.eteks.sweethome3d.model.CatalogDoorOrWindow;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.FurnitureCategory;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeDoorOrWindow;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.UserPreferences;
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * Tests {@link Object3DBranchUpdater} class.
+ * @author Emmanuel Puybaret
+ */
+public class Object3DBranchUpdaterTest extends TestCase {
+  /**
+   * Checks the counters of an updater match the updated branches and computed geometries.
+   */
+  public void testUpdateCounters() throws InterruptedException, InvocationTargetException {
+    Home home = new Home();
+    Wall wall = new Wall(0, 0, 500, 0, 10, 250);
+    home.addWall(wall);
+    Room room = new Room(new float [][] {{0, 0}, {500, 0}, {500, 500}, {0, 500}});
+    home.addRoom(room);
+    final Object3DBranchUpdater updater = new Object3DBranchUpdater(home);
+    final Wall3D wall3D = new Wall3D(wall, home);
+    final Room3D room3D = new Room3D(room, home);
+
+    // 1. Update wall and room branches
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D, room3D}));
+        }
+      });
+    waitForUpdatesEnd(updater);
+    assertEquals("Wrong update count", 1, updater.getUpdateCount());
+    assertEquals("Wrong updated branch count", 2, updater.getUpdatedBranchCount());
+    assertEquals("Wrong computed geometry count", 2, updater.getComputedGeometryCount());
+    assertEquals("Wrong superseded geometry count", 0, updater.getSupersededGeometryCount());
+
+    // 2. Update twice the wall branch during the same event
+    updater.resetCounters();
+    assertEquals("Counters not reset", 0, updater.getUpdateCount());
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D}));
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D, room3D}));
+        }
+      });
+    waitForUpdatesEnd(updater);
+    assertEquals("Wrong update count", 2, updater.getUpdateCount());
+    assertEquals("Wrong updated branch count", 3, updater.getUpdatedBranchCount());
+    // First wall geometry is computed only if the worker thread started before the second update
+    assertEquals("Wrong computed and superseded geometry count", 3,
+        updater.getComputedGeometryCount() + updater.getSupersededGeometryCount());
+
+    // 3. Check an empty update is ignored
+    updater.resetCounters();
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          updater.updateBranches(Collections.<Object3DBranch>emptyList());
+        }
+      });
+    assertEquals("Empty update counted", 0, updater.getUpdateCount());
+    assertFalse("Empty update pending", updater.isUpdating());
+  }
+
+  /**
+   * Checks branches are updated from a snapshot containing only the items they depend on,
+   * and that successive updates of a branch end with the geometry matching the last one.
+   */
+  public void testSnapshotUpdate() throws InterruptedException, InvocationTargetException {
+    Home home = new Home();
+    // Add 4 walls joined to each other and an other wall
+    Wall [] walls = {new Wall(0, 0, 500, 0, 10, 250),
+                     new Wall(500, 0, 500, 500, 10, 250),
+                     new Wall(500, 500, 0, 500, 10, 250),
+                     new Wall(0, 500, 0, 0, 10, 250),
+                     new Wall(1000, 0, 1500, 0, 10, 250)};
+    for (int i = 0; i < 4; i++) {
+      walls [i].setWallAtEnd(walls [(i + 1) % 4]);
+      walls [(i + 1) % 4].setWallAtStart(walls [i]);
+    }
+    for (Wall wall : walls) {
+      home.addWall(wall);
+    }
+    Room room = new Room(new float [][] {{0, 0}, {500, 0}, {500, 500}, {0, 500}});
+    home.addRoom(room);
+    // Add a door and some other furniture
+    UserPreferences preferences = new DefaultUserPreferences();
+    CatalogPieceOfFurniture pieceModel = null;
+    CatalogDoorOrWindow doorModel = null;
+    for (FurnitureCategory category : preferences.getFurnitureCatalog().getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        if (piece instanceof CatalogDoorOrWindow) {
+          doorModel = (CatalogDoorOrWindow)piece;
+        } else if (!piece.isDoorOrWindow() && piece.getStaircaseCutOutShape() == null) {
+          pieceModel = piece;
+        }
+      }
+    }
+    HomeDoorOrWindow door = new HomeDoorOrWindow(doorModel);
+    door.setX(250);
+    door.setY(0);
+    home.addPieceOfFurniture(door);
+    for (int i = 0; i < 100; i++) {
+      HomePieceOfFurniture piece = new HomePieceOfFurniture(pieceModel);
+      piece.setX(100 + i % 10 * 30);
+      piece.setY(100 + i / 10 * 30);
+      home.addPieceOfFurniture(piece);
+    }
+
+    final Object3DBranchUpdater updater = new Object3DBranchUpdater(home);
+    final Wall3D wall3D = new Wall3D(walls [0], home);
+    final Room3D room3D = new Room3D(room, home);
+
+    // 1. Update the first wall and check its geometry is computed from a copy of its joined walls and the door
+    walls [0].setHeight(300f);
+    walls [0].setThickness(20);
+    assertFalse("Wall geometry already up to date", haveSameGeometries(wall3D, new Wall3D(walls [0], home)));
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D}));
+        }
+      });
+    waitForUpdatesEnd(updater);
+    assertEquals("Wrong computed geometry count", 1, updater.getComputedGeometryCount());
+    assertEquals("Wrong copied item count", 4, updater.getCopiedItemCount());
+    assertTrue("Wall geometry not updated", haveSameGeometries(wall3D, new Wall3D(walls [0], home)));
+
+    // 2. Update the room which ceiling depends on the walls at the same level
+    updater.resetCounters();
+    walls [1].setHeight(400f);
+    room.setCeilingFlat(false);
+    assertFalse("Room geometry already up to date", haveSameGeometries(room3D, new Room3D(room, home)));
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {room3D}));
+        }
+      });
+    waitForUpdatesEnd(updater);
+    assertEquals("Wrong copied item count", 6, updater.getCopiedItemCount());
+    assertTrue("Room geometry not updated", haveSameGeometries(room3D, new Room3D(room, home)));
+
+    // 3. Update the wall twice during the same event and check last geometry is kept
+    updater.resetCounters();
+    final Wall wall = walls [0];
+    EventQueue.invokeAndWait(new Runnable() {
+        public void run() {
+          wall.setHeight(350f);
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D}));
+          wall.setThickness(30);
+          updater.updateBranches(Arrays.asList(new Object3DBranch [] {wall3D}));
+        }
+      });
+    waitForUpdatesEnd(updater);
+    assertEquals("Wrong computed and superseded geometry count", 2,
+        updater.getComputedGeometryCount() + updater.getSupersededGeometryCount());
+    assertTrue("Wall geometry not updated", haveSameGeometries(wall3D, new Wall3D(walls [0], home)));
+  }
+
+  /**
+   * Returns <code>true</code> if the shapes of the given nodes have the same geometries.
+   */
+  private boolean haveSameGeometries(Node node1, Node node2) {
+    if (node1 instanceof Group) {
+      Group group1 = (Group)node1;
+      Group group2 = (Group)node2;
+      if (group1.numChildren() != group2.numChildren()) {
+        return false;
+      }
+      for (int i = 0; i < group1.numChildren(); i++) {
+        if (!haveSameGeometries(group1.getChild(i), group2.getChild(i))) {
+          return false;
+        }
+      }
+    } else if (node1 instanceof Shape3D) {
+      Shape3D shape1 = (Shape3D)node1;
+      Shape3D shape2 = (Shape3D)node2;
+      if (shape1.numGeometries() != shape2.numGeometries()) {
+        return false;
+      }
+      for (int i = 0; i < shape1.numGeometries(); i++) {
+        if (!Arrays.equals(getCoordinates((GeometryArray)shape1.getGeometry(i)),
+                getCoordinates((GeometryArray)shape2.getGeometry(i)))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private float [] getCoordinates(GeometryArray geometry) {
+    if (geometry == null) {
+      return null;
+    } else if ((geometry.getVertexFormat() & GeometryArray.BY_REFERENCE) != 0) {
+      return geometry.getCoordRefFloat();
+    } else {
+      float [] coordinates = new float [geometry.getVertexCount() * 3];
+      geometry.getCoordinates(0, coordinates);
+      return coordinates;
+    }
+  }
+
+  /**
+   * Waits until the geometries computed by the given <code>updater</code> are replaced in their branches.
+   */
+  private void waitForUpdatesEnd(final Object3DBranchUpdater updater) throws InterruptedException, InvocationTargetException {
+    final boolean [] updating = {true};
+    for (int i = 0; i < 500 && updating [0]; i++) {
+      Thread.sleep(10);
+      EventQueue.invokeAndWait(new Runnable() {
+          public void run() {
+            updating [0] = updater.isUpdating();
+          }
+        });
+    }
+    assertFalse("Branches still updating", updating [0]);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Object3DDependencyGraphTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.j3d.Object3DDependencyGraph;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Level;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.UserPreferences;
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * Tests {@link Object3DDependencyGraph} class.
+ * @author Emmanuel Puybaret
+ */
+public class Object3DDependencyGraphTest extends TestCase {
+  /**
+   * Checks only the rooms depending on a modified wall, staircase or level are returned.
+   */
+  public void testDependencies() {
+    Locale.setDefault(Locale.ENGLISH);
+    Home home = new Home();
+    Level level0 = new Level("Level 0", 0, 12, 250);
+    Level level1 = new Level("Level 1", 250, 12, 250);
+    Level level2 = new Level("Level 2", 500, 12, 250);
+    home.addLevel(level0);
+    home.addLevel(level1);
+    home.addLevel(level2);
+    // Add 10 rooms at each level
+    Room [][] rooms = new Room [3][10];
+    Level [] levels = {level0, level1, level2};
+    for (int i = 0; i < levels.length; i++) {
+      home.setSelectedLevel(levels [i]);
+      for (int j = 0; j < rooms [i].length; j++) {
+        rooms [i][j] = new Room(new float [][] {{j * 300, 0}, {j * 300 + 300, 0}, {j * 300 + 300, 300}, {j * 300, 300}});
+        home.addRoom(rooms [i][j]);
+      }
+    }
+    rooms [2][5].setCeilingFlat(false);
+    home.setSelectedLevel(level0);
+    Wall wall0 = new Wall(0, 0, 3000, 0, 10, 250);
+    home.addWall(wall0);
+    home.setSelectedLevel(level2);
+    Wall wall2 = new Wall(0, 300, 3000, 300, 10, 250);
+    home.addWall(wall2);
+
+    UserPreferences preferences = new DefaultUserPreferences();
+    CatalogPieceOfFurniture staircaseModel = null;
+    for (CatalogPieceOfFurniture piece : preferences.getFurnitureCatalog().getCategories().get(0).getFurniture()) {
+      staircaseModel = piece;
+      break;
+    }
+    home.setSelectedLevel(level0);
+    HomePieceOfFurniture staircase = new HomePieceOfFurniture(staircaseModel);
+    staircase.setStaircaseCutOutShape("M0,0 v1 h1 v-1 z");
+    staircase.setX(150);
+    staircase.setY(150);
+    staircase.setWidth(100);
+    staircase.setDepth(100);
+    staircase.setHeight(260);
+    home.addPieceOfFurniture(staircase);
+
+    Object3DDependencyGraph dependencies = new Object3DDependencyGraph(home);
+    // Walls at other levels than the last one don't change rooms
+    assertTrue("Rooms depending on wall at first level",
+        dependencies.getRoomsDependingOnWall(wall0, Wall.Property.HEIGHT.name(), 240f).isEmpty());
+    // Wall height change at last level changes rooms at last level
+    assertEquals("Rooms depending on wall height at last level",
+        new HashSet<Room>(Arrays.asList(rooms [2])),
+        dependencies.getRoomsDependingOnWall(wall2, Wall.Property.HEIGHT.name(), 240f));
+    // Wall move at last level changes only rooms with a sloping ceiling
+    assertEquals("Rooms depending on wall position at last level",
+        new HashSet<Room>(Arrays.asList(rooms [2][5])),
+        dependencies.getRoomsDependingOnWall(wall2, Wall.Property.X_END.name(), 2900f));
+    // A wall moved from last level changes rooms at this level
+    wall2.setLevel(level1);
+    assertEquals("Rooms depending on wall moved from last level", 10,
+        dependencies.getRoomsDependingOnWall(wall2, Wall.Property.LEVEL.name(), level2).size());
+
+    // Staircase crossing first and second levels changes only the room under it at these levels
+    assertEquals("Rooms depending on staircase",
+        new HashSet<Room>(Arrays.asList(rooms [0][0], rooms [1][0])),
+        dependencies.getRoomsDependingOnStaircase(staircase, false));
+    staircase.setX(750);
+    assertEquals("Rooms depending on moved staircase",
+        new HashSet<Room>(Arrays.asList(rooms [0][0], rooms [1][0], rooms [0][2], rooms [1][2])),
+        dependencies.getRoomsDependingOnStaircase(staircase, false));
+    assertEquals("Rooms depending on deleted staircase",
+        new HashSet<Room>(Arrays.asList(rooms [0][2], rooms [1][2])),
+        dependencies.getRoomsDependingOnStaircase(staircase, true));
+    HomePieceOfFurniture piece = new HomePieceOfFurniture(staircaseModel);
+    home.addPieceOfFurniture(piece);
+    assertTrue("Rooms depending on piece",
+        dependencies.getRoomsDependingOnStaircase(piece, false).isEmpty());
+
+    // Level height changes rooms at levels touching it
+    level0.setHeight(200);
+    assertEquals("Rooms depending on level height", 20,
+        dependencies.getRoomsDependingOnLevel(level0, level0.getFloorThickness(), 250).size());
+    assertEquals("Walls depending on level", 1, dependencies.getWallsDependingOnLevel(level0).size());
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * PhotoBatchRendererTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.PhotoBatchRenderer;
+import com.eteks.sweethome3d.j3d.AbstractPhotoRenderer;
+
+/**
+ * Tests {@link PhotoBatchRenderer} class.
+ * @author Emmanuel Puybaret
+ */
+public class PhotoBatchRendererTest extends TestCase {
+  /**
+   * Renders the photos of a home twice in parallel and checks the written files and summary.
+   */
+  public void testPhotoBatchRenderer() throws IOException, InterruptedException, URISyntaxException {
+    String homeName = new File(PhotoBatchRendererTest.class.getResource("resources/home1.sh3d").toURI()).getPath();
+    File outputFolder = File.createTempFile("photos", "");
+    outputFolder.delete();
+    File firstOutputFolder = new File(outputFolder, "1");
+    File secondOutputFolder = new File(outputFolder, "2");
+    try {
+      PhotoBatchRenderer renderer = new PhotoBatchRenderer(firstOutputFolder,
+          AbstractPhotoRenderer.Quality.LOW, 40, 30, "png", 2, 64 << 20);
+      List<PhotoBatchRenderer.Photo> photos = renderer.renderHomes(
+          Arrays.asList(new String [] {homeName, "unknownHome.sh3d"}));
+      assertEquals("Wrong photo count", 2, photos.size());
+      PhotoBatchRenderer.Photo photo = photos.get(0);
+      assertNull("Photo not rendered", photo.getException());
+      assertTrue("No rendering time", photo.getRenderingTime() >= 0);
+      BufferedImage image = ImageIO.read(photo.getFile());
+      assertEquals("Wrong width", 40, image.getWidth());
+      assertEquals("Wrong height", 30, image.getHeight());
+      assertNotNull("Unknown home read", photos.get(1).getException());
+
+      File summaryFile = new File(outputFolder, "photos.csv");
+      PhotoBatchRenderer.writeSummary(photos, summaryFile);
+      BufferedReader reader = new BufferedReader(new FileReader(summaryFile));
+      assertEquals("Wrong header", "home,camera,file,width,height,quality,time (ms),status", reader.readLine());
+      assertTrue("Wrong first line", reader.readLine().endsWith(",40,30,LOW," + photo.getRenderingTime() + ",OK"));
+      assertTrue("Wrong second line", reader.readLine().startsWith("unknownHome.sh3d,,,0,0,LOW,0,"));
+      assertNull("Too many lines", reader.readLine());
+      reader.close();
+
+      // Check a home that fails with an unexpected exception is listed once
+      photos = new PhotoBatchRenderer(firstOutputFolder,
+          AbstractPhotoRenderer.Quality.LOW, 40, 30, "png", 2, 64 << 20) {
+          @Override
+          protected long getEstimatedMemory(String name) {
+            throw new IllegalStateException("Unexpected");
+          }
+        }.renderHomes(Arrays.asList(new String [] {homeName}));
+      assertEquals("Wrong photo count", 1, photos.size());
+      assertTrue("Wrong exception", photos.get(0).getException() instanceof IllegalStateException);
+
+      // Check JPEG photos of two homes rendered under a small memory cap are written too
+      File homeCopy = new File(outputFolder, "home2.sh3d");
+      FileInputStream in = new FileInputStream(homeName);
+      FileOutputStream out = new FileOutputStream(homeCopy);
+      byte [] buffer = new byte [8192];
+      for (int length; (length = in.read(buffer)) != -1; ) {
+        out.write(buffer, 0, length);
+      }
+      in.close();
+      out.close();
+      photos = new PhotoBatchRenderer(secondOutputFolder,
+          AbstractPhotoRenderer.Quality.LOW, 40, 30, "jpg", 2, 1 << 10).renderHomes(
+              Arrays.asList(new String [] {homeName, homeCopy.getPath()}));
+      assertEquals("Wrong photo count", 2, photos.size());
+      for (PhotoBatchRenderer.Photo jpegPhoto : photos) {
+        assertNull("Photo not rendered", jpegPhoto.getException());
+        assertTrue("Wrong extension", jpegPhoto.getFile().getName().endsWith(".jpg"));
+        assertNotNull("Unreadable photo", ImageIO.read(jpegPhoto.getFile()));
+      }
+    } finally {
+      for (File folder : new File [] {firstOutputFolder, secondOutputFolder, outputFolder}) {
+        File [] files = folder.listFiles();
+        if (files != null) {
+          for (File file : files) {
+            file.delete();
+          }
+        }
+        folder.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * PhotoImagesPipelineTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.AbstractPhotoRenderer;
+import com.eteks.sweethome3d.model.Camera;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.Selectable;
+import com.eteks.sweethome3d.swing.PhotoImagesPipeline;
+import com.eteks.sweethome3d.viewcontroller.Object3DFactory;
+
+/**
+ * Tests {@link PhotoImagesPipeline} class.
+ * @author Emmanuel Puybaret
+ */
+public class PhotoImagesPipelineTest extends TestCase {
+  private static final int  RENDERER_COUNT = 3;
+  private static final long TIMEOUT        = 10000;
+
+  @Override
+  protected void setUp() throws Exception {
+    FrameIndexRenderer.reset();
+  }
+
+  /**
+   * Checks frames are returned in the order of the path and that renderers
+   * don't get ahead of the last read frame by more than two frames each.
+   */
+  public void testFramesOrderAndBackPressure() throws Exception {
+    Camera [] framesPath = createFramesPath(20);
+    PhotoImagesPipeline pipeline = createPipeline();
+    try {
+      for (int i = 0; i < framesPath.length; i++) {
+        if (i > 0) {
+          // Let renderers go as far as they can before reading next frame
+          waitForPendingFrames(pipeline, Math.min(2 * RENDERER_COUNT, framesPath.length - i));
+          assertTrue("Too many pending frames", FrameIndexRenderer.getMaximumRenderedFrameIndex() < i + 2 * RENDERER_COUNT);
+        }
+        byte [] data = pipeline.getFrameData(framesPath, i);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        assertEquals("Wrong frame", i, getFrameIndex(image));
+      }
+      assertEquals("Wrong rendered frame count", framesPath.length, FrameIndexRenderer.getRenderedFrameCount());
+      waitForRenderersDisposal();
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  /**
+   * Checks closing a pipeline before all its frames are read stops rendering and disposes renderers.
+   */
+  public void testPipelineClose() throws Exception {
+    Camera [] framesPath = createFramesPath(20);
+    PhotoImagesPipeline pipeline = createPipeline();
+    pipeline.getFrameData(framesPath, 0);
+    pipeline.getFrameData(framesPath, 1);
+    pipeline.close();
+    // Renderers are disposed once their thread stopped rendering
+    waitForRenderersDisposal();
+    assertTrue("Too many rendered frames", FrameIndexRenderer.getRenderedFrameCount() <= 2 + 2 * RENDERER_COUNT);
+    // Check a second close is ignored
+    pipeline.close();
+    assertEquals("Renderers disposed twice", RENDERER_COUNT, FrameIndexRenderer.getDisposedRendererCount());
+  }
+
+  private Camera [] createFramesPath(int frameCount) {
+    Camera [] framesPath = new Camera [frameCount];
+    for (int i = 0; i < framesPath.length; i++) {
+      // Store frame index in camera abscissa
+      framesPath [i] = new Camera(i, 0, 170, 0, 0, (float)Math.PI / 3);
+    }
+    return framesPath;
+  }
+
+  private PhotoImagesPipeline createPipeline() throws IOException {
+    return new PhotoImagesPipeline(new Home(), 32, 24, FrameIndexRenderer.class.getName(),
+        null, AbstractPhotoRenderer.Quality.LOW, RENDERER_COUNT);
+  }
+
+  /**
+   * Returns the frame index drawn in the given image by {@link FrameIndexRenderer}.
+   */
+  private int getFrameIndex(BufferedImage image) {
+    return Math.round(new Color(image.getRGB(image.getWidth() / 2, image.getHeight() / 2)).getRed() / 10f);
+  }
+
+  /**
+   * Waits until the given count of frames is encoded and not read in <code>pipeline</code>,
+   * using the notifications sent by the pipeline each time a frame is encoded.
+   */
+  private void waitForPendingFrames(PhotoImagesPipeline pipeline, int frameCount) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    synchronized (pipeline) {
+      while (pipeline.getPendingFrameCount() < frameCount
+          && System.currentTimeMillis() < deadline) {
+        pipeline.wait(Math.max(1, deadline - System.currentTimeMillis()));
+      }
+      assertEquals("Frames not rendered", frameCount, pipeline.getPendingFrameCount());
+    }
+  }
+
+  private void waitForRenderersDisposal() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    synchronized (FrameIndexRenderer.class) {
+      while (FrameIndexRenderer.getDisposedRendererCount() < RENDERER_COUNT
+          && System.currentTimeMillis() < deadline) {
+        FrameIndexRenderer.class.wait(Math.max(1, deadline - System.currentTimeMillis()));
+      }
+      assertEquals("Renderers not disposed", RENDERER_COUNT, FrameIndexRenderer.getDisposedRendererCount());
+    }
+  }
+
+  /**
+   * A renderer filling images with a gray level depending on the abscissa of the camera.
+   * Its counters are shared by all its instances and notified on its class.
+   */
+  public static class FrameIndexRenderer extends AbstractPhotoRenderer {
+    private static int renderedFrameCount;
+    private static int maximumRenderedFrameIndex;
+    private static int disposedRendererCount;
+
+    public FrameIndexRenderer(Home home, Object3DFactory object3dFactory, Quality quality) {
+      super(home, quality);
+    }
+
+    public static synchronized void reset() {
+      renderedFrameCount = 0;
+      maximumRenderedFrameIndex = -1;
+      disposedRendererCount = 0;
+    }
+
+    public static synchronized int getRenderedFrameCount() {
+      return renderedFrameCount;
+    }
+
+    public static synchronized int getMaximumRenderedFrameIndex() {
+      return maximumRenderedFrameIndex;
+    }
+
+    public static synchronized int getDisposedRendererCount() {
+      return disposedRendererCount;
+    }
+
+    @Override
+    public String getName() {
+      return "Frame index";
+    }
+
+    @Override
+    public void render(BufferedImage image, Camera camera, List<? extends Selectable> updatedItems,
+                       ImageObserver observer) throws IOException {
+      int frameIndex = Math.round(camera.getX());
+      Graphics g = image.getGraphics();
+      g.setColor(new Color(frameIndex * 10, frameIndex * 10, frameIndex * 10));
+      g.fillRect(0, 0, image.getWidth(), image.getHeight());
+      g.dispose();
+      synchronized (FrameIndexRenderer.class) {
+        maximumRenderedFrameIndex = Math.max(frameIndex, maximumRenderedFrameIndex);
+        renderedFrameCount++;
+      }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void dispose() {
+      synchronized (FrameIndexRenderer.class) {
+        disposedRendererCount++;
+        FrameIndexRenderer.class.notifyAll();
+      }
+    }
+  }
+}
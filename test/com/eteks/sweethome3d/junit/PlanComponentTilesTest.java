@@ -0,0 +1,165 @@
+/*
+ * PlanComponentTilesTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.DimensionLine;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.Label;
+import com.eteks.sweethome3d.model.Polyline;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Selectable;
+import com.eteks.sweethome3d.model.UserPreferences;
+import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.swing.PlanComponent;
+
+/**
+ * Tests the cache of tiles used to paint home items in {@link PlanComponent}.
+ * @author Emmanuel Puybaret
+ */
+public class PlanComponentTilesTest extends TestCase {
+  /**
+   * Checks the plan painted with tiles is the same as the plan painted directly,
+   * once items are modified and selected.
+   */
+  public void testPlanTiles() throws InterruptedException {
+    Locale.setDefault(Locale.ENGLISH);
+    UserPreferences preferences = new DefaultUserPreferences();
+    CatalogPieceOfFurniture catalogPiece = preferences.getFurnitureCatalog().getCategories().get(0).getFurniture().get(0);
+    Home home = new Home();
+    home.getCompass().setVisible(false);
+    // Create a grid of rooms surrounded by walls 8 cm thick
+    // to get a plan origin at integer coordinates once scaled
+    for (int row = 0; row < 6; row++) {
+      Wall previousWall = null;
+      for (int column = 0; column < 6; column++) {
+        Wall wall = new Wall(column * 300, row * 300, column * 300 + 300, row * 300, 8, 250);
+        home.addWall(wall);
+        if (previousWall != null) {
+          previousWall.setWallAtEnd(wall);
+          wall.setWallAtStart(previousWall);
+        }
+        previousWall = wall;
+        Room room = new Room(new float [][] {{column * 300, row * 300}, {column * 300 + 300, row * 300},
+                                             {column * 300 + 300, row * 300 + 300}, {column * 300, row * 300 + 300}});
+        room.setName("Room " + row + column);
+        room.setAreaVisible(true);
+        home.addRoom(room);
+        HomePieceOfFurniture piece = new HomePieceOfFurniture(catalogPiece);
+        piece.setX(column * 300 + 150);
+        piece.setY(row * 300 + 150);
+        piece.setNameVisible(true);
+        home.addPieceOfFurniture(piece);
+      }
+    }
+    home.addLabel(new Label("Label", 500, 520));
+    home.addDimensionLine(new DimensionLine(100, 700, 800, 700, 20));
+    home.addPolyline(new Polyline(new float [][] {{50, 900}, {600, 1000}, {900, 950}}));
+
+    PlanComponent planComponent = new PlanComponent(home, preferences, null);
+    planComponent.setSize(planComponent.getPreferredSize());
+    // Wait furniture icons are loaded
+    BufferedImage referenceImage = paintWithoutTiles(planComponent);
+    for (int i = 0; i < 50; i++) {
+      Thread.sleep(100);
+      BufferedImage image = paintWithoutTiles(planComponent);
+      if (getDifferentPixelCount(image, referenceImage) == 0) {
+        break;
+      }
+      referenceImage = image;
+    }
+    assertEquals("Different plans", 0, getDifferentPixelCount(paint(planComponent), referenceImage));
+
+    // Modify items twice to test full then partial invalidation of tiles
+    HomePieceOfFurniture piece = home.getFurniture().get(10);
+    Wall wall = home.getWalls().iterator().next();
+    for (int i = 0; i < 2; i++) {
+      piece.setX(piece.getX() + 37);
+      piece.setAngle(piece.getAngle() + 0.5f);
+      wall.setXEnd(wall.getXEnd() + 20);
+      wall.setYEnd(wall.getYEnd() + 15);
+      home.getRooms().get(20).setName("Renamed room " + i);
+      home.getLabels().iterator().next().setText("Modified label " + i);
+      assertEquals("Different plans after modification", 0,
+          getDifferentPixelCount(paint(planComponent), paintWithoutTiles(planComponent)));
+    }
+    home.deletePieceOfFurniture(home.getFurniture().get(3));
+    assertEquals("Different plans after deletion", 0,
+        getDifferentPixelCount(paint(planComponent), paintWithoutTiles(planComponent)));
+
+    // Check selected items are painted once and in the same order as without tiles
+    home.setSelectedItems(Arrays.<Selectable>asList(piece, wall, home.getRooms().get(5), home.getPolylines().get(0),
+        home.getDimensionLines().iterator().next(), home.getLabels().iterator().next()));
+    piece.setY(piece.getY() + 100);
+    assertEquals("Different plans after selection", 0,
+        getDifferentPixelCount(paint(planComponent), paintWithoutTiles(planComponent)));
+    home.setSelectedItems(Arrays.<Selectable>asList(home.getRooms().get(5)));
+    assertEquals("Different plans after deselection", 0,
+        getDifferentPixelCount(paint(planComponent), paintWithoutTiles(planComponent)));
+  }
+
+  private BufferedImage paint(PlanComponent planComponent) {
+    BufferedImage image = new BufferedImage(planComponent.getWidth(), planComponent.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2D = image.createGraphics();
+    planComponent.paint(g2D);
+    g2D.dispose();
+    return image;
+  }
+
+  /**
+   * Paints the given component with a transform which isn't a uniform scale to avoid the use of tiles.
+   */
+  private BufferedImage paintWithoutTiles(PlanComponent planComponent) {
+    BufferedImage image = new BufferedImage(planComponent.getWidth(), planComponent.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2D = image.createGraphics();
+    g2D.scale(1, 1.0000001);
+    planComponent.paint(g2D);
+    g2D.dispose();
+    return image;
+  }
+
+  /**
+   * Returns the count of pixels which color is noticeably different in the two given images.
+   */
+  private int getDifferentPixelCount(BufferedImage image1, BufferedImage image2) {
+    int count = 0;
+    for (int y = 0; y < image1.getHeight(); y++) {
+      for (int x = 0; x < image1.getWidth(); x++) {
+        int rgb1 = image1.getRGB(x, y);
+        int rgb2 = image2.getRGB(x, y);
+        if (Math.abs(((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF)) > 24
+            || Math.abs(((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF)) > 24
+            || Math.abs((rgb1 & 0xFF) - (rgb2 & 0xFF)) > 24) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -24,9 +24,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.swing.undo.UndoManager;
 import javax.swing.undo.UndoableEditSupport;
@@ -34,11 +36,13 @@ import javax.swing.undo.UndoableEditSupport;
 import junit.framework.TestCase;
 
 import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.model.CatalogDoorOrWindow;
 import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
 import com.eteks.sweethome3d.model.CollectionEvent;
 import com.eteks.sweethome3d.model.CollectionListener;
 import com.eteks.sweethome3d.model.FurnitureCategory;
 import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeDoorOrWindow;
 import com.eteks.sweethome3d.model.HomeFurnitureGroup;
 import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.Selectable;
@@ -376,6 +380,179 @@ public class PlanControllerTest extends TestCase {
     assertEquals("Wrong width in plan", 100f, box2.getWidthInPlan());
   }
 
+  /**
+   * Tests items search at a point in a plan containing many pieces, once some of them moved
+   * or were deleted, and checks it returns the same items as a linear scan.
+   */
+  public void testSelectableItemsInLargePlan() {
+    Home home = new Home();
+    Locale.setDefault(Locale.ENGLISH);
+    UserPreferences preferences = new DefaultUserPreferences();
+    PlanController planController =
+        new PlanController(home, preferences, new SwingViewFactory(), null, new UndoableEditSupport());
+    CatalogPieceOfFurniture box = null;
+    for (FurnitureCategory category : preferences.getFurnitureCatalog().getCategories()) {
+      if ("Miscellaneous".equals(category.getName())) {
+        for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+          if ("Box".equals(piece.getName())) {
+            box = piece;
+            break;
+          }
+        }
+      }
+    }
+    assertNotNull("Couldn't find box", box);
+
+    // 1. Add 4000 boxes of 40 cm spread every meter and a wall along each row
+    int rowCount = 50;
+    int columnCount = 80;
+    for (int row = 0; row < rowCount; row++) {
+      for (int column = 0; column < columnCount; column++) {
+        HomePieceOfFurniture piece = new HomePieceOfFurniture(box);
+        piece.setWidth(40);
+        piece.setDepth(40);
+        piece.setWidthInPlan(40);
+        piece.setDepthInPlan(40);
+        piece.setX(column * 100 + 50);
+        piece.setY(row * 100 + 50);
+        home.addPieceOfFurniture(piece);
+      }
+      home.addWall(new Wall(0, row * 100 + 95, columnCount * 100, row * 100 + 95, 5, 250));
+    }
+    List<HomePieceOfFurniture> furniture = home.getFurniture();
+    assertEquals("Wrong count of pieces", rowCount * columnCount, furniture.size());
+
+    // 2. Check the pieces are found at their center and after they moved
+    assertEquals("Piece not found", Arrays.asList(furniture.get(0)), planController.getSelectableItemsAt(50, 50));
+    HomePieceOfFurniture movedPiece = furniture.get(columnCount + 1);
+    movedPiece.setX(movedPiece.getX() + 1000);
+    assertEquals("Moved piece not found", Arrays.asList(furniture.get(columnCount + 11), movedPiece),
+        planController.getSelectableItemsAt(movedPiece.getX(), movedPiece.getY()));
+    assertEquals("Piece found at its old location", 0, planController.getSelectableItemsAt(150, 150).size());
+    Wall firstWall = home.getWalls().iterator().next();
+    assertEquals("Wall not found", Arrays.asList(firstWall), planController.getSelectableItemsAt(2000, 95));
+    home.deletePieceOfFurniture(movedPiece);
+    assertEquals("Deleted piece found", Arrays.asList(furniture.get(columnCount + 11)),
+        planController.getSelectableItemsAt(movedPiece.getX(), movedPiece.getY()));
+
+    // 3. Check search at many points returns the same items as a linear search
+    for (int i = 0; i < 2000; i++) {
+      float x = i % columnCount * 100 + 50;
+      float y = i / columnCount % rowCount * 100 + 50;
+      Set<Selectable> items = new HashSet<Selectable>();
+      for (HomePieceOfFurniture piece : home.getFurniture()) {
+        if (piece.containsPoint(x, y, 2)) {
+          items.add(piece);
+        }
+      }
+      for (Wall wall : home.getWalls()) {
+        if (wall.containsPoint(x, y, 2)) {
+          items.add(wall);
+        }
+      }
+      assertEquals("Wrong items at " + x + ", " + y, items,
+          new HashSet<Selectable>(planController.getSelectableItemsAt(x, y)));
+    }
+  }
+
+  /**
+   * Tests the walls area used to bind doors and windows to walls is updated once walls are moved.
+   */
+  public void testMovedWallsArea() {
+    Home home = new Home();
+    UserPreferences preferences = new DefaultUserPreferences();
+    PlanController planController =
+        new PlanController(home, preferences, new SwingViewFactory(), null, new UndoableEditSupport());
+    List<Wall> walls = addRoomWalls(home);
+    HomeDoorOrWindow window = addWindow(home, preferences, 200, 0);
+
+    // 1. Move window along its wall to compute walls area
+    planController.moveItems(Arrays.asList(window), 10, 0);
+    assertTrue("Window not bound to wall", window.isBoundToWall());
+
+    // 2. Move selected walls then the window on the moved wall
+    home.setSelectedItems(walls);
+    planController.moveItems(walls, 0, 500);
+    assertEquals("Wrong wall location", 500f, walls.get(0).getYStart());
+    planController.moveItems(Arrays.asList(window), 0, 500);
+    assertTrue("Window not bound to moved wall", window.isBoundToWall());
+
+    // 3. Move walls away from window
+    planController.moveItems(walls, 0, 500);
+    planController.moveItems(Arrays.asList(window), 10, 0);
+    assertFalse("Window still bound to wall", window.isBoundToWall());
+  }
+
+  /**
+   * Tests a window bound to a wall stays bound once moved with walls, whatever the order of moved items.
+   */
+  public void testWallsAndWindowMove() {
+    Home home = new Home();
+    UserPreferences preferences = new DefaultUserPreferences();
+    PlanController planController =
+        new PlanController(home, preferences, new SwingViewFactory(), null, new UndoableEditSupport());
+    List<Wall> walls = addRoomWalls(home);
+    HomeDoorOrWindow window = addWindow(home, preferences, 200, 0);
+    planController.moveItems(Arrays.asList(window), 10, 0);
+    assertTrue("Window not bound to wall", window.isBoundToWall());
+
+    // 1. Move window listed before walls
+    List<Selectable> movedItems = new ArrayList<Selectable>();
+    movedItems.add(window);
+    movedItems.addAll(walls);
+    planController.moveItems(movedItems, 0, 500);
+    assertEquals("Wrong window location", 500f, window.getY());
+    assertTrue("Window not bound to wall after move", window.isBoundToWall());
+
+    // 2. Move window listed after walls
+    movedItems.remove(window);
+    movedItems.add(window);
+    planController.moveItems(movedItems, 300, 0);
+    assertTrue("Window not bound to wall after second move", window.isBoundToWall());
+  }
+
+  /**
+   * Adds to <code>home</code> 4 walls joined to each other around a 400 cm wide square
+   * and returns them.
+   */
+  private List<Wall> addRoomWalls(Home home) {
+    List<Wall> walls = Arrays.asList(new Wall(0, 0, 400, 0, 20, 250),
+        new Wall(400, 0, 400, 400, 20, 250),
+        new Wall(400, 400, 0, 400, 20, 250),
+        new Wall(0, 400, 0, 0, 20, 250));
+    for (int i = 0; i < walls.size(); i++) {
+      Wall wall = walls.get(i);
+      Wall nextWall = walls.get((i + 1) % walls.size());
+      wall.setWallAtEnd(nextWall);
+      nextWall.setWallAtStart(wall);
+      home.addWall(wall);
+    }
+    return walls;
+  }
+
+  /**
+   * Adds to <code>home</code> a window bound to wall at the given location and returns it.
+   */
+  private HomeDoorOrWindow addWindow(Home home, UserPreferences preferences, float x, float y) {
+    CatalogDoorOrWindow windowModel = null;
+    for (FurnitureCategory category : preferences.getFurnitureCatalog().getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        if (piece instanceof CatalogDoorOrWindow) {
+          windowModel = (CatalogDoorOrWindow)piece;
+          break;
+        }
+      }
+    }
+    assertNotNull("Couldn't find window", windowModel);
+    HomeDoorOrWindow window = new HomeDoorOrWindow(windowModel);
+    window.setX(x);
+    window.setY(y);
+    window.setDepth(20);
+    window.setBoundToWall(true);
+    home.addPieceOfFurniture(window);
+    return window;
+  }
+
   /**
    * Asserts the start point and the end point of
    * <code>wall</code> are at (<code>xStart</code>, <code>yStart</code>), (<code>xEnd</code>, <code>yEnd</code>).
@@ -0,0 +1,148 @@
+/*
+ * TextureCacheTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+import javax.media.j3d.ImageComponent2D;
+import javax.media.j3d.Texture;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.ContentDigestManager;
+import com.eteks.sweethome3d.j3d.TextureCache;
+import com.eteks.sweethome3d.j3d.TextureManager;
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * Tests {@link TextureCache} class and the mipmap levels built by {@link TextureManager}.
+ * @author Emmanuel Puybaret
+ */
+public class TextureCacheTest extends TestCase {
+  /**
+   * Checks large images are scaled down and the mipmap levels read from cache
+   * are the same as the built ones.
+   */
+  public void testTextureCache() throws IOException {
+    File cacheFolder = File.createTempFile("cache", "");
+    cacheFolder.delete();
+    TextureCache textureCache = new TextureCache(cacheFolder, 64 << 20) {
+        @Override
+        protected byte [] getContentDigest(Content content) {
+          return ContentDigestManager.getInstance().getContentDigest(content);
+        }
+      };
+    // Create an image larger than the default maximum size of textures
+    BufferedImage image = new BufferedImage(4100, 1000, BufferedImage.TYPE_INT_RGB);
+    Graphics g = image.getGraphics();
+    g.setColor(Color.RED);
+    g.fillRect(0, 0, 2050, 1000);
+    g.setColor(Color.BLUE);
+    g.fillRect(2050, 0, 2050, 1000);
+    g.dispose();
+    File imageFile = File.createTempFile("texture", ".png");
+    imageFile.deleteOnExit();
+    ImageIO.write(image, "png", imageFile);
+    Content imageContent = new URLContent(imageFile.toURI().toURL());
+
+    TextureManager textureManager = TextureManager.getInstance();
+    try {
+      textureManager.setTextureCache(textureCache);
+      assertNull("Texture in cache", textureCache.readMipmaps(imageContent, 0, 2048));
+      Texture builtTexture = textureManager.loadTexture(imageContent);
+      assertEquals("Wrong width", 2048, builtTexture.getWidth());
+      assertEquals("Wrong height", 1024, builtTexture.getHeight());
+      assertEquals("Wrong mipmap mode", Texture.MULTI_LEVEL_MIPMAP, builtTexture.getMipMapMode());
+      assertEquals("Wrong level count", 12, builtTexture.getImages().length);
+      BufferedImage builtImage = ((ImageComponent2D)builtTexture.getImage(0)).getImage();
+      assertEquals("Wrong left color", Color.RED.getRGB(), builtImage.getRGB(10, 10));
+      assertEquals("Wrong right color", Color.BLUE.getRGB(), builtImage.getRGB(2040, 10));
+      assertEquals("Texture not stored in cache", 1, cacheFolder.listFiles().length);
+
+      BufferedImage [] cachedLevels = textureCache.readMipmaps(imageContent, 0, 2048);
+      assertNotNull("Texture not in cache", cachedLevels);
+      assertEquals("Wrong level count", 12, cachedLevels.length);
+      Texture cachedTexture = textureManager.loadTexture(imageContent);
+      assertEquals("Wrong cached width", 2048, cachedTexture.getWidth());
+      assertEquals("Wrong cached level count", 12, cachedTexture.getImages().length);
+      for (int i = 0; i < cachedLevels.length; i++) {
+        BufferedImage builtLevel = ((ImageComponent2D)builtTexture.getImage(i)).getImage();
+        BufferedImage cachedLevel = ((ImageComponent2D)cachedTexture.getImage(i)).getImage();
+        assertEquals("Wrong level width", builtLevel.getWidth(), cachedLevel.getWidth());
+        assertEquals("Wrong level height", builtLevel.getHeight(), cachedLevel.getHeight());
+        assertEquals("Wrong level pixel", builtLevel.getRGB(0, 0), cachedLevel.getRGB(0, 0));
+      }
+      assertEquals("Wrong last level size", 1, cachedLevels [11].getWidth() * cachedLevels [11].getHeight());
+
+      textureCache.clear();
+      assertEquals("Cache not cleared", 0, cacheFolder.listFiles().length);
+    } finally {
+      textureManager.setTextureCache(null);
+      textureCache.clear();
+      cacheFolder.delete();
+    }
+  }
+
+  /**
+   * Checks the least recently used textures are deleted once the cache is full.
+   */
+  public void testTextureCacheEviction() throws IOException, InterruptedException {
+    File cacheFolder = File.createTempFile("cache", "");
+    cacheFolder.delete();
+    // Use a cache able to store 2 textures of one pixel (25 bytes each)
+    TextureCache textureCache = new TextureCache(cacheFolder, 70) {
+        @Override
+        protected byte [] getContentDigest(Content content) {
+          return ContentDigestManager.getInstance().getContentDigest(content);
+        }
+      };
+    File imageFile = File.createTempFile("texture", ".png");
+    imageFile.deleteOnExit();
+    BufferedImage [] levels = {new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)};
+    ImageIO.write(levels [0], "png", imageFile);
+    Content imageContent = new URLContent(imageFile.toURI().toURL());
+    try {
+      // Store the texture rotated with 3 different angles and read the first one before storing the last one
+      assertTrue("Texture not stored", textureCache.writeMipmaps(imageContent, 0, 2048, levels));
+      Thread.sleep(20);
+      assertTrue("Texture not stored", textureCache.writeMipmaps(imageContent, 1, 2048, levels));
+      Thread.sleep(20);
+      assertNotNull("Texture not in cache", textureCache.readMipmaps(imageContent, 0, 2048));
+      Thread.sleep(20);
+      assertTrue("Texture not stored", textureCache.writeMipmaps(imageContent, 2, 2048, levels));
+      assertEquals("Wrong file count", 2, cacheFolder.listFiles().length);
+      assertNotNull("Recently read texture deleted", textureCache.readMipmaps(imageContent, 0, 2048));
+      assertNull("Least recently used texture not deleted", textureCache.readMipmaps(imageContent, 1, 2048));
+      assertNotNull("Last texture not in cache", textureCache.readMipmaps(imageContent, 2, 2048));
+
+      textureCache.clear();
+      assertEquals("Cache not cleared", 0, cacheFolder.listFiles().length);
+    } finally {
+      textureCache.clear();
+      cacheFolder.delete();
+    }
+  }
+}
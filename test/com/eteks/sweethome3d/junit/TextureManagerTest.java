@@ -0,0 +1,136 @@
+/*
+ * TextureManagerTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.media.j3d.Texture;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.TextureManager;
+import com.eteks.sweethome3d.tools.URLContent;
+import com.sun.j3d.utils.image.TextureLoader;
+
+/**
+ * Tests texture sharing in {@link TextureManager}.
+ * @author Emmanuel Puybaret
+ */
+public class TextureManagerTest extends TestCase {
+  /**
+   * Checks textures with the same image are shared, even when they're shared concurrently.
+   */
+  public void testShareTexture() throws InterruptedException {
+    final TextureManager textureManager = TextureManager.getInstance();
+    textureManager.clear();
+    Texture redTexture = createTexture(0xFFFF0000, 0xFFFF0000);
+    assertSame("Texture not shared", redTexture, textureManager.shareTexture(redTexture));
+    assertSame("Texture not shared", redTexture, textureManager.shareTexture(redTexture));
+    assertSame("Same image not shared", redTexture, textureManager.shareTexture(createTexture(0xFFFF0000, 0xFFFF0000)));
+    Texture blueTexture = createTexture(0xFFFF0000, 0xFF0000FF);
+    assertSame("Different image shared", blueTexture, textureManager.shareTexture(blueTexture));
+    assertFalse("Opaque texture", textureManager.isTextureTransparent(blueTexture));
+    Texture transparentTexture = createTexture(0xFFFF0000, 0x000000FF);
+    assertSame("Different image shared", transparentTexture, textureManager.shareTexture(transparentTexture));
+    assertTrue("Transparent texture", textureManager.isTextureTransparent(transparentTexture));
+
+    // Share textures of 100 different images from 4 threads
+    final List<Texture> sharedTextures = new ArrayList<Texture>();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 400; i++) {
+      final int color = 0xFF000000 | (i % 100);
+      executor.execute(new Runnable() {
+          public void run() {
+            Texture sharedTexture = textureManager.shareTexture(createTexture(color, color));
+            synchronized (sharedTextures) {
+              sharedTextures.add(sharedTexture);
+            }
+          }
+        });
+    }
+    executor.shutdown();
+    assertTrue("Sharing too long", executor.awaitTermination(1, TimeUnit.MINUTES));
+    List<Texture> distinctTextures = new ArrayList<Texture>();
+    for (Texture texture : sharedTextures) {
+      boolean found = false;
+      for (Texture distinctTexture : distinctTextures) {
+        found |= texture == distinctTexture;
+      }
+      if (!found) {
+        distinctTextures.add(texture);
+      }
+    }
+    assertEquals("Wrong count of shared textures", 100, distinctTextures.size());
+    textureManager.clear();
+  }
+
+  /**
+   * Checks shared textures are released once they're not used anymore and evicted from cache.
+   */
+  public void testReleaseTexture() throws InterruptedException {
+    TextureManager textureManager = TextureManager.getInstance();
+    textureManager.clear();
+    Texture texture = createTexture(0xFF00FF00, 0xFF00FF00);
+    assertSame("Texture not shared", texture, textureManager.shareTexture(texture));
+    WeakReference<Texture> textureReference = new WeakReference<Texture>(texture);
+    texture = null;
+    assertTrue("Shared texture not released", isGarbageCollected(textureReference));
+
+    // Load a texture in cache then evict it
+    final Texture [] loadedTexture = new Texture [1];
+    textureManager.loadTexture(new URLContent(TextureManagerTest.class.getResource("resources/test.png")), 0, true,
+        new TextureManager.TextureObserver() {
+          public void textureUpdated(Texture texture) {
+            loadedTexture [0] = texture;
+          }
+        });
+    textureReference = new WeakReference<Texture>(loadedTexture [0]);
+    loadedTexture [0] = null;
+    assertFalse("Cached texture released", isGarbageCollected(textureReference));
+    long maximumSize = textureManager.getLoadedTexturesCache().getMaximumSize();
+    textureManager.getLoadedTexturesCache().setMaximumSize(0);
+    assertTrue("Evicted texture not released", isGarbageCollected(textureReference));
+    textureManager.getLoadedTexturesCache().setMaximumSize(maximumSize);
+    textureManager.clear();
+  }
+
+  private boolean isGarbageCollected(WeakReference<?> reference) throws InterruptedException {
+    for (int i = 0; i < 20 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    return reference.get() == null;
+  }
+
+  private static Texture createTexture(int leftColor, int rightColor) {
+    BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(0, 0, leftColor);
+    image.setRGB(0, 1, leftColor);
+    image.setRGB(1, 0, rightColor);
+    image.setRGB(1, 1, rightColor);
+    return new TextureLoader(image).getTexture();
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * WallsAreaCacheTest.java 18 oct. 2026
+ *
+ * Copyright (c) 2024 Space Mushrooms <info@sweethome3d.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.geom.Area;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.viewcontroller.WallsAreaCache;
+
+/**
+ * Tests {@link WallsAreaCache} class.
+ * @author Emmanuel Puybaret
+ */
+public class WallsAreaCacheTest extends TestCase {
+  /**
+   * Checks the area computed incrementally by the cache matches the union
+   * of all the walls after walls are modified or deleted.
+   */
+  public void testWallsAreaCache() {
+    // Create a grid of 30 x 25 rooms with joined walls
+    List<Wall> walls = new ArrayList<Wall>();
+    for (int row = 0; row <= 25; row++) {
+      Wall previousWall = null;
+      for (int column = 0; column < 30; column++) {
+        previousWall = addJoinedWall(walls, previousWall, column * 300, row * 300, (column + 1) * 300, row * 300);
+      }
+    }
+    for (int column = 0; column <= 30; column++) {
+      Wall previousWall = null;
+      for (int row = 0; row < 25; row++) {
+        previousWall = addJoinedWall(walls, previousWall, column * 300, row * 300, column * 300, (row + 1) * 300);
+      }
+    }
+
+    Area wallsArea = getWallsArea(walls);
+    WallsAreaCache wallsAreaCache = new WallsAreaCache(false);
+    assertAreasEqual(wallsArea, wallsAreaCache.getArea(walls));
+
+    // Move the end of a wall and the start of the wall joined to it
+    Wall wall = walls.get(100);
+    Wall wallAtEnd = wall.getWallAtEnd();
+    wall.setXEnd(wall.getXEnd() + 37);
+    wall.setYEnd(wall.getYEnd() + 20);
+    wallAtEnd.setXStart(wall.getXEnd());
+    wallAtEnd.setYStart(wall.getYEnd());
+    wallsAreaCache.invalidateWall(wall);
+    wallsAreaCache.invalidateWall(wallAtEnd);
+    Area incrementalWallsArea = wallsAreaCache.getArea(walls);
+    assertAreasEqual(getWallsArea(walls), incrementalWallsArea);
+    assertFalse("Area not updated", incrementalWallsArea.equals(wallsArea));
+
+    // Delete a wall
+    walls.remove(wall);
+    wall.getWallAtStart().setWallAtEnd(null);
+    wallAtEnd.setWallAtStart(null);
+    assertAreasEqual(getWallsArea(walls), wallsAreaCache.getArea(walls));
+  }
+
+  private Wall addJoinedWall(List<Wall> walls, Wall previousWall,
+                             float xStart, float yStart, float xEnd, float yEnd) {
+    Wall wall = new Wall(xStart, yStart, xEnd, yEnd, 10, 250);
+    if (previousWall != null) {
+      previousWall.setWallAtEnd(wall);
+      wall.setWallAtStart(previousWall);
+    }
+    walls.add(wall);
+    return wall;
+  }
+
+  /**
+   * Returns the union of the areas of the given walls computed one after the other.
+   */
+  private Area getWallsArea(Collection<Wall> walls) {
+    Area wallsArea = new Area();
+    for (Wall wall : walls) {
+      float [][] points = wall.getPoints();
+      GeneralPath path = new GeneralPath();
+      path.moveTo(points [0][0], points [0][1]);
+      for (int i = 1; i < points.length; i++) {
+        path.lineTo(points [i][0], points [i][1]);
+      }
+      path.closePath();
+      wallsArea.add(new Area(path));
+    }
+    return wallsArea;
+  }
+
+  /**
+   * Asserts the given areas cover the same surface, ignoring the degenerated parts
+   * that may be produced by union computed in a different order.
+   */
+  private void assertAreasEqual(Area expectedArea, Area area) {
+    Area difference = new Area(expectedArea);
+    difference.exclusiveOr(area);
+    double surface = 0;
+    double pathSurface = 0;
+    double [] point = new double [6];
+    double xStart = 0;
+    double yStart = 0;
+    double xPrevious = 0;
+    double yPrevious = 0;
+    for (PathIterator it = difference.getPathIterator(null); !it.isDone(); it.next()) {
+      switch (it.currentSegment(point)) {
+        case PathIterator.SEG_MOVETO :
+          xStart = xPrevious = point [0];
+          yStart = yPrevious = point [1];
+          pathSurface = 0;
+          break;
+        case PathIterator.SEG_LINETO :
+          pathSurface += xPrevious * point [1] - point [0] * yPrevious;
+          xPrevious = point [0];
+          yPrevious = point [1];
+          break;
+        case PathIterator.SEG_CLOSE :
+          pathSurface += xPrevious * yStart - xStart * yPrevious;
+          surface += Math.abs(pathSurface) / 2;
+          break;
+      }
+    }
+    assertEquals("Different areas", 0, surface, 1E-3);
+  }
+}